@@ -9,14 +9,25 @@ import com.ntak.pearlzip.archive.pub.profile.component.ReadServiceComponent;
 import com.ntak.pearlzip.archive.pub.profile.component.WriteServiceComponent;
 
 import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
 
+import static com.ntak.pearlzip.archive.pub.ArchiveReadService.IN_MEMORY_ARCHIVES;
+
 public class CommonsCompressConstants {
     public static final ArchiveServiceProfile PROFILE = new ArchiveServiceProfile("pearl-zip-archive-acc");
+    public static final ArchiveServiceProfile ZIP_PROFILE = new ArchiveServiceProfile("pearl-zip-archive-acc-zip");
+    public static final ArchiveServiceProfile COMPRESSED_TAR_PROFILE = new ArchiveServiceProfile("pearl-zip-archive-acc-compressed-tar");
 
     static {
         PROFILE.addComponent(new GeneralComponent(Set.of("tgz"), Set.of("gz", "xz", "bz2", "lz", "lz4", "lzma", "z", "sz"), null));
         PROFILE.addComponent(new WriteServiceComponent(Set.of("zip", "jar", "gz", "xz", "bz2", "tar", "tgz"), Collections.emptyMap()));
-        PROFILE.addComponent(new ReadServiceComponent(Set.of("tar"), Collections.emptyMap()));
+        PROFILE.addComponent(new ReadServiceComponent(Set.of("tar"), Map.of(IN_MEMORY_ARCHIVES, "true")));
+
+        ZIP_PROFILE.addComponent(new GeneralComponent(Set.of("tgz"), Set.of("gz", "xz", "bz2", "lz", "lz4", "lzma", "z", "sz"), null));
+        ZIP_PROFILE.addComponent(new ReadServiceComponent(Set.of("zip", "jar"), Map.of(IN_MEMORY_ARCHIVES, "true")));
+
+        COMPRESSED_TAR_PROFILE.addComponent(new GeneralComponent(Set.of("tgz", "txz", "tbz2"), Set.of("gz", "xz", "bz2", "lz", "lz4", "lzma", "z", "sz", "tgz", "txz", "tbz2"), null));
+        COMPRESSED_TAR_PROFILE.addComponent(new ReadServiceComponent(Set.of("tgz", "tar.gz", "txz", "tar.xz", "tbz2", "tar.bz2"), Collections.emptyMap()));
     }
 }
@@ -20,8 +20,25 @@ public class CommonsCompressLoggingConstants {
     public static final String HEADER_ACC_ADD_FILE_ISSUE = "header.ntak.pearl-zip.acc.add-file-issue";
     public static final String BODY_ACC_ADD_FILE_ISSUE = "body.ntak.pearl-zip.acc.add-file-issue";
 
+    public static final String LOG_ACC_APPLY_CHANGES_ISSUE = "logging.ntak.pearl-zip.acc.apply-changes-issue";
+    public static final String TITLE_ACC_APPLY_CHANGES_ISSUE = "title.ntak.pearl-zip.acc.apply-changes-issue";
+    public static final String HEADER_ACC_APPLY_CHANGES_ISSUE = "header.ntak.pearl-zip.acc.apply-changes-issue";
+    public static final String BODY_ACC_APPLY_CHANGES_ISSUE = "body.ntak.pearl-zip.acc.apply-changes-issue";
+    public static final String LOG_ACC_APPLY_CHANGES_MISSING_ENTRIES = "logging.ntak.pearl-zip.acc.apply-changes-missing-entries";
+    public static final String LOG_ACC_APPLY_CHANGES_EXISTING_ENTRIES = "logging.ntak.pearl-zip.acc.apply-changes-existing-entries";
+    public static final String LOG_ACC_APPLY_CHANGES_UNSUPPORTED = "logging.ntak.pearl-zip.acc.apply-changes-unsupported";
+
     public static final String LOG_ACC_PREPARE_ENTRY_ISSUE = "logging.ntak.pearl-zip.acc.prepare-entry-issue";
     public static final String LOG_ACC_EB_FINISHING_PROCESS = "logging.ntak.pearl-zip.acc.event-bus.finishing-process";
+    public static final String LOG_ACC_CHECKPOINT_INDEX_ISSUE = "logging.ntak.pearl-zip.acc.checkpoint-index-issue";
+
+    public static final String CNS_ACC_COMPRESSION_THREADS = "configuration.ntak.pearl-zip.acc.compression-threads";
+    public static final String CNS_ACC_SCATTER_LIMIT = "configuration.ntak.pearl-zip.acc.scatter-limit";
+    public static final long DEFAULT_SCATTER_LIMIT = 256 * 1024 * 1024;
+    public static final String CNS_ACC_CHECKPOINT_SPAN = "configuration.ntak.pearl-zip.acc.checkpoint-span";
+    public static final long DEFAULT_CHECKPOINT_SPAN = 8 * 1024 * 1024;
+    // Root of the PearlZip store, as configured for the application
+    public static final String CNS_STORE_ROOT = "configuration.ntak.pearl-zip.store.temp";
 
     public static final String TGZ = "TGZ";
     public static final String BZ2 = "BZ2";
@@ -3,40 +3,45 @@
  */
 package com.ntak.pearlzip.archive.acc.pub;
 
-import com.ntak.pearlzip.archive.constants.ConfigurationConstants;
 import com.ntak.pearlzip.archive.constants.LoggingConstants;
 import com.ntak.pearlzip.archive.pub.*;
-import org.apache.commons.compress.archivers.ArchiveException;
-import org.apache.commons.compress.archivers.ArchiveInputStream;
-import org.apache.commons.compress.archivers.ArchiveStreamFactory;
+import com.ntak.pearlzip.archive.util.DirectorySynthesiser;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
-import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarFile;
 import org.apache.commons.compress.utils.IOUtils;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.core.LoggerContext;
-import org.apache.logging.log4j.util.Strings;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.ZoneId;
-import java.util.Collections;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.*;
+import java.util.function.Consumer;
 
 import static com.ntak.pearlzip.archive.acc.constants.CommonsCompressConstants.PROFILE;
-import static com.ntak.pearlzip.archive.acc.util.CommonsCompressUtil.getArchiveFormat;
-import static com.ntak.pearlzip.archive.constants.ConfigurationConstants.CNS_NTAK_PEARL_ZIP_ICON_FOLDER;
+import static com.ntak.pearlzip.archive.acc.util.CommonsCompressUtil.openChannel;
+import static com.ntak.pearlzip.archive.acc.util.CommonsCompressUtil.transfer;
 import static com.ntak.pearlzip.archive.constants.LoggingConstants.*;
 import static com.ntak.pearlzip.archive.util.LoggingUtil.resolveTextKey;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
 
 /**
  *   Implementation of an Archive Read Service, which utilises the Apache Commons Compress library underneath for
  *   the tar format. PAX headers are supported intrinsically for long file names.
+ *   <br/><br/>
+ *   Archives are read through {@link TarFile}, which reads only the 512 byte headers of each entry and seeks past the
+ *   entry data using the size recorded in the header. The data offset of each entry is recorded as the headers are
+ *   read, so listing and testing an archive costs I/O proportional to the number of entries rather than the size of
+ *   the archive, and extracting an entry seeks straight to its data. Entry data is copied to the target file with
+ *   FileChannel.transferTo, as tar members are stored without compression. Archives held in the InMemoryArchiveStore
+ *   are read from memory.
  *
  *   @author Aashutos Kakshepati
  */
@@ -46,62 +51,50 @@ public class CommonsCompressArchiveReadService implements ArchiveReadService {
 
     @Override
     public List<FileInfo> listFiles(long sessionId, ArchiveInfo archiveInfo) {
-        String archivePath = archiveInfo.getArchivePath();
-        List<FileInfo> files = new LinkedList<>();
-        final String extension = getArchiveFormat(archivePath);
-        try(final InputStream iStream = Files.newInputStream(Path.of(archivePath));
-            final ArchiveInputStream aiStream =
-                    ArchiveStreamFactory.findAvailableArchiveInputStreamProviders()
-                                        .get(extension)
-                                        .createArchiveInputStream(extension, iStream, null)
-        ) {
-            if (aiStream instanceof TarArchiveInputStream tais) {
-                TarArchiveEntry entry;
-                int index = 0;
-                while ((entry = tais.getNextTarEntry()) != null) {
-                    String name = entry.getName();
-                    if (entry.isDirectory()) {
-                        name = name.substring(0,name.length()-1);
-                    }
-                    FileInfo fileInfo = new FileInfo(index++,
-                                                     (int)name.chars().filter(c -> c == '/').count(),
-                                                     name,
-                                                     0,
-                                                     entry.getSize(),
-                                                     entry.getRealSize(),
-                                                     entry.getLastModifiedDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime(),
-                                                     entry.getLastModifiedDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime(), null, entry.getUserName(),
-                                                     entry.getGroupName(), 0, "", entry.isDirectory(), false,
-                                                     Collections.emptyMap());
-                    files.add(fileInfo);
+        FileInfoStore files = new FileInfoStore();
+        listFiles(sessionId, archiveInfo, files::addAll);
+        files.trimToSize();
+        return files;
+    }
+
+    @Override
+    public boolean listFiles(long sessionId, ArchiveInfo archiveInfo, Consumer<List<FileInfo>> batchConsumer) {
+        try(final TarFile tarFile = new TarFile(openChannel(Path.of(archiveInfo.getArchivePath())))) {
+            final DirectorySynthesiser synthesiser = new DirectorySynthesiser('/');
+            List<FileInfo> batch = new ArrayList<>();
+            int index = 0;
+            for (TarArchiveEntry entry : tarFile.getEntries()) {
+                String name = entry.getName();
+                if (entry.isDirectory()) {
+                    name = name.substring(0,name.length()-1);
                 }
+                FileInfo fileInfo = new FileInfo(index++,
+                                                 (int)name.chars().filter(c -> c == '/').count(),
+                                                 name,
+                                                 0,
+                                                 entry.getSize(),
+                                                 entry.getRealSize(),
+                                                 entry.getLastModifiedDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime(),
+                                                 entry.getLastModifiedDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime(), null, entry.getUserName(),
+                                                 entry.getGroupName(), 0, "", entry.isDirectory(), false,
+                                                 Collections.emptyMap());
+                batch.add(fileInfo);
+                synthesiser.add(name);
 
-                // Handle file path only archives
-                List<String> rootFileNames =
-                        files.stream()
-                             .filter(f -> Paths.get(f.getFileName()).getParent() != null)
-                             .map(f-> Paths.get(f.getFileName()).getParent().toString())
-                             .filter(r-> !Strings.isEmpty(r) && files.stream().map(FileInfo::getFileName).noneMatch(f->f.equals(r)))
-                             .distinct()
-                             .collect(Collectors.toList());
-
-                if (rootFileNames.size() > 0) {
-                    for (String filename : rootFileNames) {
-                        files.add(new FileInfo(files.size()+1,
-                                               filename.length() - filename.replace(File.separator, "").length()
-                                , filename, 0,
-                                               0,0
-                                ,null,null,
-                                               null,null,null,0,
-                                               null,
-                                               true,false,
-                                               Collections.singletonMap(
-                                                       ConfigurationConstants.KEY_ICON_REF, System.getProperty(
-                                                               CNS_NTAK_PEARL_ZIP_ICON_FOLDER, ""))));
-                    }
+                if (batch.size() == LISTING_BATCH_SIZE) {
+                    batchConsumer.accept(batch);
+                    batch = new ArrayList<>();
                 }
             }
-        } catch(IOException | ArchiveException e) {
+
+            // Handle file path only archives. Implicit folders are only known once the whole archive has been
+            // read, so they are pushed with the final batch.
+            batch.addAll(synthesiser.synthesise(index));
+            if (!batch.isEmpty()) {
+                batchConsumer.accept(batch);
+            }
+            return true;
+        } catch(IOException e) {
             // LOG: %s on listing contents. Message: %s
             // TITLE: Issue listing entries from archive
             // HEADER: The archive %s could not be interrogated for contents
@@ -114,9 +107,8 @@ public class CommonsCompressArchiveReadService implements ArchiveReadService {
                                               resolveTextKey(BODY_ARCHIVE_SERVICE_LISTING_EXCEPTION, e.getClass().getCanonicalName()),
                                               e,
                                               archiveInfo));
+            return false;
         }
-
-        return files;
     }
 
     @Override
@@ -127,24 +119,15 @@ public class CommonsCompressArchiveReadService implements ArchiveReadService {
 
     @Override
     public boolean extractFile(long sessionId, Path targetLocation, ArchiveInfo archiveInfo, FileInfo file) {
-        final String archivePath = archiveInfo.getArchivePath();
-        final String extension = getArchiveFormat(archivePath);
-        try(final InputStream iStream = Files.newInputStream(Path.of(archivePath));
-            final ArchiveInputStream aiStream =
-                    ArchiveStreamFactory.findAvailableArchiveInputStreamProviders()
-                                        .get(extension)
-                                        .createArchiveInputStream(extension, iStream, null)
-        ) {
-            if (aiStream instanceof TarArchiveInputStream tais) {
-                TarArchiveEntry entry;
-                while ((entry = tais.getNextTarEntry()) != null) {
-                    if (entry.getName().equals(file.getFileName())) {
-                        IOUtils.copy(aiStream, Files.newOutputStream(targetLocation));
-                        return true;
-                    }
+        try(final SeekableByteChannel channel = openChannel(Path.of(archiveInfo.getArchivePath()));
+            final TarFile tarFile = new TarFile(channel)) {
+            for (TarArchiveEntry entry : tarFile.getEntries()) {
+                if (entry.getName().equals(file.getFileName())) {
+                    extractEntry(channel, tarFile, entry, targetLocation);
+                    return true;
                 }
             }
-        } catch(IOException | ArchiveException e) {
+        } catch(IOException e) {
             // LOG: %s on extracting file(s). Message: %s
             // TITLE: Issue extracting archive
             // HEADER: The archive %s could not be extracted
@@ -169,23 +152,104 @@ public class CommonsCompressArchiveReadService implements ArchiveReadService {
     }
 
     @Override
-    public boolean testArchive(long sessionId, String archivePath) {
-        final String extension = getArchiveFormat(archivePath);
-        try(final InputStream iStream = Files.newInputStream(Path.of(archivePath));
-            final ArchiveInputStream aiStream =
-                    ArchiveStreamFactory.findAvailableArchiveInputStreamProviders()
-                                        .get(extension)
-                                        .createArchiveInputStream(extension, iStream, null)
-        ) {
-            if (aiStream instanceof TarArchiveInputStream tais) {
-                TarArchiveEntry entry;
-                while ((entry = tais.getNextTarEntry()) != null) {
-                    if (!entry.isCheckSumOK()) {
-                        return false;
+    public boolean extractFile(long sessionId, OutputStream targetStream, ArchiveInfo archiveInfo, FileInfo file) {
+        try(final TarFile tarFile = new TarFile(openChannel(Path.of(archiveInfo.getArchivePath())))) {
+            for (TarArchiveEntry entry : tarFile.getEntries()) {
+                if (!entry.isDirectory() && entry.getName().equals(file.getFileName())) {
+                    try(InputStream iStream = tarFile.getInputStream(entry)) {
+                        IOUtils.copy(iStream, targetStream);
                     }
+                    return true;
                 }
             }
-        } catch(IOException | ArchiveException e) {
+        } catch(IOException e) {
+            // LOG: %s on extracting file(s). Message: %s
+            // TITLE: Issue extracting archive
+            // HEADER: The archive %s could not be extracted
+            // BODY: Exception %s was thrown on the attempt to extract from the archive. Further details can be found
+            // below.
+            LOGGER.error(resolveTextKey(LoggingConstants.LOG_ARCHIVE_SERVICE_EXTRACT_EXCEPTION,
+                                        e.getClass().getCanonicalName(), e.getMessage()));
+            DEFAULT_BUS.post(new ErrorMessage(sessionId,
+                                              resolveTextKey(TITLE_ARCHIVE_SERVICE_EXTRACT_EXCEPTION),
+                                              resolveTextKey(HEADER_ARCHIVE_SERVICE_EXTRACT_EXCEPTION, archiveInfo.getArchivePath()),
+                                              resolveTextKey(BODY_ARCHIVE_SERVICE_EXTRACT_EXCEPTION, e.getClass().getCanonicalName()),
+                                              e,
+                                              archiveInfo));
+        }
+        return false;
+    }
+
+    @Override
+    public boolean extractFiles(long sessionId, ArchiveInfo archiveInfo, Map<FileInfo,Path> files) {
+        final Map<String,Path> targets = new HashMap<>();
+        final int total = files.size();
+        int extracted = 0;
+        try(final SeekableByteChannel channel = openChannel(Path.of(archiveInfo.getArchivePath()));
+            final TarFile tarFile = new TarFile(channel)) {
+            // Folders may be implicit in the archive, so they are created up front
+            for (Map.Entry<FileInfo,Path> file : files.entrySet()) {
+                if (file.getKey().isFolder()) {
+                    Files.createDirectories(file.getValue());
+                    extracted++;
+                } else {
+                    targets.put(file.getKey().getFileName(), file.getValue());
+                }
+            }
+
+            for (TarArchiveEntry entry : tarFile.getEntries()) {
+                if (extracted == total) {
+                    break;
+                }
+                if (entry.isDirectory()) {
+                    continue;
+                }
+
+                final Path targetLocation = targets.remove(entry.getName());
+                if (Objects.isNull(targetLocation)) {
+                    continue;
+                }
+
+                // Extracting zip entry %s...
+                DEFAULT_BUS.post(new ProgressMessage(sessionId, PROGRESS_COUNT,
+                                                     resolveTextKey(LBL_PROGRESS_EXTRACT_ENTRY, entry.getName()),
+                                                     extracted + 1,
+                                                     total));
+                if (Objects.nonNull(targetLocation.getParent())) {
+                    Files.createDirectories(targetLocation.getParent());
+                }
+                extractEntry(channel, tarFile, entry, targetLocation);
+                extracted++;
+            }
+        } catch(IOException e) {
+            // LOG: %s on extracting file(s). Message: %s
+            // TITLE: Issue extracting archive
+            // HEADER: The archive %s could not be extracted
+            // BODY: Exception %s was thrown on the attempt to extract from the archive. Further details can be found
+            // below.
+            LOGGER.error(resolveTextKey(LoggingConstants.LOG_ARCHIVE_SERVICE_EXTRACT_EXCEPTION,
+                                        e.getClass().getCanonicalName(), e.getMessage()));
+            DEFAULT_BUS.post(new ErrorMessage(sessionId,
+                                              resolveTextKey(TITLE_ARCHIVE_SERVICE_EXTRACT_EXCEPTION),
+                                              resolveTextKey(HEADER_ARCHIVE_SERVICE_EXTRACT_EXCEPTION, archiveInfo.getArchivePath()),
+                                              resolveTextKey(BODY_ARCHIVE_SERVICE_EXTRACT_EXCEPTION, e.getClass().getCanonicalName()),
+                                              e,
+                                              archiveInfo));
+            return false;
+        }
+
+        return extracted == total;
+    }
+
+    @Override
+    public boolean testArchive(long sessionId, String archivePath) {
+        try(final TarFile tarFile = new TarFile(openChannel(Path.of(archivePath)))) {
+            for (TarArchiveEntry entry : tarFile.getEntries()) {
+                if (!entry.isCheckSumOK()) {
+                    return false;
+                }
+            }
+        } catch(IOException e) {
             return false;
         } finally {
             ArchiveService.DEFAULT_BUS.post(new ProgressMessage(sessionId, COMPLETED, COMPLETED, 1, 1));
@@ -198,4 +262,21 @@ public class CommonsCompressArchiveReadService implements ArchiveReadService {
     public ArchiveServiceProfile getArchiveServiceProfile() {
         return PROFILE;
     }
+
+    private static void extractEntry(SeekableByteChannel channel, TarFile tarFile, TarArchiveEntry entry,
+            Path targetLocation) throws IOException {
+        // Tar members are stored contiguously without compression, so their data is copied by the operating system.
+        // Sparse members are expanded from their sparse map instead.
+        if (!entry.isSparse()) {
+            try(FileChannel target = FileChannel.open(targetLocation, CREATE, TRUNCATE_EXISTING, WRITE)) {
+                transfer(channel, entry.getDataOffset(), entry.getSize(), target);
+            }
+            return;
+        }
+
+        try(InputStream iStream = tarFile.getInputStream(entry);
+            OutputStream oStream = Files.newOutputStream(targetLocation)) {
+            IOUtils.copy(iStream, oStream);
+        }
+    }
 }
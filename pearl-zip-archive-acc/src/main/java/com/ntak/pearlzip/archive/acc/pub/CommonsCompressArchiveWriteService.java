@@ -3,46 +3,58 @@
  */
 package com.ntak.pearlzip.archive.acc.pub;
 
+import com.ntak.pearlzip.archive.acc.util.ParallelBZip2OutputStream;
+import com.ntak.pearlzip.archive.acc.util.ParallelGzipOutputStream;
+import com.ntak.pearlzip.archive.acc.util.ParallelXZOutputStream;
+import com.ntak.pearlzip.archive.acc.util.ZipAppender;
 import com.ntak.pearlzip.archive.pub.*;
+import com.ntak.pearlzip.archive.pub.ChangeSet.Change;
 import com.ntak.pearlzip.archive.util.LoggingUtil;
+import com.ntak.pearlzip.archive.util.StagedArchive;
 import org.apache.commons.compress.archivers.*;
 import org.apache.commons.compress.archivers.jar.JarArchiveEntry;
 import org.apache.commons.compress.archivers.jar.JarArchiveOutputStream;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ParallelScatterZipCreator;
 import org.apache.commons.compress.archivers.zip.UnicodeCommentExtraField;
+import org.apache.commons.compress.archivers.zip.UnicodePathExtraField;
+import org.apache.commons.compress.archivers.zip.UnsupportedZipFeatureException;
 import org.apache.commons.compress.archivers.zip.Zip64Mode;
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
-import org.apache.commons.compress.changes.ChangeSet;
-import org.apache.commons.compress.changes.ChangeSetPerformer;
-import org.apache.commons.compress.changes.ChangeSetResults;
+import org.apache.commons.compress.archivers.zip.ZipExtraField;
+import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.apache.commons.compress.compressors.CompressorException;
 import org.apache.commons.compress.compressors.CompressorOutputStream;
 import org.apache.commons.compress.compressors.CompressorStreamFactory;
+import org.apache.commons.compress.parallel.FileBasedScatterGatherBackingStore;
 import org.apache.commons.compress.utils.IOUtils;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.core.LoggerContext;
 
-import java.io.File;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributeView;
-import java.util.Arrays;
-import java.util.Objects;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.zip.ZipException;
 
 import static com.ntak.pearlzip.archive.acc.constants.CommonsCompressConstants.PROFILE;
 import static com.ntak.pearlzip.archive.acc.constants.CommonsCompressLoggingConstants.*;
 import static com.ntak.pearlzip.archive.acc.util.CommonsCompressUtil.getArchiveFormat;
+import static com.ntak.pearlzip.archive.acc.util.CommonsCompressUtil.getCompressionThreads;
 import static com.ntak.pearlzip.archive.constants.ConfigurationConstants.KEY_FILE_PATH;
 import static com.ntak.pearlzip.archive.constants.ConfigurationConstants.TMP_DIR_PREFIX;
 import static com.ntak.pearlzip.archive.constants.LoggingConstants.*;
+import static com.ntak.pearlzip.archive.pub.ChangeSet.Type.*;
 import static com.ntak.pearlzip.archive.util.CompressUtil.crcHashFile;
 import static com.ntak.pearlzip.archive.util.LoggingUtil.resolveTextKey;
 import static java.util.zip.Deflater.BEST_COMPRESSION;
@@ -74,15 +86,7 @@ public class CommonsCompressArchiveWriteService implements ArchiveWriteService {
         try {
             String archivePath = archiveInfo.getArchivePath();
             String format = getArchiveFormat(archivePath);
-            boolean isCompressor = switch(format.toLowerCase()) {
-                // Compressor streams - create tar file and then compress with the below
-                case CompressorStreamFactory.GZIP, BZIP2, CompressorStreamFactory.XZ -> true;
-
-                // Archive Output Stream
-                case ArchiveStreamFactory.JAR, ArchiveStreamFactory.ZIP, ArchiveStreamFactory.SEVEN_Z,
-                        ArchiveStreamFactory.TAR -> false;
-                default -> false;
-            };
+            boolean isCompressor = isCompressorFormat(format);
 
             if (!format.isEmpty()) {
                 if (isCompressor) {
@@ -112,16 +116,29 @@ public class CommonsCompressArchiveWriteService implements ArchiveWriteService {
         }
     }
 
+    private static boolean isCompressorFormat(String format) {
+        return switch(format.toLowerCase()) {
+            // Compressor streams - create tar file and then compress with the below
+            case CompressorStreamFactory.GZIP, BZIP2, CompressorStreamFactory.XZ -> true;
+
+            // Archive Output Stream
+            case ArchiveStreamFactory.JAR, ArchiveStreamFactory.ZIP, ArchiveStreamFactory.SEVEN_Z,
+                    ArchiveStreamFactory.TAR -> false;
+            default -> false;
+        };
+    }
+
     private void executeArchiveCompressor(long sessionId, String archivePath, FileInfo... files) throws Exception {
         String format = getArchiveFormat(archivePath);
-        try(OutputStream fo = Files.newOutputStream(Paths.get(archivePath));
-            CompressorOutputStream cos = CompressorStreamFactory.findAvailableCompressorOutputStreamProviders()
-                                                                .get(format)
-                                                                .createCompressorOutputStream(format, fo);
-            TarArchiveOutputStream aoStream = new TarArchiveOutputStream(cos)) {
-            prepareStream(aoStream);
-            addEntriesToArchiveStream(sessionId, aoStream, files);
-            cos.flush();
+        try(StagedArchive stagedArchive = StagedArchive.stage(Paths.get(archivePath))) {
+            try(OutputStream fo = Files.newOutputStream(stagedArchive.getPath());
+                CompressorOutputStream cos = createCompressorOutputStream(format, fo, getInputSize(files));
+                TarArchiveOutputStream aoStream = new TarArchiveOutputStream(cos)) {
+                prepareStream(aoStream);
+                addEntriesToArchiveStream(sessionId, aoStream, files);
+                cos.flush();
+            }
+            stagedArchive.commit();
         } catch(CompressorException | IOException e) {
             // LOG: Issue adding entries to archive or creating archive %s. Message: %s
             LOGGER.error(resolveTextKey(LOG_ARCHIVE_SERVICE_CREATE_EXCEPTION, archivePath, e.getMessage()));
@@ -132,15 +149,19 @@ public class CommonsCompressArchiveWriteService implements ArchiveWriteService {
     private static void executeFileCompressor(long sessionId, String archivePath, FileInfo... files) throws Exception {
         String format = getArchiveFormat(archivePath);
         Path path = null;
-        try (OutputStream fo = Files.newOutputStream(Paths.get(archivePath));
-             CompressorOutputStream cos = CompressorStreamFactory.findAvailableCompressorOutputStreamProviders()
-                                                                 .get(format)
-                                                                 .createCompressorOutputStream(format, fo)
-        ) {
-            path = Path.of((String) files[0].getAdditionalInfoMap()
-                                            .get(KEY_FILE_PATH));
-            cos.write(Files.readAllBytes(path));
-            cos.flush();
+        try (StagedArchive stagedArchive = StagedArchive.stage(Paths.get(archivePath))) {
+            try (OutputStream fo = Files.newOutputStream(stagedArchive.getPath());
+                 CompressorOutputStream cos = createCompressorOutputStream(format, fo, getInputSize(files))
+            ) {
+                path = Path.of((String) files[0].getAdditionalInfoMap()
+                                                .get(KEY_FILE_PATH));
+                // Source is streamed so that memory use is independent of the file size
+                try(InputStream fileStream = Files.newInputStream(path)) {
+                    fileStream.transferTo(cos);
+                }
+                cos.flush();
+            }
+            stagedArchive.commit();
         } catch(CompressorException | IOException | NullPointerException | IllegalArgumentException e) {
             // LOG: Issue adding entries to archive or creating archive %s. Message: %s
             LOGGER.error(resolveTextKey(LOG_ARCHIVE_SERVICE_CREATE_EXCEPTION, archivePath, e.getMessage()));
@@ -154,16 +175,55 @@ public class CommonsCompressArchiveWriteService implements ArchiveWriteService {
         }
     }
 
+    private static CompressorOutputStream createCompressorOutputStream(String format, OutputStream fo,
+            long inputSize) throws CompressorException, IOException {
+        // Blocks are compressed concurrently, where more than one thread is available and the input spans several
+        // blocks
+        final int threads = getCompressionThreads();
+        if (threads > 1) {
+            if (format.equalsIgnoreCase(CompressorStreamFactory.GZIP)
+                    && inputSize > ParallelGzipOutputStream.DEFAULT_BLOCK_SIZE) {
+                return new ParallelGzipOutputStream(new BufferedOutputStream(fo), threads);
+            }
+            if (format.equalsIgnoreCase(CompressorStreamFactory.XZ)
+                    && inputSize > ParallelXZOutputStream.getBlockSize(ParallelXZOutputStream.DEFAULT_PRESET)) {
+                return new ParallelXZOutputStream(new BufferedOutputStream(fo), threads);
+            }
+            if (format.equalsIgnoreCase(BZIP2) && inputSize > ParallelBZip2OutputStream.DEFAULT_BLOCK_SIZE) {
+                return new ParallelBZip2OutputStream(new BufferedOutputStream(fo), threads);
+            }
+        }
+
+        return CompressorStreamFactory.findAvailableCompressorOutputStreamProviders()
+                                      .get(format)
+                                      .createCompressorOutputStream(format, fo);
+    }
+
+    private static long getInputSize(FileInfo... files) {
+        long size = 0;
+        for (FileInfo f : Objects.requireNonNullElse(files, new FileInfo[0])) {
+            final Object filePath = f.getAdditionalInfoMap()
+                                     .get(KEY_FILE_PATH);
+            if (!f.isFolder() && filePath instanceof String path) {
+                size += new File(path).length();
+            }
+        }
+        return size;
+    }
+
     private void executeArchiver(long sessionId, String archivePath, FileInfo[] files) throws Exception {
         final String extension = getArchiveFormat(archivePath);
-        try(final OutputStream oStream = Files.newOutputStream(Path.of(archivePath));
-            final ArchiveOutputStream aoStream =
-                    ArchiveStreamFactory.findAvailableArchiveOutputStreamProviders()
-                                        .get(extension)
-                                        .createArchiveOutputStream(extension, oStream, null)
-        ) {
-            prepareStream(aoStream);
-            addEntriesToArchiveStream(sessionId, aoStream, files);
+        try(StagedArchive stagedArchive = StagedArchive.stage(Path.of(archivePath))) {
+            try(final OutputStream oStream = Files.newOutputStream(stagedArchive.getPath());
+                final ArchiveOutputStream aoStream =
+                        ArchiveStreamFactory.findAvailableArchiveOutputStreamProviders()
+                                            .get(extension)
+                                            .createArchiveOutputStream(extension, oStream, null)
+            ) {
+                prepareStream(aoStream);
+                addEntriesToArchiveStream(sessionId, aoStream, files);
+            }
+            stagedArchive.commit();
         } catch(IOException | ArchiveException e) {
             // LOG: Issue adding entries to archive or creating archive %s. Message: %s
             LOGGER.error(resolveTextKey(LOG_ARCHIVE_SERVICE_CREATE_EXCEPTION, archivePath, e.getMessage()));
@@ -172,72 +232,166 @@ public class CommonsCompressArchiveWriteService implements ArchiveWriteService {
     }
 
     private void addEntriesToArchiveStream(long sessionId, ArchiveOutputStream aoStream, FileInfo... files) throws IOException {
+        int total = addEntries(sessionId, aoStream, files);
+
+        DEFAULT_BUS.post(new ProgressMessage(sessionId, PROGRESS,
+                                             resolveTextKey(LOG_ACC_EB_FINISHING_PROCESS),
+                                             total,
+                                             total));
+        aoStream.finish();
+    }
+
+    private int addEntries(long sessionId, ArchiveOutputStream aoStream, FileInfo... files) throws IOException {
         int total = (int) Arrays.stream(files)
                                 .filter(s -> !s.isFolder())
                                 .count();
-        for (FileInfo f : files) {
-            if (!f.isFolder()) {
-                try {
+        // Zip entries are compressed concurrently, when more than one file is being added
+        if (aoStream instanceof ZipArchiveOutputStream zaoStream && getCompressionThreads() > 1 && total > 1) {
+            addEntriesToZipStreamInParallel(sessionId, zaoStream, total, files);
+        } else {
+            for (FileInfo f : files) {
+                if (!f.isFolder()) {
+                    try {
+                        File file = new File((String) f.getAdditionalInfoMap()
+                                                       .get(KEY_FILE_PATH));
+                        if (file.exists() && !Files.isSymbolicLink(file.toPath())) {
+                            ArchiveEntry entry =
+                                    aoStream.createArchiveEntry(file, f.getFileName());
+
+                            prepareArchiveEntry(entry, f);
+
+                            if (aoStream.canWriteEntryData(entry)) {
+                                aoStream.putArchiveEntry(entry);
+                                try(InputStream fileStream = Files.newInputStream(file.toPath())) {
+                                    IOUtils.copy(fileStream, aoStream);
+                                }
+
+                                // Loaded entry %s
+                                DEFAULT_BUS.post(new ProgressMessage(sessionId, PROGRESS,
+                                                                     resolveTextKey(LBL_PROGRESS_LOADED_ENTRY,
+                                                                                    f.getFileName()),
+                                                                     1,
+                                                                     total)
+                                );
+                            }
+
+                            aoStream.closeArchiveEntry();
+                            aoStream.flush();
+                        } else {
+                            // TODO: Need to handle symlink: Zip, Jar and Tar etc.
+                            //       Zips can keep the symlink, tar copies original file. Need to determine if relative or absolute
+                            //       paths and also whether a hard or soft link...
+                            // LOG: File %s was detected as a symbolic link. The file will not be added to the archive.
+                            LOGGER.warn(resolveTextKey(LOG_SKIP_SYMLINK, file.getAbsolutePath()));
+                        }
+                    } catch(IOException e) {
+                        // LOG: Issue adding entry %s(%s) to archive. Message: %s
+                        LOGGER.error(resolveTextKey(LOG_ARCHIVE_SERVICE_ADD_EXCEPTION,
+                                                    f.getFileName(),
+                                                    f.getAdditionalInfoMap()
+                                                     .get(KEY_FILE_PATH),
+                                                    e.getMessage()));
+                    }
+                }
+                else {
                     File file = new File((String) f.getAdditionalInfoMap()
                                                    .get(KEY_FILE_PATH));
-                    if (file.exists() && !Files.isSymbolicLink(file.toPath())) {
+                    if (file.exists()) {
                         ArchiveEntry entry =
                                 aoStream.createArchiveEntry(file, f.getFileName());
-
                         prepareArchiveEntry(entry, f);
+                        aoStream.putArchiveEntry(entry);
+                        aoStream.closeArchiveEntry();
+                        aoStream.flush();
+                    }
+                }
+            }
+        }
 
-                        if (aoStream.canWriteEntryData(entry)) {
-                            aoStream.putArchiveEntry(entry);
-                            try(InputStream fileStream = Files.newInputStream(file.toPath())) {
-                                IOUtils.copy(fileStream, aoStream);
-                            }
+        return total;
+    }
 
-                            // Loaded entry %s
-                            DEFAULT_BUS.post(new ProgressMessage(sessionId, PROGRESS,
-                                                                 resolveTextKey(LBL_PROGRESS_LOADED_ENTRY,
-                                                                                f.getFileName()),
-                                                                 1,
-                                                                 total)
-                            );
-                        }
+    private void addEntriesToZipStreamInParallel(long sessionId, ZipArchiveOutputStream aoStream, int total,
+            FileInfo... files) throws IOException {
+        final long scatterLimit = Long.parseLong(System.getProperty(CNS_ACC_SCATTER_LIMIT,
+                                                                    String.valueOf(DEFAULT_SCATTER_LIMIT)));
+        final List<String> batch = new ArrayList<>();
+        long batchSize = 0;
+        ExecutorService executor = null;
+        ParallelScatterZipCreator creator = null;
 
-                        aoStream.closeArchiveEntry();
-                        aoStream.flush();
-                    } else {
-                        // TODO: Need to handle symlink: Zip, Jar and Tar etc.
-                        //       Zips can keep the symlink, tar copies original file. Need to determine if relative or absolute
-                        //       paths and also whether a hard or soft link...
+        try {
+            for (FileInfo f : files) {
+                final File file = new File((String) f.getAdditionalInfoMap()
+                                                     .get(KEY_FILE_PATH));
+                if (!file.exists() || (!f.isFolder() && Files.isSymbolicLink(file.toPath()))) {
+                    if (!f.isFolder()) {
                         // LOG: File %s was detected as a symbolic link. The file will not be added to the archive.
                         LOGGER.warn(resolveTextKey(LOG_SKIP_SYMLINK, file.getAbsolutePath()));
                     }
-                } catch(IOException e) {
-                    // LOG: Issue adding entry %s(%s) to archive. Message: %s
-                    LOGGER.error(resolveTextKey(LOG_ARCHIVE_SERVICE_ADD_EXCEPTION,
-                                                f.getFileName(),
-                                                f.getAdditionalInfoMap()
-                                                 .get(KEY_FILE_PATH),
-                                                e.getMessage()));
+                    continue;
                 }
-            }
-            else {
-                File file = new File((String) f.getAdditionalInfoMap()
-                                               .get(KEY_FILE_PATH));
-                if (file.exists()) {
-                    ArchiveEntry entry =
-                            aoStream.createArchiveEntry(file, f.getFileName());
-                    prepareArchiveEntry(entry, f);
-                    aoStream.putArchiveEntry(entry);
-                    aoStream.closeArchiveEntry();
-                    aoStream.flush();
+
+                if (Objects.isNull(creator)) {
+                    executor = Executors.newFixedThreadPool(getCompressionThreads());
+                    creator = new ParallelScatterZipCreator(executor,
+                                                            () -> new FileBasedScatterGatherBackingStore(
+                                                                    Files.createTempFile(TMP_DIR_PREFIX, ".scatter")),
+                                                            BEST_COMPRESSION);
+                }
+
+                final ZipArchiveEntry entry = (ZipArchiveEntry) aoStream.createArchiveEntry(file, f.getFileName());
+                prepareArchiveEntry(entry, f);
+                creator.addArchiveEntry(entry, () -> {
+                    try {
+                        return f.isFolder() ? InputStream.nullInputStream() : Files.newInputStream(file.toPath());
+                    } catch(IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+
+                if (!f.isFolder()) {
+                    batch.add(f.getFileName());
+                    batchSize += file.length();
+                }
+
+                // Scatter storage is bounded by gathering completed batches into the archive
+                if (batchSize >= scatterLimit) {
+                    gatherEntries(sessionId, creator, aoStream, batch, total);
+                    creator = null;
+                    batchSize = 0;
                 }
             }
+
+            if (Objects.nonNull(creator)) {
+                gatherEntries(sessionId, creator, aoStream, batch, total);
+            }
+        } finally {
+            if (Objects.nonNull(executor)) {
+                executor.shutdownNow();
+            }
         }
+    }
 
-        DEFAULT_BUS.post(new ProgressMessage(sessionId, PROGRESS,
-                                             resolveTextKey(LOG_ACC_EB_FINISHING_PROCESS),
-                                             total,
-                                             total));
-        aoStream.finish();
+    private void gatherEntries(long sessionId, ParallelScatterZipCreator creator, ZipArchiveOutputStream aoStream,
+            List<String> batch, int total) throws IOException {
+        try {
+            creator.writeTo(aoStream);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } catch(ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+
+        for (String fileName : batch) {
+            // Loaded entry %s
+            DEFAULT_BUS.post(new ProgressMessage(sessionId, PROGRESS,
+                                                 resolveTextKey(LBL_PROGRESS_LOADED_ENTRY, fileName),
+                                                 1,
+                                                 total));
+        }
+        batch.clear();
     }
 
     private void prepareStreamEntry(ArchiveEntry entry) {
@@ -343,62 +497,85 @@ public class CommonsCompressArchiveWriteService implements ArchiveWriteService {
 
     @Override
     public boolean addFile(long sessionId, ArchiveInfo archiveInfo, FileInfo... files) {
+        return applyChanges(sessionId, archiveInfo, new ChangeSet().add(files));
+    }
+
+    @Override
+    public boolean deleteFile(long sessionId, String archivePath, FileInfo file) {
+        ArchiveInfo archiveInfo = ArchiveService.generateDefaultArchiveInfo(archivePath);
+        return deleteFile(sessionId, archiveInfo, file);
+    }
+
+    @Override
+    public boolean deleteFile(long sessionId, ArchiveInfo archiveInfo, FileInfo file) {
+        return applyChanges(sessionId, archiveInfo, new ChangeSet().delete(file));
+    }
+
+    @Override
+    public boolean applyChanges(long sessionId, ArchiveInfo archiveInfo,
+            ChangeSet changeSet) {
+        final String archivePath = archiveInfo.getArchivePath();
+        final String format = getArchiveFormat(archivePath);
+
+        // Changes to existing entries are resolved in a single pass of the archive. Replacement content is written in
+        // place of the existing entry and new content is appended at the end.
+        final List<Change> modifications = changeSet.getChanges()
+                                                    .stream()
+                                                    .filter(c -> c.getType() != ADD)
+                                                    .collect(Collectors.toList());
+        final FileInfo[] additions = changeSet.getChanges()
+                                              .stream()
+                                              .filter(c -> c.getType() == ADD)
+                                              .map(Change::getFile)
+                                              .toArray(FileInfo[]::new);
+        final Set<Change> applied = new HashSet<>();
+
+        // A compressor archive holds a single file, so only the replacement of its content is supported
+        if (isCompressorFormat(format)) {
+            return replaceCompressedFile(sessionId, archiveInfo, changeSet);
+        }
+
         try {
-            String archivePath = archiveInfo.getArchivePath();
-            Path tempDir = Files.createTempDirectory(TMP_DIR_PREFIX);
-            Path tmpArchive = Paths.get(tempDir.toString(), Paths.get(archivePath).getFileName().toString());
-            Files.createFile(tmpArchive);
-
-            try(
-                    final InputStream iStream = Files.newInputStream(Path.of(archivePath));
-                    final ArchiveInputStream aiStream =
-                            ArchiveStreamFactory.findAvailableArchiveInputStreamProviders()
-                                                .get(getArchiveFormat(archivePath))
-                                                .createArchiveInputStream(getArchiveFormat(archivePath), iStream, null);
-                    final OutputStream oStream = Files.newOutputStream(Path.of(tmpArchive.toString()));
-                    final ArchiveOutputStream aoStream =
-                            ArchiveStreamFactory.findAvailableArchiveOutputStreamProviders()
-                                                .get(getArchiveFormat(tmpArchive.toString()))
-                                                .createArchiveOutputStream(getArchiveFormat(tmpArchive.toString()), oStream, null)
-            ) {
-                prepareStream(aoStream);
-                ArchiveEntry existingEntry;
-                while ((existingEntry = aiStream.getNextEntry()) != null) {
-                    prepareStreamEntry(existingEntry);
-                    aoStream.putArchiveEntry(existingEntry);
-                    IOUtils.copy(aiStream, aoStream);
-                    aoStream.closeArchiveEntry();
+            // Restore the archive, if a previous in-place append was interrupted
+            ZipAppender.recover(Path.of(archivePath));
+
+            // Renamed and copied entries must not take the name of another entry, otherwise the archive is left
+            // untouched
+            if (modifications.stream().anyMatch(c -> c.getType() == RENAME || c.getType() == COPY)) {
+                final Set<String> collisions = findCollisions(archivePath, format, modifications);
+                if (!collisions.isEmpty()) {
+                    // LOG: Changes to archive %s were not applied as the following entries already exist: %s
+                    LOGGER.warn(resolveTextKey(LOG_ACC_APPLY_CHANGES_EXISTING_ENTRIES,
+                                               archivePath,
+                                               String.join(", ", collisions)));
+                    return false;
                 }
-                addEntriesToArchiveStream(sessionId, aoStream, files);
-            } catch(Exception e) {
-                // LOG: Issue occurred on adding file to archive %s.\nException type: %s.\nStack trace:\n%s
-                // TITLE: Issue adding to archive
-                // HEADER: An entry could not be added to archive %s
-                // BODY: Exception %s was thrown on the attempt to add an entry to archive. Further details can be
-                // found below.
-                LOGGER.error(resolveTextKey(LOG_ACC_ADD_FILE_ISSUE,
-                                            archivePath,
-                                            e.getClass().getCanonicalName(),
-                                            LoggingUtil.getStackTraceFromException(e)));
-
-                LOGGER.error(resolveTextKey(LOG_ACC_ADD_FILE_ISSUE, archiveInfo.getArchivePath(),
-                                            e.getMessage()));
-                DEFAULT_BUS.post(new ErrorMessage(sessionId,
-                                                  resolveTextKey(TITLE_ACC_ADD_FILE_ISSUE),
-                                                  resolveTextKey(HEADER_ACC_ADD_FILE_ISSUE, archiveInfo.getArchivePath()),
-                                                  resolveTextKey(BODY_ACC_ADD_FILE_ISSUE, e.getClass().getCanonicalName()),
-                                                  e,
-                                                  archiveInfo));
             }
-            Files.delete(Path.of(archivePath));
-            Files.move(tmpArchive, Path.of(archivePath));
-            Files.deleteIfExists(tmpArchive);
 
-            return true;
+            // Zip additions are appended in place, so existing entries and data are not rewritten
+            if (modifications.isEmpty() && Set.of(ArchiveStreamFactory.ZIP, ArchiveStreamFactory.JAR)
+                                              .contains(format.toLowerCase())) {
+                try {
+                    if (ZipAppender.append(Path.of(archivePath), (aoStream) -> {
+                        prepareStream(aoStream);
+                        addEntriesToArchiveStream(sessionId, aoStream, additions);
+                    })) {
+                        return true;
+                    }
+                } catch(IOException e) {
+                    raiseApplyChangesIssue(sessionId, archiveInfo, e);
+                    return false;
+                }
+            }
+
+            // The archive is rewritten to a staging file alongside it, which replaces it only once complete
+            try(StagedArchive stagedArchive = StagedArchive.stage(Path.of(archivePath))) {
+                return rewriteArchive(sessionId, archiveInfo, format, stagedArchive, modifications, additions, applied);
+            }
         } catch (IOException e) {
             // IO Issue occurred on trying to initiate the archive process.\nStack trace:\n%s
             LOGGER.error(resolveTextKey(LOG_ACC_INIT_I0_ISSUE,
-                                        archiveInfo.getArchivePath(),
+                                        archivePath,
                                         e.getClass().getCanonicalName(),
                                         LoggingUtil.getStackTraceFromException(e)));
         }
@@ -406,99 +583,334 @@ public class CommonsCompressArchiveWriteService implements ArchiveWriteService {
         return false;
     }
 
-    @Override
-    public boolean deleteFile(long sessionId, String archivePath, FileInfo file) {
-        ArchiveInfo archiveInfo = ArchiveService.generateDefaultArchiveInfo(archivePath);
-        return deleteFile(sessionId, archiveInfo, file);
-    }
-
-    @Override
-    public boolean deleteFile(long sessionId, ArchiveInfo archiveInfo, FileInfo file) {
-        String archivePath = archiveInfo.getArchivePath();
-        final ChangeSet changeSet = new ChangeSet();
-        if (file.isFolder()) {
-            changeSet.deleteDir(file.getFileName());
-        } else {
-            changeSet.delete(file.getFileName());
-        }
-
-        try {
-            Path tempDir = Files.createTempDirectory(TMP_DIR_PREFIX);
-            Path tmpArchive = Paths.get(tempDir.toString(),
-                                        Paths.get(archivePath)
-                                             .getFileName()
-                                             .toString());
-            Files.createFile(tmpArchive);
-
-            try(
-                    final InputStream iStream = Files.newInputStream(Path.of(archivePath));
-                    final ArchiveInputStream aiStream =
-                            ArchiveStreamFactory.findAvailableArchiveInputStreamProviders()
-                                                .get(getArchiveFormat(archivePath))
-                                                .createArchiveInputStream(getArchiveFormat(archivePath), iStream, null);
-                    final OutputStream oStream = Files.newOutputStream(tmpArchive);
-                    final ArchiveOutputStream aoStream =
-                            ArchiveStreamFactory.findAvailableArchiveOutputStreamProviders()
-                                                .get(getArchiveFormat(archivePath))
-                                                .createArchiveOutputStream(getArchiveFormat(archivePath), oStream, null)
-            ) {
+    private boolean rewriteArchive(long sessionId, ArchiveInfo archiveInfo, String format, StagedArchive stagedArchive,
+            List<Change> modifications, FileInfo[] additions, Set<Change> applied) throws IOException {
+        final String archivePath = archiveInfo.getArchivePath();
+        try(
+                final OutputStream oStream = Files.newOutputStream(stagedArchive.getPath());
+                final ArchiveOutputStream aoStream =
+                        ArchiveStreamFactory.findAvailableArchiveOutputStreamProviders()
+                                            .get(format)
+                                            .createArchiveOutputStream(format, oStream, null)
+        ) {
+            prepareStream(aoStream);
+            if (!modifications.isEmpty()) {
                 // Deleting entries...
-                prepareStream(aoStream);
                 DEFAULT_BUS.post(new ProgressMessage(sessionId, PROGRESS,
                                                      resolveTextKey(LBL_PROGRESS_DELETING_ENTRIES),
                                                      0,
                                                      1));
+            }
 
-                ChangeSetPerformer csPerformer = new ChangeSetPerformer(changeSet);
-                ChangeSetResults results = csPerformer.perform(aiStream, aoStream);
+            // Zip entries are copied in their compressed form, so untouched content is not inflated and deflated
+            if (aoStream instanceof ZipArchiveOutputStream zaoStream) {
+                copyZipEntries(sessionId, archivePath, zaoStream, modifications, applied);
+            } else {
+                copyEntries(sessionId, archivePath, format, aoStream, modifications, applied);
+            }
 
+            if (!modifications.isEmpty()) {
                 // Deleted entries
                 DEFAULT_BUS.post(new ProgressMessage(sessionId, PROGRESS,
                                                      resolveTextKey(LBL_PROGRESS_DELETED_ENTRIES),
                                                      1,
                                                      1));
+            }
+            addEntriesToArchiveStream(sessionId, aoStream, additions);
+        } catch(Exception e) {
+            raiseApplyChangesIssue(sessionId, archiveInfo, e);
+            return false;
+        }
+
+        // All changes to existing entries must be applicable, otherwise the archive is left untouched
+        if (applied.size() < modifications.size()) {
+            // LOG: Changes to archive %s were not applied as the following entries could not be found: %s
+            LOGGER.warn(resolveTextKey(LOG_ACC_APPLY_CHANGES_MISSING_ENTRIES,
+                                       archivePath,
+                                       modifications.stream()
+                                                    .filter(c -> !applied.contains(c))
+                                                    .map(c -> c.getFile().getFileName())
+                                                    .collect(Collectors.joining(", "))));
+            return false;
+        }
+
+        // Clearing up...
+        DEFAULT_BUS.post(new ProgressMessage(sessionId, PROGRESS,
+                                             resolveTextKey(LBL_PROGRESS_CLEAR_UP),
+                                             1,
+                                             1));
+        stagedArchive.commit();
+        return true;
+    }
 
-                if (results.getDeleted().size() > 0) {
-                    // Clearing up...
-                    DEFAULT_BUS.post(new ProgressMessage(sessionId, PROGRESS,
-                                                         resolveTextKey(LBL_PROGRESS_CLEAR_UP),
-                                                         1,
-                                                         1));
-                    Files.delete(Path.of(archivePath));
-                    Files.move(tmpArchive, Path.of(archivePath));
-                    Files.deleteIfExists(tmpArchive);
-                    return true;
+    private Set<String> findCollisions(String archivePath, String format, List<Change> modifications)
+            throws IOException {
+        final List<String> entryNames = new ArrayList<>();
+        if (Set.of(ArchiveStreamFactory.ZIP, ArchiveStreamFactory.JAR).contains(format.toLowerCase())) {
+            try(final ZipFile zipFile = ZipFile.builder()
+                                               .setPath(archivePath)
+                                               .get()) {
+                Collections.list(zipFile.getEntriesInPhysicalOrder())
+                           .forEach(e -> entryNames.add(e.getName()));
+            }
+        } else {
+            try(final ArchiveInputStream aiStream = openArchiveInputStream(archivePath, format)) {
+                ArchiveEntry entry;
+                while ((entry = aiStream.getNextEntry()) != null) {
+                    entryNames.add(entry.getName());
                 }
-            } catch(Exception e) {
-                // LOG: Issue occurred on deleting file from archive %s.\nException type: %s.\nStack trace:\n%s
-                // TITLE: Issue deleting archive
-                // HEADER: An entry could not be removed from archive %s
-                // BODY: Exception %s was thrown on the attempt to remove an entry from the archive. Further details can be
-                // found below.
-                LOGGER.error(resolveTextKey(LOG_ACC_DELETE_FILE_ISSUE,
-                                            archivePath,
-                                            e.getClass().getCanonicalName(),
-                                            LoggingUtil.getStackTraceFromException(e)));
-                DEFAULT_BUS.post(new ErrorMessage(sessionId,
-                                                  resolveTextKey(TITLE_ACC_DELETE_FILE_ISSUE),
-                                                  resolveTextKey(HEADER_ACC_DELETE_FILE_ISSUE, archiveInfo.getArchivePath()),
-                                                  resolveTextKey(BODY_ACC_DELETE_FILE_ISSUE, e.getClass().getCanonicalName()),
-                                                  e,
-                                                  archiveInfo));
+            } catch(ArchiveException e) {
+                throw new IOException(e);
             }
-        } catch (IOException e) {
-            // IO Issue occurred on trying to initiate the archive process.\nStack trace:\n%s
-            LOGGER.error(resolveTextKey(LOG_ACC_INIT_I0_ISSUE,
-                                        archivePath,
-                                        e.getClass().getCanonicalName(),
-                                        LoggingUtil.getStackTraceFromException(e)));
         }
 
+        // Resolves the names of the archive once the changes have been applied, in the same way as the rewrite
+        final Set<String> names = new HashSet<>();
+        final List<String> targets = new ArrayList<>();
+        for (String entryName : entryNames) {
+            final Optional<Change> change = modifications.stream()
+                                                         .filter(c -> c.getType() != COPY && c.matches(entryName))
+                                                         .findFirst();
+            if (change.isEmpty() || change.get().getType() == REPLACE) {
+                names.add(stripTrailingSeparator(entryName));
+            } else if (change.get().getType() == RENAME) {
+                targets.add(stripTrailingSeparator(change.get().resolveTarget(entryName)));
+            }
+            modifications.stream()
+                         .filter(c -> c.getType() == COPY && c.matches(entryName))
+                         .forEach(c -> targets.add(stripTrailingSeparator(c.resolveTarget(entryName))));
+        }
+
+        return targets.stream()
+                      .filter(t -> !names.add(t))
+                      .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    private static String stripTrailingSeparator(String name) {
+        return name.endsWith("/") ? name.substring(0, name.length() - 1) : name;
+    }
+
+    private boolean replaceCompressedFile(long sessionId, ArchiveInfo archiveInfo, ChangeSet changeSet) {
+        final List<Change> changes = changeSet.getChanges();
+        if (changes.size() != 1 || changes.get(0).getType() != REPLACE) {
+            // LOG: Changes to archive %s were not applied as the following changes are not supported: %s
+            LOGGER.warn(resolveTextKey(LOG_ACC_APPLY_CHANGES_UNSUPPORTED,
+                                       archiveInfo.getArchivePath(),
+                                       changes.stream()
+                                              .map(c -> String.format("%s %s", c.getType(), c.getFile().getFileName()))
+                                              .collect(Collectors.joining(", "))));
+            return false;
+        }
+
+        try {
+            // The compressed file replaces the archive only once it has been written in full
+            executeFileCompressor(sessionId, archiveInfo.getArchivePath(), changes.get(0).getFile());
+            return true;
+        } catch(Exception e) {
+            raiseApplyChangesIssue(sessionId, archiveInfo, e);
+            return false;
+        }
+    }
+
+    private void raiseApplyChangesIssue(long sessionId, ArchiveInfo archiveInfo, Exception e) {
+        // LOG: Issue occurred on applying changes to archive %s.\nException type: %s.\nStack trace:\n%s
+        // TITLE: Issue updating archive
+        // HEADER: Changes could not be applied to archive %s
+        // BODY: Exception %s was thrown on the attempt to apply changes to the archive. The archive has not
+        // been modified. Further details can be found below.
+        LOGGER.error(resolveTextKey(LOG_ACC_APPLY_CHANGES_ISSUE,
+                                    archiveInfo.getArchivePath(),
+                                    e.getClass().getCanonicalName(),
+                                    LoggingUtil.getStackTraceFromException(e)));
+        DEFAULT_BUS.post(new ErrorMessage(sessionId,
+                                          resolveTextKey(TITLE_ACC_APPLY_CHANGES_ISSUE),
+                                          resolveTextKey(HEADER_ACC_APPLY_CHANGES_ISSUE, archiveInfo.getArchivePath()),
+                                          resolveTextKey(BODY_ACC_APPLY_CHANGES_ISSUE, e.getClass().getCanonicalName()),
+                                          e,
+                                          archiveInfo));
+    }
+
+    private void copyEntries(long sessionId, String archivePath, String format, ArchiveOutputStream aoStream,
+            List<Change> modifications, Set<Change> applied) throws IOException, ArchiveException {
+        final Set<Change> replaced = new HashSet<>();
+        final List<Change> copies = filterChanges(modifications, true);
+        final List<Change> changes = filterChanges(modifications, false);
+        try(final ArchiveInputStream aiStream = openArchiveInputStream(archivePath, format)) {
+            ArchiveEntry existingEntry;
+            while ((existingEntry = aiStream.getNextEntry()) != null) {
+                final Optional<Change> change = resolveChange(existingEntry.getName(), changes, applied);
+                if (change.isPresent()) {
+                    replaceEntry(sessionId, aoStream, change.get(), replaced);
+                    if (change.get().getType() != RENAME) {
+                        continue;
+                    }
+                    existingEntry = renameEntry(existingEntry, change.get().resolveTarget(existingEntry.getName()));
+                }
+
+                prepareStreamEntry(existingEntry);
+                aoStream.putArchiveEntry(existingEntry);
+                IOUtils.copy(aiStream, aoStream);
+                aoStream.closeArchiveEntry();
+            }
+        }
+
+        // The data blocks of duplicated entries are streamed on a further pass for each copy, as the archive stream
+        // cannot be rewound
+        for (Change copy : copies) {
+            try(final ArchiveInputStream aiStream = openArchiveInputStream(archivePath, format)) {
+                ArchiveEntry existingEntry;
+                while ((existingEntry = aiStream.getNextEntry()) != null) {
+                    if (!resolveCopy(existingEntry.getName(), copy, applied)) {
+                        continue;
+                    }
+
+                    final ArchiveEntry copiedEntry = renameEntry(existingEntry,
+                                                                 copy.resolveTarget(existingEntry.getName()));
+                    prepareStreamEntry(copiedEntry);
+                    aoStream.putArchiveEntry(copiedEntry);
+                    IOUtils.copy(aiStream, aoStream);
+                    aoStream.closeArchiveEntry();
+                }
+            }
+        }
+    }
+
+    private static ArchiveInputStream openArchiveInputStream(String archivePath, String format)
+            throws IOException, ArchiveException {
+        final InputStream iStream = Files.newInputStream(Path.of(archivePath));
+        try {
+            return ArchiveStreamFactory.findAvailableArchiveInputStreamProviders()
+                                       .get(format)
+                                       .createArchiveInputStream(format, iStream, null);
+        } catch(ArchiveException | RuntimeException e) {
+            iStream.close();
+            throw e;
+        }
+    }
+
+    private void copyZipEntries(long sessionId, String archivePath, ZipArchiveOutputStream aoStream,
+            List<Change> modifications, Set<Change> applied) throws IOException {
+        final Set<Change> replaced = new HashSet<>();
+        final List<Change> copies = filterChanges(modifications, true);
+        final List<Change> changes = filterChanges(modifications, false);
+        try(final ZipFile zipFile = ZipFile.builder()
+                                           .setPath(archivePath)
+                                           .get()) {
+            final Enumeration<ZipArchiveEntry> entries = zipFile.getEntriesInPhysicalOrder();
+            while (entries.hasMoreElements()) {
+                ZipArchiveEntry existingEntry = entries.nextElement();
+                final Optional<Change> change = resolveChange(existingEntry.getName(), changes, applied);
+                try(InputStream rawStream = zipFile.getRawInputStream(existingEntry)) {
+                    if (change.isPresent()) {
+                        replaceEntry(sessionId, aoStream, change.get(), replaced);
+                        if (change.get().getType() != RENAME) {
+                            continue;
+                        }
+                        existingEntry = renameRawZipEntry(existingEntry,
+                                                          change.get().resolveTarget(existingEntry.getName()));
+                    }
+
+                    checkRawCopySupported(existingEntry);
+                    aoStream.addRawArchiveEntry(existingEntry, rawStream);
+                }
+            }
+
+            // Duplicated entries follow the existing entries, with their compressed payload copied as is
+            for (Change copy : copies) {
+                final Enumeration<ZipArchiveEntry> copyEntries = zipFile.getEntriesInPhysicalOrder();
+                while (copyEntries.hasMoreElements()) {
+                    final ZipArchiveEntry existingEntry = copyEntries.nextElement();
+                    if (!resolveCopy(existingEntry.getName(), copy, applied)) {
+                        continue;
+                    }
+
+                    checkRawCopySupported(existingEntry);
+                    try(InputStream rawStream = zipFile.getRawInputStream(existingEntry)) {
+                        aoStream.addRawArchiveEntry(renameRawZipEntry(existingEntry,
+                                                                      copy.resolveTarget(existingEntry.getName())),
+                                                    rawStream);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void checkRawCopySupported(ZipArchiveEntry entry) throws UnsupportedZipFeatureException {
+        // The zip output stream does not carry the encryption flags over, so the copied payload would be unreadable
+        if (entry.getGeneralPurposeBit().usesEncryption()) {
+            throw new UnsupportedZipFeatureException(UnsupportedZipFeatureException.Feature.ENCRYPTION, entry);
+        }
+    }
+
+    private ZipArchiveEntry renameRawZipEntry(ZipArchiveEntry entry, String name) throws ZipException {
+        final ZipArchiveEntry renamedEntry = (ZipArchiveEntry) renameEntry(entry, name);
+        renamedEntry.setCompressedSize(entry.getCompressedSize());
+        return renamedEntry;
+    }
+
+    private void replaceEntry(long sessionId, ArchiveOutputStream aoStream, Change change, Set<Change> replaced)
+            throws IOException {
+        // Replacement content is written at the position of the existing entry, so entry order is retained
+        if (change.getType() == REPLACE && replaced.add(change)) {
+            addEntries(sessionId, aoStream, change.getFile());
+        }
+    }
+
+    private Optional<Change> resolveChange(String entryName, List<Change> modifications, Set<Change> applied) {
+        final Optional<Change> change = modifications.stream()
+                                                     .filter(c -> c.matches(entryName))
+                                                     .findFirst();
+        change.ifPresent(applied::add);
+        return change;
+    }
+
+    private static List<Change> filterChanges(List<Change> modifications, boolean copies) {
+        return modifications.stream()
+                            .filter(c -> (c.getType() == COPY) == copies)
+                            .collect(Collectors.toList());
+    }
+
+    private boolean resolveCopy(String entryName, Change copy, Set<Change> applied) {
+        if (copy.matches(entryName)) {
+            applied.add(copy);
+            return true;
+        }
         return false;
     }
 
+    private ArchiveEntry renameEntry(ArchiveEntry entry, String name) throws ZipException {
+        if (entry instanceof TarArchiveEntry tarEntry) {
+            tarEntry.setName(name);
+            return tarEntry;
+        }
+
+        if (entry instanceof ZipArchiveEntry zipEntry) {
+            final ZipArchiveEntry renamedEntry = new RenamedZipArchiveEntry(zipEntry, name);
+            return entry instanceof JarArchiveEntry ? new JarArchiveEntry(renamedEntry) : renamedEntry;
+        }
+
+        return entry;
+    }
+
     @Override
     public ArchiveServiceProfile getArchiveServiceProfile() {
         return PROFILE;
     }
+
+    /**
+     *  Copy of an existing zip entry under a new name. The platform, attributes (e.g. unix permissions and symbolic
+     *  links), flags and versions of the original entry are retained.
+     */
+    private static class RenamedZipArchiveEntry extends ZipArchiveEntry {
+        private RenamedZipArchiveEntry(ZipArchiveEntry entry, String name) throws ZipException {
+            super(entry);
+            setName(name, null);
+            setVersionMadeBy(entry.getVersionMadeBy());
+            setVersionRequired(entry.getVersionRequired());
+            // Unicode path extra field would otherwise retain the original name
+            setExtraFields(Arrays.stream(entry.getExtraFields())
+                                 .filter(f -> !(f instanceof UnicodePathExtraField))
+                                 .toArray(ZipExtraField[]::new));
+        }
+    }
 }
@@ -0,0 +1,446 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.archive.acc.pub;
+
+import com.ntak.pearlzip.archive.acc.util.GzipCheckpointIndex;
+import com.ntak.pearlzip.archive.acc.util.GzipIndexInputStream;
+import com.ntak.pearlzip.archive.acc.util.ParallelXZInputStream;
+import com.ntak.pearlzip.archive.constants.LoggingConstants;
+import com.ntak.pearlzip.archive.pub.*;
+import com.ntak.pearlzip.archive.util.DirectorySynthesiser;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.CompressorException;
+import org.apache.commons.compress.compressors.CompressorStreamFactory;
+import org.apache.commons.compress.utils.IOUtils;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.LoggerContext;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.function.Consumer;
+
+import static com.ntak.pearlzip.archive.acc.constants.CommonsCompressConstants.COMPRESSED_TAR_PROFILE;
+import static com.ntak.pearlzip.archive.acc.constants.CommonsCompressLoggingConstants.*;
+import static com.ntak.pearlzip.archive.acc.util.CommonsCompressUtil.getCompressionThreads;
+import static com.ntak.pearlzip.archive.constants.LoggingConstants.*;
+import static com.ntak.pearlzip.archive.util.LoggingUtil.resolveTextKey;
+
+/**
+ *   Implementation of an Archive Read Service for compressed tar archives (e.g. tar.gz, tar.xz and tar.bz2), which
+ *   lists and extracts the entries of the tar archive directly, rather than as a nested archive. The compressor is
+ *   detected from the signature of the archive.
+ *   <br/><br/>
+ *   For gzip, the first full read of an archive (i.e. testing or listing it) builds a {@link GzipCheckpointIndex},
+ *   which is persisted in the PearlZip store. Later listings are read from the index and an entry is extracted by
+ *   inflating from the nearest checkpoint preceding its data. The span of uncompressed data between checkpoints can
+ *   be configured with the property configuration.ntak.pearl-zip.acc.checkpoint-span (default 8MB).
+ *   <br/><br/>
+ *   Other compressors are read as a single stream through the tar archive, for each listing, extraction or test. The
+ *   blocks of xz archives written in several blocks are decoded concurrently, on up to
+ *   configuration.ntak.pearl-zip.acc.compression-threads threads.
+ *
+ *   @author Aashutos Kakshepati
+ */
+public class CommonsCompressCompressedTarArchiveReadService implements ArchiveReadService {
+
+    private static final Logger LOGGER =
+            LoggerContext.getContext().getLogger(CommonsCompressCompressedTarArchiveReadService.class);
+
+    @Override
+    public List<FileInfo> listFiles(long sessionId, ArchiveInfo archiveInfo) {
+        final FileInfoStore files = new FileInfoStore();
+        listFiles(sessionId, archiveInfo, files::addAll);
+        files.trimToSize();
+        return files;
+    }
+
+    @Override
+    public boolean listFiles(long sessionId, ArchiveInfo archiveInfo, Consumer<List<FileInfo>> batchConsumer) {
+        try {
+            final Path archive = Path.of(archiveInfo.getArchivePath());
+            final DirectorySynthesiser synthesiser = new DirectorySynthesiser('/');
+            final List<FileInfo> batch = new ArrayList<>();
+            final int[] fileIndex = {0};
+            final Consumer<GzipCheckpointIndex.Entry> entryConsumer = (entry) -> {
+                String name = entry.name();
+                if (entry.directory()) {
+                    name = name.substring(0, name.length() - 1);
+                }
+                final LocalDateTime lastModified =
+                        LocalDateTime.ofInstant(Instant.ofEpochMilli(entry.lastModified()), ZoneId.systemDefault());
+                batch.add(new FileInfo(fileIndex[0]++,
+                                       (int) name.chars().filter(c -> c == '/').count(),
+                                       name,
+                                       0,
+                                       entry.size(),
+                                       entry.realSize(),
+                                       lastModified,
+                                       lastModified, null, entry.user(),
+                                       entry.group(), 0, "", entry.directory(), false,
+                                       Collections.emptyMap()));
+                synthesiser.add(name);
+
+                if (batch.size() == LISTING_BATCH_SIZE) {
+                    batchConsumer.accept(new ArrayList<>(batch));
+                    batch.clear();
+                }
+            };
+
+            if (isGzip(archive)) {
+                getIndex(archive).getEntries()
+                                 .forEach(entryConsumer);
+            } else {
+                try(TarArchiveInputStream taiStream = new TarArchiveInputStream(openCompressorStream(archive))) {
+                    TarArchiveEntry entry;
+                    while ((entry = taiStream.getNextTarEntry()) != null) {
+                        entryConsumer.accept(GzipCheckpointIndex.Entry.of(entry, taiStream.getBytesRead()));
+                    }
+                }
+            }
+
+            // Handle file path only archives. Implicit folders are pushed with the final batch.
+            batch.addAll(synthesiser.synthesise(fileIndex[0]));
+            if (!batch.isEmpty()) {
+                batchConsumer.accept(batch);
+            }
+            return true;
+        } catch(IOException e) {
+            // LOG: %s on listing contents. Message: %s
+            // TITLE: Issue listing entries from archive
+            // HEADER: The archive %s could not be interrogated for contents
+            // BODY: Exception %s was thrown on the attempt to list contents of the archive. Further details can be
+            // found below.
+            LOGGER.error(resolveTextKey(LOG_ARCHIVE_SERVICE_LISTING_EXCEPTION, e.getClass().getCanonicalName(), e.getMessage()));
+            DEFAULT_BUS.post(new ErrorMessage(sessionId,
+                                              resolveTextKey(TITLE_ARCHIVE_SERVICE_LISTING_EXCEPTION),
+                                              resolveTextKey(HEADER_ARCHIVE_SERVICE_LISTING_EXCEPTION, archiveInfo.getArchivePath()),
+                                              resolveTextKey(BODY_ARCHIVE_SERVICE_LISTING_EXCEPTION, e.getClass().getCanonicalName()),
+                                              e,
+                                              archiveInfo));
+            return false;
+        }
+    }
+
+    @Override
+    public List<FileInfo> listFiles(long sessionId, String archivePath) {
+        ArchiveInfo archiveInfo = ArchiveService.generateDefaultArchiveInfo(archivePath);
+        return listFiles(sessionId, archiveInfo);
+    }
+
+    @Override
+    public boolean extractFile(long sessionId, Path targetLocation, ArchiveInfo archiveInfo, FileInfo file) {
+        return extractFiles(sessionId, archiveInfo, Map.of(file, targetLocation));
+    }
+
+    @Override
+    public boolean extractFile(long sessionId, Path targetLocation, String archivePath, FileInfo file) {
+        ArchiveInfo archiveInfo = ArchiveService.generateDefaultArchiveInfo(archivePath);
+        return extractFile(sessionId, targetLocation, archiveInfo, file);
+    }
+
+    @Override
+    public boolean extractFile(long sessionId, OutputStream targetStream, ArchiveInfo archiveInfo, FileInfo file) {
+        final Path archive = Path.of(archiveInfo.getArchivePath());
+        try {
+            if (!isGzip(archive)) {
+                // The tar stream is read up to the entry, which is copied straight into the target stream
+                try(TarArchiveInputStream taiStream = new TarArchiveInputStream(openCompressorStream(archive))) {
+                    TarArchiveEntry entry;
+                    while ((entry = taiStream.getNextTarEntry()) != null) {
+                        if (!entry.isDirectory() && entry.getName().equals(file.getFileName())) {
+                            IOUtils.copy(taiStream, targetStream);
+                            return true;
+                        }
+                    }
+                }
+                return false;
+            }
+
+            // The entry is inflated from the nearest checkpoint preceding its data
+            final GzipCheckpointIndex index = getIndex(archive);
+            final Optional<GzipCheckpointIndex.Entry> optEntry =
+                    index.getEntries()
+                         .stream()
+                         .filter(e -> !e.directory() && e.name().equals(file.getFileName()))
+                         .findFirst();
+            if (optEntry.isEmpty()) {
+                return false;
+            }
+
+            final GzipCheckpointIndex.Entry entry = optEntry.get();
+            if (entry.sparse()) {
+                extractSparseEntry(archive, entry, targetStream);
+                return true;
+            }
+            try(GzipIndexInputStream gzStream = index.open(archive, entry.dataOffset())) {
+                if (IOUtils.copyRange(gzStream, entry.size(), targetStream) != entry.size()) {
+                    throw new EOFException(String.format("Truncated data for entry %s", entry.name()));
+                }
+            }
+        } catch(IOException e) {
+            // LOG: %s on extracting file(s). Message: %s
+            // TITLE: Issue extracting archive
+            // HEADER: The archive %s could not be extracted
+            // BODY: Exception %s was thrown on the attempt to extract from the archive. Further details can be found
+            // below.
+            LOGGER.error(resolveTextKey(LoggingConstants.LOG_ARCHIVE_SERVICE_EXTRACT_EXCEPTION,
+                                        e.getClass().getCanonicalName(), e.getMessage()));
+            DEFAULT_BUS.post(new ErrorMessage(sessionId,
+                                              resolveTextKey(TITLE_ARCHIVE_SERVICE_EXTRACT_EXCEPTION),
+                                              resolveTextKey(HEADER_ARCHIVE_SERVICE_EXTRACT_EXCEPTION, archiveInfo.getArchivePath()),
+                                              resolveTextKey(BODY_ARCHIVE_SERVICE_EXTRACT_EXCEPTION, e.getClass().getCanonicalName()),
+                                              e,
+                                              archiveInfo));
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean extractFiles(long sessionId, ArchiveInfo archiveInfo, Map<FileInfo,Path> files) {
+        final Path archive = Path.of(archiveInfo.getArchivePath());
+        final int total = files.size();
+        int extracted = 0;
+        GzipIndexInputStream gzStream = null;
+        try {
+            // Folders may be implicit in the archive, so they are created up front
+            final Map<String,Path> fileTargets = new HashMap<>();
+            for (Map.Entry<FileInfo,Path> file : files.entrySet()) {
+                if (file.getKey().isFolder()) {
+                    Files.createDirectories(file.getValue());
+                    extracted++;
+                } else {
+                    fileTargets.put(file.getKey().getFileName(), file.getValue());
+                }
+            }
+
+            if (!isGzip(archive)) {
+                return extractStream(sessionId, archive, fileTargets, extracted, total) == total;
+            }
+
+            // Files are extracted in the order they are stored in the archive
+            final GzipCheckpointIndex index = getIndex(archive);
+            final SortedMap<Long,Map.Entry<GzipCheckpointIndex.Entry,Path>> targets = new TreeMap<>();
+            for (GzipCheckpointIndex.Entry entry : index.getEntries()) {
+                final Path targetLocation = fileTargets.get(entry.name());
+                if (Objects.nonNull(targetLocation)) {
+                    targets.put(entry.dataOffset(), Map.entry(entry, targetLocation));
+                }
+            }
+
+            for (Map.Entry<GzipCheckpointIndex.Entry,Path> target : targets.values()) {
+                final GzipCheckpointIndex.Entry entry = target.getKey();
+                final Path targetLocation = target.getValue();
+
+                // Extracting zip entry %s...
+                DEFAULT_BUS.post(new ProgressMessage(sessionId, PROGRESS_COUNT,
+                                                     resolveTextKey(LBL_PROGRESS_EXTRACT_ENTRY, entry.name()),
+                                                     extracted + 1,
+                                                     total));
+                if (Objects.nonNull(targetLocation.getParent())) {
+                    Files.createDirectories(targetLocation.getParent());
+                }
+                if (entry.sparse()) {
+                    try(OutputStream oStream = Files.newOutputStream(targetLocation)) {
+                        extractSparseEntry(archive, entry, oStream);
+                    }
+                    extracted++;
+                    continue;
+                }
+
+                // The open stream is read on to the next entry, unless a checkpoint is nearer to it
+                final long position = Objects.isNull(gzStream) ? -1 : gzStream.getPosition();
+                if (index.getCheckpoint(entry.dataOffset()).map(c -> c.position() > position).orElse(position < 0)) {
+                    if (Objects.nonNull(gzStream)) {
+                        gzStream.close();
+                    }
+                    gzStream = index.open(archive, entry.dataOffset());
+                } else {
+                    gzStream.skipNBytes(entry.dataOffset() - gzStream.getPosition());
+                }
+                try(OutputStream oStream = Files.newOutputStream(targetLocation)) {
+                    if (IOUtils.copyRange(gzStream, entry.size(), oStream) != entry.size()) {
+                        throw new EOFException(String.format("Truncated data for entry %s", entry.name()));
+                    }
+                }
+                extracted++;
+            }
+        } catch(IOException e) {
+            // LOG: %s on extracting file(s). Message: %s
+            // TITLE: Issue extracting archive
+            // HEADER: The archive %s could not be extracted
+            // BODY: Exception %s was thrown on the attempt to extract from the archive. Further details can be found
+            // below.
+            LOGGER.error(resolveTextKey(LoggingConstants.LOG_ARCHIVE_SERVICE_EXTRACT_EXCEPTION,
+                                        e.getClass().getCanonicalName(), e.getMessage()));
+            DEFAULT_BUS.post(new ErrorMessage(sessionId,
+                                              resolveTextKey(TITLE_ARCHIVE_SERVICE_EXTRACT_EXCEPTION),
+                                              resolveTextKey(HEADER_ARCHIVE_SERVICE_EXTRACT_EXCEPTION, archiveInfo.getArchivePath()),
+                                              resolveTextKey(BODY_ARCHIVE_SERVICE_EXTRACT_EXCEPTION, e.getClass().getCanonicalName()),
+                                              e,
+                                              archiveInfo));
+            return false;
+        } finally {
+            try {
+                if (Objects.nonNull(gzStream)) {
+                    gzStream.close();
+                }
+            } catch(IOException e) {
+            }
+        }
+
+        return extracted == total;
+    }
+
+    @Override
+    public boolean testArchive(long sessionId, String archivePath) {
+        // Testing reads the whole archive, so the index of a gzip archive is rebuilt as part of the test
+        try {
+            final Path archive = Path.of(archivePath);
+            if (isGzip(archive)) {
+                saveIndex(archive, GzipCheckpointIndex.build(archive, getCheckpointSpan()));
+            } else {
+                try(InputStream cStream = openCompressorStream(archive);
+                    TarArchiveInputStream taiStream = new TarArchiveInputStream(cStream)) {
+                    TarArchiveEntry entry;
+                    while ((entry = taiStream.getNextTarEntry()) != null) {
+                        if (!entry.isCheckSumOK()) {
+                            return false;
+                        }
+                    }
+
+                    // The remainder of the stream is read, so that the checksums of the compressor are verified
+                    cStream.transferTo(OutputStream.nullOutputStream());
+                }
+            }
+        } catch(IOException e) {
+            return false;
+        } finally {
+            ArchiveService.DEFAULT_BUS.post(new ProgressMessage(sessionId, COMPLETED, COMPLETED, 1, 1));
+        }
+
+        return true;
+    }
+
+    @Override
+    public ArchiveServiceProfile getArchiveServiceProfile() {
+        return COMPRESSED_TAR_PROFILE;
+    }
+
+    private static GzipCheckpointIndex getIndex(Path archive) throws IOException {
+        try {
+            final Optional<GzipCheckpointIndex> index = GzipCheckpointIndex.load(archive);
+            if (index.isPresent()) {
+                return index.get();
+            }
+        } catch(IOException | RuntimeException e) {
+            // LOG: Issue accessing the checkpoint index of %s. Message: %s
+            LOGGER.warn(resolveTextKey(LOG_ACC_CHECKPOINT_INDEX_ISSUE, archive, e.getMessage()));
+        }
+
+        final GzipCheckpointIndex index = GzipCheckpointIndex.build(archive, getCheckpointSpan());
+        saveIndex(archive, index);
+        return index;
+    }
+
+    private static void saveIndex(Path archive, GzipCheckpointIndex index) {
+        try {
+            index.save(archive);
+        } catch(IOException | RuntimeException e) {
+            // LOG: Issue accessing the checkpoint index of %s. Message: %s
+            LOGGER.warn(resolveTextKey(LOG_ACC_CHECKPOINT_INDEX_ISSUE, archive, e.getMessage()));
+        }
+    }
+
+    private static long getCheckpointSpan() {
+        return Math.max(Long.parseLong(System.getProperty(CNS_ACC_CHECKPOINT_SPAN,
+                                                          String.valueOf(DEFAULT_CHECKPOINT_SPAN))),
+                        GzipIndexInputStream.WINDOW_SIZE);
+    }
+
+    private static boolean isGzip(Path archive) throws IOException {
+        try(InputStream iStream = new BufferedInputStream(Files.newInputStream(archive))) {
+            return CompressorStreamFactory.GZIP.equals(CompressorStreamFactory.detect(iStream));
+        } catch(CompressorException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private static InputStream openCompressorStream(Path archive) throws IOException {
+        final InputStream iStream = new BufferedInputStream(Files.newInputStream(archive));
+        try {
+            // The blocks of XZ archives are located from their indices, so that they can be decoded concurrently
+            final String format = CompressorStreamFactory.detect(iStream);
+            if (CompressorStreamFactory.XZ.equals(format)) {
+                iStream.close();
+                return new BufferedInputStream(ParallelXZInputStream.open(archive, getCompressionThreads()));
+            }
+
+            // Concatenated streams (e.g. from parallel compressors) are decompressed in full
+            return new CompressorStreamFactory(true).createCompressorInputStream(format, iStream);
+        } catch(CompressorException e) {
+            iStream.close();
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private static int extractStream(long sessionId, Path archive, Map<String,Path> targets, int extracted, int total)
+            throws IOException {
+        // Entries are extracted in a single pass over the archive, which ends once every target is extracted. The
+        // count of entries already extracted is carried on, so that progress is reported against the total.
+        final int expected = extracted + targets.size();
+        try(TarArchiveInputStream taiStream = new TarArchiveInputStream(openCompressorStream(archive))) {
+            TarArchiveEntry entry;
+            while (extracted < expected && (entry = taiStream.getNextTarEntry()) != null) {
+                final Path targetLocation = targets.get(entry.getName());
+                if (Objects.isNull(targetLocation) || entry.isDirectory()) {
+                    continue;
+                }
+
+                // Extracting zip entry %s...
+                DEFAULT_BUS.post(new ProgressMessage(sessionId, PROGRESS_COUNT,
+                                                     resolveTextKey(LBL_PROGRESS_EXTRACT_ENTRY, entry.getName()),
+                                                     extracted + 1,
+                                                     total));
+                if (Objects.nonNull(targetLocation.getParent())) {
+                    Files.createDirectories(targetLocation.getParent());
+                }
+                try(OutputStream oStream = Files.newOutputStream(targetLocation)) {
+                    IOUtils.copy(taiStream, oStream);
+                }
+                extracted++;
+            }
+        }
+
+        return extracted;
+    }
+
+    private static void extractSparseEntry(Path archive, GzipCheckpointIndex.Entry entry, OutputStream oStream)
+            throws IOException {
+        // Sparse entries are expanded from their sparse headers, so the archive is read up to the entry
+        try(InputStream gzStream = new GzipIndexInputStream(FileChannel.open(archive), null);
+            TarArchiveInputStream taiStream = new TarArchiveInputStream(gzStream)) {
+            TarArchiveEntry tarEntry;
+            while ((tarEntry = taiStream.getNextTarEntry()) != null) {
+                if (tarEntry.getName().equals(entry.name())) {
+                    IOUtils.copy(taiStream, oStream);
+                    return;
+                }
+            }
+        }
+        throw new EOFException(String.format("Entry %s not found", entry.name()));
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.archive.acc.pub;
+
+import com.ntak.pearlzip.archive.acc.util.CommonsCompressUtil;
+import com.ntak.pearlzip.archive.acc.util.ZipAppender;
+import com.ntak.pearlzip.archive.acc.util.ZipCentralDirectory;
+import com.ntak.pearlzip.archive.constants.ConfigurationConstants;
+import com.ntak.pearlzip.archive.constants.LoggingConstants;
+import com.ntak.pearlzip.archive.pub.*;
+import com.ntak.pearlzip.archive.util.DirectorySynthesiser;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.LoggerContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.ZipException;
+
+import static com.ntak.pearlzip.archive.acc.constants.CommonsCompressConstants.ZIP_PROFILE;
+import static com.ntak.pearlzip.archive.constants.ConfigurationConstants.CNS_NTAK_PEARL_ZIP_ICON_FILE;
+import static com.ntak.pearlzip.archive.constants.ConfigurationConstants.CNS_NTAK_PEARL_ZIP_ICON_FOLDER;
+import static com.ntak.pearlzip.archive.constants.LoggingConstants.*;
+import static com.ntak.pearlzip.archive.util.LoggingUtil.resolveTextKey;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ *   Implementation of an Archive Read Service for the zip and jar formats, which reads the central directory of the
+ *   archive directly through a memory-mapped FileChannel (see {@link ZipCentralDirectory}). Listing does not read
+ *   any local headers or entry data and single entries are extracted by random access. Stored and deflated entries
+ *   are decoded directly; other compression methods are delegated to the Apache Commons Compress library. Stored
+ *   entries are extracted with FileChannel.transferTo, so their data is copied by the operating system; their CRCs
+ *   are verified by testing the archive. Archives held in the InMemoryArchiveStore are read from memory.
+ *
+ *   @author Aashutos Kakshepati
+ */
+public class CommonsCompressZipArchiveReadService implements ArchiveReadService {
+
+    private static final Logger LOGGER = LoggerContext.getContext().getLogger(CommonsCompressZipArchiveReadService.class);
+
+    @Override
+    public List<FileInfo> listFiles(long sessionId, ArchiveInfo archiveInfo) {
+        final FileInfoStore files = new FileInfoStore();
+        listFiles(sessionId, archiveInfo, files::addAll);
+        files.trimToSize();
+        return files;
+    }
+
+    @Override
+    public boolean listFiles(long sessionId, ArchiveInfo archiveInfo, Consumer<List<FileInfo>> batchConsumer) {
+        final String archivePath = archiveInfo.getArchivePath();
+        try(ZipCentralDirectory directory = openDirectory(archivePath)) {
+            final DirectorySynthesiser synthesiser = new DirectorySynthesiser('/');
+            List<FileInfo> batch = new ArrayList<>();
+            for (int i = 0; i < directory.size(); i++) {
+                final boolean isFolder = directory.isDirectory(i);
+                String name = directory.getName(i);
+                if (isFolder) {
+                    name = name.substring(0, name.length() - 1);
+                }
+                if (name.isEmpty() || !synthesiser.add(name)) {
+                    continue;
+                }
+
+                final LocalDateTime lastWriteTime =
+                        LocalDateTime.ofInstant(Instant.ofEpochMilli(directory.getLastModifiedTime(i)),
+                                                ZoneId.systemDefault());
+                batch.add(new FileInfo(i,
+                                       getLevel(name),
+                                       name,
+                                       directory.getCrc(i),
+                                       directory.getCompressedSize(i),
+                                       directory.getSize(i),
+                                       lastWriteTime,
+                                       null,
+                                       null,
+                                       null,
+                                       null,
+                                       directory.getExternalAttributes(i),
+                                       directory.getComment(i),
+                                       isFolder,
+                                       directory.isEncrypted(i),
+                                       Collections.singletonMap(ConfigurationConstants.KEY_ICON_REF,
+                                                                System.getProperty(isFolder ?
+                                                                                           CNS_NTAK_PEARL_ZIP_ICON_FOLDER :
+                                                                                           CNS_NTAK_PEARL_ZIP_ICON_FILE, ""))));
+
+                if (batch.size() == LISTING_BATCH_SIZE) {
+                    batchConsumer.accept(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+
+            // Handle file path only archives. Implicit folders are only known once the whole directory has been read,
+            // so they form the final batch.
+            batch.addAll(synthesiser.synthesise(directory.size()));
+            if (!batch.isEmpty()) {
+                batchConsumer.accept(batch);
+            }
+            return true;
+        } catch(IOException e) {
+            // LOG: %s on listing contents. Message: %s
+            // TITLE: Issue listing entries from archive
+            // HEADER: The archive %s could not be interrogated for contents
+            // BODY: Exception %s was thrown on the attempt to list contents of the archive. Further details can be
+            // found below.
+            LOGGER.error(resolveTextKey(LOG_ARCHIVE_SERVICE_LISTING_EXCEPTION, e.getClass().getCanonicalName(), e.getMessage()));
+            DEFAULT_BUS.post(new ErrorMessage(sessionId,
+                                              resolveTextKey(TITLE_ARCHIVE_SERVICE_LISTING_EXCEPTION),
+                                              resolveTextKey(HEADER_ARCHIVE_SERVICE_LISTING_EXCEPTION, archiveInfo.getArchivePath()),
+                                              resolveTextKey(BODY_ARCHIVE_SERVICE_LISTING_EXCEPTION, e.getClass().getCanonicalName()),
+                                              e,
+                                              archiveInfo));
+            return false;
+        }
+    }
+
+    @Override
+    public List<FileInfo> listFiles(long sessionId, String archivePath) {
+        ArchiveInfo archiveInfo = ArchiveService.generateDefaultArchiveInfo(archivePath);
+        return listFiles(sessionId, archiveInfo);
+    }
+
+    @Override
+    public boolean extractFile(long sessionId, Path targetLocation, ArchiveInfo archiveInfo, FileInfo file) {
+        return extractFiles(sessionId, archiveInfo, Map.of(file, targetLocation));
+    }
+
+    @Override
+    public boolean extractFile(long sessionId, Path targetLocation, String archivePath, FileInfo file) {
+        ArchiveInfo archiveInfo = ArchiveService.generateDefaultArchiveInfo(archivePath);
+        return extractFile(sessionId, targetLocation, archiveInfo, file);
+    }
+
+    @Override
+    public boolean extractFile(long sessionId, OutputStream targetStream, ArchiveInfo archiveInfo, FileInfo file) {
+        try(ZipCentralDirectory directory = openDirectory(archiveInfo.getArchivePath())) {
+            final int index = directory.find(file.getFileName(), file.getIndex());
+            if (index < 0 || directory.isDirectory(index)) {
+                return false;
+            }
+
+            copyEntry(directory, index, targetStream);
+        } catch(IOException e) {
+            // LOG: %s on extracting file(s). Message: %s
+            // TITLE: Issue extracting archive
+            // HEADER: The archive %s could not be extracted
+            // BODY: Exception %s was thrown on the attempt to extract from the archive. Further details can be found
+            // below.
+            LOGGER.error(resolveTextKey(LoggingConstants.LOG_ARCHIVE_SERVICE_EXTRACT_EXCEPTION,
+                                        e.getClass().getCanonicalName(), e.getMessage()));
+            DEFAULT_BUS.post(new ErrorMessage(sessionId,
+                                              resolveTextKey(TITLE_ARCHIVE_SERVICE_EXTRACT_EXCEPTION),
+                                              resolveTextKey(HEADER_ARCHIVE_SERVICE_EXTRACT_EXCEPTION, archiveInfo.getArchivePath()),
+                                              resolveTextKey(BODY_ARCHIVE_SERVICE_EXTRACT_EXCEPTION, e.getClass().getCanonicalName()),
+                                              e,
+                                              archiveInfo));
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean extractFiles(long sessionId, ArchiveInfo archiveInfo, Map<FileInfo,Path> files) {
+        final String archivePath = archiveInfo.getArchivePath();
+        final int total = files.size();
+        int extracted = 0;
+        try(ZipCentralDirectory directory = openDirectory(archivePath)) {
+            // Folders may be implicit in the archive, so they are created up front. Files are located by random
+            // access, using the listing index as a hint.
+            final SortedMap<Long,Map.Entry<Integer,Path>> entries = new TreeMap<>();
+            for (Map.Entry<FileInfo,Path> file : files.entrySet()) {
+                if (file.getKey().isFolder()) {
+                    Files.createDirectories(file.getValue());
+                    extracted++;
+                    continue;
+                }
+
+                final int index = directory.find(file.getKey().getFileName(), file.getKey().getIndex());
+                if (index >= 0) {
+                    entries.put(directory.getLocalHeaderOffset(index), Map.entry(index, file.getValue()));
+                }
+            }
+
+            // Entries are read in the order they are stored in the archive
+            for (Map.Entry<Integer,Path> entry : entries.values()) {
+                final int index = entry.getKey();
+                final Path targetLocation = entry.getValue();
+
+                // Extracting zip entry %s...
+                DEFAULT_BUS.post(new ProgressMessage(sessionId, PROGRESS_COUNT,
+                                                     resolveTextKey(LBL_PROGRESS_EXTRACT_ENTRY,
+                                                                    directory.getName(index)),
+                                                     extracted + 1,
+                                                     total));
+                if (Objects.nonNull(targetLocation.getParent())) {
+                    Files.createDirectories(targetLocation.getParent());
+                }
+                if (directory.isStored(index)) {
+                    try(FileChannel target = FileChannel.open(targetLocation, CREATE, TRUNCATE_EXISTING, WRITE)) {
+                        directory.transferTo(index, target);
+                    }
+                } else {
+                    try(OutputStream oStream = Files.newOutputStream(targetLocation)) {
+                        copyEntry(directory, index, oStream);
+                    }
+                }
+                extracted++;
+            }
+        } catch(IOException e) {
+            // LOG: %s on extracting file(s). Message: %s
+            // TITLE: Issue extracting archive
+            // HEADER: The archive %s could not be extracted
+            // BODY: Exception %s was thrown on the attempt to extract from the archive. Further details can be found
+            // below.
+            LOGGER.error(resolveTextKey(LoggingConstants.LOG_ARCHIVE_SERVICE_EXTRACT_EXCEPTION,
+                                        e.getClass().getCanonicalName(), e.getMessage()));
+            DEFAULT_BUS.post(new ErrorMessage(sessionId,
+                                              resolveTextKey(TITLE_ARCHIVE_SERVICE_EXTRACT_EXCEPTION),
+                                              resolveTextKey(HEADER_ARCHIVE_SERVICE_EXTRACT_EXCEPTION, archiveInfo.getArchivePath()),
+                                              resolveTextKey(BODY_ARCHIVE_SERVICE_EXTRACT_EXCEPTION, e.getClass().getCanonicalName()),
+                                              e,
+                                              archiveInfo));
+            return false;
+        }
+
+        return extracted == total;
+    }
+
+    @Override
+    public boolean testArchive(long sessionId, String archivePath) {
+        try(ZipCentralDirectory directory = openDirectory(archivePath)) {
+            for (int i = 0; i < directory.size(); i++) {
+                if (!directory.isDirectory(i)) {
+                    copyEntry(directory, i, OutputStream.nullOutputStream());
+                }
+            }
+        } catch(IOException e) {
+            return false;
+        } finally {
+            ArchiveService.DEFAULT_BUS.post(new ProgressMessage(sessionId, COMPLETED, COMPLETED, 1, 1));
+        }
+
+        return true;
+    }
+
+    @Override
+    public ArchiveServiceProfile getArchiveServiceProfile() {
+        return ZIP_PROFILE;
+    }
+
+    private static ZipCentralDirectory openDirectory(String archivePath) throws IOException {
+        // Restore the archive, if an in place append was interrupted, as its central directory is otherwise missing
+        final Path archive = Path.of(archivePath);
+        ZipAppender.recover(archive);
+        return ZipCentralDirectory.open(archive);
+    }
+
+    private static void copyEntry(ZipCentralDirectory directory, int index, OutputStream oStream) throws IOException {
+        if (!directory.isSupported(index)) {
+            try(ZipFile zipFile = ZipFile.builder()
+                                         .setSeekableByteChannel(CommonsCompressUtil.openChannel(directory.getPath()))
+                                         .get()) {
+                final ZipArchiveEntry entry = zipFile.getEntry(directory.getName(index));
+                try(InputStream iStream = zipFile.getInputStream(entry)) {
+                    iStream.transferTo(oStream);
+                }
+            }
+            return;
+        }
+
+        try(CheckedInputStream iStream = new CheckedInputStream(directory.getInputStream(index), new CRC32())) {
+            iStream.transferTo(oStream);
+            if (iStream.getChecksum().getValue() != directory.getCrc(index)) {
+                throw new ZipException(String.format("CRC mismatch for entry %s", directory.getName(index)));
+            }
+        }
+    }
+
+    private static int getLevel(String name) {
+        return (int) name.chars().filter(c -> c == '/').count();
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.archive.acc.util;
+
+import org.apache.commons.compress.compressors.CompressorOutputStream;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ *  Base compressor which splits its input into fixed-size blocks and compresses the blocks concurrently. Compressed
+ *  blocks are written to the underlying stream in input order, between the header and trailer of the format.
+ *  <br/><br/>
+ *  The number of blocks held in memory is bounded by the number of blocks pending compression, so memory use is
+ *  independent of the size of the input.
+ *  @author Aashutos Kakshepati
+ */
+public abstract class BlockParallelOutputStream extends CompressorOutputStream {
+
+    protected final OutputStream out;
+    protected final int blockSize;
+
+    private final int maxPending;
+    private final ExecutorService executor;
+    private final Deque<Future<Block>> pending = new ArrayDeque<>();
+
+    private byte[] buffer;
+    private byte[] preceding;
+    private int count;
+    private boolean started;
+    private boolean finished;
+
+    protected BlockParallelOutputStream(OutputStream out, int threads, int blockSize, int maxPending) {
+        this.out = out;
+        this.blockSize = blockSize;
+        this.maxPending = Math.max(maxPending, 1);
+        this.executor = Executors.newFixedThreadPool(Math.max(threads, 1));
+        this.buffer = new byte[blockSize];
+    }
+
+    /**
+     *   Compresses a single block of input. This method is called concurrently from the compression threads.
+     *
+     *   @param data The input of the block
+     *   @param length The number of bytes of input in the block
+     *   @param preceding The input of the preceding block, or null for the first block
+     *   @param last true, if this is the final block of the stream
+     *   @return Block - The compressed block
+     *   @throws IOException if the block could not be compressed
+     */
+    protected abstract Block compress(byte[] data, int length, byte[] preceding, boolean last) throws IOException;
+
+    protected void writeHeader() throws IOException {
+    }
+
+    protected void writeTrailer() throws IOException {
+    }
+
+    protected void blockWritten(Block block) {
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (finished) {
+            throw new IOException("Stream has already been finished");
+        }
+
+        while (len > 0) {
+            // A full buffer is only submitted once more input arrives, so that the last block can be finished
+            if (count == blockSize) {
+                submit(false);
+            }
+
+            final int length = Math.min(len, blockSize - count);
+            System.arraycopy(b, off, buffer, count, length);
+            count += length;
+            off += length;
+            len -= length;
+        }
+    }
+
+    /**
+     *   Compresses any remaining input and writes the trailer of the format. The underlying stream is left open.
+     *
+     *   @throws IOException if the compressed data could not be written
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+
+        try {
+            submit(true);
+            while (!pending.isEmpty()) {
+                writeBlock(pending.removeFirst());
+            }
+
+            writeTrailer();
+            finished = true;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void submit(boolean last) throws IOException {
+        if (!started) {
+            writeHeader();
+            started = true;
+        }
+
+        final byte[] data = buffer;
+        final int length = count;
+        final byte[] previous = preceding;
+        pending.addLast(executor.submit(() -> compress(data, length, previous, last)));
+
+        if (!last) {
+            preceding = data;
+            buffer = new byte[blockSize];
+            count = 0;
+        }
+
+        while (pending.size() >= maxPending) {
+            writeBlock(pending.removeFirst());
+        }
+    }
+
+    private void writeBlock(Future<Block> future) throws IOException {
+        final Block block;
+        try {
+            block = future.get();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } catch(ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+
+        out.write(block.data(), 0, block.length());
+        blockWritten(block);
+    }
+
+    /**
+     *  A compressed block, along with the CRC32 and length of the input it was compressed from.
+     */
+    protected record Block(byte[] data, int length, long crc, int inputLength) {
+    }
+}
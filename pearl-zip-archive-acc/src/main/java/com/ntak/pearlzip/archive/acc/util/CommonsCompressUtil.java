@@ -3,7 +3,23 @@
  */
 package com.ntak.pearlzip.archive.acc.util;
 
+import com.ntak.pearlzip.archive.util.InMemoryArchiveStore;
+import org.apache.commons.compress.utils.BoundedSeekableByteChannelInputStream;
+import org.apache.commons.compress.utils.SeekableInMemoryByteChannel;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
 import static com.ntak.pearlzip.archive.acc.constants.CommonsCompressLoggingConstants.BZ2;
+import static com.ntak.pearlzip.archive.acc.constants.CommonsCompressLoggingConstants.CNS_ACC_COMPRESSION_THREADS;
 import static com.ntak.pearlzip.archive.acc.constants.CommonsCompressLoggingConstants.TGZ;
 import static org.apache.commons.compress.compressors.CompressorStreamFactory.BZIP2;
 import static org.apache.commons.compress.compressors.CompressorStreamFactory.GZIP;
@@ -23,4 +39,62 @@ public class CommonsCompressUtil {
             default -> format;
         };
     }
+
+    public static int getCompressionThreads() {
+        return Math.max(Integer.parseInt(System.getProperty(CNS_ACC_COMPRESSION_THREADS,
+                                                            String.valueOf(Runtime.getRuntime()
+                                                                                  .availableProcessors()))), 1);
+    }
+
+    /**
+     *   Opens a read-only channel of the archive. Archives held in the {@link InMemoryArchiveStore} are read through a
+     *   {@link SeekableInMemoryByteChannel}, otherwise the archive is read from disk through a FileChannel.
+     *
+     *   @param archive The path of the archive
+     *   @return SeekableByteChannel - The channel of the archive
+     *   @throws IOException if the archive could not be opened
+     */
+    public static SeekableByteChannel openChannel(Path archive) throws IOException {
+        final Optional<byte[]> contents = InMemoryArchiveStore.get(archive);
+        if (contents.isPresent()) {
+            return new SeekableInMemoryByteChannel(contents.get());
+        }
+
+        return FileChannel.open(archive, StandardOpenOption.READ);
+    }
+
+    /**
+     *   Copies a region of an archive to the target channel. Files are copied with {@link FileChannel#transferTo(long,
+     *   long, WritableByteChannel)}, so that the operating system may copy the data without it passing through the
+     *   heap. Used to extract entries, which are stored without compression.
+     *
+     *   @param source The channel of the archive
+     *   @param offset The offset of the first byte of the region
+     *   @param length The number of bytes in the region
+     *   @param target The channel to write the region to
+     *   @throws IOException if the region could not be copied or extends beyond the end of the archive
+     */
+    public static void transfer(SeekableByteChannel source, long offset, long length, WritableByteChannel target) throws IOException {
+        if (offset + length > source.size()) {
+            throw new EOFException(String.format("Region of %d bytes at offset %d extends beyond the end of the archive",
+                                                 length, offset));
+        }
+
+        if (!(source instanceof FileChannel fileChannel)) {
+            try(InputStream iStream = new BoundedSeekableByteChannelInputStream(offset, length, source)) {
+                iStream.transferTo(Channels.newOutputStream(target));
+            }
+            return;
+        }
+
+        long transferred = 0;
+        while (transferred < length) {
+            final long count = fileChannel.transferTo(offset + transferred, length - transferred, target);
+            if (count <= 0) {
+                throw new EOFException(String.format("Region of %d bytes at offset %d could not be transferred",
+                                                     length, offset));
+            }
+            transferred += count;
+        }
+    }
 }
@@ -0,0 +1,338 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.archive.acc.util;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.zip.*;
+
+import static com.ntak.pearlzip.archive.acc.constants.CommonsCompressLoggingConstants.CNS_STORE_ROOT;
+
+/**
+ *  Random access index of a gzip compressed tar archive, in the manner of zlib's zran. The index is built in a single
+ *  pass over the archive. It records a checkpoint at the first deflate block boundary after every span of
+ *  uncompressed data, along with the 32KB window of data which precedes it, and the offset of the data of each tar
+ *  entry in the uncompressed stream. Reading an entry later starts inflating from the nearest checkpoint preceding
+ *  its data, rather than from the start of the archive.
+ *  <br/><br/>
+ *  The index is persisted in the listing-cache directory of the PearlZip store, alongside the cached listings. It is
+ *  only used while the size, last modified time and gzip trailer of the archive are unchanged.
+ *  @author Aashutos Kakshepati
+ */
+public class GzipCheckpointIndex {
+
+    public static final String INDEX_DIR = "listing-cache";
+    public static final String INDEX_EXTENSION = ".idx";
+
+    private static final int VERSION = 1;
+    private static final int TRAILER_LENGTH = 8;
+
+    /**
+     *  A deflate block boundary, at which inflation can be resumed given the compressed window preceding it.
+     */
+    public record Checkpoint(long bitPosition, long position, byte[] window) {}
+
+    /**
+     *  A tar entry and the offset of its data in the uncompressed stream.
+     */
+    public record Entry(String name, long size, long realSize, long lastModified, String user, String group,
+                        boolean directory, boolean sparse, long dataOffset) {
+
+        public static Entry of(TarArchiveEntry entry, long dataOffset) {
+            return new Entry(entry.getName(), entry.getSize(), entry.getRealSize(),
+                             entry.getLastModifiedDate().getTime(), entry.getUserName(), entry.getGroupName(),
+                             entry.isDirectory(), entry.isSparse(), dataOffset);
+        }
+    }
+
+    private final List<Checkpoint> checkpoints;
+    private final List<Entry> entries;
+    private final long archiveSize;
+    private final long lastModified;
+    private final byte[] trailer;
+
+    private GzipCheckpointIndex(List<Checkpoint> checkpoints, List<Entry> entries, long archiveSize,
+            long lastModified, byte[] trailer) {
+        this.checkpoints = checkpoints;
+        this.entries = entries;
+        this.archiveSize = archiveSize;
+        this.lastModified = lastModified;
+        this.trailer = trailer;
+    }
+
+    /**
+     *   Builds the index of the archive specified by reading it in full. The CRC32 of every gzip member and the
+     *   checksum of every tar header are verified on the way.
+     *
+     *   @param archive The gzip compressed tar archive
+     *   @param span The number of uncompressed bytes between checkpoints
+     *   @return GzipCheckpointIndex - The index of the archive
+     *   @throws IOException if the archive could not be read or is corrupt
+     */
+    public static GzipCheckpointIndex build(Path archive, long span) throws IOException {
+        final long archiveSize = Files.size(archive);
+        final long lastModified = Files.getLastModifiedTime(archive).toMillis();
+        final List<Checkpoint> checkpoints = new ArrayList<>();
+        final List<Entry> entries = new ArrayList<>();
+        final long[] next = {span};
+
+        try(GzipIndexInputStream gzStream = new GzipIndexInputStream(FileChannel.open(archive, StandardOpenOption.READ),
+                (bitPosition, position, stream) -> {
+                    if (position >= next[0]) {
+                        checkpoints.add(new Checkpoint(bitPosition, position, compress(stream.getWindow())));
+                        next[0] = position + span;
+                    }
+                });
+            TarArchiveInputStream taiStream = new TarArchiveInputStream(gzStream)) {
+            TarArchiveEntry entry;
+            while ((entry = taiStream.getNextTarEntry()) != null) {
+                if (!entry.isCheckSumOK()) {
+                    throw new ZipException(String.format("Corrupt tar header for entry %s", entry.getName()));
+                }
+                // The tar stream reads no further than the header, so the data of the entry starts here
+                entries.add(Entry.of(entry, gzStream.getPosition()));
+            }
+
+            // The remainder of the stream is read, so that the CRC32 of every member is verified
+            gzStream.skip(Long.MAX_VALUE);
+        }
+
+        return new GzipCheckpointIndex(checkpoints, entries, archiveSize, lastModified, readTrailer(archive));
+    }
+
+    /**
+     *   Loads the persisted index of the archive specified, if the archive is unchanged since it was indexed.
+     *
+     *   @param archive The gzip compressed tar archive
+     *   @return Optional&lt;GzipCheckpointIndex&gt; - The index of the archive, if present and valid
+     *   @throws IOException if the index could not be read
+     */
+    public static Optional<GzipCheckpointIndex> load(Path archive) throws IOException {
+        final Path indexFile = getIndexFile(archive);
+        if (!Files.exists(indexFile)) {
+            return Optional.empty();
+        }
+
+        try(DataInputStream iStream =
+                    new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(indexFile))))) {
+            if (iStream.readInt() != VERSION || !iStream.readUTF().equals(archive.toAbsolutePath().toString())) {
+                return Optional.empty();
+            }
+
+            final long archiveSize = iStream.readLong();
+            final long lastModified = iStream.readLong();
+            final byte[] trailer = readBytes(iStream);
+            if (archiveSize != Files.size(archive)
+                    || lastModified != Files.getLastModifiedTime(archive).toMillis()
+                    || !Arrays.equals(trailer, readTrailer(archive))) {
+                return Optional.empty();
+            }
+
+            final int checkpointCount = iStream.readInt();
+            final List<Checkpoint> checkpoints = new ArrayList<>(checkpointCount);
+            for (int i = 0; i < checkpointCount; i++) {
+                checkpoints.add(new Checkpoint(iStream.readLong(), iStream.readLong(), readBytes(iStream)));
+            }
+
+            final int entryCount = iStream.readInt();
+            final List<Entry> entries = new ArrayList<>(entryCount);
+            for (int i = 0; i < entryCount; i++) {
+                entries.add(new Entry(iStream.readUTF(), iStream.readLong(), iStream.readLong(), iStream.readLong(),
+                                      iStream.readUTF(), iStream.readUTF(), iStream.readBoolean(),
+                                      iStream.readBoolean(), iStream.readLong()));
+            }
+
+            // Touched, so that the least recently used indices are evicted from the store first
+            Files.setLastModifiedTime(indexFile, FileTime.fromMillis(System.currentTimeMillis()));
+            return Optional.of(new GzipCheckpointIndex(checkpoints, entries, archiveSize, lastModified, trailer));
+        }
+    }
+
+    /**
+     *   Persists the index of the archive specified, replacing any previous index.
+     *
+     *   @param archive The gzip compressed tar archive, which was indexed
+     *   @throws IOException if the index could not be written
+     */
+    public void save(Path archive) throws IOException {
+        final Path indexFile = getIndexFile(archive);
+        Files.createDirectories(indexFile.getParent());
+        final Path tempFile = Files.createTempFile(indexFile.getParent(), "index", ".tmp");
+        try(DataOutputStream oStream =
+                    new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tempFile))))) {
+            oStream.writeInt(VERSION);
+            oStream.writeUTF(archive.toAbsolutePath().toString());
+            oStream.writeLong(archiveSize);
+            oStream.writeLong(lastModified);
+            writeBytes(oStream, trailer);
+
+            oStream.writeInt(checkpoints.size());
+            for (Checkpoint checkpoint : checkpoints) {
+                oStream.writeLong(checkpoint.bitPosition());
+                oStream.writeLong(checkpoint.position());
+                writeBytes(oStream, checkpoint.window());
+            }
+
+            oStream.writeInt(entries.size());
+            for (Entry entry : entries) {
+                oStream.writeUTF(entry.name());
+                oStream.writeLong(entry.size());
+                oStream.writeLong(entry.realSize());
+                oStream.writeLong(entry.lastModified());
+                oStream.writeUTF(Objects.requireNonNullElse(entry.user(), ""));
+                oStream.writeUTF(Objects.requireNonNullElse(entry.group(), ""));
+                oStream.writeBoolean(entry.directory());
+                oStream.writeBoolean(entry.sparse());
+                oStream.writeLong(entry.dataOffset());
+            }
+        } catch(IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     *   Opens the uncompressed stream of the archive at the position specified. Inflation starts from the nearest
+     *   checkpoint preceding the position, or from the start of the archive if there is none.
+     *
+     *   @param archive The gzip compressed tar archive, which was indexed
+     *   @param position The position in the uncompressed stream
+     *   @return GzipIndexInputStream - The uncompressed stream, positioned as requested
+     *   @throws IOException if the archive could not be read
+     */
+    public GzipIndexInputStream open(Path archive, long position) throws IOException {
+        final FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ);
+        try {
+            final Optional<Checkpoint> checkpoint = getCheckpoint(position);
+            final GzipIndexInputStream gzStream = checkpoint.isPresent() ?
+                    new GzipIndexInputStream(channel, checkpoint.get().bitPosition(), checkpoint.get().position(),
+                                             decompress(checkpoint.get().window())) :
+                    new GzipIndexInputStream(channel, null);
+            gzStream.skipNBytes(position - checkpoint.map(Checkpoint::position).orElse(0L));
+            return gzStream;
+        } catch(IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     *   Finds the nearest checkpoint preceding the position specified.
+     *
+     *   @param position The position in the uncompressed stream
+     *   @return Optional&lt;Checkpoint&gt; - The nearest checkpoint at or before the position, if any
+     */
+    public Optional<Checkpoint> getCheckpoint(long position) {
+        int low = 0;
+        int high = checkpoints.size() - 1;
+        Checkpoint nearest = null;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            if (checkpoints.get(middle).position() <= position) {
+                nearest = checkpoints.get(middle);
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return Optional.ofNullable(nearest);
+    }
+
+    public List<Checkpoint> getCheckpoints() {
+        return Collections.unmodifiableList(checkpoints);
+    }
+
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     *   Resolves the file in the PearlZip store, in which the index of the archive specified is persisted.
+     *
+     *   @param archive The gzip compressed tar archive
+     *   @return Path - The index file of the archive
+     */
+    public static Path getIndexFile(Path archive) {
+        try {
+            final byte[] key = MessageDigest.getInstance("SHA-256")
+                                            .digest(archive.toAbsolutePath()
+                                                           .toString()
+                                                           .getBytes(StandardCharsets.UTF_8));
+            return Paths.get(System.getProperty(CNS_STORE_ROOT,
+                                                String.format("%s/.pz", System.getProperty("user.home"))))
+                        .resolve(INDEX_DIR)
+                        .resolve(HexFormat.of().formatHex(key) + INDEX_EXTENSION);
+        } catch(NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] readTrailer(Path archive) throws IOException {
+        try(FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ)) {
+            final ByteBuffer trailer = ByteBuffer.allocate((int) Math.min(TRAILER_LENGTH, channel.size()));
+            while (trailer.hasRemaining()
+                    && channel.read(trailer, channel.size() - trailer.capacity() + trailer.position()) > 0);
+            return trailer.array();
+        }
+    }
+
+    private static byte[] compress(byte[] window) {
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(window);
+            deflater.finish();
+            final ByteArrayOutputStream compressed = new ByteArrayOutputStream(window.length / 2);
+            final byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                compressed.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return compressed.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] decompress(byte[] window) throws IOException {
+        final Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(window);
+            final byte[] buffer = new byte[GzipIndexInputStream.WINDOW_SIZE];
+            int length = 0;
+            while (!inflater.finished() && length < buffer.length) {
+                final int count = inflater.inflate(buffer, length, buffer.length - length);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += count;
+            }
+            return Arrays.copyOf(buffer, length);
+        } catch(DataFormatException e) {
+            throw new ZipException(e.getMessage());
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeBytes(DataOutputStream oStream, byte[] bytes) throws IOException {
+        oStream.writeInt(bytes.length);
+        oStream.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream iStream) throws IOException {
+        final byte[] bytes = new byte[iStream.readInt()];
+        iStream.readFully(bytes);
+        return bytes;
+    }
+}
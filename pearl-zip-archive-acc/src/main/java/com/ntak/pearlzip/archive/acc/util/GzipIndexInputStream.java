@@ -0,0 +1,579 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.archive.acc.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.ZipException;
+
+/**
+ *  Gzip decompressor written in Java, which can resume inflation part of the way through a deflate stream. Unlike
+ *  {@link java.util.zip.Inflater}, it reports the position of each deflate block boundary as it is reached. Inflation
+ *  can later be resumed from any such boundary given the preceding 32KB of output (see {@link GzipCheckpointIndex}).
+ *  <br/><br/>
+ *  Concatenated gzip members are read as a single stream. The CRC32 and size of each member are verified, except
+ *  for the member in which a resumed stream starts, as its earlier output is not available.
+ *  @author Aashutos Kakshepati
+ */
+public class GzipIndexInputStream extends InputStream {
+
+    public static final int WINDOW_SIZE = 32 * 1024;
+
+    private static final int RING_SIZE = 2 * WINDOW_SIZE;
+    private static final int RING_MASK = RING_SIZE - 1;
+    private static final int FAST_BITS = 9;
+    private static final int FAST_MASK = (1 << FAST_BITS) - 1;
+    private static final int MAX_BITS = 15;
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int DEFLATE_METHOD = 8;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private static final int[] LENGTH_BASE = {3, 4, 5, 6, 7, 8, 9, 10, 11, 13, 15, 17, 19, 23, 27, 31, 35, 43, 51, 59,
+                                              67, 83, 99, 115, 131, 163, 195, 227, 258};
+    private static final int[] LENGTH_EXTRA = {0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 4, 4, 4, 4,
+                                               5, 5, 5, 5, 0};
+    private static final int[] DISTANCE_BASE = {1, 2, 3, 4, 5, 7, 9, 13, 17, 25, 33, 49, 65, 97, 129, 193, 257, 385,
+                                                513, 769, 1025, 1537, 2049, 3073, 4097, 6145, 8193, 12289, 16385,
+                                                24577};
+    private static final int[] DISTANCE_EXTRA = {0, 0, 0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 6, 7, 7, 8, 8, 9, 9, 10,
+                                                 10, 11, 11, 12, 12, 13, 13};
+    private static final int[] CODE_LENGTH_ORDER = {16, 17, 18, 0, 8, 7, 9, 6, 10, 5, 11, 4, 12, 3, 13, 2, 14, 1, 15};
+
+    private static final Huffman FIXED_LITERALS = new Huffman(288);
+    private static final Huffman FIXED_DISTANCES = new Huffman(30);
+
+    static {
+        final int[] lengths = new int[288];
+        Arrays.fill(lengths, 0, 144, 8);
+        Arrays.fill(lengths, 144, 256, 9);
+        Arrays.fill(lengths, 256, 280, 7);
+        Arrays.fill(lengths, 280, 288, 8);
+        try {
+            FIXED_LITERALS.build(lengths, 0, 288);
+            Arrays.fill(lengths, 0, 30, 5);
+            FIXED_DISTANCES.build(lengths, 0, 30);
+        } catch(ZipException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private enum State {MEMBER, BLOCK, STORED, HUFFMAN, TRAILER, END}
+
+    /**
+     *  Callback invoked at each deflate block boundary, before the header of the block is read.
+     */
+    @FunctionalInterface
+    public interface BlockListener {
+        /**
+         *   @param bitPosition The position of the block in the compressed stream, in bits
+         *   @param position The position of the block in the uncompressed stream, in bytes
+         *   @param stream The stream being read, from which the window preceding the block can be taken
+         */
+        void onBlock(long bitPosition, long position, GzipIndexInputStream stream) throws IOException;
+    }
+
+    private final FileChannel channel;
+    private final BlockListener listener;
+    private final ByteBuffer input = ByteBuffer.allocate(64 * 1024);
+    private final byte[] ring = new byte[RING_SIZE];
+    private final byte[] single = new byte[1];
+    private final CRC32 crc = new CRC32();
+    private final int[] lengths = new int[320];
+    private final Huffman codeLengths = new Huffman(19);
+    private final Huffman dynamicLiterals = new Huffman(288);
+    private final Huffman dynamicDistances = new Huffman(30);
+
+    private long inputPosition;
+    private long bytesConsumed;
+    private long bitBuffer;
+    private int bitCount;
+
+    private long written;
+    private long read;
+    private long crcPosition;
+    private long historyStart;
+    private long memberStart;
+    private boolean verify;
+    private boolean started;
+
+    private State state;
+    private boolean lastBlock;
+    private int storedRemaining;
+    private Huffman literals;
+    private Huffman distances;
+
+    /**
+     *   Reads the gzip file from its start. The channel is closed with the stream.
+     *
+     *   @param channel The channel of the gzip file
+     *   @param listener The callback for block boundaries or null, if not required
+     */
+    public GzipIndexInputStream(FileChannel channel, BlockListener listener) {
+        this.channel = channel;
+        this.listener = listener;
+        this.state = State.MEMBER;
+        input.limit(0);
+    }
+
+    /**
+     *   Resumes inflation of the gzip file at a deflate block boundary. The channel is closed with the stream.
+     *
+     *   @param channel The channel of the gzip file
+     *   @param bitPosition The position of the block boundary in the compressed stream, in bits
+     *   @param position The position of the block boundary in the uncompressed stream, in bytes
+     *   @param window Up to 32KB of uncompressed data, which precede the block boundary
+     *   @throws IOException if the compressed stream could not be read
+     */
+    public GzipIndexInputStream(FileChannel channel, long bitPosition, long position, byte[] window)
+            throws IOException {
+        this(channel, null);
+        inputPosition = bitPosition >>> 3;
+        bytesConsumed = inputPosition;
+        bits((int) (bitPosition & 7));
+
+        for (int i = 0; i < window.length; i++) {
+            ring[(int) (position - window.length + i) & RING_MASK] = window[i];
+        }
+        written = read = crcPosition = position;
+        historyStart = position - window.length;
+        started = true;
+        state = State.BLOCK;
+    }
+
+    /**
+     *   @return long - The number of uncompressed bytes read or skipped from the start of the gzip file
+     */
+    public long getPosition() {
+        return read;
+    }
+
+    /**
+     *   @return long - The position in the compressed stream of the next bit to be decoded
+     */
+    public long getBitPosition() {
+        return bytesConsumed * 8 - bitCount;
+    }
+
+    /**
+     *   Copies the window of uncompressed data preceding the current block boundary, i.e. up to 32KB of the data
+     *   inflated so far, which may be referenced by later blocks.
+     *
+     *   @return byte[] - The window of uncompressed data
+     */
+    public byte[] getWindow() {
+        final int length = (int) Math.min(WINDOW_SIZE, written - historyStart);
+        final byte[] window = new byte[length];
+        for (int i = 0; i < length; i++) {
+            window[i] = ring[(int) (written - length + i) & RING_MASK];
+        }
+        return window;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(single, 0, 1) < 0 ? -1 : Byte.toUnsignedInt(single[0]);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (written == read) {
+            fill();
+            if (written == read) {
+                return -1;
+            }
+        }
+
+        final int count = (int) Math.min(Math.min(len, written - read), RING_SIZE - (read & RING_MASK));
+        System.arraycopy(ring, (int) (read & RING_MASK), b, off, count);
+        read += count;
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n) {
+            if (written == read) {
+                fill();
+                if (written == read) {
+                    break;
+                }
+            }
+            final long count = Math.min(n - skipped, written - read);
+            read += count;
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int) (written - read);
+    }
+
+    @Override
+    public void close() throws IOException {
+        state = State.END;
+        channel.close();
+    }
+
+    private void fill() throws IOException {
+        // Output is bounded by the window, so that data referenced by matches is never overwritten before it is read
+        while (state != State.END && written - read < WINDOW_SIZE) {
+            switch(state) {
+                case MEMBER -> readMemberHeader();
+                case BLOCK -> readBlockHeader();
+                case STORED -> inflateStored();
+                case HUFFMAN -> inflateHuffman();
+                case TRAILER -> readTrailer();
+            }
+            updateCrc();
+        }
+    }
+
+    private void readMemberHeader() throws IOException {
+        // Data trailing the last member is ignored, as per gzip
+        if (started) {
+            refill();
+            if (bitCount < 16 || (bitBuffer & 0xffff) != GZIP_MAGIC) {
+                state = State.END;
+                return;
+            }
+        }
+        started = true;
+
+        if (bits(16) != GZIP_MAGIC) {
+            throw new ZipException("Not in gzip format");
+        }
+        if (bits(8) != DEFLATE_METHOD) {
+            throw new ZipException("Unsupported compression method");
+        }
+        final int flags = bits(8);
+        bits(16);
+        bits(16);
+        bits(16);
+        if ((flags & FEXTRA) != 0) {
+            for (int length = bits(16); length > 0; length--) {
+                bits(8);
+            }
+        }
+        if ((flags & FNAME) != 0) {
+            while (bits(8) != 0);
+        }
+        if ((flags & FCOMMENT) != 0) {
+            while (bits(8) != 0);
+        }
+        if ((flags & FHCRC) != 0) {
+            bits(16);
+        }
+
+        crc.reset();
+        memberStart = historyStart = written;
+        verify = true;
+        state = State.BLOCK;
+    }
+
+    private void readBlockHeader() throws IOException {
+        if (listener != null) {
+            listener.onBlock(getBitPosition(), written, this);
+        }
+
+        lastBlock = bits(1) == 1;
+        switch(bits(2)) {
+            case 0 -> {
+                bits(bitCount & 7);
+                final int length = bits(16);
+                if (length != (~bits(16) & 0xffff)) {
+                    throw new ZipException("Invalid stored block lengths");
+                }
+                storedRemaining = length;
+                state = State.STORED;
+            }
+            case 1 -> {
+                literals = FIXED_LITERALS;
+                distances = FIXED_DISTANCES;
+                state = State.HUFFMAN;
+            }
+            case 2 -> {
+                readDynamicTables();
+                literals = dynamicLiterals;
+                distances = dynamicDistances;
+                state = State.HUFFMAN;
+            }
+            default -> throw new ZipException("Invalid block type");
+        }
+    }
+
+    private void readDynamicTables() throws IOException {
+        final int literalCount = bits(5) + 257;
+        final int distanceCount = bits(5) + 1;
+        final int codeCount = bits(4) + 4;
+        if (literalCount > 286 || distanceCount > 30) {
+            throw new ZipException("Invalid dynamic block code counts");
+        }
+
+        Arrays.fill(lengths, 0, 19, 0);
+        for (int i = 0; i < codeCount; i++) {
+            lengths[CODE_LENGTH_ORDER[i]] = bits(3);
+        }
+        codeLengths.build(lengths, 0, 19);
+
+        final int total = literalCount + distanceCount;
+        int index = 0;
+        while (index < total) {
+            final int symbol = decode(codeLengths);
+            if (symbol < 16) {
+                lengths[index++] = symbol;
+                continue;
+            }
+
+            int length = 0;
+            int repeat;
+            if (symbol == 16) {
+                if (index == 0) {
+                    throw new ZipException("Repeated code length without a previous length");
+                }
+                length = lengths[index - 1];
+                repeat = 3 + bits(2);
+            } else if (symbol == 17) {
+                repeat = 3 + bits(3);
+            } else {
+                repeat = 11 + bits(7);
+            }
+            if (index + repeat > total) {
+                throw new ZipException("Too many code lengths");
+            }
+            Arrays.fill(lengths, index, index + repeat, length);
+            index += repeat;
+        }
+
+        if (lengths[256] == 0) {
+            throw new ZipException("Missing end of block code");
+        }
+        dynamicLiterals.build(lengths, 0, literalCount);
+        dynamicDistances.build(lengths, literalCount, distanceCount);
+    }
+
+    private void inflateStored() throws IOException {
+        while (storedRemaining > 0 && written - read < WINDOW_SIZE) {
+            if (bitCount >= 8) {
+                ring[(int) written & RING_MASK] = (byte) bits(8);
+                written++;
+                storedRemaining--;
+                continue;
+            }
+            if (!input.hasRemaining() && !loadInput()) {
+                throw new EOFException("Unexpected end of gzip stream");
+            }
+
+            final int count = (int) Math.min(Math.min(storedRemaining, input.remaining()),
+                                             Math.min(WINDOW_SIZE - (written - read),
+                                                      RING_SIZE - (written & RING_MASK)));
+            input.get(ring, (int) (written & RING_MASK), count);
+            written += count;
+            bytesConsumed += count;
+            storedRemaining -= count;
+        }
+
+        if (storedRemaining == 0) {
+            state = lastBlock ? State.TRAILER : State.BLOCK;
+        }
+    }
+
+    private void inflateHuffman() throws IOException {
+        while (written - read < WINDOW_SIZE) {
+            int symbol = decode(literals);
+            if (symbol < 256) {
+                ring[(int) written & RING_MASK] = (byte) symbol;
+                written++;
+                continue;
+            }
+            if (symbol == 256) {
+                state = lastBlock ? State.TRAILER : State.BLOCK;
+                return;
+            }
+
+            symbol -= 257;
+            if (symbol >= LENGTH_BASE.length) {
+                throw new ZipException("Invalid length code");
+            }
+            final int length = LENGTH_BASE[symbol] + bits(LENGTH_EXTRA[symbol]);
+            final int distanceSymbol = decode(distances);
+            if (distanceSymbol >= DISTANCE_BASE.length) {
+                throw new ZipException("Invalid distance code");
+            }
+            final int distance = DISTANCE_BASE[distanceSymbol] + bits(DISTANCE_EXTRA[distanceSymbol]);
+            if (distance > written - historyStart) {
+                throw new ZipException("Invalid distance too far back");
+            }
+
+            for (int i = 0; i < length; i++) {
+                ring[(int) written & RING_MASK] = ring[(int) (written - distance) & RING_MASK];
+                written++;
+            }
+        }
+    }
+
+    private void readTrailer() throws IOException {
+        updateCrc();
+        bits(bitCount & 7);
+        final long checksum = bits(16) | ((long) bits(16) << 16);
+        final long size = bits(16) | ((long) bits(16) << 16);
+        if (verify && (checksum != crc.getValue() || size != ((written - memberStart) & 0xffffffffL))) {
+            throw new ZipException("Corrupt gzip member: CRC or size mismatch");
+        }
+        state = State.MEMBER;
+    }
+
+    private void updateCrc() {
+        while (crcPosition < written) {
+            final int offset = (int) (crcPosition & RING_MASK);
+            final int count = (int) Math.min(written - crcPosition, RING_SIZE - offset);
+            crc.update(ring, offset, count);
+            crcPosition += count;
+        }
+    }
+
+    private int decode(Huffman huffman) throws IOException {
+        if (bitCount < MAX_BITS) {
+            refill();
+        }
+
+        final int entry = huffman.fast[(int) bitBuffer & FAST_MASK];
+        if (entry >= 0) {
+            final int length = entry & 0xf;
+            if (length > bitCount) {
+                throw new EOFException("Unexpected end of gzip stream");
+            }
+            bitBuffer >>>= length;
+            bitCount -= length;
+            return entry >>> 4;
+        }
+
+        // Codes longer than the lookup table are decoded canonically, one bit at a time
+        int code = 0;
+        int first = 0;
+        int index = 0;
+        for (int length = 1; length <= MAX_BITS; length++) {
+            if (length > bitCount) {
+                throw new EOFException("Unexpected end of gzip stream");
+            }
+            code |= (int) (bitBuffer >>> (length - 1)) & 1;
+            final int count = huffman.count[length];
+            if (code - count < first) {
+                bitBuffer >>>= length;
+                bitCount -= length;
+                return huffman.symbol[index + code - first];
+            }
+            index += count;
+            first += count;
+            first <<= 1;
+            code <<= 1;
+        }
+        throw new ZipException("Invalid Huffman code");
+    }
+
+    private int bits(int count) throws IOException {
+        if (count == 0) {
+            return 0;
+        }
+        if (bitCount < count) {
+            refill();
+            if (bitCount < count) {
+                throw new EOFException("Unexpected end of gzip stream");
+            }
+        }
+
+        final int value = (int) (bitBuffer & ((1L << count) - 1));
+        bitBuffer >>>= count;
+        bitCount -= count;
+        return value;
+    }
+
+    private void refill() throws IOException {
+        while (bitCount <= 56) {
+            if (!input.hasRemaining() && !loadInput()) {
+                return;
+            }
+            bitBuffer |= (long) Byte.toUnsignedInt(input.get()) << bitCount;
+            bitCount += 8;
+            bytesConsumed++;
+        }
+    }
+
+    private boolean loadInput() throws IOException {
+        input.clear();
+        final int count = channel.read(input, inputPosition);
+        input.flip();
+        if (count <= 0) {
+            return false;
+        }
+        inputPosition += count;
+        return true;
+    }
+
+    /**
+     *  Canonical Huffman code, with a lookup table for codes of up to 9 bits. Entries of the lookup table hold the
+     *  symbol and code length, or -1 for longer codes.
+     */
+    private static class Huffman {
+        private final int[] count = new int[MAX_BITS + 1];
+        private final int[] symbol;
+        private final int[] fast = new int[1 << FAST_BITS];
+
+        private Huffman(int symbols) {
+            symbol = new int[symbols];
+        }
+
+        private void build(int[] lengths, int offset, int symbols) throws ZipException {
+            Arrays.fill(count, 0);
+            for (int i = 0; i < symbols; i++) {
+                count[lengths[offset + i]]++;
+            }
+
+            int left = 1;
+            for (int length = 1; length <= MAX_BITS; length++) {
+                left = (left << 1) - count[length];
+                if (left < 0) {
+                    throw new ZipException("Over-subscribed Huffman code");
+                }
+            }
+
+            final int[] offsets = new int[MAX_BITS + 2];
+            for (int length = 1; length <= MAX_BITS; length++) {
+                offsets[length + 1] = offsets[length] + count[length];
+            }
+            for (int i = 0; i < symbols; i++) {
+                if (lengths[offset + i] != 0) {
+                    symbol[offsets[lengths[offset + i]]++] = i;
+                }
+            }
+
+            Arrays.fill(fast, -1);
+            int code = 0;
+            int index = 0;
+            for (int length = 1; length <= FAST_BITS; length++) {
+                for (int i = 0; i < count[length]; i++, code++) {
+                    final int reversed = Integer.reverse(code) >>> (32 - length);
+                    for (int slot = reversed; slot < fast.length; slot += 1 << length) {
+                        fast[slot] = (symbol[index] << 4) | length;
+                    }
+                    index++;
+                }
+                code <<= 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.archive.acc.util;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ *  BZip2 compressor which compresses 900k blocks of input concurrently. Each block is written as an independent bzip2
+ *  stream and the streams are concatenated in input order, in the manner of pbzip2. Concatenated streams are
+ *  decompressed as a single stream by bzip2 and 7-Zip. Apache Commons Compress requires decompressConcatenated to be
+ *  enabled to read past the first stream.
+ *  <br/><br/>
+ *  At most two blocks per thread are pending compression at any time.
+ *  @author Aashutos Kakshepati
+ */
+public class ParallelBZip2OutputStream extends BlockParallelOutputStream {
+
+    // bzip2 block size with -9, in bytes
+    public static final int DEFAULT_BLOCK_SIZE = 900000;
+
+    public ParallelBZip2OutputStream(OutputStream out, int threads) {
+        super(out, threads, DEFAULT_BLOCK_SIZE, Math.max(threads, 1) * 2);
+    }
+
+    @Override
+    protected Block compress(byte[] data, int length, byte[] preceding, boolean last) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream(length / 4);
+        try(BZip2CompressorOutputStream bzStream = new BZip2CompressorOutputStream(output,
+                                                                                   BZip2CompressorOutputStream.MAX_BLOCKSIZE)) {
+            bzStream.write(data, 0, length);
+        }
+
+        final byte[] block = output.toByteArray();
+        return new Block(block, block.length, 0, length);
+    }
+}
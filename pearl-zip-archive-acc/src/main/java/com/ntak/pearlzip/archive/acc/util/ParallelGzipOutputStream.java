@@ -0,0 +1,178 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.archive.acc.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ *  Gzip compressor which deflates fixed-size blocks of input concurrently, in the manner of pigz. Each block is
+ *  primed with the last 32KB of the preceding block as a preset dictionary, so the compression ratio is close to
+ *  that of a single-threaded stream. Blocks other than the last are terminated with a sync flush, which byte-aligns
+ *  the deflate output so the blocks can be concatenated into a single gzip member. The CRC32 of each block is
+ *  calculated alongside its compression and combined into the trailer checksum.
+ *  <br/><br/>
+ *  At most two blocks per thread are pending compression at any time.
+ *  @author Aashutos Kakshepati
+ */
+public class ParallelGzipOutputStream extends BlockParallelOutputStream {
+
+    public static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int OS_UNKNOWN = 0xff;
+
+    private final int level;
+
+    private long crc;
+    private long size;
+
+    public ParallelGzipOutputStream(OutputStream out, int threads) {
+        // Matches the level of the sequential writers of the archive write service
+        this(out, threads, Deflater.BEST_COMPRESSION, DEFAULT_BLOCK_SIZE);
+    }
+
+    public ParallelGzipOutputStream(OutputStream out, int threads, int level, int blockSize) {
+        super(out, threads, Math.max(blockSize, DICTIONARY_SIZE), Math.max(threads, 1) * 2);
+        this.level = level;
+    }
+
+    @Override
+    protected Block compress(byte[] data, int length, byte[] preceding, boolean last) {
+        final CRC32 checksum = new CRC32();
+        checksum.update(data, 0, length);
+
+        final Deflater deflater = new Deflater(level, true);
+        try {
+            if (preceding != null) {
+                deflater.setDictionary(preceding, preceding.length - DICTIONARY_SIZE, DICTIONARY_SIZE);
+            }
+            deflater.setInput(data, 0, length);
+
+            final byte[] chunk = new byte[Math.max(length / 2, 4096)];
+            byte[] output = new byte[0];
+            int written = 0;
+            int read;
+            if (last) {
+                deflater.finish();
+            }
+            do {
+                read = last ? deflater.deflate(chunk) : deflater.deflate(chunk, 0, chunk.length, Deflater.SYNC_FLUSH);
+                if (written + read > output.length) {
+                    output = Arrays.copyOf(output, Math.max(output.length * 2, written + read));
+                }
+                System.arraycopy(chunk, 0, output, written, read);
+                written += read;
+            } while (last ? !deflater.finished() : read == chunk.length);
+
+            return new Block(output, written, checksum.getValue(), length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    protected void writeHeader() throws IOException {
+        final byte[] header = new byte[10];
+        header[0] = (byte) (GZIP_MAGIC & 0xff);
+        header[1] = (byte) (GZIP_MAGIC >> 8);
+        header[2] = Deflater.DEFLATED;
+        header[8] = (byte) (level == Deflater.BEST_COMPRESSION ? 2 : level == Deflater.BEST_SPEED ? 4 : 0);
+        header[9] = (byte) OS_UNKNOWN;
+        out.write(header);
+    }
+
+    @Override
+    protected void blockWritten(Block block) {
+        crc = combineCrc32(crc, block.crc(), block.inputLength());
+        size += block.inputLength();
+    }
+
+    @Override
+    protected void writeTrailer() throws IOException {
+        final byte[] trailer = new byte[8];
+        writeInt(trailer, 0, crc);
+        writeInt(trailer, 4, size);
+        out.write(trailer);
+    }
+
+    private static void writeInt(byte[] buffer, int offset, long value) {
+        for (int i = 0; i < 4; i++) {
+            buffer[offset + i] = (byte) (value >> (8 * i));
+        }
+    }
+
+    /**
+     *   Calculates the CRC32 of two concatenated sequences from the CRC32 of each sequence, as implemented by
+     *   zlib's crc32_combine.
+     *
+     *   @param crc1 The CRC32 of the first sequence
+     *   @param crc2 The CRC32 of the second sequence
+     *   @param length2 The length of the second sequence
+     *   @return long - The CRC32 of the combined sequence
+     */
+    public static long combineCrc32(long crc1, long crc2, long length2) {
+        if (length2 <= 0) {
+            return crc1;
+        }
+
+        final long[] even = new long[32];
+        final long[] odd = new long[32];
+
+        // Operator for one zero bit
+        odd[0] = 0xedb88320L;
+        long row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+
+        // Operators for two and four zero bits
+        gf2MatrixSquare(even, odd);
+        gf2MatrixSquare(odd, even);
+
+        // Apply length2 zero bytes to crc1
+        do {
+            gf2MatrixSquare(even, odd);
+            if ((length2 & 1) != 0) {
+                crc1 = gf2MatrixTimes(even, crc1);
+            }
+            length2 >>= 1;
+            if (length2 == 0) {
+                break;
+            }
+
+            gf2MatrixSquare(odd, even);
+            if ((length2 & 1) != 0) {
+                crc1 = gf2MatrixTimes(odd, crc1);
+            }
+            length2 >>= 1;
+        } while (length2 != 0);
+
+        return (crc1 ^ crc2) & 0xffffffffL;
+    }
+
+    private static long gf2MatrixTimes(long[] matrix, long vector) {
+        long sum = 0;
+        int i = 0;
+        while (vector != 0) {
+            if ((vector & 1) != 0) {
+                sum ^= matrix[i];
+            }
+            vector >>>= 1;
+            i++;
+        }
+        return sum;
+    }
+
+    private static void gf2MatrixSquare(long[] square, long[] matrix) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = gf2MatrixTimes(matrix, matrix[n]);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.archive.acc.util;
+
+import org.tukaani.xz.SeekableFileInputStream;
+import org.tukaani.xz.SeekableXZInputStream;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ *  XZ decompressor which decodes the blocks of an archive concurrently. The position and size of every block are read
+ *  from the indices of the XZ streams, so each block is decoded independently from its own offset and the decoded
+ *  blocks are returned in order. Archives written by {@link ParallelXZOutputStream} (or xz -T) hold several blocks,
+ *  whereas archives compressed as a single block, or with blocks above {@link #MAX_BLOCK_SIZE}, are decoded as a
+ *  single stream on the calling thread.
+ *  <br/><br/>
+ *  Decoded blocks are held in memory, so only one block per thread (plus one) is pending decompression at any time.
+ *  @author Aashutos Kakshepati
+ */
+public class ParallelXZInputStream extends InputStream {
+
+    // Larger blocks are not buffered in memory, so their archives are decoded as a single stream
+    public static final long MAX_BLOCK_SIZE = 64 * 1024 * 1024;
+
+    private final File archive;
+    private final int blockCount;
+    private final int maxPending;
+    private final ExecutorService executor;
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    // Idle decoders, each of which holds its own handle on the archive and has parsed its indices
+    private final ConcurrentLinkedQueue<SeekableXZInputStream> decoders = new ConcurrentLinkedQueue<>();
+    private final List<SeekableXZInputStream> openedDecoders = new ArrayList<>();
+
+    private int nextBlock;
+    private byte[] block = new byte[0];
+    private int position;
+    private volatile boolean closed;
+
+    private ParallelXZInputStream(File archive, SeekableXZInputStream decoder, int threads) {
+        this.archive = archive;
+        this.blockCount = decoder.getBlockCount();
+        this.maxPending = threads + 1;
+        this.executor = Executors.newFixedThreadPool(threads);
+        openedDecoders.add(decoder);
+        decoders.add(decoder);
+    }
+
+    /**
+     *   Opens the XZ archive specified for reading. The blocks of the archive are decoded concurrently, where more than
+     *   one thread is available and the archive holds several blocks no larger than {@link #MAX_BLOCK_SIZE}.
+     *   Otherwise, the archive is decoded as a single stream.
+     *
+     *   @param archive The XZ archive to be decompressed
+     *   @param threads The number of threads to decode blocks with
+     *   @return InputStream - The decompressed content of the archive
+     *   @throws IOException if the indices of the archive could not be read
+     */
+    public static InputStream open(Path archive, int threads) throws IOException {
+        final SeekableXZInputStream decoder = new SeekableXZInputStream(new SeekableFileInputStream(archive.toFile()));
+        boolean parallel = threads > 1 && decoder.getBlockCount() > 1;
+        for (int i = 0; parallel && i < decoder.getBlockCount(); i++) {
+            parallel = decoder.getBlockSize(i) <= MAX_BLOCK_SIZE;
+        }
+
+        return parallel ? new ParallelXZInputStream(archive.toFile(), decoder, threads) : decoder;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] b = new byte[1];
+        return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream has already been closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+
+        while (position == block.length) {
+            if (!nextBlock()) {
+                return -1;
+            }
+        }
+
+        final int length = Math.min(len, block.length - position);
+        System.arraycopy(block, position, b, off, length);
+        position += length;
+        return length;
+    }
+
+    @Override
+    public int available() {
+        return block.length - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        pending.forEach(f -> f.cancel(true));
+        pending.clear();
+        executor.shutdownNow();
+
+        IOException exception = null;
+        synchronized(openedDecoders) {
+            for (SeekableXZInputStream decoder : openedDecoders) {
+                try {
+                    decoder.close();
+                } catch(IOException e) {
+                    exception = Objects.requireNonNullElse(exception, e);
+                }
+            }
+        }
+        if (Objects.nonNull(exception)) {
+            throw exception;
+        }
+    }
+
+    private boolean nextBlock() throws IOException {
+        while (nextBlock < blockCount && pending.size() < maxPending) {
+            final int blockNumber = nextBlock++;
+            pending.addLast(executor.submit(() -> decode(blockNumber)));
+        }
+        if (pending.isEmpty()) {
+            return false;
+        }
+
+        try {
+            block = pending.removeFirst().get();
+            position = 0;
+            return true;
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } catch(ExecutionException e) {
+            throw e.getCause() instanceof IOException ioException ? ioException : new IOException(e.getCause());
+        }
+    }
+
+    private byte[] decode(int blockNumber) throws IOException {
+        SeekableXZInputStream decoder = decoders.poll();
+        if (Objects.isNull(decoder)) {
+            decoder = new SeekableXZInputStream(new SeekableFileInputStream(archive));
+            synchronized(openedDecoders) {
+                if (closed) {
+                    decoder.close();
+                    throw new IOException("Stream has already been closed");
+                }
+                openedDecoders.add(decoder);
+            }
+        }
+
+        try {
+            decoder.seekToBlock(blockNumber);
+            final byte[] data = new byte[(int) decoder.getBlockSize(blockNumber)];
+            if (decoder.readNBytes(data, 0, data.length) != data.length) {
+                throw new EOFException(String.format("Block %d of %s is truncated", blockNumber, archive));
+            }
+            return data;
+        } finally {
+            decoders.add(decoder);
+        }
+    }
+}
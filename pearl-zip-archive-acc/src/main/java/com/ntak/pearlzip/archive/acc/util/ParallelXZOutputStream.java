@@ -0,0 +1,52 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.archive.acc.util;
+
+import org.tukaani.xz.LZMA2Options;
+import org.tukaani.xz.XZOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ *  XZ compressor which encodes fixed-size blocks of input concurrently. Each block is encoded as an independent XZ
+ *  stream, with its own block index, and the streams are concatenated in input order. Concatenated streams are valid
+ *  XZ data and are decoded as a single stream by xz, 7-Zip and the XZ for Java decoders. As each stream records its
+ *  block boundaries in its index, the blocks can also be located and decoded independently of one another.
+ *  <br/><br/>
+ *  LZMA2 encoders are memory hungry, so only one block per thread (plus one) is pending compression at any time.
+ *  @author Aashutos Kakshepati
+ */
+public class ParallelXZOutputStream extends BlockParallelOutputStream {
+
+    public static final int DEFAULT_PRESET = LZMA2Options.PRESET_DEFAULT;
+
+    private final int preset;
+
+    public ParallelXZOutputStream(OutputStream out, int threads) throws IOException {
+        this(out, threads, DEFAULT_PRESET);
+    }
+
+    public ParallelXZOutputStream(OutputStream out, int threads, int preset) throws IOException {
+        // Matches the block size of xz -T, which is three times the dictionary size
+        super(out, threads, getBlockSize(preset), Math.max(threads, 1) + 1);
+        this.preset = preset;
+    }
+
+    public static int getBlockSize(int preset) throws IOException {
+        return 3 * new LZMA2Options(preset).getDictSize();
+    }
+
+    @Override
+    protected Block compress(byte[] data, int length, byte[] preceding, boolean last) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream(length / 4);
+        try(XZOutputStream xzStream = new XZOutputStream(output, new LZMA2Options(preset))) {
+            xzStream.write(data, 0, length);
+        }
+
+        final byte[] block = output.toByteArray();
+        return new Block(block, block.length, 0, length);
+    }
+}
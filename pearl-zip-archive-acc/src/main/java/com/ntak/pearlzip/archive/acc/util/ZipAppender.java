@@ -0,0 +1,426 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.archive.acc.util;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipException;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ *  Appends entries to an existing zip archive in place. The archive is truncated at the start of its central
+ *  directory, the new entries are written from that point and a merged central directory (followed by the ZIP64
+ *  end records, where required) is written after them. Existing entry data is neither read nor rewritten.
+ *  <br/><br/>
+ *  Before the archive is modified, the original central directory and end records are journaled to a sibling file
+ *  (&lt;archive&gt;.pzjournal). Should the process be interrupted, {@link #recover(Path)} restores the archive to its
+ *  original state by truncating it at the old central directory offset and writing the journaled records back.
+ *  @author Aashutos Kakshepati
+ */
+public class ZipAppender {
+
+    private static final int SIG_CENTRAL_FILE_HEADER = 0x02014b50;
+    private static final int SIG_EOCD = 0x06054b50;
+    private static final int SIG_ZIP64_EOCD = 0x06064b50;
+    private static final int SIG_ZIP64_LOCATOR = 0x07064b50;
+    private static final int SIG_JOURNAL = 0x4e524a50;
+
+    private static final int EOCD_LENGTH = 22;
+    private static final int ZIP64_EOCD_LENGTH = 56;
+    private static final int ZIP64_LOCATOR_LENGTH = 20;
+    private static final int CENTRAL_FILE_HEADER_LENGTH = 46;
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_SHORT = 0xFFFF;
+    private static final short ZIP64_EXTRA_ID = 0x0001;
+    private static final short ZIP64_VERSION = 45;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Archives with an append in progress, whose journals are live rather than left by an interrupted append
+    private static final Set<Path> APPENDING = ConcurrentHashMap.newKeySet();
+
+    /**
+     *  Callback writing new entries to the stream positioned at the end of the existing entries. The stream is
+     *  finished on close, if the callback has not already done so.
+     */
+    @FunctionalInterface
+    public interface EntryWriter {
+        void write(ZipArchiveOutputStream aoStream) throws IOException;
+    }
+
+    public static Path getJournalPath(Path archive) {
+        return archive.resolveSibling(String.format("%s.pzjournal", archive.getFileName()));
+    }
+
+    /**
+     *   Appends the entries written by the callback to the archive specified.
+     *
+     *   @param archive The zip archive to append to
+     *   @param writer Callback writing the new entries
+     *   @return boolean - true, if the entries were appended. false, if the layout of the archive is unsupported
+     *   for appending (e.g. data follows the end records), in which case the archive is untouched
+     *   @throws IOException if the append failed. The archive is restored to its original state
+     */
+    public static boolean append(Path archive, EntryWriter writer) throws IOException {
+        recover(archive);
+
+        final Path key = archive.toAbsolutePath().normalize();
+        APPENDING.add(key);
+        try {
+            return appendJournaled(archive, writer);
+        } finally {
+            APPENDING.remove(key);
+        }
+    }
+
+    private static boolean appendJournaled(Path archive, EntryWriter writer) throws IOException {
+        try (FileChannel channel = FileChannel.open(archive, READ, WRITE)) {
+            final Optional<Trailer> optTrailer = readTrailer(channel, 0);
+            if (optTrailer.isEmpty()) {
+                return false;
+            }
+
+            final Trailer original = optTrailer.get();
+            final long cdOffset = original.cdOffset;
+            if (channel.size() - cdOffset > Integer.MAX_VALUE) {
+                return false;
+            }
+            final byte[] tail = read(channel, cdOffset, (int) (channel.size() - cdOffset));
+            writeJournal(archive, cdOffset, tail);
+
+            try {
+                // Write new entries over the existing central directory
+                channel.truncate(cdOffset);
+                channel.position(cdOffset);
+                try (ZipArchiveOutputStream aoStream =
+                             new ZipArchiveOutputStream(new ShieldedOutputStream(
+                                     new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE)))) {
+                    writer.write(aoStream);
+                }
+
+                // Merge the central directory of the new entries, rebased to their position in the archive, with
+                // the original central directory
+                final Trailer appended = readTrailer(channel, cdOffset)
+                        .orElseThrow(() -> new ZipException("Appended entries are missing end of central directory"));
+                final long newCdOffset = cdOffset + appended.cdOffset;
+                final byte[] appendedCd = rebase(read(channel, newCdOffset, (int) appended.cdSize),
+                                                 appended.entries, cdOffset);
+
+                channel.truncate(newCdOffset);
+                channel.position(newCdOffset);
+                write(channel, ByteBuffer.wrap(tail, 0, (int) original.cdSize));
+                write(channel, ByteBuffer.wrap(appendedCd));
+                writeEndRecords(channel, newCdOffset, original.cdSize + appendedCd.length,
+                                original.entries + appended.entries, original.comment, original.zip64);
+                channel.force(true);
+            } catch(IOException | RuntimeException e) {
+                restore(channel, cdOffset, tail);
+                Files.deleteIfExists(getJournalPath(archive));
+                throw e;
+            }
+        }
+
+        Files.deleteIfExists(getJournalPath(archive));
+        return true;
+    }
+
+    /**
+     *   Restores an archive left part-way through an append, if a journal exists for it. A journal that was not
+     *   completely written is discarded, as the archive is only modified once the journal is durable. Archives with an
+     *   append in progress in this process are left untouched.
+     *
+     *   @param archive The zip archive to recover
+     *   @throws IOException if the archive could not be restored
+     */
+    public static void recover(Path archive) throws IOException {
+        final Path journal = getJournalPath(archive);
+        if (!Files.exists(journal) || APPENDING.contains(archive.toAbsolutePath().normalize())) {
+            return;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(journal))
+                                            .order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() >= 20 && buffer.getInt() == SIG_JOURNAL) {
+            final long cdOffset = buffer.getLong();
+            final int length = buffer.getInt();
+            if (buffer.remaining() == length + 4 && buffer.getInt(buffer.position() + length) == SIG_JOURNAL
+                    && Files.exists(archive)) {
+                final byte[] tail = new byte[length];
+                buffer.get(tail);
+                try (FileChannel channel = FileChannel.open(archive, WRITE)) {
+                    restore(channel, cdOffset, tail);
+                }
+            }
+        }
+
+        Files.delete(journal);
+    }
+
+    private static void writeJournal(Path archive, long cdOffset, byte[] tail) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(tail.length + 20)
+                                            .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(SIG_JOURNAL)
+              .putLong(cdOffset)
+              .putInt(tail.length)
+              .put(tail)
+              .putInt(SIG_JOURNAL)
+              .flip();
+
+        try (FileChannel channel = FileChannel.open(getJournalPath(archive), CREATE, TRUNCATE_EXISTING, WRITE)) {
+            write(channel, buffer);
+            channel.force(true);
+        }
+    }
+
+    private static void restore(FileChannel channel, long cdOffset, byte[] tail) throws IOException {
+        channel.truncate(cdOffset);
+        channel.position(cdOffset);
+        write(channel, ByteBuffer.wrap(tail));
+        channel.force(true);
+    }
+
+    /**
+     *   Locates the end records of the zip data starting at the base offset. Offsets in the returned trailer are
+     *   relative to the base. The central directory must immediately precede the end records.
+     */
+    static Optional<Trailer> readTrailer(FileChannel channel, long base) throws IOException {
+        final long size = channel.size();
+        final int length = (int) Math.min(size - base, EOCD_LENGTH + MAX_COMMENT_LENGTH);
+        if (length < EOCD_LENGTH) {
+            return Optional.empty();
+        }
+
+        final ByteBuffer buffer = ByteBuffer.wrap(read(channel, size - length, length))
+                                            .order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = length - EOCD_LENGTH; i >= 0; i--) {
+            if (buffer.getInt(i) != SIG_EOCD
+                    || i + EOCD_LENGTH + Short.toUnsignedInt(buffer.getShort(i + 20)) != length) {
+                continue;
+            }
+
+            final long eocdPosition = size - length + i;
+            final Trailer trailer = new Trailer();
+            trailer.entries = Short.toUnsignedInt(buffer.getShort(i + 10));
+            trailer.cdSize = Integer.toUnsignedLong(buffer.getInt(i + 12));
+            trailer.cdOffset = Integer.toUnsignedLong(buffer.getInt(i + 16));
+            trailer.comment = new byte[Short.toUnsignedInt(buffer.getShort(i + 20))];
+            buffer.get(i + EOCD_LENGTH, trailer.comment);
+            long recordsPosition = eocdPosition;
+
+            // ZIP64 end of central directory locator and record
+            final long locatorPosition = eocdPosition - ZIP64_LOCATOR_LENGTH;
+            if (locatorPosition - ZIP64_EOCD_LENGTH >= base) {
+                final ByteBuffer locator = ByteBuffer.wrap(read(channel, locatorPosition, ZIP64_LOCATOR_LENGTH))
+                                                     .order(ByteOrder.LITTLE_ENDIAN);
+                if (locator.getInt(0) == SIG_ZIP64_LOCATOR) {
+                    final long zip64Position = base + locator.getLong(8);
+                    if (zip64Position + ZIP64_EOCD_LENGTH != locatorPosition) {
+                        return Optional.empty();
+                    }
+                    final ByteBuffer zip64 = ByteBuffer.wrap(read(channel, zip64Position, ZIP64_EOCD_LENGTH))
+                                                       .order(ByteOrder.LITTLE_ENDIAN);
+                    if (zip64.getInt(0) != SIG_ZIP64_EOCD) {
+                        return Optional.empty();
+                    }
+                    trailer.entries = zip64.getLong(32);
+                    trailer.cdSize = zip64.getLong(40);
+                    trailer.cdOffset = zip64.getLong(48);
+                    trailer.zip64 = true;
+                    recordsPosition = zip64Position;
+                }
+            }
+
+            if (base + trailer.cdOffset + trailer.cdSize != recordsPosition || trailer.cdSize > Integer.MAX_VALUE) {
+                return Optional.empty();
+            }
+            return Optional.of(trailer);
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     *   Shifts the local file header offsets of the central directory records by the amount specified, promoting
+     *   offsets to the ZIP64 extra field where they no longer fit in 32 bits.
+     */
+    static byte[] rebase(byte[] centralDirectory, long entries, long shift) throws IOException {
+        final ByteBuffer in = ByteBuffer.wrap(centralDirectory)
+                                        .order(ByteOrder.LITTLE_ENDIAN);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(centralDirectory.length);
+
+        for (long i = 0; i < entries; i++) {
+            if (in.remaining() < CENTRAL_FILE_HEADER_LENGTH || in.getInt(in.position()) != SIG_CENTRAL_FILE_HEADER) {
+                throw new ZipException("Unexpected central directory record");
+            }
+
+            final ByteBuffer header = ByteBuffer.allocate(CENTRAL_FILE_HEADER_LENGTH)
+                                                .order(ByteOrder.LITTLE_ENDIAN);
+            in.get(header.array());
+            final byte[] name = new byte[Short.toUnsignedInt(header.getShort(28))];
+            byte[] extra = new byte[Short.toUnsignedInt(header.getShort(30))];
+            final byte[] comment = new byte[Short.toUnsignedInt(header.getShort(32))];
+            in.get(name).get(extra).get(comment);
+
+            final boolean usizeInExtra = Integer.toUnsignedLong(header.getInt(24)) == ZIP64_MAGIC;
+            final boolean csizeInExtra = Integer.toUnsignedLong(header.getInt(20)) == ZIP64_MAGIC;
+            final long offset = Integer.toUnsignedLong(header.getInt(42));
+            if (offset == ZIP64_MAGIC || offset + shift >= ZIP64_MAGIC) {
+                extra = rebaseZip64Extra(extra, usizeInExtra, csizeInExtra, offset == ZIP64_MAGIC ? -1 : offset,
+                                         shift);
+                header.putInt(42, (int) ZIP64_MAGIC);
+                header.putShort(30, (short) extra.length);
+                header.putShort(6, (short) Math.max(header.getShort(6), ZIP64_VERSION));
+            } else {
+                header.putInt(42, (int) (offset + shift));
+            }
+
+            out.write(header.array());
+            out.write(name);
+            out.write(extra);
+            out.write(comment);
+        }
+
+        return out.toByteArray();
+    }
+
+    private static byte[] rebaseZip64Extra(byte[] extra, boolean usizeInExtra, boolean csizeInExtra, long offset,
+            long shift) throws ZipException {
+        final ByteBuffer in = ByteBuffer.wrap(extra)
+                                        .order(ByteOrder.LITTLE_ENDIAN);
+        final ByteBuffer out = ByteBuffer.allocate(extra.length + 12)
+                                         .order(ByteOrder.LITTLE_ENDIAN);
+        final int sizesLength = ((usizeInExtra ? 1 : 0) + (csizeInExtra ? 1 : 0)) * 8;
+        boolean rebased = false;
+
+        while (in.remaining() >= 4) {
+            final short id = in.getShort();
+            final int length = Short.toUnsignedInt(in.getShort());
+            if (length > in.remaining()) {
+                throw new ZipException("Malformed extra field");
+            }
+            final byte[] data = new byte[length];
+            in.get(data);
+
+            if (id != ZIP64_EXTRA_ID) {
+                out.putShort(id).putShort((short) length).put(data);
+                continue;
+            }
+
+            final ByteBuffer zip64 = ByteBuffer.wrap(data)
+                                               .order(ByteOrder.LITTLE_ENDIAN);
+            final long rebasedOffset = offset < 0 ? zip64.getLong(sizesLength) + shift : offset + shift;
+            out.putShort(ZIP64_EXTRA_ID)
+               .putShort((short) (sizesLength + 8))
+               .put(data, 0, sizesLength)
+               .putLong(rebasedOffset);
+            rebased = true;
+        }
+
+        if (!rebased) {
+            if (offset < 0 || sizesLength > 0) {
+                throw new ZipException("Missing ZIP64 extra field");
+            }
+            out.putShort(ZIP64_EXTRA_ID)
+               .putShort((short) 8)
+               .putLong(offset + shift);
+        }
+
+        final byte[] result = new byte[out.position()];
+        out.flip().get(result);
+        return result;
+    }
+
+    private static void writeEndRecords(FileChannel channel, long cdOffset, long cdSize, long entries, byte[] comment,
+            boolean zip64) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(ZIP64_EOCD_LENGTH + ZIP64_LOCATOR_LENGTH + EOCD_LENGTH
+                                                              + comment.length)
+                                            .order(ByteOrder.LITTLE_ENDIAN);
+
+        if (zip64 || entries >= ZIP64_MAGIC_SHORT || cdSize >= ZIP64_MAGIC || cdOffset >= ZIP64_MAGIC) {
+            final long zip64Position = channel.position();
+            buffer.putInt(SIG_ZIP64_EOCD)
+                  .putLong(ZIP64_EOCD_LENGTH - 12)
+                  .putShort(ZIP64_VERSION)
+                  .putShort(ZIP64_VERSION)
+                  .putInt(0)
+                  .putInt(0)
+                  .putLong(entries)
+                  .putLong(entries)
+                  .putLong(cdSize)
+                  .putLong(cdOffset);
+            buffer.putInt(SIG_ZIP64_LOCATOR)
+                  .putInt(0)
+                  .putLong(zip64Position)
+                  .putInt(1);
+        }
+
+        buffer.putInt(SIG_EOCD)
+              .putShort((short) 0)
+              .putShort((short) 0)
+              .putShort((short) Math.min(entries, ZIP64_MAGIC_SHORT))
+              .putShort((short) Math.min(entries, ZIP64_MAGIC_SHORT))
+              .putInt((int) Math.min(cdSize, ZIP64_MAGIC))
+              .putInt((int) Math.min(cdOffset, ZIP64_MAGIC))
+              .putShort((short) comment.length)
+              .put(comment)
+              .flip();
+        write(channel, buffer);
+    }
+
+    private static byte[] read(FileChannel channel, long position, int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        return buffer.array();
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    static class Trailer {
+        private long cdOffset;
+        private long cdSize;
+        private long entries;
+        private byte[] comment;
+        private boolean zip64;
+    }
+
+    /**
+     *  Flushes rather than closes the archive channel, when the zip stream is closed.
+     */
+    private static class ShieldedOutputStream extends FilterOutputStream {
+        private ShieldedOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
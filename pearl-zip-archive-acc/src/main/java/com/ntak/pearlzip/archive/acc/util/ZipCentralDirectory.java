@@ -0,0 +1,426 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.archive.acc.util;
+
+import org.apache.commons.compress.archivers.zip.ZipUtil;
+import org.apache.commons.compress.utils.BoundedSeekableByteChannelInputStream;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ *  Read-only view of a zip archive's central directory. The central directory is memory-mapped and only the offset of
+ *  each record is indexed on open, so no local headers or entry data are read to list the archive. Entry names and
+ *  other fields are decoded from the mapped records on demand.
+ *  <br/><br/>
+ *  Entry data is read through positional reads on the underlying FileChannel, so individual entries can be read in
+ *  any order without scanning the archive. Stored entries may be transferred directly to another channel. Archives
+ *  held in the InMemoryArchiveStore are read in the same way from an in-memory channel, in which case the central
+ *  directory is read onto the heap.
+ *  @author Aashutos Kakshepati
+ */
+public class ZipCentralDirectory implements Closeable {
+
+    public static final int METHOD_STORED = 0;
+    public static final int METHOD_DEFLATED = 8;
+
+    private static final int CFH_SIG = 0x02014b50;
+    private static final int LFH_SIG = 0x04034b50;
+    private static final int EOCD_SIG = 0x06054b50;
+    private static final int ZIP64_EOCD_SIG = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIG = 0x07064b50;
+    private static final int CFH_LENGTH = 46;
+    private static final int LFH_LENGTH = 30;
+    private static final int EOCD_LENGTH = 22;
+    private static final int ZIP64_LOCATOR_LENGTH = 20;
+    private static final int MAX_COMMENT_LENGTH = 0xffff;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    private static final long ZIP64_MAGIC = 0xffffffffL;
+    private static final int ENCRYPTED_FLAG = 1;
+
+    private final Path path;
+    private final SeekableByteChannel channel;
+    private final ByteBuffer directory;
+    private final int[] offsets;
+    private final String[] names;
+
+    private ZipCentralDirectory(Path path, SeekableByteChannel channel, ByteBuffer directory, int[] offsets) {
+        this.path = path;
+        this.channel = channel;
+        this.directory = directory;
+        this.offsets = offsets;
+        this.names = new String[offsets.length];
+    }
+
+    /**
+     *   Locates and maps the central directory of the zip archive specified.
+     *
+     *   @param path The path of the zip archive
+     *   @return ZipCentralDirectory - The indexed central directory
+     *   @throws IOException if the archive could not be read or is not a valid zip archive
+     */
+    public static ZipCentralDirectory open(Path path) throws IOException {
+        final SeekableByteChannel channel = CommonsCompressUtil.openChannel(path);
+        try {
+            final long size = channel.size();
+            final int tailLength = (int) Math.min(size, EOCD_LENGTH + MAX_COMMENT_LENGTH + ZIP64_LOCATOR_LENGTH);
+            final ByteBuffer tail = map(channel, size - tailLength, tailLength).order(ByteOrder.LITTLE_ENDIAN);
+
+            int eocd = -1;
+            for (int i = tailLength - EOCD_LENGTH; i >= 0; i--) {
+                if (tail.getInt(i) == EOCD_SIG) {
+                    eocd = i;
+                    break;
+                }
+            }
+            if (eocd < 0) {
+                throw new ZipException(String.format("End of central directory not found in %s", path));
+            }
+
+            long entries = Short.toUnsignedLong(tail.getShort(eocd + 10));
+            long cdSize = Integer.toUnsignedLong(tail.getInt(eocd + 12));
+            long cdOffset = Integer.toUnsignedLong(tail.getInt(eocd + 16));
+
+            final int locator = eocd - ZIP64_LOCATOR_LENGTH;
+            if (locator >= 0 && tail.getInt(locator) == ZIP64_LOCATOR_SIG) {
+                final ByteBuffer zip64 = ByteBuffer.allocate(56).order(ByteOrder.LITTLE_ENDIAN);
+                read(channel, zip64, tail.getLong(locator + 8));
+                if (zip64.getInt(0) != ZIP64_EOCD_SIG) {
+                    throw new ZipException(String.format("Zip64 end of central directory not found in %s", path));
+                }
+                entries = zip64.getLong(32);
+                cdSize = zip64.getLong(40);
+                cdOffset = zip64.getLong(48);
+            }
+
+            if (cdSize > Integer.MAX_VALUE || entries > Integer.MAX_VALUE || cdOffset + cdSize > size) {
+                throw new ZipException(String.format("Unsupported central directory layout in %s", path));
+            }
+
+            final ByteBuffer directory = map(channel, cdOffset, (int) cdSize).order(ByteOrder.LITTLE_ENDIAN);
+
+            final int[] offsets = new int[(int) entries];
+            int offset = 0;
+            for (int i = 0; i < offsets.length; i++) {
+                if (offset + CFH_LENGTH > cdSize || directory.getInt(offset) != CFH_SIG) {
+                    throw new ZipException(String.format("Corrupt central directory record %d in %s", i, path));
+                }
+                offsets[i] = offset;
+                offset += CFH_LENGTH + Short.toUnsignedInt(directory.getShort(offset + 28))
+                        + Short.toUnsignedInt(directory.getShort(offset + 30))
+                        + Short.toUnsignedInt(directory.getShort(offset + 32));
+            }
+
+            return new ZipCentralDirectory(path, channel, directory, offsets);
+        } catch(IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int size() {
+        return offsets.length;
+    }
+
+    /**
+     *   Decodes the name of the entry at the index specified. Names are decoded on first access only.
+     *
+     *   @param index The central directory index of the entry
+     *   @return String - The name of the entry, as stored in the archive
+     */
+    public String getName(int index) {
+        String name = names[index];
+        if (Objects.isNull(name)) {
+            // Names without the language encoding flag are decoded as UTF-8, as per Apache Commons Compress
+            name = new String(getNameBytes(index), StandardCharsets.UTF_8);
+            names[index] = name;
+        }
+        return name;
+    }
+
+    /**
+     *   Finds the index of the entry with the name specified, without decoding the names of other entries. The
+     *   index hint is checked first. Folder names are matched with or without their trailing separator.
+     *
+     *   @param name The name of the entry to find
+     *   @param hint The expected index of the entry, or a negative value if unknown
+     *   @return int - The central directory index of the entry or -1, if not found
+     */
+    public int find(String name, int hint) {
+        final byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+        if (hint >= 0 && hint < offsets.length && nameMatches(hint, encoded)) {
+            return hint;
+        }
+
+        for (int i = 0; i < offsets.length; i++) {
+            if (nameMatches(i, encoded)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean isDirectory(int index) {
+        final int length = getNameLength(index);
+        return length > 0 && directory.get(offsets[index] + CFH_LENGTH + length - 1) == '/';
+    }
+
+    public boolean isEncrypted(int index) {
+        return (directory.getShort(offsets[index] + 8) & ENCRYPTED_FLAG) != 0;
+    }
+
+    public int getMethod(int index) {
+        return Short.toUnsignedInt(directory.getShort(offsets[index] + 10));
+    }
+
+    public long getLastModifiedTime(int index) {
+        return ZipUtil.dosToJavaTime(Integer.toUnsignedLong(directory.getInt(offsets[index] + 12)));
+    }
+
+    public long getCrc(int index) {
+        return Integer.toUnsignedLong(directory.getInt(offsets[index] + 16));
+    }
+
+    public long getCompressedSize(int index) {
+        return getZip64Value(index, 1);
+    }
+
+    public long getSize(int index) {
+        return getZip64Value(index, 0);
+    }
+
+    public long getLocalHeaderOffset(int index) {
+        return getZip64Value(index, 2);
+    }
+
+    public int getExternalAttributes(int index) {
+        return directory.getInt(offsets[index] + 38);
+    }
+
+    public String getComment(int index) {
+        final int offset = offsets[index];
+        final int length = Short.toUnsignedInt(directory.getShort(offset + 32));
+        if (length == 0) {
+            return "";
+        }
+
+        final byte[] comment = new byte[length];
+        directory.get(offset + CFH_LENGTH + getNameLength(index) + getExtraLength(index), comment);
+        return new String(comment, StandardCharsets.UTF_8);
+    }
+
+    /**
+     *   Resolves the offset of the entry's data in the archive from its local file header.
+     *
+     *   @param index The central directory index of the entry
+     *   @return long - The offset of the first byte of the entry's data
+     *   @throws IOException if the local file header could not be read
+     */
+    public long getDataOffset(int index) throws IOException {
+        final long headerOffset = getLocalHeaderOffset(index);
+        final ByteBuffer header = ByteBuffer.allocate(LFH_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+        read(channel, header, headerOffset);
+        if (header.hasRemaining()) {
+            throw new ZipException(String.format("Truncated local file header for %s", getName(index)));
+        }
+        if (header.getInt(0) != LFH_SIG) {
+            throw new ZipException(String.format("Local file header not found for %s", getName(index)));
+        }
+
+        return headerOffset + LFH_LENGTH + Short.toUnsignedInt(header.getShort(26))
+                + Short.toUnsignedInt(header.getShort(28));
+    }
+
+    /**
+     *   Opens a stream of the raw (compressed) data of the entry at the index specified.
+     *
+     *   @param index The central directory index of the entry
+     *   @return InputStream - The compressed data of the entry
+     *   @throws IOException if the local file header could not be read
+     */
+    public InputStream getRawInputStream(int index) throws IOException {
+        return new BoundedSeekableByteChannelInputStream(getDataOffset(index), getCompressedSize(index), channel);
+    }
+
+    /**
+     *   Opens a stream of the uncompressed data of the entry at the index specified. Only the stored and deflated
+     *   methods are supported.
+     *
+     *   @param index The central directory index of the entry
+     *   @return InputStream - The uncompressed data of the entry
+     *   @throws IOException if the entry could not be read or uses an unsupported method
+     */
+    public InputStream getInputStream(int index) throws IOException {
+        if (isEncrypted(index)) {
+            throw new ZipException(String.format("Encrypted entry %s is not supported", getName(index)));
+        }
+
+        return switch(getMethod(index)) {
+            case METHOD_STORED -> getRawInputStream(index);
+            case METHOD_DEFLATED -> {
+                final Inflater inflater = new Inflater(true);
+                yield new InflaterInputStream(getRawInputStream(index), inflater, 64 * 1024) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            inflater.end();
+                        }
+                    }
+                };
+            }
+            default -> throw new ZipException(String.format("Compression method %d of entry %s is not supported",
+                                                            getMethod(index), getName(index)));
+        };
+    }
+
+    /**
+     *   Copies the data of the stored (uncompressed) entry at the index specified to the target channel, without the
+     *   data passing through the heap. The CRC of the data is not verified.
+     *
+     *   @param index The central directory index of the entry
+     *   @param target The channel to write the entry's data to
+     *   @throws IOException if the entry could not be read or is not a stored, unencrypted entry
+     */
+    public void transferTo(int index, WritableByteChannel target) throws IOException {
+        if (!isStored(index)) {
+            throw new ZipException(String.format("Entry %s is not stored without compression", getName(index)));
+        }
+
+        CommonsCompressUtil.transfer(channel, getDataOffset(index), getCompressedSize(index), target);
+    }
+
+    public boolean isStored(int index) {
+        return !isEncrypted(index) && getMethod(index) == METHOD_STORED;
+    }
+
+    public boolean isSupported(int index) {
+        return !isEncrypted(index) && (getMethod(index) == METHOD_STORED || getMethod(index) == METHOD_DEFLATED);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     *   Maps a region of a file into memory. Other channels are read onto the heap.
+     */
+    private static ByteBuffer map(SeekableByteChannel channel, long position, int length) throws IOException {
+        if (channel instanceof FileChannel fileChannel) {
+            return fileChannel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        read(channel, buffer, position);
+        if (buffer.hasRemaining()) {
+            throw new ZipException(String.format("Truncated region of %d bytes at offset %d", length, position));
+        }
+        return buffer.clear();
+    }
+
+    /**
+     *   Reads from the position specified until the buffer is full or the end of the channel is reached. Reads of
+     *   channels other than files are synchronised on the channel, as they move its position.
+     */
+    private static void read(SeekableByteChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int read = 0;
+        if (channel instanceof FileChannel fileChannel) {
+            while (buffer.hasRemaining() && read >= 0) {
+                read = fileChannel.read(buffer, position + buffer.position());
+            }
+            return;
+        }
+
+        synchronized(channel) {
+            channel.position(position + buffer.position());
+            while (buffer.hasRemaining() && read >= 0) {
+                read = channel.read(buffer);
+            }
+        }
+    }
+
+    private byte[] getNameBytes(int index) {
+        final byte[] name = new byte[getNameLength(index)];
+        directory.get(offsets[index] + CFH_LENGTH, name);
+        return name;
+    }
+
+    private boolean nameMatches(int index, byte[] encoded) {
+        int length = getNameLength(index);
+        if (isDirectory(index) && length == encoded.length + 1) {
+            length--;
+        }
+        if (length != encoded.length) {
+            return false;
+        }
+
+        final int offset = offsets[index] + CFH_LENGTH;
+        for (int i = 0; i < length; i++) {
+            if (directory.get(offset + i) != encoded[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int getNameLength(int index) {
+        return Short.toUnsignedInt(directory.getShort(offsets[index] + 28));
+    }
+
+    private int getExtraLength(int index) {
+        return Short.toUnsignedInt(directory.getShort(offsets[index] + 30));
+    }
+
+    /**
+     *   Reads the uncompressed size (0), compressed size (1) or local header offset (2) of an entry. Values which
+     *   overflowed the record are read from the Zip64 extended information extra field, in which only the overflowed
+     *   values are present, in that order.
+     */
+    private long getZip64Value(int index, int field) {
+        final int offset = offsets[index];
+        final long[] values = {Integer.toUnsignedLong(directory.getInt(offset + 24)),
+                               Integer.toUnsignedLong(directory.getInt(offset + 20)),
+                               Integer.toUnsignedLong(directory.getInt(offset + 42))};
+        if (values[field] != ZIP64_MAGIC) {
+            return values[field];
+        }
+
+        int extra = offset + CFH_LENGTH + getNameLength(index);
+        final int end = extra + getExtraLength(index);
+        while (extra + 4 <= end) {
+            final int id = Short.toUnsignedInt(directory.getShort(extra));
+            final int length = Short.toUnsignedInt(directory.getShort(extra + 2));
+            if (id == ZIP64_EXTRA_ID) {
+                int position = extra + 4;
+                for (int i = 0; i < field; i++) {
+                    if (values[i] == ZIP64_MAGIC) {
+                        position += 8;
+                    }
+                }
+                return position + 8 <= extra + 4 + length ? directory.getLong(position) : values[field];
+            }
+            extra += 4 + length;
+        }
+
+        return values[field];
+    }
+}
@@ -3,7 +3,9 @@
  */
 
 import com.ntak.pearlzip.archive.acc.pub.CommonsCompressArchiveReadService;
+import com.ntak.pearlzip.archive.acc.pub.CommonsCompressCompressedTarArchiveReadService;
 import com.ntak.pearlzip.archive.acc.pub.CommonsCompressArchiveWriteService;
+import com.ntak.pearlzip.archive.acc.pub.CommonsCompressZipArchiveReadService;
 
 /**
  *  Implementation of Pearl Zip Archive Service, which utilises 7-Zip Java Binding library underneath to provide
@@ -20,5 +22,6 @@ module com.ntak.pearlzip.archive.acc  {
     requires org.apache.logging.log4j.core;
 
     provides com.ntak.pearlzip.archive.pub.ArchiveWriteService with CommonsCompressArchiveWriteService;
-    provides com.ntak.pearlzip.archive.pub.ArchiveReadService with CommonsCompressArchiveReadService;
+    provides com.ntak.pearlzip.archive.pub.ArchiveReadService with CommonsCompressArchiveReadService,
+            CommonsCompressZipArchiveReadService, CommonsCompressCompressedTarArchiveReadService;
 }
\ No newline at end of file
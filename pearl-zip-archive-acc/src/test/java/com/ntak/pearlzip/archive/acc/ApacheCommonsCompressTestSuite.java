@@ -4,6 +4,7 @@
 package com.ntak.pearlzip.archive.acc;
 
 import org.junit.platform.runner.JUnitPlatform;
+import org.junit.platform.suite.api.ExcludeTags;
 import org.junit.platform.suite.api.SelectPackages;
 import org.junit.platform.suite.api.SuiteDisplayName;
 import org.junit.runner.RunWith;
@@ -14,5 +15,6 @@ import org.junit.runner.RunWith;
 @RunWith(JUnitPlatform.class)
 @SelectPackages("com.ntak.pearlzip")
 @SuiteDisplayName("PearlZip Apache Commons Compress archive module tests")
+@ExcludeTags("benchmark")
 public class ApacheCommonsCompressTestSuite {
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.archive.acc.pub;
+
+import com.ntak.pearlzip.archive.pub.ArchiveService;
+import com.ntak.pearlzip.archive.pub.FileInfo;
+import com.ntak.pearlzip.archive.util.DirectorySynthesiser;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.util.Strings;
+import org.junit.jupiter.api.*;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.ntak.pearlzip.archive.constants.ConfigurationConstants.CNS_COM_BUS_FACTORY;
+
+/**
+ *  Benchmark of the listing of a large file path only tar archive, comparing the synthesis of implicit folders by
+ *  {@link DirectorySynthesiser} with the previous pairwise stream implementation. The previous implementation is
+ *  quadratic, so it is timed on a sample of the entries and extrapolated to the full archive. Excluded from the test
+ *  suite. The number of entries can be set with the system property benchmark.entries (default 500000).
+ *  @author Aashutos Kakshepati
+ */
+@Tag("benchmark")
+public class CommonsCompressArchiveReadServiceBenchmark {
+
+    private static final Logger LOGGER =
+            LoggerContext.getContext().getLogger(CommonsCompressArchiveReadServiceBenchmark.class);
+    private static final int ENTRIES = Integer.getInteger("benchmark.entries", 500_000);
+    private static final int LEGACY_SAMPLE = 20_000;
+    private static final int FOLDERS = 1_000;
+    private static final int SUB_FOLDERS = 10;
+
+    private static Path archive;
+    private static List<String> names;
+
+    @BeforeAll
+    public static void setUpOnce() throws IOException {
+        System.setProperty(CNS_COM_BUS_FACTORY, "com.ntak.testfx.MockCommunicationBusFactory");
+        archive = Files.createTempFile("pz-benchmark", ".tar");
+        names = new ArrayList<>(ENTRIES);
+        try(TarArchiveOutputStream taoStream =
+                    new TarArchiveOutputStream(new BufferedOutputStream(Files.newOutputStream(archive)))) {
+            taoStream.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            for (int i = 0; i < ENTRIES; i++) {
+                final String name = String.format("folder-%d/sub-folder-%d/file-%d.txt", i % FOLDERS,
+                                                  (i / FOLDERS) % SUB_FOLDERS, i);
+                names.add(name);
+                taoStream.putArchiveEntry(new TarArchiveEntry(name));
+                taoStream.closeArchiveEntry();
+            }
+        }
+    }
+
+    @AfterAll
+    public static void tearDownOnce() throws IOException {
+        Files.deleteIfExists(archive);
+    }
+
+    @Test
+    @DisplayName("Benchmark: List a large file path only tar archive")
+    public void benchmarkListFiles() {
+        final CommonsCompressArchiveReadService service = new CommonsCompressArchiveReadService();
+        final long start = System.nanoTime();
+        final List<FileInfo> files = service.listFiles(System.currentTimeMillis(),
+                                                       ArchiveService.generateDefaultArchiveInfo(archive.toString()));
+        final long elapsed = System.nanoTime() - start;
+
+        Assertions.assertEquals(ENTRIES + FOLDERS + FOLDERS * Math.min(SUB_FOLDERS, ENTRIES / FOLDERS), files.size(),
+                                "Number of entries listed was not as expected");
+        report("Listing of %d entries (including synthesis)", ENTRIES, elapsed);
+    }
+
+    @Test
+    @DisplayName("Benchmark: Synthesise implicit folders of a large file path only tar archive")
+    public void benchmarkSynthesise() {
+        long start = System.nanoTime();
+        final DirectorySynthesiser synthesiser = new DirectorySynthesiser('/');
+        names.forEach(synthesiser::add);
+        final int synthesised = synthesiser.synthesise(ENTRIES).size();
+        final long elapsed = System.nanoTime() - start;
+        report("Hash-based synthesis of %d entries", ENTRIES, elapsed);
+
+        final List<String> sample = names.subList(0, Math.min(LEGACY_SAMPLE, ENTRIES));
+        start = System.nanoTime();
+        legacySynthesise(sample);
+        final long legacyElapsed = System.nanoTime() - start;
+        report("Pairwise synthesis of %d entries", sample.size(), legacyElapsed);
+        report("Pairwise synthesis of %d entries (extrapolated)", ENTRIES,
+               (long) (legacyElapsed * Math.pow((double) ENTRIES / sample.size(), 2)));
+
+        Assertions.assertTrue(synthesised > 0, "No folders were synthesised");
+    }
+
+    private static List<String> legacySynthesise(List<String> files) {
+        return files.stream()
+                    .filter(f -> Paths.get(f).getParent() != null)
+                    .map(f -> Paths.get(f).getParent().toString())
+                    .filter(r -> !Strings.isEmpty(r) && files.stream().noneMatch(f -> f.equals(r)))
+                    .distinct()
+                    .collect(Collectors.toList());
+    }
+
+    private static void report(String description, int entries, long nanos) {
+        LOGGER.info(String.format("%s: %,d ms", String.format(description, entries), nanos / 1_000_000));
+    }
+}
@@ -3,18 +3,28 @@
  */
 package com.ntak.pearlzip.archive.acc.pub;
 
+import com.ntak.pearlzip.archive.pub.ArchiveReadService;
+import com.ntak.pearlzip.archive.pub.ArchiveService;
 import com.ntak.pearlzip.archive.pub.FileInfo;
+import com.ntak.pearlzip.archive.util.InMemoryArchiveStore;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
 import org.junit.jupiter.api.*;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
 import java.util.stream.Collectors;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -56,7 +66,11 @@ public abstract class CommonsCompressArchiveReadServiceTestCore {
     /*
      *  Test cases:
      *  + List contents of tar file
+     *  + List contents of tar file in batches
+     *  + List and extract from tar file with large entries, seeking past entry data
      *  + Extract file from tar archive
+     *  + Extract all files from tar archive in a single pass
+     *  + List and extract files from tar archive held in memory
      *  + Test archive (empty tar file) - success
      *  + Test archive (non-empty tar file) - success
      *  + Test archive - failure
@@ -70,6 +84,72 @@ public abstract class CommonsCompressArchiveReadServiceTestCore {
         listFilesForArchive(testArchive.toAbsolutePath().toString(), expectations);
     }
 
+    @Test
+    @DisplayName("Test: List contents of a tarball in batches successfully")
+    public void testListContents_Batches_Success() throws IOException {
+        final Path archive = tempDirectory.resolve("batches.tar");
+        final int entries = ArchiveReadService.LISTING_BATCH_SIZE + 10;
+        try(TarArchiveOutputStream taoStream = new TarArchiveOutputStream(Files.newOutputStream(archive))) {
+            for (int i = 0; i < entries; i++) {
+                final byte[] content = String.valueOf(i).getBytes(StandardCharsets.UTF_8);
+                final TarArchiveEntry entry = new TarArchiveEntry(String.format("batch/file%d.txt", i));
+                entry.setSize(content.length);
+                taoStream.putArchiveEntry(entry);
+                taoStream.write(content);
+                taoStream.closeArchiveEntry();
+            }
+        }
+
+        long sessionId = System.currentTimeMillis();
+        List<List<FileInfo>> batches = new ArrayList<>();
+        service.listFiles(sessionId, ArchiveService.generateDefaultArchiveInfo(archive.toString()), batches::add);
+        assertEquals(2, batches.size(), "Number of batches was not as expected");
+        assertEquals(ArchiveReadService.LISTING_BATCH_SIZE, batches.get(0).size(), "Batch size was not as expected");
+        assertTrue(batches.get(1).stream().anyMatch(f -> f.isFolder() && f.getFileName().equals("batch")),
+                   "Root folder was not pushed in the final batch");
+
+        List<FileInfo> pushed = batches.stream().flatMap(List::stream).collect(Collectors.toList());
+        assertEquals(service.listFiles(sessionId, archive.toString()), pushed,
+                     "Batched listing did not match the full listing");
+    }
+
+    @Test
+    @DisplayName("Test: List and extract from a tarball with large entries by seeking past entry data successfully")
+    public void testListContents_LargeEntries_Success() throws IOException {
+        // The data of the large entry is left as a hole in a sparse file, so only headers are ever written or read
+        final Path archive = tempDirectory.resolve("large.tar");
+        final long largeSize = 5L * 1024 * 1024 * 1024;
+        final byte[] content = "tail".getBytes(StandardCharsets.UTF_8);
+        try(FileChannel channel = FileChannel.open(archive, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE,
+                                                   StandardOpenOption.SPARSE)) {
+            final TarArchiveEntry large = new TarArchiveEntry("large/payload.bin");
+            large.setSize(largeSize);
+            final TarArchiveEntry small = new TarArchiveEntry("large/tail.txt");
+            small.setSize(content.length);
+
+            final byte[] header = new byte[512];
+            large.writeEntryHeader(header);
+            channel.write(ByteBuffer.wrap(header), 0);
+            small.writeEntryHeader(header);
+            channel.write(ByteBuffer.wrap(header), 512 + largeSize);
+            channel.write(ByteBuffer.wrap(content), 1024 + largeSize);
+            channel.write(ByteBuffer.wrap(new byte[1536 - content.length]), 1024 + largeSize + content.length);
+        }
+
+        long sessionId = System.currentTimeMillis();
+        List<FileInfo> files = service.listFiles(sessionId, archive.toString());
+        assertEquals(List.of("large/payload.bin", "large/tail.txt", "large"),
+                     files.stream().map(FileInfo::getFileName).collect(Collectors.toList()),
+                     "Entries listed were not as expected");
+        assertEquals(largeSize, files.get(0).getPackedSize(), "Size of large entry was not as expected");
+
+        final Path target = tempDirectory.resolve("tail.txt");
+        assertTrue(service.extractFile(sessionId, target, ArchiveService.generateDefaultArchiveInfo(archive.toString()),
+                                       files.get(1)), "File was not extracted successfully");
+        assertEquals("tail", Files.readString(target), "Extracted content was not as expected");
+        assertTrue(service.testArchive(sessionId, archive.toString()), "Archive not valid");
+    }
+
     @Test
     @DisplayName("Test: Extract a single file from a tarball successfully")
     public void testExtractFile_ValidArchive_Success() throws IOException {
@@ -79,6 +159,64 @@ public abstract class CommonsCompressArchiveReadServiceTestCore {
         extractFilesFromArchive(testArchive.toAbsolutePath().toString(), optFI.get());
     }
 
+    @Test
+    @DisplayName("Test: Extract all files from a tarball in a single pass successfully")
+    public void testExtractFiles_ValidArchive_Success() throws IOException {
+        long sessionId = System.currentTimeMillis();
+        final Path targetDir = Files.createTempDirectory(tempDirectory, "pz");
+        Map<FileInfo,Path> targets = new LinkedHashMap<>();
+        service.listFiles(sessionId, testArchive.toAbsolutePath().toString())
+               .forEach(f -> targets.put(f, targetDir.resolve(f.getFileName())));
+
+        assertTrue(service.extractFiles(sessionId,
+                                        ArchiveService.generateDefaultArchiveInfo(testArchive.toAbsolutePath().toString()),
+                                        targets),
+                   "Files were not extracted successfully");
+        for (Map.Entry<FileInfo,Path> target : targets.entrySet()) {
+            assertTrue(Files.exists(target.getValue()), String.format("File %s was not created", target.getValue()));
+            assertEquals(target.getKey().isFolder(), Files.isDirectory(target.getValue()),
+                         String.format("File %s was not of the expected type", target.getValue()));
+        }
+    }
+
+    @Test
+    @DisplayName("Test: List and extract files from a tarball held in memory successfully")
+    public void testExtractFile_InMemoryArchive_Success() throws IOException {
+        long sessionId = System.currentTimeMillis();
+        final Path archive = tempDirectory.resolve("in-memory").resolve("test.tar");
+        assertTrue(InMemoryArchiveStore.put(archive, Files.readAllBytes(testArchive)), "Archive was not held in memory");
+        try {
+            final List<FileInfo> files = service.listFiles(sessionId, archive.toString());
+            assertEquals(service.listFiles(sessionId, testArchive.toAbsolutePath().toString()), files,
+                         "Files were not listed as expected");
+
+            for (FileInfo file : files) {
+                if (file.isFolder()) {
+                    continue;
+                }
+
+                final Path target = tempDirectory.resolve("in-memory-file");
+                final Path expected = tempDirectory.resolve("on-disk-file");
+                assertTrue(service.extractFile(sessionId, target, archive.toString(), file), "File was not extracted");
+                assertTrue(service.extractFile(sessionId, expected, testArchive.toAbsolutePath().toString(), file),
+                           "File was not extracted");
+                assertArrayEquals(Files.readAllBytes(expected), Files.readAllBytes(target),
+                                  String.format("Content of %s was not as expected", file.getFileName()));
+
+                final ByteArrayOutputStream oStream = new ByteArrayOutputStream();
+                assertTrue(service.extractFile(sessionId, oStream, ArchiveService.generateDefaultArchiveInfo(archive.toString()),
+                                               file),
+                           "File was not extracted to the stream");
+                assertArrayEquals(Files.readAllBytes(expected), oStream.toByteArray(),
+                                  String.format("Content of %s was not as expected", file.getFileName()));
+            }
+            assertTrue(service.testArchive(sessionId, archive.toString()), "Archive not valid");
+            assertFalse(Files.exists(archive), "Archive was unexpectedly written to disk");
+        } finally {
+            InMemoryArchiveStore.remove(archive);
+        }
+    }
+
     @Test
     @DisplayName("Test: Test empty archive returns success")
     public void testTestArchive_EmptyArchive_Success() {
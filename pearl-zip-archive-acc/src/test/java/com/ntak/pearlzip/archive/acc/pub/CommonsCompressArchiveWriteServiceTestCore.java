@@ -3,17 +3,50 @@
  */
 package com.ntak.pearlzip.archive.acc.pub;
 
+import com.ntak.pearlzip.archive.acc.util.ParallelBZip2OutputStream;
+import com.ntak.pearlzip.archive.acc.util.ParallelGzipOutputStream;
+import com.ntak.pearlzip.archive.acc.util.ParallelXZOutputStream;
+import com.ntak.pearlzip.archive.acc.util.ZipAppender;
+import com.ntak.pearlzip.archive.pub.ArchiveInfo;
+import com.ntak.pearlzip.archive.pub.ArchiveService;
 import com.ntak.pearlzip.archive.pub.ArchiveWriteService;
+import com.ntak.pearlzip.archive.pub.ChangeSet;
 import com.ntak.pearlzip.archive.pub.FileInfo;
 import com.ntak.pearlzip.archive.util.CompressUtil;
+import com.ntak.pearlzip.archive.util.StagedArchive;
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveException;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.ArchiveStreamFactory;
+import org.apache.commons.compress.archivers.zip.UnixStat;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 import org.junit.jupiter.api.*;
+import org.tukaani.xz.SeekableFileInputStream;
+import org.tukaani.xz.SeekableXZInputStream;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static com.ntak.pearlzip.archive.acc.constants.CommonsCompressLoggingConstants.CNS_ACC_COMPRESSION_THREADS;
+import static com.ntak.pearlzip.archive.acc.constants.CommonsCompressLoggingConstants.CNS_ACC_SCATTER_LIMIT;
 import static com.ntak.pearlzip.archive.constants.ConfigurationConstants.KEY_FILE_PATH;
 
 public abstract class CommonsCompressArchiveWriteServiceTestCore {
@@ -69,10 +102,25 @@ public abstract class CommonsCompressArchiveWriteServiceTestCore {
         Test cases:
         + Create tar compressor archive (gz, xz, bz2)
         + Create file compressor archive (gz, xz, bz2)
+        + Create file compressor archive with gzip blocks compressed in parallel
+        + Create file compressor archive with bzip2 blocks compressed in parallel
+        + Compress xz blocks in parallel as concatenated streams
         + Create archive with files (zip, tar)
         + Create archive (zip, tar)
         + Add file to archive (zip, tar)
         + Delete file from archive (zip, tar)
+        + Apply add, rename and delete changes in a single rewrite (zip, tar)
+        + Apply changes fails and leaves archive untouched when an entry is missing
+        + Apply changes copies untouched zip entries without recompression
+        + Rename zip entries retaining unix permissions, symbolic links and the UTF-8 flag
+        + Apply changes to a zip archive with encrypted entries fails and leaves the archive untouched
+        + Replace entry in place in a single rewrite (zip, tar)
+        + Replace the content of a compressor archive and reject other changes
+        + Duplicate and move entries without extraction (zip, tar)
+        + Duplicate or move onto an existing entry fails and leaves the archive untouched (zip, tar)
+        + Add file to zip archive in place without rewriting existing entries
+        + Interrupted in place append is rolled back on recovery
+        + Create zip archive with files compressed in parallel batches
      */
 
     ///// CREATE TAR COMPRESSOR ARCHIVE /////
@@ -148,6 +196,90 @@ public abstract class CommonsCompressArchiveWriteServiceTestCore {
         Assertions.assertEquals((byte)0x08, bytes[2], "third byte issue");
     }
 
+    @Test
+    @DisplayName("Test: Create a valid single file Gzip archive with blocks compressed in parallel successfully")
+    public void testCreateArchive_ValidGzipSingleFileArchiveParallel_Success() throws IOException {
+        long sessionId = System.currentTimeMillis();
+        Path file = Paths.get(tempDirectory.toString(), "parallel-gzip-file.txt");
+        String content = generateContent(3 * ParallelGzipOutputStream.DEFAULT_BLOCK_SIZE + 1000);
+        Files.writeString(file, content);
+        FileInfo fileInfo = new FileInfo(0, 0, file.getFileName().toString(), 0,
+                                         0, 0, null, null,
+                                         null, "", "", 0, "", false, false,
+                                         Collections.singletonMap(KEY_FILE_PATH, file.toAbsolutePath().toString()));
+        Path archive = Paths.get(tempDirectory.toString(), "parallel-gzip-file.txt.gz");
+        Files.deleteIfExists(archive);
+
+        System.setProperty(CNS_ACC_COMPRESSION_THREADS, "4");
+        try {
+            service.createArchive(sessionId, archive.toAbsolutePath().toString(), fileInfo);
+        } finally {
+            System.clearProperty(CNS_ACC_COMPRESSION_THREADS);
+        }
+
+        Assertions.assertTrue(Files.size(archive) < Files.size(file), "File was not compressed");
+        // Extra flags of the header record the best compression level
+        Assertions.assertEquals((byte)0x02, Files.readAllBytes(archive)[8], "Compression level was not as expected");
+        // GZIPInputStream verifies the combined CRC32 and size in the trailer
+        try(InputStream iStream = new GZIPInputStream(Files.newInputStream(archive))) {
+            Assertions.assertEquals(content, new String(iStream.readAllBytes()),
+                                    "Decompressed content was not as expected");
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Create a valid single file Bzip archive with blocks compressed in parallel successfully")
+    public void testCreateArchive_ValidBz2SingleFileArchiveParallel_Success() throws IOException {
+        long sessionId = System.currentTimeMillis();
+        Path file = Paths.get(tempDirectory.toString(), "parallel-bzip-file.txt");
+        String content = generateContent(2 * ParallelBZip2OutputStream.DEFAULT_BLOCK_SIZE + 1000);
+        Files.writeString(file, content);
+        FileInfo fileInfo = new FileInfo(0, 0, file.getFileName().toString(), 0,
+                                         0, 0, null, null,
+                                         null, "", "", 0, "", false, false,
+                                         Collections.singletonMap(KEY_FILE_PATH, file.toAbsolutePath().toString()));
+        Path archive = Paths.get(tempDirectory.toString(), "parallel-bzip-file.txt.bz2");
+        Files.deleteIfExists(archive);
+
+        System.setProperty(CNS_ACC_COMPRESSION_THREADS, "4");
+        try {
+            service.createArchive(sessionId, archive.toAbsolutePath().toString(), fileInfo);
+        } finally {
+            System.clearProperty(CNS_ACC_COMPRESSION_THREADS);
+        }
+
+        Assertions.assertTrue(Files.size(archive) < Files.size(file), "File was not compressed");
+        try(InputStream iStream = new BZip2CompressorInputStream(Files.newInputStream(archive), true)) {
+            Assertions.assertEquals(content, new String(iStream.readAllBytes()),
+                                    "Decompressed content was not as expected");
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Compress XZ blocks in parallel as independently decodable streams successfully")
+    public void testParallelXZOutputStream_MultipleBlocks_Success() throws IOException {
+        // Fastest preset keeps the block size small, so that several blocks are written
+        int blockSize = ParallelXZOutputStream.getBlockSize(0);
+        String content = generateContent(3 * blockSize + 1000);
+        Path archive = Paths.get(tempDirectory.toString(), "parallel-xz-file.txt.xz");
+        try(OutputStream oStream = new ParallelXZOutputStream(Files.newOutputStream(archive), 4, 0)) {
+            oStream.write(content.getBytes());
+        }
+
+        try(SeekableXZInputStream iStream = new SeekableXZInputStream(new SeekableFileInputStream(archive.toFile()))) {
+            Assertions.assertEquals(4, iStream.getStreamCount(), "Blocks were not written as separate streams");
+            Assertions.assertEquals(content, new String(iStream.readAllBytes()),
+                                    "Decompressed content was not as expected");
+
+            // Each block can be decoded from its own offset
+            iStream.seekToBlock(2);
+            byte[] block = new byte[(int) iStream.getBlockSize(2)];
+            Assertions.assertEquals(block.length, iStream.readNBytes(block, 0, block.length), "Block was not read");
+            Assertions.assertEquals(content.substring(2 * blockSize, 3 * blockSize), new String(block),
+                                    "Block content was not as expected");
+        }
+    }
+
     @Test
     @DisplayName("Test: Create a valid single file XZ archive successfully")
     public void testCreateArchive_ValidXZSingleFileArchive_Success() throws IOException {
@@ -234,6 +366,50 @@ public abstract class CommonsCompressArchiveWriteServiceTestCore {
         Assertions.assertEquals((byte)0x04, bytes[3], "fourth byte issue");
     }
 
+    @Test
+    @DisplayName("Test: Create a valid Zip archive with files compressed in parallel successfully")
+    public void testCreateArchive_ValidZipArchiveParallel_Success() throws IOException {
+        long sessionId = System.currentTimeMillis();
+        Path archive = Paths.get(tempDirectory.toString(), "temp-parallel.zip");
+        Files.deleteIfExists(archive);
+
+        FileInfo[] files = new FileInfo[6];
+        for (int i = 0; i < files.length; i++) {
+            Path file = Paths.get(tempDirectory.toString(), String.format("parallel-file-%d.txt", i));
+            Files.writeString(file, String.format("Parallel content %d", i).repeat(100));
+            files[i] = new FileInfo(i, 0, file.getFileName().toString(), 0,
+                                    0, 0, null, null,
+                                    null, "", "", 0, "", false, false,
+                                    Collections.singletonMap(KEY_FILE_PATH, file.toAbsolutePath().toString()));
+        }
+
+        // Small scatter limit forces entries to be gathered over several batches
+        System.setProperty(CNS_ACC_COMPRESSION_THREADS, "4");
+        System.setProperty(CNS_ACC_SCATTER_LIMIT, "4096");
+        try {
+            service.createArchive(sessionId, archive.toAbsolutePath().toString(), files);
+        } finally {
+            System.clearProperty(CNS_ACC_COMPRESSION_THREADS);
+            System.clearProperty(CNS_ACC_SCATTER_LIMIT);
+        }
+
+        try(ZipFile zipFile = ZipFile.builder().setPath(archive).get()) {
+            Assertions.assertEquals(Arrays.stream(files).map(FileInfo::getFileName).collect(Collectors.toList()),
+                                    Collections.list(zipFile.getEntries())
+                                               .stream()
+                                               .map(ZipArchiveEntry::getName)
+                                               .collect(Collectors.toList()),
+                                    "Archive entries were not as expected");
+            for (int i = 0; i < files.length; i++) {
+                try(InputStream entryStream = zipFile.getInputStream(zipFile.getEntry(files[i].getFileName()))) {
+                    Assertions.assertEquals(String.format("Parallel content %d", i).repeat(100),
+                                            new String(entryStream.readAllBytes()),
+                                            "Entry content was not as expected");
+                }
+            }
+        }
+    }
+
     @Test
     @DisplayName("Test: Create a valid empty Tar archive successfully")
     public void testCreateArchive_ValidTarArchiveNonEmpty_Success() throws IOException {
@@ -335,4 +511,432 @@ public abstract class CommonsCompressArchiveWriteServiceTestCore {
         Assertions.assertEquals(1024, bytes.length, "File failed to create in the expected manner");
         Assertions.assertNotEquals(beforeHash, afterHash, "The archive was not updated");
     }
+
+    ///// APPLY CHANGES TO ARCHIVE /////
+
+    @Test
+    @DisplayName("Test: Apply add and rename changes to a valid Zip archive successfully")
+    public void testApplyChanges_ValidZipArchive_Success() throws IOException, ArchiveException {
+        testCreateArchive_ValidZipArchiveNonEmpty_Success();
+        Path archive = Paths.get(tempDirectory.toString(), "temp.zip");
+        applyChangesToArchive(archive);
+    }
+
+    @Test
+    @DisplayName("Test: Apply add and rename changes to a valid tar archive successfully")
+    public void testApplyChanges_ValidTarArchive_Success() throws IOException, ArchiveException {
+        testCreateArchive_ValidTarArchiveNonEmpty_Success();
+        Path archive = Paths.get(tempDirectory.toString(), "temp.tar");
+        applyChangesToArchive(archive);
+    }
+
+    @Test
+    @DisplayName("Test: Apply changes referencing a non-existent entry leaves the archive untouched")
+    public void testApplyChanges_MissingEntry_Fail() throws IOException {
+        testCreateArchive_ValidZipArchiveNonEmpty_Success();
+        long sessionId = System.currentTimeMillis();
+        Path archive = Paths.get(tempDirectory.toString(), "temp.zip");
+        long beforeHash = CompressUtil.crcHashFile(archive.toFile());
+
+        boolean success = service.applyChanges(sessionId, ArchiveService.generateDefaultArchiveInfo(archive.toString()),
+                                               new ChangeSet().add(atfFileInfo)
+                                                              .delete(new FileInfo(1, 0, "non-existent-file", 0,
+                                                                                   0, 0, null, null,
+                                                                                   null, "", "", 0, "", false,
+                                                                                   false, Collections.emptyMap())));
+
+        Assertions.assertFalse(success, "Changes were unexpectedly applied");
+        Assertions.assertEquals(beforeHash, CompressUtil.crcHashFile(archive.toFile()), "The archive was modified");
+    }
+
+    @Test
+    @DisplayName("Test: Apply changes copies the compressed data of untouched Zip entries as is")
+    public void testApplyChanges_ValidZipArchive_RawCopiesUntouchedEntries() throws IOException {
+        Path archive = Paths.get(tempDirectory.toString(), "temp-raw.zip");
+        Path content = Paths.get(tempDirectory.toString(), "raw-content.txt");
+        Files.writeString(content, "PearlZip ".repeat(1024));
+        Files.deleteIfExists(archive);
+        long sessionId = System.currentTimeMillis();
+        service.createArchive(sessionId, archive.toAbsolutePath().toString(),
+                              new FileInfo(0, 0, "raw-content.txt", 0,
+                                           0, 0, null, null,
+                                           null, "", "", 0, "", false, false,
+                                           Collections.singletonMap(KEY_FILE_PATH, content.toAbsolutePath().toString())));
+        byte[] before = readRawEntry(archive, "raw-content.txt");
+
+        Assertions.assertTrue(service.applyChanges(sessionId, ArchiveService.generateDefaultArchiveInfo(archive.toString()),
+                                                   new ChangeSet().add(atfFileInfo)),
+                              "Changes were not applied");
+        Assertions.assertArrayEquals(before, readRawEntry(archive, "raw-content.txt"),
+                                     "Untouched entry was recompressed");
+    }
+
+    @Test
+    @DisplayName("Test: Rename Zip entries retaining unix permissions, symbolic links and the UTF-8 flag")
+    public void testApplyChanges_RenameZipEntry_RetainsAttributes() throws IOException {
+        Path archive = Paths.get(tempDirectory.toString(), "temp-attributes.zip");
+        Files.deleteIfExists(archive);
+        try(ZipArchiveOutputStream zaoStream = new ZipArchiveOutputStream(archive)) {
+            ZipArchiveEntry script = new ZipArchiveEntry("run.sh");
+            script.setUnixMode(UnixStat.FILE_FLAG | 0755);
+            zaoStream.putArchiveEntry(script);
+            zaoStream.write("#!/bin/sh".getBytes(StandardCharsets.UTF_8));
+            zaoStream.closeArchiveEntry();
+
+            ZipArchiveEntry link = new ZipArchiveEntry("link");
+            link.setUnixMode(UnixStat.LINK_FLAG | 0777);
+            zaoStream.putArchiveEntry(link);
+            zaoStream.write("run.sh".getBytes(StandardCharsets.UTF_8));
+            zaoStream.closeArchiveEntry();
+
+            zaoStream.putArchiveEntry(new ZipArchiveEntry("donn\u00e9es.txt"));
+            zaoStream.write("Donn\u00e9es".getBytes(StandardCharsets.UTF_8));
+            zaoStream.closeArchiveEntry();
+        }
+
+        Assertions.assertTrue(service.applyChanges(System.currentTimeMillis(),
+                                                   ArchiveService.generateDefaultArchiveInfo(archive.toString()),
+                                                   new ChangeSet().rename(generateFileInfo("run.sh"), "bin/run.sh")
+                                                                  .rename(generateFileInfo("link"), "bin/link")
+                                                                  .rename(generateFileInfo("donn\u00e9es.txt"),
+                                                                          "bin/donn\u00e9es.txt")),
+                              "Changes were not applied");
+
+        try(ZipFile zipFile = ZipFile.builder().setPath(archive).get()) {
+            ZipArchiveEntry script = zipFile.getEntry("bin/run.sh");
+            Assertions.assertEquals(ZipArchiveEntry.PLATFORM_UNIX, script.getPlatform(), "Platform was not retained");
+            Assertions.assertEquals(0755, script.getUnixMode() & 0777, "Unix permissions were not retained");
+
+            ZipArchiveEntry link = zipFile.getEntry("bin/link");
+            Assertions.assertTrue(link.isUnixSymlink(), "Symbolic link was not retained");
+            Assertions.assertEquals("run.sh", zipFile.getUnixSymlink(link), "Symbolic link target was not retained");
+
+            ZipArchiveEntry utf8Entry = zipFile.getEntry("bin/donn\u00e9es.txt");
+            Assertions.assertNotNull(utf8Entry, "Renamed entry was not found");
+            Assertions.assertTrue(utf8Entry.getGeneralPurposeBit().usesUTF8ForNames(), "UTF-8 flag was not retained");
+            try(InputStream iStream = zipFile.getInputStream(utf8Entry)) {
+                Assertions.assertEquals("Donn\u00e9es", new String(iStream.readAllBytes(), StandardCharsets.UTF_8),
+                                        "Content was not as expected");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Apply changes to a Zip archive with encrypted entries leaves the archive untouched")
+    public void testApplyChanges_EncryptedZipEntry_Fail() throws IOException {
+        Path archive = Paths.get(tempDirectory.toString(), "temp-encrypted.zip");
+        Files.deleteIfExists(archive);
+        try(ZipArchiveOutputStream zaoStream = new ZipArchiveOutputStream(archive)) {
+            zaoStream.putArchiveEntry(new ZipArchiveEntry("secret.txt"));
+            zaoStream.write("Encrypted payload".getBytes(StandardCharsets.UTF_8));
+            zaoStream.closeArchiveEntry();
+        }
+
+        // Flag the entry as encrypted in both the local file header and the central directory
+        byte[] bytes = Files.readAllBytes(archive);
+        bytes[6] |= 1;
+        for (int i = bytes.length - 4; i >= 0; i--) {
+            if (bytes[i] == 'P' && bytes[i + 1] == 'K' && bytes[i + 2] == 1 && bytes[i + 3] == 2) {
+                bytes[i + 8] |= 1;
+                break;
+            }
+        }
+        Files.write(archive, bytes);
+        long beforeHash = CompressUtil.crcHashFile(archive.toFile());
+
+        Assertions.assertFalse(service.applyChanges(System.currentTimeMillis(),
+                                                    ArchiveService.generateDefaultArchiveInfo(archive.toString()),
+                                                    new ChangeSet().rename(generateFileInfo("secret.txt"),
+                                                                           "renamed.txt")),
+                               "Changes were unexpectedly applied");
+        Assertions.assertEquals(beforeHash, CompressUtil.crcHashFile(archive.toFile()), "The archive was modified");
+    }
+
+    @Test
+    @DisplayName("Test: Replace an entry of a valid Zip archive in place successfully")
+    public void testApplyChanges_ReplaceZipEntry_InPlace() throws IOException, ArchiveException {
+        Path archive = Paths.get(tempDirectory.toString(), "temp-replace.zip");
+        byte[][] before = replaceEntryInArchive(archive, () -> new byte[][]{readRawEntry(archive, "first.txt"),
+                                                                            readRawEntry(archive, "last.txt")});
+        Assertions.assertArrayEquals(before[0], readRawEntry(archive, "first.txt"), "Untouched entry was recompressed");
+        Assertions.assertArrayEquals(before[1], readRawEntry(archive, "last.txt"), "Untouched entry was recompressed");
+    }
+
+    @Test
+    @DisplayName("Test: Replace an entry of a valid tar archive in place successfully")
+    public void testApplyChanges_ReplaceTarEntry_InPlace() throws IOException, ArchiveException {
+        Path archive = Paths.get(tempDirectory.toString(), "temp-replace.tar");
+        replaceEntryInArchive(archive, () -> null);
+    }
+
+    @Test
+    @DisplayName("Test: Replace the content of a gzip compressor archive and reject unsupported changes")
+    public void testApplyChanges_ReplaceCompressedFile_Success() throws IOException {
+        long sessionId = System.currentTimeMillis();
+        Path archive = Paths.get(tempDirectory.toString(), "temp-replace.tar.gz");
+        Path content = Paths.get(tempDirectory.toString(), "temp-replace.tar");
+        Files.writeString(content, "Original content");
+        FileInfo file = new FileInfo(0, 0, "temp-replace.tar", 0,
+                                     0, 0, null, null,
+                                     null, "", "", 0, "", false, false,
+                                     Collections.singletonMap(KEY_FILE_PATH, content.toAbsolutePath().toString()));
+        Files.deleteIfExists(archive);
+        service.createArchive(sessionId, archive.toAbsolutePath().toString(), file);
+
+        Files.writeString(content, "Replaced content");
+        ArchiveInfo archiveInfo = ArchiveService.generateDefaultArchiveInfo(archive.toString());
+        Assertions.assertTrue(service.applyChanges(sessionId, archiveInfo, new ChangeSet().replace(file)),
+                              "Content was not replaced");
+        try(InputStream iStream = new GZIPInputStream(Files.newInputStream(archive))) {
+            Assertions.assertEquals("Replaced content", new String(iStream.readAllBytes()),
+                                    "Content was not as expected");
+        }
+
+        long beforeHash = CompressUtil.crcHashFile(archive.toFile());
+        Assertions.assertFalse(service.applyChanges(sessionId, archiveInfo, new ChangeSet().add(atfFileInfo)),
+                               "Unsupported change was unexpectedly applied");
+        Assertions.assertEquals(beforeHash, CompressUtil.crcHashFile(archive.toFile()), "The archive was modified");
+    }
+
+    @Test
+    @DisplayName("Test: Duplicate and move entries of a valid Zip archive, copying the compressed data as is")
+    public void testApplyChanges_CopyMoveZipEntry_RawCopiesPayload() throws IOException, ArchiveException {
+        Path archive = Paths.get(tempDirectory.toString(), "temp-copy.zip");
+        byte[] before = copyMoveEntriesInArchive(archive, () -> readRawEntry(archive, "docs/first.txt"));
+        Assertions.assertArrayEquals(before, readRawEntry(archive, "docs/first.txt"), "Original entry was recompressed");
+        Assertions.assertArrayEquals(before, readRawEntry(archive, "backup/first.txt"), "Copied entry was recompressed");
+        Assertions.assertArrayEquals(before, readRawEntry(archive, "first.txt"), "Copied entry was recompressed");
+    }
+
+    @Test
+    @DisplayName("Test: Duplicate and move entries of a valid tar archive successfully")
+    public void testApplyChanges_CopyMoveTarEntry_Success() throws IOException, ArchiveException {
+        Path archive = Paths.get(tempDirectory.toString(), "temp-copy.tar");
+        copyMoveEntriesInArchive(archive, () -> null);
+    }
+
+    @Test
+    @DisplayName("Test: Duplicate or move onto an existing entry of a valid Zip archive leaves the archive untouched")
+    public void testApplyChanges_CopyMoveZipEntryCollision_Fail() throws IOException, ArchiveException {
+        copyMoveEntriesOntoExistingEntry(Paths.get(tempDirectory.toString(), "temp-collision.zip"));
+    }
+
+    @Test
+    @DisplayName("Test: Duplicate or move onto an existing entry of a valid tar archive leaves the archive untouched")
+    public void testApplyChanges_CopyMoveTarEntryCollision_Fail() throws IOException, ArchiveException {
+        copyMoveEntriesOntoExistingEntry(Paths.get(tempDirectory.toString(), "temp-collision.tar"));
+    }
+
+    @Test
+    @DisplayName("Test: Add files to a valid Zip archive in place without rewriting existing entries")
+    public void testApplyChanges_ValidZipArchiveAdditions_AppendsInPlace() throws IOException, ArchiveException {
+        testCreateArchive_ValidZipArchiveNonEmpty_Success();
+        long sessionId = System.currentTimeMillis();
+        Path archive = Paths.get(tempDirectory.toString(), "temp.zip");
+        long cdOffset;
+        try(ZipFile zipFile = ZipFile.builder().setPath(archive).get()) {
+            ZipArchiveEntry entry = zipFile.getEntry("temp-file.txt");
+            cdOffset = entry.getDataOffset() + entry.getCompressedSize() + 16;
+        }
+        byte[] before = Files.readAllBytes(archive);
+
+        Assertions.assertTrue(service.applyChanges(sessionId, ArchiveService.generateDefaultArchiveInfo(archive.toString()),
+                                                   new ChangeSet().add(atfFileInfo)),
+                              "Changes were not applied");
+
+        byte[] after = Files.readAllBytes(archive);
+        Assertions.assertArrayEquals(Arrays.copyOf(before, (int) cdOffset), Arrays.copyOf(after, (int) cdOffset),
+                                     "Existing entries were rewritten");
+        Assertions.assertFalse(Files.exists(ZipAppender.getJournalPath(archive)), "Journal was not removed");
+        try(ZipFile zipFile = ZipFile.builder().setPath(archive).get()) {
+            Assertions.assertEquals(List.of("temp-file.txt", "another-temp-file.txt"),
+                                    Collections.list(zipFile.getEntries())
+                                               .stream()
+                                               .map(ZipArchiveEntry::getName)
+                                               .collect(Collectors.toList()),
+                                    "Archive entries were not as expected");
+        }
+    }
+
+    @Test
+    @DisplayName("Test: An interrupted in place append to a Zip archive is rolled back on recovery")
+    public void testRecover_InterruptedAppend_RestoresArchive() throws IOException {
+        testCreateArchive_ValidZipArchiveNonEmpty_Success();
+        Path archive = Paths.get(tempDirectory.toString(), "temp.zip");
+        long beforeHash = CompressUtil.crcHashFile(archive.toFile());
+
+        // Simulate the process dying part-way through writing the new entries
+        Assertions.assertThrows(AssertionError.class, () -> ZipAppender.append(archive, (aoStream) -> {
+            aoStream.putArchiveEntry(new ZipArchiveEntry("partial-file.txt"));
+            aoStream.write(new byte[1024]);
+            aoStream.flush();
+            throw new AssertionError("Process interrupted");
+        }));
+        Assertions.assertTrue(Files.exists(ZipAppender.getJournalPath(archive)), "Journal was not retained");
+        Assertions.assertNotEquals(beforeHash, CompressUtil.crcHashFile(archive.toFile()), "Archive was not modified");
+
+        ZipAppender.recover(archive);
+        Assertions.assertEquals(beforeHash, CompressUtil.crcHashFile(archive.toFile()), "Archive was not restored");
+        Assertions.assertFalse(Files.exists(ZipAppender.getJournalPath(archive)), "Journal was not removed");
+    }
+
+    private static String generateContent(int length) {
+        StringBuilder content = new StringBuilder(length);
+        for (int i = 0; content.length() < length; i++) {
+            content.append(String.format("Line %d of parallel compressor content%n", i * 7919 % 10007));
+        }
+        return content.toString();
+    }
+
+    private static FileInfo generateFileInfo(String name) {
+        return new FileInfo(0, 0, name, 0,
+                            0, 0, null, null,
+                            null, "", "", 0, "", false, false,
+                            Collections.emptyMap());
+    }
+
+    private byte[] readRawEntry(Path archive, String entryName) throws IOException {
+        try(ZipFile zipFile = ZipFile.builder().setPath(archive).get();
+            InputStream rawStream = zipFile.getRawInputStream(zipFile.getEntry(entryName))) {
+            return rawStream.readAllBytes();
+        }
+    }
+
+    private <T> T replaceEntryInArchive(Path archive, Callable<T> beforeReplace) throws IOException, ArchiveException {
+        long sessionId = System.currentTimeMillis();
+        List<FileInfo> files = new ArrayList<>();
+        for (String name : List.of("first.txt", "nested.zip", "last.txt")) {
+            Path content = Paths.get(tempDirectory.toString(), name);
+            Files.writeString(content, String.format("Content of %s ", name).repeat(64));
+            files.add(new FileInfo(files.size(), 0, name, 0,
+                                   0, 0, null, null,
+                                   null, "", "", 0, "", false, false,
+                                   Collections.singletonMap(KEY_FILE_PATH, content.toAbsolutePath().toString())));
+        }
+        Files.deleteIfExists(archive);
+        service.createArchive(sessionId, archive.toAbsolutePath().toString(), files.toArray(new FileInfo[0]));
+
+        final T before;
+        try {
+            before = beforeReplace.call();
+        } catch(Exception e) {
+            throw new IOException(e);
+        }
+        Path replacement = Paths.get(tempDirectory.toString(), "replacement.zip");
+        Files.writeString(replacement, "Updated nested archive");
+        Assertions.assertTrue(service.applyChanges(sessionId, ArchiveService.generateDefaultArchiveInfo(archive.toString()),
+                                                   new ChangeSet().replace(new FileInfo(1, 0, "nested.zip", 0,
+                                                                                        0, 0, null, null,
+                                                                                        null, "", "", 0, "", false,
+                                                                                        false,
+                                                                                        Collections.singletonMap(KEY_FILE_PATH,
+                                                                                                                 replacement.toAbsolutePath().toString())))),
+                              "Changes were not applied");
+
+        List<String> entries = new ArrayList<>();
+        try(InputStream iStream = new BufferedInputStream(Files.newInputStream(archive));
+            ArchiveInputStream aiStream = new ArchiveStreamFactory().createArchiveInputStream(iStream)) {
+            ArchiveEntry entry;
+            while ((entry = aiStream.getNextEntry()) != null) {
+                entries.add(entry.getName());
+                String expected = entry.getName().equals("nested.zip") ? "Updated nested archive" :
+                        String.format("Content of %s ", entry.getName()).repeat(64);
+                Assertions.assertEquals(expected, new String(aiStream.readAllBytes()),
+                                        String.format("Content of %s was not as expected", entry.getName()));
+            }
+        }
+        Assertions.assertEquals(List.of("first.txt", "nested.zip", "last.txt"), entries,
+                                "Replaced entry was not kept in place");
+        return before;
+    }
+
+    private <T> T copyMoveEntriesInArchive(Path archive, Callable<T> beforeCopy) throws IOException,
+            ArchiveException {
+        long sessionId = System.currentTimeMillis();
+        List<FileInfo> files = new ArrayList<>();
+        for (String name : List.of("docs/first.txt", "last.txt")) {
+            Path content = Paths.get(tempDirectory.toString(), Paths.get(name).getFileName().toString());
+            Files.writeString(content, String.format("Content of %s ", name).repeat(64));
+            files.add(new FileInfo(files.size(), 0, name, 0,
+                                   0, 0, null, null,
+                                   null, "", "", 0, "", false, false,
+                                   Collections.singletonMap(KEY_FILE_PATH, content.toAbsolutePath().toString())));
+        }
+        Files.deleteIfExists(archive);
+        service.createArchive(sessionId, archive.toAbsolutePath().toString(), files.toArray(new FileInfo[0]));
+
+        final T before;
+        try {
+            before = beforeCopy.call();
+        } catch(Exception e) {
+            throw new IOException(e);
+        }
+        ArchiveInfo archiveInfo = ArchiveService.generateDefaultArchiveInfo(archive.toString());
+        Assertions.assertTrue(service.applyChanges(sessionId, archiveInfo,
+                                                   new ChangeSet().copy(files.get(0), "backup/first.txt")
+                                                                  .copy(files.get(0), "first.txt")),
+                              "Entry was not duplicated");
+        Assertions.assertTrue(service.moveFile(sessionId, archiveInfo, files.get(1), "docs"), "Entry was not moved");
+        Assertions.assertFalse(Files.exists(StagedArchive.getStagingPath(archive)), "Staging file was not removed");
+
+        Map<String,String> entries = new LinkedHashMap<>();
+        try(InputStream iStream = new BufferedInputStream(Files.newInputStream(archive));
+            ArchiveInputStream aiStream = new ArchiveStreamFactory().createArchiveInputStream(iStream)) {
+            ArchiveEntry entry;
+            while ((entry = aiStream.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(aiStream.readAllBytes()));
+            }
+        }
+        Assertions.assertEquals(List.of("docs/first.txt", "docs/last.txt", "backup/first.txt", "first.txt"),
+                                new ArrayList<>(entries.keySet()), "Archive entries were not as expected");
+        Assertions.assertEquals("Content of last.txt ".repeat(64), entries.get("docs/last.txt"),
+                                "Content of moved entry was not as expected");
+        for (String name : List.of("docs/first.txt", "backup/first.txt", "first.txt")) {
+            Assertions.assertEquals("Content of docs/first.txt ".repeat(64), entries.get(name),
+                                    String.format("Content of %s was not as expected", name));
+        }
+        return before;
+    }
+
+    private void copyMoveEntriesOntoExistingEntry(Path archive) throws IOException, ArchiveException {
+        copyMoveEntriesInArchive(archive, () -> null);
+        long sessionId = System.currentTimeMillis();
+        long beforeHash = CompressUtil.crcHashFile(archive.toFile());
+        ArchiveInfo archiveInfo = ArchiveService.generateDefaultArchiveInfo(archive.toString());
+
+        Assertions.assertFalse(service.copyFile(sessionId, archiveInfo, generateFileInfo("docs/first.txt"), "backup"),
+                               "Entry was unexpectedly duplicated onto an existing entry");
+        Assertions.assertFalse(service.moveFile(sessionId, archiveInfo, generateFileInfo("first.txt"), "docs"),
+                               "Entry was unexpectedly moved onto an existing entry");
+        Assertions.assertFalse(service.applyChanges(sessionId, archiveInfo,
+                                                    new ChangeSet().copy(generateFileInfo("docs/last.txt"), "copy.txt")
+                                                                   .copy(generateFileInfo("first.txt"), "copy.txt")),
+                               "Entries were unexpectedly duplicated onto the same name");
+        Assertions.assertEquals(beforeHash, CompressUtil.crcHashFile(archive.toFile()), "The archive was modified");
+
+        Assertions.assertTrue(service.applyChanges(sessionId, archiveInfo,
+                                                   new ChangeSet().delete(generateFileInfo("first.txt"))
+                                                                  .rename(generateFileInfo("backup/first.txt"),
+                                                                          "first.txt")),
+                              "Entry was not moved onto the name of a deleted entry");
+    }
+
+    private void applyChangesToArchive(Path archive) throws IOException, ArchiveException {
+        long sessionId = System.currentTimeMillis();
+        boolean success = service.applyChanges(sessionId, ArchiveService.generateDefaultArchiveInfo(archive.toString()),
+                                               new ChangeSet().add(atfFileInfo)
+                                                              .rename(tfFileInfo, "renamed-file.txt"));
+        Assertions.assertTrue(success, "Changes were not applied");
+
+        List<String> entries = new ArrayList<>();
+        try(InputStream iStream = new BufferedInputStream(Files.newInputStream(archive));
+            ArchiveInputStream aiStream = new ArchiveStreamFactory().createArchiveInputStream(iStream)) {
+            ArchiveEntry entry;
+            while ((entry = aiStream.getNextEntry()) != null) {
+                entries.add(entry.getName());
+            }
+        }
+        Assertions.assertEquals(List.of("renamed-file.txt", "another-temp-file.txt"), entries,
+                                "Archive entries were not as expected");
+    }
 }
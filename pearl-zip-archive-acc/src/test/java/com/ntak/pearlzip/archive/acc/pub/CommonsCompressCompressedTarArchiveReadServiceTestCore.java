@@ -0,0 +1,402 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.archive.acc.pub;
+
+import com.ntak.pearlzip.archive.acc.util.GzipCheckpointIndex;
+import com.ntak.pearlzip.archive.acc.util.ParallelGzipOutputStream;
+import com.ntak.pearlzip.archive.acc.util.ParallelXZInputStream;
+import com.ntak.pearlzip.archive.pub.ArchiveService;
+import com.ntak.pearlzip.archive.pub.FileInfo;
+import com.ntak.pearlzip.archive.pub.ProgressMessage;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.apache.commons.compress.compressors.xz.XZCompressorOutputStream;
+import org.junit.jupiter.api.*;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.tukaani.xz.LZMA2Options;
+import org.tukaani.xz.SeekableFileInputStream;
+import org.tukaani.xz.SeekableXZInputStream;
+import org.tukaani.xz.XZOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import static com.ntak.pearlzip.archive.acc.constants.CommonsCompressLoggingConstants.CNS_ACC_CHECKPOINT_SPAN;
+import static com.ntak.pearlzip.archive.acc.constants.CommonsCompressLoggingConstants.CNS_ACC_COMPRESSION_THREADS;
+import static com.ntak.pearlzip.archive.acc.constants.CommonsCompressLoggingConstants.CNS_STORE_ROOT;
+import static com.ntak.pearlzip.archive.constants.LoggingConstants.PROGRESS_COUNT;
+import static org.junit.jupiter.api.Assertions.*;
+
+public abstract class CommonsCompressCompressedTarArchiveReadServiceTestCore {
+
+    private static final Map<String,byte[]> CONTENTS = new LinkedHashMap<>();
+    private static final int SPAN = 64 * 1024;
+
+    private CommonsCompressCompressedTarArchiveReadService service;
+    private static Path tempDirectory;
+    private static Path testArchive;
+    private static Path multiMemberArchive;
+    private static Path parallelArchive;
+    private static Path xzArchive;
+    private static Path multiBlockXzArchive;
+    private static Path bzip2Archive;
+
+    @BeforeAll
+    public static void setUpOnce() throws IOException {
+        tempDirectory = Files.createTempDirectory("pz-test");
+        System.setProperty(CNS_STORE_ROOT, tempDirectory.resolve("store").toString());
+        System.setProperty(CNS_ACC_CHECKPOINT_SPAN, String.valueOf(SPAN));
+
+        final Random random = new Random(1234);
+        final String[] words = {"pearl", "zip", "archive", "tar", "gzip", "checkpoint", "window", "block"};
+        final StringBuilder text = new StringBuilder();
+        while (text.length() < 400_000) {
+            text.append(words[random.nextInt(words.length)]).append(random.nextInt(100)).append(' ');
+        }
+        final byte[] noise = new byte[300_000];
+        random.nextBytes(noise);
+        CONTENTS.put("folder/text.txt", text.toString().getBytes(StandardCharsets.UTF_8));
+        CONTENTS.put("folder/noise.bin", noise);
+        CONTENTS.put("implicit/nested/file.txt", "Content in a folder without an entry".getBytes(StandardCharsets.UTF_8));
+
+        final byte[] tar = createTar();
+        testArchive = tempDirectory.resolve("test.tgz");
+        try(OutputStream oStream = new GZIPOutputStream(Files.newOutputStream(testArchive))) {
+            oStream.write(tar);
+        }
+
+        multiMemberArchive = tempDirectory.resolve("multi-member.tgz");
+        try(OutputStream oStream = Files.newOutputStream(multiMemberArchive)) {
+            for (int[] range : new int[][]{{0, tar.length / 3}, {tar.length / 3, tar.length}}) {
+                final ByteArrayOutputStream member = new ByteArrayOutputStream();
+                try(GZIPOutputStream gzStream = new GZIPOutputStream(member)) {
+                    gzStream.write(tar, range[0], range[1] - range[0]);
+                }
+                oStream.write(member.toByteArray());
+            }
+        }
+
+        parallelArchive = tempDirectory.resolve("parallel.tgz");
+        try(OutputStream oStream = new ParallelGzipOutputStream(Files.newOutputStream(parallelArchive), 2,
+                                                                Deflater.DEFAULT_COMPRESSION, SPAN)) {
+            oStream.write(tar);
+        }
+
+        xzArchive = tempDirectory.resolve("test.tar.xz");
+        try(OutputStream oStream = new XZCompressorOutputStream(Files.newOutputStream(xzArchive))) {
+            oStream.write(tar);
+        }
+
+        // Concatenated streams, each holding a single block, as written by parallel xz compressors
+        multiBlockXzArchive = tempDirectory.resolve("multi-block.tar.xz");
+        try(OutputStream oStream = Files.newOutputStream(multiBlockXzArchive)) {
+            for (int[] range : new int[][]{{0, tar.length / 3}, {tar.length / 3, 2 * tar.length / 3},
+                                           {2 * tar.length / 3, tar.length}}) {
+                final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+                try(XZOutputStream xzStream = new XZOutputStream(stream, new LZMA2Options(0))) {
+                    xzStream.write(tar, range[0], range[1] - range[0]);
+                }
+                oStream.write(stream.toByteArray());
+            }
+        }
+
+        // Concatenated streams, as written by parallel bzip2 compressors
+        bzip2Archive = tempDirectory.resolve("test.tar.bz2");
+        try(OutputStream oStream = Files.newOutputStream(bzip2Archive)) {
+            for (int[] range : new int[][]{{0, tar.length / 2}, {tar.length / 2, tar.length}}) {
+                final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+                try(BZip2CompressorOutputStream bz2Stream = new BZip2CompressorOutputStream(stream)) {
+                    bz2Stream.write(tar, range[0], range[1] - range[0]);
+                }
+                oStream.write(stream.toByteArray());
+            }
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        service = new CommonsCompressCompressedTarArchiveReadService();
+    }
+
+    @AfterAll
+    public static void tearDown() throws IOException {
+        System.clearProperty(CNS_STORE_ROOT);
+        System.clearProperty(CNS_ACC_CHECKPOINT_SPAN);
+        Files.walk(tempDirectory).filter((f)->!Files.isDirectory(f)).forEach(f-> {
+            try {
+                Files.deleteIfExists(f);
+            } catch(IOException e) {
+            }
+        });
+        Files.walk(tempDirectory).filter(Files::isDirectory).sorted((a,b)->b.toString().length()-a.toString().length()).forEach(f-> {
+            try {
+                Files.deleteIfExists(f);
+            } catch(IOException e) {
+            }
+        });
+        Files.deleteIfExists(tempDirectory);
+    }
+
+    /*
+     *  Test cases:
+     *  + List contents of tgz file, including implicit folders
+     *  + List contents of tar.xz and tar.bz2 files
+     *  + Extract all files from single member, multiple member and sync flushed tgz files
+     *  + Extract all files from tar.xz and concatenated tar.bz2 files
+     *  + Extract all files from a multi-block tar.xz file by decoding its blocks concurrently
+     *  + Extract single file by inflating from the nearest checkpoint
+     *  + Extract single file into a stream (tgz, tar.xz and tar.bz2 files)
+     *  + Extraction reports the running count of entries extracted (tgz and tar.bz2 files)
+     *  + Checkpoint index is persisted and rebuilt once the archive is modified
+     *  + Test archive (non-empty tgz, tar.xz and tar.bz2 files) - success
+     *  + Test archive (corrupt gzip trailer) - failure
+     *  + Test archive (corrupt bzip2 stream) - failure
+     *  + Test archive (corrupt check of a concurrently decoded xz block) - failure
+     */
+
+    @Test
+    @DisplayName("Test: List contents of a tgz archive successfully")
+    public void testListContents_ValidArchive_Success() {
+        List<FileInfo> files = service.listFiles(0L, testArchive.toString());
+        assertEquals(List.of("folder", "folder/text.txt", "folder/noise.bin", "implicit/nested/file.txt",
+                             "implicit/nested", "implicit"),
+                     files.stream().map(FileInfo::getFileName).collect(Collectors.toList()),
+                     "Entries listed were not as expected");
+        assertEquals(CONTENTS.get("folder/noise.bin").length, files.get(2).getRawSize(),
+                     "Size of entry was not as expected");
+        assertTrue(files.get(0).isFolder() && files.get(4).isFolder() && files.get(5).isFolder(),
+                   "Folders were not as expected");
+    }
+
+    @Test
+    @DisplayName("Test: List contents of tar.xz and tar.bz2 archives successfully")
+    public void testListContents_XzBzip2Archives_Success() {
+        final List<FileInfo> expectations = service.listFiles(0L, testArchive.toString());
+        for (Path archive : List.of(xzArchive, bzip2Archive)) {
+            assertEquals(expectations, service.listFiles(0L, archive.toString()),
+                         String.format("Entries listed from %s were not as expected", archive.getFileName()));
+            assertFalse(Files.exists(GzipCheckpointIndex.getIndexFile(archive)),
+                        "Index was unexpectedly persisted");
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Extract all files from compressed tar archives successfully")
+    public void testExtractFiles_ValidArchives_Success() throws IOException {
+        for (Path archive : List.of(testArchive, multiMemberArchive, parallelArchive, xzArchive, bzip2Archive)) {
+            final Path targetDir = Files.createTempDirectory(tempDirectory, "pz");
+            Map<FileInfo,Path> targets = new LinkedHashMap<>();
+            service.listFiles(0L, archive.toString())
+                   .forEach(f -> targets.put(f, targetDir.resolve(f.getFileName())));
+
+            assertTrue(service.extractFiles(0L, ArchiveService.generateDefaultArchiveInfo(archive.toString()), targets),
+                       String.format("Files were not extracted successfully from %s", archive.getFileName()));
+            for (Map.Entry<FileInfo,Path> target : targets.entrySet()) {
+                assertEquals(target.getKey().isFolder(), Files.isDirectory(target.getValue()),
+                             String.format("File %s was not of the expected type", target.getValue()));
+                if (!target.getKey().isFolder()) {
+                    assertArrayEquals(CONTENTS.get(target.getKey().getFileName()), Files.readAllBytes(target.getValue()),
+                                      String.format("Content of %s was not as expected", target.getValue()));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Extract all files from a multi-block tar.xz archive by decoding its blocks concurrently")
+    public void testExtractFiles_MultiBlockXzArchive_Success() throws IOException {
+        System.setProperty(CNS_ACC_COMPRESSION_THREADS, "4");
+        try {
+            try(InputStream iStream = ParallelXZInputStream.open(multiBlockXzArchive, 4)) {
+                assertTrue(iStream instanceof ParallelXZInputStream, "Blocks were not decoded concurrently");
+            }
+
+            final Path targetDir = Files.createTempDirectory(tempDirectory, "pz");
+            Map<FileInfo,Path> targets = new LinkedHashMap<>();
+            service.listFiles(0L, multiBlockXzArchive.toString())
+                   .forEach(f -> targets.put(f, targetDir.resolve(f.getFileName())));
+            assertEquals(service.listFiles(0L, testArchive.toString()), new ArrayList<>(targets.keySet()),
+                         "Entries listed were not as expected");
+
+            assertTrue(service.extractFiles(0L,
+                                            ArchiveService.generateDefaultArchiveInfo(multiBlockXzArchive.toString()),
+                                            targets),
+                       "Files were not extracted successfully");
+            for (Map.Entry<FileInfo,Path> target : targets.entrySet()) {
+                if (!target.getKey().isFolder()) {
+                    assertArrayEquals(CONTENTS.get(target.getKey().getFileName()), Files.readAllBytes(target.getValue()),
+                                      String.format("Content of %s was not as expected", target.getValue()));
+                }
+            }
+            assertTrue(service.testArchive(0L, multiBlockXzArchive.toString()), "Archive not valid");
+        } finally {
+            System.clearProperty(CNS_ACC_COMPRESSION_THREADS);
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Extract a single file from a tgz archive by inflating from the nearest checkpoint")
+    public void testExtractFile_Checkpoint_Success() throws IOException {
+        for (Path archive : List.of(testArchive, multiMemberArchive, parallelArchive)) {
+            final FileInfo file = service.listFiles(0L, archive.toString())
+                                         .stream()
+                                         .filter(f -> f.getFileName().equals("implicit/nested/file.txt"))
+                                         .findFirst()
+                                         .orElseThrow();
+            final GzipCheckpointIndex index = GzipCheckpointIndex.load(archive).orElseThrow();
+            final long dataOffset = index.getEntries().get(3).dataOffset();
+            assertTrue(index.getCheckpoints().size() > 1, "Checkpoints were not recorded for each span");
+            assertTrue(index.getCheckpoint(dataOffset).orElseThrow().position() > dataOffset - 2 * SPAN,
+                       "Nearest checkpoint was not as expected");
+
+            final Path target = tempDirectory.resolve(String.format("checkpoint-%s.txt", archive.getFileName()));
+            assertTrue(service.extractFile(0L, target, archive.toString(), file), "File was not extracted");
+            assertArrayEquals(CONTENTS.get("implicit/nested/file.txt"), Files.readAllBytes(target),
+                              "Content extracted was not as expected");
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Extract a single file from compressed tar archives into a stream successfully")
+    public void testExtractFile_Stream_Success() {
+        for (Path archive : List.of(testArchive, xzArchive, bzip2Archive)) {
+            final FileInfo file = service.listFiles(0L, archive.toString())
+                                         .stream()
+                                         .filter(f -> f.getFileName().equals("folder/text.txt"))
+                                         .findFirst()
+                                         .orElseThrow();
+            final ByteArrayOutputStream oStream = new ByteArrayOutputStream();
+            assertTrue(service.extractFile(0L, oStream, ArchiveService.generateDefaultArchiveInfo(archive.toString()),
+                                           file),
+                       "File was not extracted");
+            assertArrayEquals(CONTENTS.get("folder/text.txt"), oStream.toByteArray(),
+                              "Content extracted was not as expected");
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Extraction reports the running count of entries extracted")
+    public void testExtractFiles_Progress_RunningCount() throws IOException {
+        for (Path archive : List.of(testArchive, bzip2Archive)) {
+            final Path targetDir = Files.createTempDirectory(tempDirectory, "pz");
+            Map<FileInfo,Path> targets = new LinkedHashMap<>();
+            service.listFiles(0L, archive.toString())
+                   .forEach(f -> targets.put(f, targetDir.resolve(f.getFileName())));
+
+            Mockito.clearInvocations(ArchiveService.DEFAULT_BUS);
+            assertTrue(service.extractFiles(0L, ArchiveService.generateDefaultArchiveInfo(archive.toString()), targets),
+                       String.format("Files were not extracted successfully from %s", archive.getFileName()));
+
+            final ArgumentCaptor<Object> messages = ArgumentCaptor.forClass(Object.class);
+            Mockito.verify(ArchiveService.DEFAULT_BUS, Mockito.atLeastOnce()).post(messages.capture());
+            final List<ProgressMessage> progress = messages.getAllValues()
+                                                           .stream()
+                                                           .filter(m -> m instanceof ProgressMessage p
+                                                                   && PROGRESS_COUNT.equals(p.type()))
+                                                           .map(ProgressMessage.class::cast)
+                                                           .collect(Collectors.toList());
+            // The three folders are created up front, so the files are counted on from them
+            assertEquals(List.of(4.0, 5.0, 6.0),
+                         progress.stream().map(ProgressMessage::completed).collect(Collectors.toList()),
+                         String.format("Progress of %s was not as expected", archive.getFileName()));
+            assertTrue(progress.stream().allMatch(p -> p.total() == targets.size()),
+                       String.format("Total of %s was not as expected", archive.getFileName()));
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Checkpoint index is persisted and rebuilt once the archive is modified")
+    public void testIndex_ModifiedArchive_Rebuilt() throws IOException {
+        final Path archive = tempDirectory.resolve("modified.tgz");
+        Files.copy(testArchive, archive);
+        service.listFiles(0L, archive.toString());
+        assertTrue(Files.exists(GzipCheckpointIndex.getIndexFile(archive)), "Index was not persisted");
+        assertTrue(GzipCheckpointIndex.load(archive).isPresent(), "Index of unchanged archive was not loaded");
+
+        final FileTime lastModified = Files.getLastModifiedTime(archive);
+        Files.copy(multiMemberArchive, archive, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+        Files.setLastModifiedTime(archive, lastModified);
+        assertTrue(GzipCheckpointIndex.load(archive).isEmpty(), "Index of modified archive was loaded");
+        assertEquals(service.listFiles(0L, testArchive.toString()), service.listFiles(0L, archive.toString()),
+                     "Listing of modified archive was not as expected");
+    }
+
+    @Test
+    @DisplayName("Test: Test non-empty tgz archive returns success")
+    public void testTestArchive_NonEmptyArchive_Success() {
+        assertTrue(service.testArchive(0L, testArchive.toString()), "Archive not valid");
+        assertTrue(service.testArchive(0L, multiMemberArchive.toString()), "Archive not valid");
+        assertTrue(service.testArchive(0L, parallelArchive.toString()), "Archive not valid");
+        assertTrue(service.testArchive(0L, xzArchive.toString()), "Archive not valid");
+        assertTrue(service.testArchive(0L, bzip2Archive.toString()), "Archive not valid");
+    }
+
+    @Test
+    @DisplayName("Test: Test tgz archive with a corrupt gzip trailer returns failure")
+    public void testTestArchive_FaultyArchive_Fail() throws IOException {
+        final Path faultyArchive = tempDirectory.resolve("faulty.tgz");
+        final byte[] bytes = Files.readAllBytes(testArchive);
+        bytes[bytes.length - 8] ^= 0x5A;
+        Files.write(faultyArchive, bytes);
+        assertFalse(service.testArchive(0L, faultyArchive.toString()), "Archive unexpectedly valid");
+    }
+
+    @Test
+    @DisplayName("Test: Test tar.bz2 archive with a corrupt stream returns failure")
+    public void testTestArchive_FaultyBzip2Archive_Fail() throws IOException {
+        final Path faultyArchive = tempDirectory.resolve("faulty.tar.bz2");
+        final byte[] bytes = Files.readAllBytes(bzip2Archive);
+        bytes[bytes.length / 4] ^= 0x5A;
+        Files.write(faultyArchive, bytes);
+        assertFalse(service.testArchive(0L, faultyArchive.toString()), "Archive unexpectedly valid");
+    }
+
+    @Test
+    @DisplayName("Test: Test tar.xz archive with a corrupt check in a concurrently decoded block returns failure")
+    public void testTestArchive_FaultyXzBlock_Fail() throws IOException {
+        final Path faultyArchive = tempDirectory.resolve("faulty.tar.xz");
+        final byte[] bytes = Files.readAllBytes(multiBlockXzArchive);
+        try(SeekableXZInputStream iStream =
+                    new SeekableXZInputStream(new SeekableFileInputStream(multiBlockXzArchive.toFile()))) {
+            // The check of a block is held in its final bytes
+            bytes[(int) (iStream.getBlockCompPos(1) + iStream.getBlockCompSize(1) - 1)] ^= 0x5A;
+        }
+        Files.write(faultyArchive, bytes);
+
+        System.setProperty(CNS_ACC_COMPRESSION_THREADS, "4");
+        try {
+            assertFalse(service.testArchive(0L, faultyArchive.toString()), "Archive unexpectedly valid");
+        } finally {
+            System.clearProperty(CNS_ACC_COMPRESSION_THREADS);
+        }
+    }
+
+    private static byte[] createTar() throws IOException {
+        final ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        try(TarArchiveOutputStream taoStream = new TarArchiveOutputStream(tar)) {
+            taoStream.putArchiveEntry(new TarArchiveEntry("folder/"));
+            taoStream.closeArchiveEntry();
+            for (Map.Entry<String,byte[]> content : CONTENTS.entrySet()) {
+                final TarArchiveEntry entry = new TarArchiveEntry(content.getKey());
+                entry.setSize(content.getValue().length);
+                taoStream.putArchiveEntry(entry);
+                taoStream.write(content.getValue());
+                taoStream.closeArchiveEntry();
+            }
+        }
+        return tar.toByteArray();
+    }
+}
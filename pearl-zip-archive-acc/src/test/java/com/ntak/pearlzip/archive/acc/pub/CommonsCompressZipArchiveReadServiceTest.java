@@ -0,0 +1,12 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.archive.acc.pub;
+
+import static com.ntak.pearlzip.archive.constants.ConfigurationConstants.CNS_COM_BUS_FACTORY;
+
+public class CommonsCompressZipArchiveReadServiceTest extends CommonsCompressZipArchiveReadServiceTestCore {
+    public CommonsCompressZipArchiveReadServiceTest() {
+        System.setProperty(CNS_COM_BUS_FACTORY, "com.ntak.testfx.MockCommunicationBusFactory");
+    }
+}
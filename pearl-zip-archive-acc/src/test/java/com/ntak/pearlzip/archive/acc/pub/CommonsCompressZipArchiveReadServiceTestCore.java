@@ -0,0 +1,305 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.archive.acc.pub;
+
+import com.ntak.pearlzip.archive.acc.util.ZipAppender;
+import com.ntak.pearlzip.archive.pub.ArchiveReadService;
+import com.ntak.pearlzip.archive.pub.ArchiveService;
+import com.ntak.pearlzip.archive.pub.FileInfo;
+import com.ntak.pearlzip.archive.util.InMemoryArchiveStore;
+import org.apache.commons.compress.archivers.zip.Zip64Mode;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public abstract class CommonsCompressZipArchiveReadServiceTestCore {
+
+    private static final Map<String,String> CONTENTS = new LinkedHashMap<>();
+
+    private CommonsCompressZipArchiveReadService service;
+    private static Path tempDirectory;
+    private static Path testArchive;
+    private static Path zip64Archive;
+    private static Path faultyArchive;
+
+    @BeforeAll
+    public static void setUpOnce() throws IOException {
+        tempDirectory = Files.createTempDirectory("pz-test");
+        CONTENTS.put("stored.txt", "Stored content");
+        CONTENTS.put("folder/deflated.txt", "Deflated content ".repeat(100));
+        CONTENTS.put("implicit/nested/file.txt", "Content in a folder without an entry");
+
+        testArchive = tempDirectory.resolve("test.zip");
+        zip64Archive = tempDirectory.resolve("test-zip64.zip");
+        createArchive(testArchive, Zip64Mode.AsNeeded);
+        createArchive(zip64Archive, Zip64Mode.Always);
+
+        faultyArchive = tempDirectory.resolve("faulty.zip");
+        byte[] bytes = Files.readAllBytes(testArchive);
+        // Corrupts the deflated content, leaving the central directory intact
+        byte[] name = "folder/deflated.txt".getBytes(StandardCharsets.UTF_8);
+        int header = indexOf(bytes, name) - 30;
+        int offset = header + 30 + name.length + ((bytes[header + 28] & 0xff) | (bytes[header + 29] & 0xff) << 8);
+        bytes[offset + 4] ^= 0x5A;
+        Files.write(faultyArchive, bytes);
+    }
+
+    @BeforeEach
+    public void setUp() {
+        service = new CommonsCompressZipArchiveReadService();
+    }
+
+    @AfterAll
+    public static void tearDown() throws IOException {
+        Files.walk(tempDirectory).filter((f)->!Files.isDirectory(f)).forEach(f-> {
+            try {
+                Files.deleteIfExists(f);
+            } catch(IOException e) {
+            }
+        });
+        Files.walk(tempDirectory).filter(Files::isDirectory).sorted((a,b)->b.toString().length()-a.toString().length()).forEach(f-> {
+            try {
+                Files.deleteIfExists(f);
+            } catch(IOException e) {
+            }
+        });
+        Files.deleteIfExists(tempDirectory);
+    }
+
+    /*
+     *  Test cases:
+     *  + List contents of zip file, including implicit folders
+     *  + List contents of zip file with Zip64 records
+     *  + List contents of zip file in batches, with implicit folders in the final batch
+     *  + List contents of zip file left part-way through an in place append, restoring the archive first
+     *  + Extract single file from zip archive by random access
+     *  + Extract all files from zip archive
+     *  + Extract stored file over an existing, larger file by channel transfer
+     *  + List and extract files from zip archive held in memory
+     *  + Test archive (non-empty zip file) - success
+     *  + Test archive (corrupt entry data) - failure
+     */
+
+    @Test
+    @DisplayName("Test: List contents of a zip archive from its central directory successfully")
+    public void testListContents_ValidArchive_Success() {
+        List<FileInfo> files = service.listFiles(0L, testArchive.toString());
+        assertEquals(List.of("folder", "folder/deflated.txt", "implicit", "implicit/nested", "implicit/nested/file.txt",
+                             "stored.txt"),
+                     files.stream().map(FileInfo::getFileName).sorted().collect(Collectors.toList()),
+                     "Files were not listed as expected");
+
+        FileInfo deflated = files.stream().filter(f -> f.getFileName().equals("folder/deflated.txt")).findFirst().get();
+        assertEquals(1, deflated.getLevel(), "Level was not as expected");
+        assertEquals(CONTENTS.get("folder/deflated.txt").length(), deflated.getRawSize(), "Size was not as expected");
+        assertTrue(deflated.getPackedSize() < deflated.getRawSize(), "Packed size was not as expected");
+        assertTrue(files.stream()
+                        .filter(f -> List.of("implicit", "implicit/nested").contains(f.getFileName()))
+                        .allMatch(FileInfo::isFolder),
+                   "Implicit folders were not synthesised");
+    }
+
+    @Test
+    @DisplayName("Test: List contents of a zip archive with Zip64 records successfully")
+    public void testListContents_Zip64Archive_Success() {
+        List<FileInfo> files = service.listFiles(0L, zip64Archive.toString());
+        FileInfo stored = files.stream().filter(f -> f.getFileName().equals("stored.txt")).findFirst().get();
+        assertEquals(CONTENTS.get("stored.txt").length(), stored.getRawSize(), "Size was not as expected");
+        assertEquals(CONTENTS.get("stored.txt").length(), stored.getPackedSize(), "Packed size was not as expected");
+    }
+
+    @Test
+    @DisplayName("Test: List contents of a zip archive in batches successfully")
+    public void testListContents_Batches_Success() throws IOException {
+        final Path archive = tempDirectory.resolve("batches.zip");
+        final int entries = ArchiveReadService.LISTING_BATCH_SIZE * 2 + 10;
+        try(ZipArchiveOutputStream zaoStream = new ZipArchiveOutputStream(archive)) {
+            for (int i = 0; i < entries; i++) {
+                zaoStream.putArchiveEntry(new ZipArchiveEntry(String.format("batch/dir%d/file%d.txt", i % 10, i)));
+                zaoStream.write(String.valueOf(i).getBytes(StandardCharsets.UTF_8));
+                zaoStream.closeArchiveEntry();
+            }
+        }
+
+        List<List<FileInfo>> batches = new ArrayList<>();
+        service.listFiles(0L, ArchiveService.generateDefaultArchiveInfo(archive.toString()), batches::add);
+        assertEquals(3, batches.size(), "Number of batches was not as expected");
+        assertTrue(batches.stream().allMatch(b -> b.size() <= ArchiveReadService.LISTING_BATCH_SIZE),
+                   "Batch exceeded the batch size");
+        assertEquals(entries + 11, batches.stream().mapToInt(List::size).sum(), "Number of entries was not as expected");
+        assertTrue(batches.get(2).stream().filter(FileInfo::isFolder).count() == 11,
+                   "Implicit folders were not pushed in the final batch");
+
+        Set<FileInfo> pushed = batches.stream().flatMap(List::stream).collect(Collectors.toSet());
+        assertEquals(new HashSet<>(service.listFiles(0L, archive.toString())), pushed,
+                     "Batched listing did not match the full listing");
+    }
+
+    @Test
+    @DisplayName("Test: List contents of a zip archive interrupted part-way through an append successfully")
+    public void testListContents_InterruptedAppend_Restored() throws IOException {
+        final Path archive = tempDirectory.resolve("interrupted.zip");
+        Files.copy(testArchive, archive);
+        final byte[] original = Files.readAllBytes(testArchive);
+
+        // Simulate the process dying part-way through writing the new entries
+        assertThrows(AssertionError.class, () -> ZipAppender.append(archive, (aoStream) -> {
+            aoStream.putArchiveEntry(new ZipArchiveEntry("partial-file.txt"));
+            aoStream.write(new byte[1024]);
+            aoStream.flush();
+            throw new AssertionError("Process interrupted");
+        }));
+        assertTrue(Files.exists(ZipAppender.getJournalPath(archive)), "Journal was not retained");
+
+        assertEquals(service.listFiles(0L, testArchive.toString()).stream()
+                            .map(FileInfo::getFileName)
+                            .sorted()
+                            .collect(Collectors.toList()),
+                     service.listFiles(0L, archive.toString()).stream()
+                            .map(FileInfo::getFileName)
+                            .sorted()
+                            .collect(Collectors.toList()),
+                     "Files were not listed as expected");
+        assertArrayEquals(original, Files.readAllBytes(archive), "Archive was not restored");
+        assertFalse(Files.exists(ZipAppender.getJournalPath(archive)), "Journal was not removed");
+    }
+
+    @Test
+    @DisplayName("Test: Extract a single file from a zip archive successfully")
+    public void testExtractFile_ValidArchive_Success() throws IOException {
+        for (Path archive : List.of(testArchive, zip64Archive)) {
+            for (FileInfo file : service.listFiles(0L, archive.toString())) {
+                if (file.isFolder()) {
+                    continue;
+                }
+
+                Path target = tempDirectory.resolve(String.format("extract-%d.txt", file.getIndex()));
+                assertTrue(service.extractFile(0L, target, archive.toString(), file), "File was not extracted");
+                assertEquals(CONTENTS.get(file.getFileName()), Files.readString(target),
+                             String.format("Content of %s was not as expected", file.getFileName()));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Extract all files from a zip archive successfully")
+    public void testExtractFiles_ValidArchive_Success() throws IOException {
+        final Path targetDir = Files.createTempDirectory(tempDirectory, "pz");
+        Map<FileInfo,Path> targets = new LinkedHashMap<>();
+        service.listFiles(0L, testArchive.toString())
+               .forEach(f -> targets.put(f, targetDir.resolve(f.getFileName())));
+
+        assertTrue(service.extractFiles(0L, ArchiveService.generateDefaultArchiveInfo(testArchive.toString()), targets),
+                   "Files were not extracted successfully");
+        for (Map.Entry<FileInfo,Path> target : targets.entrySet()) {
+            assertEquals(target.getKey().isFolder(), Files.isDirectory(target.getValue()),
+                         String.format("File %s was not of the expected type", target.getValue()));
+            if (!target.getKey().isFolder()) {
+                assertEquals(CONTENTS.get(target.getKey().getFileName()), Files.readString(target.getValue()),
+                             String.format("Content of %s was not as expected", target.getValue()));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Extract a stored file over an existing, larger file successfully")
+    public void testExtractFile_StoredOverExistingFile_Success() throws IOException {
+        final FileInfo stored = service.listFiles(0L, testArchive.toString())
+                                       .stream()
+                                       .filter(f -> f.getFileName().equals("stored.txt"))
+                                       .findFirst()
+                                       .orElseThrow();
+        final Path target = tempDirectory.resolve("existing-stored.txt");
+        Files.writeString(target, "Existing content, which is longer than the stored content");
+
+        assertTrue(service.extractFile(0L, target, testArchive.toString(), stored), "File was not extracted");
+        assertEquals(CONTENTS.get("stored.txt"), Files.readString(target), "Content of stored.txt was not as expected");
+    }
+
+    @Test
+    @DisplayName("Test: List and extract files from a zip archive held in memory successfully")
+    public void testExtractFile_InMemoryArchive_Success() throws IOException {
+        final Path archive = tempDirectory.resolve("in-memory").resolve("test.zip");
+        assertTrue(InMemoryArchiveStore.put(archive, Files.readAllBytes(testArchive)), "Archive was not held in memory");
+        try {
+            final List<FileInfo> files = service.listFiles(0L, archive.toString());
+            assertEquals(service.listFiles(0L, testArchive.toString()), files, "Files were not listed as expected");
+
+            for (FileInfo file : files) {
+                if (file.isFolder()) {
+                    continue;
+                }
+
+                final Path target = tempDirectory.resolve(String.format("in-memory-%d.txt", file.getIndex()));
+                assertTrue(service.extractFile(0L, target, archive.toString(), file), "File was not extracted");
+                assertEquals(CONTENTS.get(file.getFileName()), Files.readString(target),
+                             String.format("Content of %s was not as expected", file.getFileName()));
+
+                final ByteArrayOutputStream oStream = new ByteArrayOutputStream();
+                assertTrue(service.extractFile(0L, oStream, ArchiveService.generateDefaultArchiveInfo(archive.toString()),
+                                               file),
+                           "File was not extracted to the stream");
+                assertEquals(CONTENTS.get(file.getFileName()), oStream.toString(StandardCharsets.UTF_8),
+                             String.format("Content of %s was not as expected", file.getFileName()));
+            }
+            assertTrue(service.testArchive(0L, archive.toString()), "Archive not valid");
+            assertFalse(Files.exists(archive), "Archive was unexpectedly written to disk");
+        } finally {
+            service.releaseArchive(archive.toString());
+            InMemoryArchiveStore.remove(archive);
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Test non-empty zip archive returns success")
+    public void testTestArchive_NonEmptyArchive_Success() {
+        assertTrue(service.testArchive(0L, testArchive.toString()), "Archive not valid");
+        assertTrue(service.testArchive(0L, zip64Archive.toString()), "Archive not valid");
+    }
+
+    @Test
+    @DisplayName("Test: Test zip archive with corrupt entry data returns failure")
+    public void testTestArchive_FaultyArchive_Fail() {
+        assertFalse(service.testArchive(0L, faultyArchive.toString()), "Archive unexpectedly valid");
+    }
+
+    private static void createArchive(Path archive, Zip64Mode zip64Mode) throws IOException {
+        try(ZipArchiveOutputStream zaoStream = new ZipArchiveOutputStream(archive)) {
+            zaoStream.setUseZip64(zip64Mode);
+            zaoStream.putArchiveEntry(new ZipArchiveEntry("folder/"));
+            zaoStream.closeArchiveEntry();
+            for (Map.Entry<String,String> content : CONTENTS.entrySet()) {
+                ZipArchiveEntry entry = new ZipArchiveEntry(content.getKey());
+                entry.setMethod(content.getKey().startsWith("stored") ? ZipArchiveEntry.STORED :
+                                        ZipArchiveEntry.DEFLATED);
+                zaoStream.putArchiveEntry(entry);
+                zaoStream.write(content.getValue().getBytes(StandardCharsets.UTF_8));
+                zaoStream.closeArchiveEntry();
+            }
+        }
+    }
+
+    private static int indexOf(byte[] bytes, byte[] pattern) {
+        outer:
+        for (int i = 0; i <= bytes.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (bytes[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
@@ -9,4 +9,8 @@ package com.ntak.pearlzip.archive.szjb.constants;
  */
 public class SevenZipLoggingConstants {
     public static final String LOG_EXCEPTION_ON_EXTRACTION = "logging.ntak.pearl-zip.szjb.event-bus.exception-on-extraction";
+    public static final String LOG_EXTRACTION_RESULT_FAILED = "logging.ntak.pearl-zip.szjb.extraction-result-failed";
+    public static final String LOG_HANDLE_CACHE_CLOSE_EXCEPTION = "logging.ntak.pearl-zip.szjb.handle-cache.close-exception";
+
+    public static final String CNS_SZJB_HANDLE_CACHE_SIZE = "configuration.ntak.pearl-zip.szjb.handle-cache-size";
 }
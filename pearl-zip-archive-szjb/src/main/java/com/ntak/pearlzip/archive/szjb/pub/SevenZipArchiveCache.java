@@ -0,0 +1,284 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.archive.szjb.pub;
+
+import net.sf.sevenzipjbinding.IInArchive;
+import net.sf.sevenzipjbinding.SevenZip;
+import net.sf.sevenzipjbinding.impl.RandomAccessFileInStream;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.LoggerContext;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.ntak.pearlzip.archive.szjb.constants.SevenZipLoggingConstants.CNS_SZJB_HANDLE_CACHE_SIZE;
+import static com.ntak.pearlzip.archive.szjb.constants.SevenZipLoggingConstants.LOG_HANDLE_CACHE_CLOSE_EXCEPTION;
+import static com.ntak.pearlzip.archive.util.LoggingUtil.resolveTextKey;
+
+/**
+ *  Bounded cache of open 7-Zip archive handles. Opening an archive parses its headers, which is expensive for large
+ *  ISO, RAR and 7z files, so handles are kept open between calls and reused for as long as the archive on disk is
+ *  unchanged (same path, last modified time and size). The least recently used handle is evicted once the cache
+ *  exceeds its capacity.
+ *  <br/><br/>
+ *  A native archive handle is not thread-safe. Access is therefore serialised through a {@link Lease}, which must be
+ *  closed once the caller has finished with the archive. Archives are opened outside the cache monitor, so a lengthy
+ *  open does not hold up access to other archives. Concurrent callers for an archive being opened wait for, and
+ *  then reuse, that handle.
+ *  @author Aashutos Kakshepati
+ */
+public class SevenZipArchiveCache {
+
+    private static final Logger LOGGER = LoggerContext.getContext().getLogger(SevenZipArchiveCache.class);
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private final int capacity;
+    private final LinkedHashMap<Path,Handle> handles = new LinkedHashMap<>(16, 0.75f, true);
+    // Archives currently being opened, guarded by the handles monitor
+    private final Map<Path,CompletableFuture<Handle>> pending = new HashMap<>();
+
+    public SevenZipArchiveCache() {
+        this(Integer.parseInt(System.getProperty(CNS_SZJB_HANDLE_CACHE_SIZE, String.valueOf(DEFAULT_CAPACITY))));
+    }
+
+    public SevenZipArchiveCache(int capacity) {
+        this.capacity = Math.max(capacity, 0);
+    }
+
+    /**
+     *   Acquires exclusive use of an open handle for the archive specified. A cached handle is reused if the archive
+     *   has not been modified since it was opened, otherwise the archive is (re)opened and cached.
+     *
+     *   @param archivePath The path of the archive to open
+     *   @return Lease - exclusive access to the open archive, which is released on close
+     *   @throws IOException if the archive could not be opened
+     */
+    public Lease acquire(String archivePath) throws IOException {
+        final Path path = Paths.get(archivePath).toAbsolutePath().normalize();
+        final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        final long lastModified = attributes.lastModifiedTime().toMillis();
+        final long size = attributes.size();
+
+        while (true) {
+            Handle handle;
+            CompletableFuture<Handle> opening = null;
+            boolean isOpener = false;
+            final List<Handle> evicted = new ArrayList<>();
+            synchronized(handles) {
+                handle = handles.get(path);
+                if (Objects.nonNull(handle) && !handle.matches(lastModified, size)) {
+                    handles.remove(path);
+                    evicted.add(handle);
+                    handle = null;
+                }
+
+                if (Objects.nonNull(handle)) {
+                    handle.users++;
+                } else if (Objects.isNull(opening = pending.get(path))) {
+                    opening = new CompletableFuture<>();
+                    pending.put(path, opening);
+                    isOpener = true;
+                }
+            }
+            evicted.forEach(Handle::evict);
+
+            if (Objects.isNull(handle)) {
+                if (!isOpener) {
+                    // The archive is being opened by another caller, so the cache is checked again once it is open
+                    awaitOpen(opening);
+                    continue;
+                }
+
+                // Headers are parsed outside the monitor, so that other archives remain accessible in the meantime
+                handle = openPending(path, lastModified, size, opening);
+            }
+
+            handle.lock.lock();
+            return new Lease(handle);
+        }
+    }
+
+    private Handle openPending(Path path, long lastModified, long size, CompletableFuture<Handle> opening)
+            throws IOException {
+        final Handle handle;
+        try {
+            handle = open(path, lastModified, size);
+        } catch(IOException | RuntimeException e) {
+            synchronized(handles) {
+                pending.remove(path);
+            }
+            opening.completeExceptionally(e);
+            throw e;
+        }
+
+        final List<Handle> evicted = new ArrayList<>();
+        synchronized(handles) {
+            pending.remove(path);
+            if (capacity > 0) {
+                final Handle previous = handles.put(path, handle);
+                if (Objects.nonNull(previous)) {
+                    evicted.add(previous);
+                }
+                final Iterator<Handle> lru = handles.values().iterator();
+                while (handles.size() > capacity && lru.hasNext()) {
+                    evicted.add(lru.next());
+                    lru.remove();
+                }
+            } else {
+                handle.evicted = true;
+            }
+            handle.users++;
+        }
+        evicted.forEach(Handle::evict);
+        opening.complete(handle);
+
+        return handle;
+    }
+
+    private static void awaitOpen(CompletableFuture<Handle> opening) throws IOException {
+        try {
+            opening.join();
+        } catch(CompletionException | CancellationException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     *   Closes the cached handle of the archive specified, if any. Handles currently in use are closed once their
+     *   lease is released.
+     *
+     *   @param archivePath The path of the archive to release
+     */
+    public void release(String archivePath) {
+        final Handle handle;
+        synchronized(handles) {
+            handle = handles.remove(Paths.get(archivePath).toAbsolutePath().normalize());
+        }
+
+        if (Objects.nonNull(handle)) {
+            handle.evict();
+        }
+    }
+
+    public void releaseAll() {
+        final List<Handle> evicted;
+        synchronized(handles) {
+            evicted = new ArrayList<>(handles.values());
+            handles.clear();
+        }
+        evicted.forEach(Handle::evict);
+    }
+
+    public int size() {
+        synchronized(handles) {
+            return handles.size();
+        }
+    }
+
+    private Handle open(Path path, long lastModified, long size) throws IOException {
+        final RandomAccessFile file = new RandomAccessFile(path.toFile(), "r");
+        try {
+            return new Handle(path, lastModified, size, file, openInArchive(file));
+        } catch(IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    IInArchive openInArchive(RandomAccessFile file) throws IOException {
+        return SevenZip.openInArchive(null, new RandomAccessFileInStream(file));
+    }
+
+    /**
+     *  Exclusive, closeable access to an open archive handle.
+     */
+    public class Lease implements Closeable {
+        private final Handle handle;
+        private boolean released;
+
+        private Lease(Handle handle) {
+            this.handle = handle;
+        }
+
+        public IInArchive getArchive() {
+            return handle.archive;
+        }
+
+        @Override
+        public void close() {
+            if (released) {
+                return;
+            }
+            released = true;
+            handle.lock.unlock();
+
+            final boolean closeHandle;
+            synchronized(handles) {
+                closeHandle = --handle.users == 0 && handle.evicted;
+            }
+
+            if (closeHandle) {
+                handle.close();
+            }
+        }
+    }
+
+    private class Handle {
+        private final Path path;
+        private final long lastModified;
+        private final long size;
+        private final RandomAccessFile file;
+        private final IInArchive archive;
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private int users;
+        private boolean evicted;
+
+        private Handle(Path path, long lastModified, long size, RandomAccessFile file, IInArchive archive) {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.size = size;
+            this.file = file;
+            this.archive = archive;
+        }
+
+        private boolean matches(long lastModified, long size) {
+            return this.lastModified == lastModified && this.size == size;
+        }
+
+        private void evict() {
+            final boolean closeHandle;
+            synchronized(handles) {
+                evicted = true;
+                closeHandle = users == 0;
+            }
+
+            if (closeHandle) {
+                close();
+            }
+        }
+
+        private void close() {
+            try (file; archive) {
+                // Closes native archive handle and then the underlying file
+            } catch(IOException e) {
+                // LOG: Issue closing cached archive handle for %s. Message: %s
+                LOGGER.warn(resolveTextKey(LOG_HANDLE_CACHE_CLOSE_EXCEPTION, path, e.getMessage()));
+            }
+        }
+    }
+}
@@ -3,36 +3,29 @@
  */
 package com.ntak.pearlzip.archive.szjb.pub;
 
-import com.ntak.pearlzip.archive.constants.ConfigurationConstants;
 import com.ntak.pearlzip.archive.constants.LoggingConstants;
 import com.ntak.pearlzip.archive.pub.*;
-import net.sf.sevenzipjbinding.ExtractOperationResult;
-import net.sf.sevenzipjbinding.IInArchive;
-import net.sf.sevenzipjbinding.PropertyInfo;
-import net.sf.sevenzipjbinding.SevenZip;
-import net.sf.sevenzipjbinding.impl.RandomAccessFileInStream;
-import net.sf.sevenzipjbinding.impl.RandomAccessFileOutStream;
+import com.ntak.pearlzip.archive.util.DirectorySynthesiser;
+import net.sf.sevenzipjbinding.*;
 import net.sf.sevenzipjbinding.simple.ISimpleInArchive;
 import net.sf.sevenzipjbinding.simple.ISimpleInArchiveItem;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.core.LoggerContext;
-import org.apache.logging.log4j.util.Strings;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.RandomAccessFile;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.function.Consumer;
 
-import static com.ntak.pearlzip.archive.constants.ConfigurationConstants.CNS_NTAK_PEARL_ZIP_ICON_FOLDER;
 import static com.ntak.pearlzip.archive.constants.LoggingConstants.*;
 import static com.ntak.pearlzip.archive.szjb.constants.SevenZipConstants.PROFILE;
 import static com.ntak.pearlzip.archive.szjb.constants.SevenZipLoggingConstants.LOG_EXCEPTION_ON_EXTRACTION;
+import static com.ntak.pearlzip.archive.szjb.constants.SevenZipLoggingConstants.LOG_EXTRACTION_RESULT_FAILED;
 import static com.ntak.pearlzip.archive.util.LoggingUtil.resolveTextKey;
 
 /**
@@ -45,6 +38,8 @@ public class SevenZipArchiveService implements ArchiveReadService {
                                                       .getLogger(SevenZipArchiveService.class);
     private static final TransformEntry<ISimpleInArchiveItem> transformer = new SimpleSevenZipEntryTransform();
 
+    private final SevenZipArchiveCache archiveCache = new SevenZipArchiveCache();
+
     @Override
     public List<FileInfo> listFiles(long sessionId, String archivePath) {
         ArchiveInfo archiveInfo = ArchiveService.generateDefaultArchiveInfo(archivePath);
@@ -53,10 +48,18 @@ public class SevenZipArchiveService implements ArchiveReadService {
 
     @Override
     public List<FileInfo> listFiles(long sessionId, ArchiveInfo archiveInfo) {
+        FileInfoStore files = new FileInfoStore();
+        listFiles(sessionId, archiveInfo, files::addAll);
+        files.trimToSize();
+        return files;
+    }
+
+    @Override
+    public boolean listFiles(long sessionId, ArchiveInfo archiveInfo, Consumer<List<FileInfo>> batchConsumer) {
         String archivePath = archiveInfo.getArchivePath();
 
         if (archivePath.matches(".*(.tgz)$")) {
-            return List.of(new FileInfo(0, 0,
+            batchConsumer.accept(List.of(new FileInfo(0, 0,
                                         Paths.get(String.format("%s.tar",
                                                   archivePath.substring(0, archivePath.lastIndexOf("."))))
                                                              .getFileName()
@@ -66,91 +69,55 @@ public class SevenZipArchiveService implements ArchiveReadService {
                                         null, null,
                                         null, null, null, 0,
                                         null, false, false,
-                                        Collections.singletonMap("nested-archive","true")));
+                                        Collections.singletonMap("nested-archive","true"))));
+            return true;
         }
 
         if (archivePath.matches(".*(.gz|.xz|.bz2)$")) {
-            return List.of(new FileInfo(0, 0,
+            batchConsumer.accept(List.of(new FileInfo(0, 0,
                                         Paths.get(archivePath.substring(0, archivePath.lastIndexOf("."))).getFileName().toString(), -1,
                                         0, 0,
                                         null, null,
                                         null, null, null, 0,
                                         null, false, false,
-                                        Collections.singletonMap("nested-archive","true")));
+                                        Collections.singletonMap("nested-archive","true"))));
+            return true;
         }
 
-        try (final RandomAccessFile randomAccessFile = new RandomAccessFile(archivePath, "r");
-             final IInArchive archive = SevenZip.openInArchive(null,
-                                                               new RandomAccessFileInStream(randomAccessFile))) {
+        try (final SevenZipArchiveCache.Lease lease = archiveCache.acquire(archivePath)) {
+            final IInArchive archive = lease.getArchive();
             // LOG: Archive format: %s
             LOGGER.info(resolveTextKey(LOG_ARCHIVE_SERVICE_FORMAT, archive.getArchiveFormat()));
             // LOG: No. of items: %s
             LOGGER.info(resolveTextKey(LOG_ARCHIVE_SERVICE_NUMBER_ITEMS, archive.getNumberOfItems()));
 
-            List<FileInfo> files =
-                    Stream.of(archive.getSimpleInterface()
-                                     .getArchiveItems())
-                          .map(transformer::transform)
-                          .filter(Optional::isPresent)
-                          .map(Optional::get)
-                          .collect(Collectors.toList());
-
-            // Handle file path only archives
-            if (files.stream().noneMatch(FileInfo::isFolder)) {
-                List<String> rootFileNames =
-                files.stream()
-                     .filter(f -> Paths.get(f.getFileName()).getParent() != null)
-                     .map(f-> Paths.get(f.getFileName()).getParent().toString())
-                     .filter(r-> !Strings.isEmpty(r))
-                     .distinct()
-                     .collect(Collectors.toList());
-
-                for (String filename : rootFileNames) {
-                    files.add(new FileInfo(files.size()+1,
-                                           filename.length() - filename.replace(File.separator,"").length()
-                            , filename, -1,
-                                           0,0
-                            ,null,null,
-                                           null,null,null,0,
-                                           null,
-                                                        true,false,
-                                           Collections.singletonMap(
-                                                   ConfigurationConstants.KEY_ICON_REF, System.getProperty(
-                                                           CNS_NTAK_PEARL_ZIP_ICON_FOLDER, ""))));
+            // Items are pushed in batches as they are read. Duplicate entries are dropped.
+            final ISimpleInArchive simpleArchive = archive.getSimpleInterface();
+            final DirectorySynthesiser synthesiser = new DirectorySynthesiser(File.separatorChar);
+            List<FileInfo> batch = new ArrayList<>();
+            for (int i = 0; i < simpleArchive.getNumberOfItems(); i++) {
+                Optional<FileInfo> optFileInfo = transformer.transform(simpleArchive.getArchiveItem(i));
+                if (optFileInfo.isEmpty()) {
+                    continue;
                 }
-            }
 
-            // Handle directory creation
-            HashSet<FileInfo> setFiles = new HashSet<>(files);
-            for (FileInfo file : files) {
-                final int level = file.getLevel();
-                Path parent = Paths.get(file.getFileName());
-                for (int j = 1; j <= level; j++) {
-                    parent = parent.getParent();
-                    final FileInfo fileInfo = new FileInfo(setFiles.size(),
-                                                           level - j,
-                                                           parent.toString(),
-                                                           -1,
-                                                           0,
-                                                           0,
-                                                           null,
-                                                           null,
-                                                           null,
-                                                           null,
-                                                           null,
-                                                           0,
-                                                           null,
-                                                           true,
-                                                           false,
-                                                           Collections.singletonMap(
-                                                                   ConfigurationConstants.KEY_ICON_REF,
-                                                                   System.getProperty(
-                                                                           CNS_NTAK_PEARL_ZIP_ICON_FOLDER, "")));
-                    setFiles.add(fileInfo);
+                FileInfo fileInfo = optFileInfo.get();
+                if (synthesiser.add(fileInfo.getFileName())) {
+                    batch.add(fileInfo);
+                }
+                if (batch.size() == LISTING_BATCH_SIZE) {
+                    batchConsumer.accept(batch);
+                    batch = new ArrayList<>();
                 }
             }
 
-            return new ArrayList<>(setFiles);
+            // Handle file path only archives. Synthesised folders are only known once all items have been read, so
+            // they are pushed with the final batch.
+            batch.addAll(synthesiser.synthesise(simpleArchive.getNumberOfItems()));
+            if (!batch.isEmpty()) {
+                batchConsumer.accept(batch);
+            }
+            return true;
         } catch(IOException e) {
             // LOG: %s on listing contents. Message: %s
             // TITLE: Issue listing entries from archive
@@ -165,11 +132,10 @@ public class SevenZipArchiveService implements ArchiveReadService {
                                               resolveTextKey(BODY_ARCHIVE_SERVICE_LISTING_EXCEPTION, e.getClass().getCanonicalName()),
                                               e,
                                               archiveInfo));
+            return false;
         } finally {
             ArchiveService.DEFAULT_BUS.post(new ProgressMessage(sessionId, COMPLETED, COMPLETED, 1, 1));
         }
-
-        return Collections.emptyList();
     }
 
     @Override
@@ -178,60 +144,108 @@ public class SevenZipArchiveService implements ArchiveReadService {
         return extractFile(sessionId, targetLocation, archiveInfo, file);
     }
 
-        @Override
+    @Override
     public boolean extractFile(long sessionId, Path targetLocation, ArchiveInfo archiveInfo, FileInfo file) {
+        return extractFiles(sessionId, archiveInfo, Map.of(file, targetLocation));
+    }
+
+    @Override
+    public boolean extractFile(long sessionId, OutputStream targetStream, ArchiveInfo archiveInfo, FileInfo file) {
+        String archivePath = archiveInfo.getArchivePath();
+        try (final SevenZipArchiveCache.Lease lease = archiveCache.acquire(archivePath)) {
+            final IInArchive archive = lease.getArchive();
+            final int index = findItem(archive, archivePath, file);
+            if (index < 0) {
+                return false;
+            }
+
+            // The item is decompressed straight into the target stream
+            final ExtractOperationResult result = archive.extractSlow(index, (data) -> {
+                try {
+                    targetStream.write(data);
+                } catch (IOException e) {
+                    throw new SevenZipException(e);
+                }
+                return data.length;
+            });
+            if (result != ExtractOperationResult.OK) {
+                // %s on extraction of file %s. Message: %s
+                LOGGER.error(resolveTextKey(LOG_EXCEPTION_ON_EXTRACTION, result, file.getFileName(),
+                                            resolveTextKey(LOG_EXTRACTION_RESULT_FAILED, file.getFileName())));
+                return false;
+            }
+        } catch(IOException e) {
+            // LOG: %s on extracting file(s). Message: %s
+            // TITLE: Issue extracting archive
+            // HEADER: The archive %s could not be extracted
+            // BODY: Exception %s was thrown on the attempt to extract from the archive. Further details can be found
+            // below.
+            LOGGER.error(resolveTextKey(LoggingConstants.LOG_ARCHIVE_SERVICE_EXTRACT_EXCEPTION,
+                                        e.getClass().getCanonicalName(), e.getMessage()));
+            DEFAULT_BUS.post(new ErrorMessage(sessionId,
+                                              resolveTextKey(TITLE_ARCHIVE_SERVICE_EXTRACT_EXCEPTION),
+                                              resolveTextKey(HEADER_ARCHIVE_SERVICE_EXTRACT_EXCEPTION, archiveInfo.getArchivePath()),
+                                              resolveTextKey(BODY_ARCHIVE_SERVICE_EXTRACT_EXCEPTION, e.getClass().getCanonicalName()),
+                                              e,
+                                              archiveInfo));
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean extractFiles(long sessionId, ArchiveInfo archiveInfo, Map<FileInfo,Path> files) {
         String archivePath = archiveInfo.getArchivePath();
-        try (final RandomAccessFile randomAccessFile = new RandomAccessFile(archivePath, "r");
-             final IInArchive archive = SevenZip.openInArchive(null,
-                                                               new RandomAccessFileInStream(randomAccessFile))) {
-            Optional<ISimpleInArchiveItem> optItem;
-            List<ISimpleInArchiveItem> rawArchiveItems = List.of(archive.getSimpleInterface().getArchiveItems());
+        int extracted = 0;
+        try (final SevenZipArchiveCache.Lease lease = archiveCache.acquire(archivePath)) {
+            final IInArchive archive = lease.getArchive();
+            final Map<Integer,Path> targets = new HashMap<>();
 
             // Nested archive file handling
             if (archivePath.matches(".*(.gz|.xz|.bz2|.tgz)$")) {
-                optItem = Optional.of(rawArchiveItems.get(0));
+                // A compressor archive holds a single item, so any other requested file is not extracted
+                files.entrySet()
+                     .stream()
+                     .filter(e -> e.getKey().getIndex() == 0)
+                     .findFirst()
+                     .ifPresent(e -> targets.put(0, e.getValue()));
             } else {
-                optItem = rawArchiveItems.stream()
-                                         .filter(f -> {
-                                            try {
-                                                return f.getPath()
-                                                        .equals(file.getFileName());
-                                            } catch(Exception e) {
-                                                return false;
-                                            }
-                                         })
-                                         .findFirst();
-            }
-
-            if (optItem.isPresent()) {
-                try {
-                    // LOG: Extracting zip entry %s...
-                    DEFAULT_BUS.post(new ProgressMessage(sessionId, PROGRESS,
-                                                         resolveTextKey(LBL_PROGRESS_LOADED_ENTRY,
-                                                                        optItem.get().getPath()),
-                                                         -1,
-                                                         1)
-                    );
-
-                    if (!Files.exists(targetLocation)) {
-                        Files.createFile(targetLocation);
+                // Folders may be implicit in the archive, so they are created up front
+                final Map<String,Path> names = new HashMap<>();
+                final int items = archive.getNumberOfItems();
+                for (Map.Entry<FileInfo,Path> file : files.entrySet()) {
+                    final FileInfo fileInfo = file.getKey();
+                    if (fileInfo.isFolder()) {
+                        Files.createDirectories(file.getValue());
+                        extracted++;
+                    } else if (fileInfo.getIndex() < items
+                            && fileInfo.getFileName().equals(archive.getProperty(fileInfo.getIndex(), PropID.PATH))) {
+                        targets.put(fileInfo.getIndex(), file.getValue());
+                    } else {
+                        names.put(fileInfo.getFileName(), file.getValue());
                     }
+                }
 
-                    ExtractOperationResult result = optItem.get()
-                                                           .extractSlow(
-                                                                   new RandomAccessFileOutStream(
-                                                                           new RandomAccessFile(targetLocation.toAbsolutePath()
-                                                                                                              .toString(), "rw")
-                                                                   )
-                                                           );
-                    // Extraction result for file %s was %s
-                    return result == ExtractOperationResult.OK;
-                } catch (IOException e) {
-                    // %s on extraction of file %s. Message: %s
-                    LOGGER.error(resolveTextKey(LOG_EXCEPTION_ON_EXTRACTION, e.getClass().getCanonicalName(),
-                                                file.getFileName(), e.getMessage()));
+                // Resolve the indices of any remaining entries by path
+                for (int i = 0; i < items && !names.isEmpty(); i++) {
+                    final Path target = names.remove(String.valueOf(archive.getProperty(i, PropID.PATH)));
+                    if (Objects.nonNull(target)) {
+                        targets.put(i, target);
+                    }
                 }
             }
+
+            // Extract all selected items in a single pass of the archive
+            final int[] indices = targets.keySet()
+                                         .stream()
+                                         .mapToInt(Integer::intValue)
+                                         .sorted()
+                                         .toArray();
+            try (SevenZipExtractCallback callback = new SevenZipExtractCallback(sessionId, archive, targets)) {
+                archive.extract(indices, false, callback);
+                extracted += callback.getExtractedCount();
+            }
         } catch(IOException e) {
             // LOG: %s on extracting file(s). Message: %s
             // TITLE: Issue extracting archive
@@ -246,16 +260,21 @@ public class SevenZipArchiveService implements ArchiveReadService {
                                               resolveTextKey(BODY_ARCHIVE_SERVICE_EXTRACT_EXCEPTION, e.getClass().getCanonicalName()),
                                               e,
                                               archiveInfo));
+            return false;
         }
 
-        return false;
+        return extracted == files.size();
+    }
+
+    @Override
+    public void releaseArchive(String archivePath) {
+        archiveCache.release(archivePath);
     }
 
     @Override
     public boolean testArchive(long sessionId, String archivePath) {
-        try (final RandomAccessFile randomAccessFile = new RandomAccessFile(archivePath, "r");
-             final IInArchive archive = SevenZip.openInArchive(null,
-                                                               new RandomAccessFileInStream(randomAccessFile))) {
+        try (final SevenZipArchiveCache.Lease lease = archiveCache.acquire(archivePath)) {
+            final IInArchive archive = lease.getArchive();
 
             LOGGER.info(resolveTextKey(LOG_ARCHIVE_SERVICE_FORMAT, archive.getArchiveFormat()));
             int properties = archive.getNumberOfProperties();
@@ -329,4 +348,27 @@ public class SevenZipArchiveService implements ArchiveReadService {
     public ArchiveServiceProfile getArchiveServiceProfile() {
         return PROFILE;
     }
+
+    private static int findItem(IInArchive archive, String archivePath, FileInfo file) throws SevenZipException {
+        // A compressor archive holds a single item
+        if (archivePath.matches(".*(.gz|.xz|.bz2|.tgz)$")) {
+            return file.getIndex() == 0 ? 0 : -1;
+        }
+        if (file.isFolder()) {
+            return -1;
+        }
+
+        final int items = archive.getNumberOfItems();
+        if (file.getIndex() < items && file.getFileName().equals(archive.getProperty(file.getIndex(), PropID.PATH))) {
+            return file.getIndex();
+        }
+
+        // Resolve the index of the entry by path
+        for (int i = 0; i < items; i++) {
+            if (file.getFileName().equals(archive.getProperty(i, PropID.PATH))) {
+                return i;
+            }
+        }
+        return -1;
+    }
 }
@@ -0,0 +1,157 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.archive.szjb.pub;
+
+import com.ntak.pearlzip.archive.pub.ProgressMessage;
+import net.sf.sevenzipjbinding.*;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.LoggerContext;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Objects;
+
+import static com.ntak.pearlzip.archive.constants.LoggingConstants.LBL_PROGRESS_EXTRACT_ENTRY;
+import static com.ntak.pearlzip.archive.constants.LoggingConstants.PROGRESS_COUNT;
+import static com.ntak.pearlzip.archive.pub.ArchiveService.DEFAULT_BUS;
+import static com.ntak.pearlzip.archive.szjb.constants.SevenZipLoggingConstants.LOG_EXCEPTION_ON_EXTRACTION;
+import static com.ntak.pearlzip.archive.szjb.constants.SevenZipLoggingConstants.LOG_EXTRACTION_RESULT_FAILED;
+import static com.ntak.pearlzip.archive.util.LoggingUtil.resolveTextKey;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ *  Extraction callback used with {@link IInArchive#extract(int[], boolean, IArchiveExtractCallback)}, so that all
+ *  selected items of an archive are decompressed in a single native pass. Each item is streamed into a buffered
+ *  FileChannel at its mapped target location and progress is reported per item.
+ *  @author Aashutos Kakshepati
+ */
+public class SevenZipExtractCallback implements IArchiveExtractCallback, Closeable {
+
+    private static final Logger LOGGER = LoggerContext.getContext().getLogger(SevenZipExtractCallback.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final long sessionId;
+    private final IInArchive archive;
+    private final Map<Integer,Path> targets;
+
+    private OutputStream currentStream;
+    private int currentIndex = -1;
+    private int requestedCount = 0;
+    private int extractedCount = 0;
+
+    public SevenZipExtractCallback(long sessionId, IInArchive archive, Map<Integer,Path> targets) {
+        this.sessionId = sessionId;
+        this.archive = archive;
+        this.targets = targets;
+    }
+
+    @Override
+    public ISequentialOutStream getStream(int index, ExtractAskMode extractAskMode) throws SevenZipException {
+        closeCurrentStream();
+
+        final Path target = targets.get(index);
+        if (extractAskMode != ExtractAskMode.EXTRACT || Objects.isNull(target)) {
+            return null;
+        }
+
+        try {
+            if (Objects.nonNull(target.getParent())) {
+                Files.createDirectories(target.getParent());
+            }
+            currentStream = new BufferedOutputStream(Channels.newOutputStream(FileChannel.open(target, CREATE, WRITE,
+                                                                                               TRUNCATE_EXISTING)),
+                                                     BUFFER_SIZE);
+            currentIndex = index;
+            requestedCount++;
+        } catch (IOException e) {
+            throw new SevenZipException(e);
+        }
+
+        // Extracting zip entry %s...
+        DEFAULT_BUS.post(new ProgressMessage(sessionId, PROGRESS_COUNT,
+                                             resolveTextKey(LBL_PROGRESS_EXTRACT_ENTRY,
+                                                            archive.getProperty(index, PropID.PATH)),
+                                             requestedCount,
+                                             targets.size()));
+
+        return (data) -> {
+            try {
+                currentStream.write(data);
+            } catch (IOException e) {
+                throw new SevenZipException(e);
+            }
+            return data.length;
+        };
+    }
+
+    @Override
+    public void prepareOperation(ExtractAskMode extractAskMode) {
+    }
+
+    @Override
+    public void setOperationResult(ExtractOperationResult extractOperationResult) throws SevenZipException {
+        final int index = currentIndex;
+        closeCurrentStream();
+
+        if (index < 0) {
+            return;
+        }
+
+        if (extractOperationResult == ExtractOperationResult.OK) {
+            extractedCount++;
+        } else {
+            // The partially extracted file is removed, so that no corrupt output is left behind
+            final Path target = targets.get(index);
+            try {
+                Files.deleteIfExists(target);
+            } catch (IOException e) {
+                throw new SevenZipException(e);
+            }
+
+            // %s on extraction of file %s. Message: %s
+            LOGGER.error(resolveTextKey(LOG_EXCEPTION_ON_EXTRACTION, extractOperationResult, target,
+                                        resolveTextKey(LOG_EXTRACTION_RESULT_FAILED,
+                                                       Objects.requireNonNullElse(archive.getProperty(index,
+                                                                                                      PropID.PATH),
+                                                                                  target.getFileName()))));
+        }
+    }
+
+    @Override
+    public void setTotal(long total) {
+    }
+
+    @Override
+    public void setCompleted(long complete) {
+    }
+
+    public int getExtractedCount() {
+        return extractedCount;
+    }
+
+    @Override
+    public void close() throws SevenZipException {
+        closeCurrentStream();
+    }
+
+    private void closeCurrentStream() throws SevenZipException {
+        try {
+            if (Objects.nonNull(currentStream)) {
+                currentStream.close();
+            }
+        } catch (IOException e) {
+            throw new SevenZipException(e);
+        } finally {
+            currentStream = null;
+            currentIndex = -1;
+        }
+    }
+}
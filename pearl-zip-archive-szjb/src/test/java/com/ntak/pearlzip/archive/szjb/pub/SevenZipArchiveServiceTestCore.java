@@ -4,21 +4,30 @@
 package com.ntak.pearlzip.archive.szjb.pub;
 
 import com.ntak.pearlzip.archive.pub.ArchiveReadService;
+import com.ntak.pearlzip.archive.pub.ArchiveService;
 import com.ntak.pearlzip.archive.pub.FileInfo;
+import net.sf.sevenzipjbinding.IInArchive;
 import org.junit.jupiter.api.*;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Optional;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static com.ntak.pearlzip.archive.constants.ConfigurationConstants.CNS_COM_BUS_FACTORY;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public abstract class SevenZipArchiveServiceTestCore {
@@ -78,11 +87,19 @@ public abstract class SevenZipArchiveServiceTestCore {
         + List files in archive (zip, rar, iso, tar, cab, 7z)
         + List file in Compressor single file (gz, xz, bz2)
         + List file returns empty list when opening non-existent archive
+        + List files in batches matches full listing (7z, zip)
         + Extract non-existent file
         + Extract file from archive (zip, rar, iso, tar, cab, 7z, gz, xz, bz2)
         + Extract file throw IOException
+        + Extract all files from archive in a single pass (zip, 7z)
+        + Extract file from archive into a stream (zip, 7z, gz)
+        + Extract corrupt entry fails and removes the partially extracted file
+        + Extract more files than a compressor archive holds fails
         + Test file success (zip, rar, iso, tar, cab, 7z, gz, xz, bz2)
         + Test file failure (broken archive)
+        + Archive handle reused for unchanged archive and least recently used handle evicted
+        + Archive handle reopened on modification of archive and closed on release
+        + Opening an archive does not block access to other archives and is shared by concurrent callers
      */
 
     ///// LIST FILES /////
@@ -161,6 +178,23 @@ public abstract class SevenZipArchiveServiceTestCore {
         Assertions.assertEquals(0, files.size(), "Files were unexpectedly returned");
     }
 
+    @Test
+    @DisplayName("Test: List files in batches for a valid archive will push the same contents as the full listing")
+    public void testListFiles_Batches_MatchesContents() {
+        long sessionId = System.currentTimeMillis();
+        for (String archive : List.of(szFileName, zipFileName)) {
+            List<List<FileInfo>> batches = new ArrayList<>();
+            service.listFiles(sessionId, ArchiveService.generateDefaultArchiveInfo(archive), batches::add);
+            assertTrue(batches.stream().allMatch(b -> !b.isEmpty() && b.size() <= ArchiveReadService.LISTING_BATCH_SIZE),
+                       "Batch size was not as expected");
+
+            List<FileInfo> pushed = batches.stream().flatMap(List::stream).collect(Collectors.toList());
+            assertEquals(pushed.size(), new HashSet<>(pushed).size(), "Duplicate entries were pushed");
+            assertEquals(new HashSet<>(service.listFiles(sessionId, archive)), new HashSet<>(pushed),
+                         "Batched listing did not match the full listing");
+        }
+    }
+
     ///// EXTRACT FILES /////
 
     @Test
@@ -176,6 +210,43 @@ public abstract class SevenZipArchiveServiceTestCore {
         assertFalse(Files.exists(target), "File was not created");
     }
 
+    @Test
+    @DisplayName("Test: Extract a corrupt entry fails and removes the partially extracted file")
+    public void testExtractFiles_CorruptEntry_RemovesTarget() throws IOException {
+        // Invalidate the CRC32 trailer of the gzip stream, so that decompression completes with a CRC error
+        final Path archive = Files.copy(Paths.get(gzFileName), tempDirectory.resolve("corrupt.tar.gz"),
+                                        StandardCopyOption.REPLACE_EXISTING);
+        final byte[] bytes = Files.readAllBytes(archive);
+        bytes[bytes.length - 8] ^= 0xFF;
+        Files.write(archive, bytes);
+
+        long sessionId = System.currentTimeMillis();
+        FileInfo file = service.listFiles(sessionId, archive.toString()).get(0);
+        final Path target = tempDirectory.resolve("corrupt-target.tar");
+        Files.deleteIfExists(target);
+
+        assertFalse(service.extractFile(sessionId, target, archive.toString(), file),
+                    "Corrupt entry was reported as extracted");
+        assertFalse(Files.exists(target), "Partially extracted file was not removed");
+        service.releaseArchive(archive.toString());
+    }
+
+    @Test
+    @DisplayName("Test: Extract more files than a compressor archive holds fails")
+    public void testExtractFiles_CompressorExtraFile_Fail() throws IOException {
+        long sessionId = System.currentTimeMillis();
+        FileInfo file = service.listFiles(sessionId, gzFileName).get(0);
+        FileInfo extraFile = new FileInfo(1, 0, "extra-file", 0, 0, 0, null, null, null, "", "", 0, "", false, false,
+                                          Collections.emptyMap());
+        final Path target = tempDirectory.resolve("compressor-target.tar");
+        final Path extraTarget = tempDirectory.resolve("compressor-extra-target");
+
+        assertFalse(service.extractFiles(sessionId, ArchiveService.generateDefaultArchiveInfo(gzFileName),
+                                         new LinkedHashMap<>(Map.of(file, target, extraFile, extraTarget))),
+                    "File not held by the compressor archive was reported as extracted");
+        assertFalse(Files.exists(extraTarget), "File not held by the compressor archive was created");
+    }
+
     @Test
     @DisplayName("Test: Extract files for a valid 7Zip file successfully")
     public void testExtractFiles_Valid7zipFile_ReturnsContents() throws IOException {
@@ -256,6 +327,36 @@ public abstract class SevenZipArchiveServiceTestCore {
         extractFilesFromArchive(zipFileName, optFI.get());
     }
 
+    @Test
+    @DisplayName("Test: Extract all files for a valid 7Zip file in a single pass successfully")
+    public void testExtractAllFiles_Valid7zipFile_ReturnsContents() throws IOException {
+        extractAllFilesFromArchive(szFileName);
+    }
+
+    @Test
+    @DisplayName("Test: Extract all files for a valid Zip file in a single pass successfully")
+    public void testExtractAllFiles_ValidZipFile_ReturnsContents() throws IOException {
+        extractAllFilesFromArchive(zipFileName);
+    }
+
+    @Test
+    @DisplayName("Test: Extract a file into a stream matches the file extracted to disk")
+    public void testExtractFile_Stream_MatchesContents() throws IOException {
+        long sessionId = System.currentTimeMillis();
+        for (String archive : List.of(szFileName, zipFileName, gzFileName)) {
+            FileInfo file = service.listFiles(sessionId, archive).stream().filter(f->!f.isFolder()).findFirst().get();
+            final Path target = tempDirectory.resolve("stream-target");
+            Files.deleteIfExists(target);
+            assertTrue(service.extractFile(sessionId, target, archive, file), "File was not extracted");
+
+            final ByteArrayOutputStream oStream = new ByteArrayOutputStream();
+            assertTrue(service.extractFile(sessionId, oStream, ArchiveService.generateDefaultArchiveInfo(archive), file),
+                       "File was not extracted into the stream");
+            assertArrayEquals(Files.readAllBytes(target), oStream.toByteArray(),
+                              "Content extracted into the stream was not as expected");
+        }
+    }
+
     ///// TEST FILES /////
 
     @Test
@@ -329,6 +430,111 @@ public abstract class SevenZipArchiveServiceTestCore {
                 "broken.tar.xz").getFile()), "Archive valid unexpectedly");
     }
 
+    ///// ARCHIVE HANDLE CACHE /////
+
+    @Test
+    @DisplayName("Test: Archive handles are reused for unchanged archives and evicted in least recently used order")
+    public void testArchiveCache_UnchangedArchive_ReusesHandle() throws IOException {
+        SevenZipArchiveCache cache = new SevenZipArchiveCache(2);
+        Object handle;
+        try (SevenZipArchiveCache.Lease lease = cache.acquire(szFileName)) {
+            handle = lease.getArchive();
+        }
+        try (SevenZipArchiveCache.Lease lease = cache.acquire(szFileName)) {
+            assertSame(handle, lease.getArchive(), "Archive handle was not reused");
+        }
+
+        try (SevenZipArchiveCache.Lease lease = cache.acquire(zipFileName)) {
+            assertEquals(2, cache.size(), "Unexpected number of cached handles");
+        }
+        try (SevenZipArchiveCache.Lease lease = cache.acquire(rarFileName)) {
+            assertEquals(2, cache.size(), "Cache exceeded its capacity");
+        }
+        try (SevenZipArchiveCache.Lease lease = cache.acquire(szFileName)) {
+            assertNotSame(handle, lease.getArchive(), "Least recently used archive handle was not evicted");
+        }
+
+        cache.releaseAll();
+        assertEquals(0, cache.size(), "Cached handles were not released");
+    }
+
+    @Test
+    @DisplayName("Test: Archive handles are reopened on modification of the archive and closed on release")
+    public void testArchiveCache_ModifiedArchive_ReopensHandle() throws IOException {
+        SevenZipArchiveCache cache = new SevenZipArchiveCache(2);
+        Path archive = Files.copy(Paths.get(szFileName), tempDirectory.resolve("cache-test.7z"));
+
+        Object handle;
+        try (SevenZipArchiveCache.Lease lease = cache.acquire(archive.toString())) {
+            handle = lease.getArchive();
+        }
+        Files.setLastModifiedTime(archive, FileTime.fromMillis(Files.getLastModifiedTime(archive).toMillis() - 60000));
+        try (SevenZipArchiveCache.Lease lease = cache.acquire(archive.toString())) {
+            assertNotSame(handle, lease.getArchive(), "Archive handle was not reopened on modification");
+            assertEquals(1, cache.size(), "Stale archive handle was retained");
+        }
+
+        cache.release(archive.toString());
+        assertEquals(0, cache.size(), "Archive handle was not released");
+    }
+
+    @Test
+    @DisplayName("Test: Opening an archive does not block other archives and is shared by concurrent callers")
+    public void testArchiveCache_ConcurrentOpen_DoesNotBlock() throws Exception {
+        final CountDownLatch opening = new CountDownLatch(1);
+        final CountDownLatch proceed = new CountDownLatch(1);
+        final AtomicInteger opens = new AtomicInteger();
+        final Path slowArchive = Paths.get(szFileName).toAbsolutePath().normalize();
+        final SevenZipArchiveCache cache = new SevenZipArchiveCache(4) {
+            @Override
+            IInArchive openInArchive(RandomAccessFile file) throws IOException {
+                if (file.length() == Files.size(slowArchive)) {
+                    opens.incrementAndGet();
+                    opening.countDown();
+                    try {
+                        proceed.await();
+                    } catch(InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                }
+                return super.openInArchive(file);
+            }
+        };
+        try (SevenZipArchiveCache.Lease lease = cache.acquire(zipFileName)) {
+            assertEquals(1, cache.size(), "Archive handle was not cached");
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final Callable<Object> acquireSlowArchive = () -> {
+                try (SevenZipArchiveCache.Lease lease = cache.acquire(szFileName)) {
+                    return lease.getArchive();
+                }
+            };
+            final Future<Object> first = executor.submit(acquireSlowArchive);
+            assertTrue(opening.await(10, TimeUnit.SECONDS), "Archive was not opened");
+            final Future<Object> second = executor.submit(acquireSlowArchive);
+
+            // Other archives remain accessible while the archive is being opened
+            final Future<Integer> other = executor.submit(() -> {
+                try (SevenZipArchiveCache.Lease lease = cache.acquire(zipFileName)) {
+                    cache.release(rarFileName);
+                    return cache.size();
+                }
+            });
+            assertEquals(1, other.get(10, TimeUnit.SECONDS), "Cached archive was blocked by the archive being opened");
+
+            proceed.countDown();
+            assertSame(first.get(10, TimeUnit.SECONDS), second.get(10, TimeUnit.SECONDS),
+                       "Concurrent callers did not share the archive handle");
+            assertEquals(1, opens.get(), "Archive was opened more than once");
+        } finally {
+            proceed.countDown();
+            executor.shutdownNow();
+            cache.releaseAll();
+        }
+    }
+
     ///// UTILITY METHODS /////
 
     public void extractFilesFromArchive(String archiveFile, FileInfo file) throws IOException {
@@ -340,6 +546,22 @@ public abstract class SevenZipArchiveServiceTestCore {
         assertTrue(Files.exists(target), "File was not created");
     }
 
+    public void extractAllFilesFromArchive(String archiveFile) throws IOException {
+        long sessionId = System.currentTimeMillis();
+        final Path targetDir = Files.createTempDirectory(tempDirectory, "pz");
+        Map<FileInfo,Path> targets = new LinkedHashMap<>();
+        service.listFiles(sessionId, archiveFile)
+               .forEach(f -> targets.put(f, targetDir.resolve(f.getFileName())));
+
+        assertTrue(service.extractFiles(sessionId, ArchiveService.generateDefaultArchiveInfo(archiveFile), targets),
+                   "Files were not extracted successfully");
+        for (Map.Entry<FileInfo,Path> target : targets.entrySet()) {
+            assertTrue(Files.exists(target.getValue()), String.format("File %s was not created", target.getValue()));
+            assertEquals(target.getKey().isFolder(), Files.isDirectory(target.getValue()),
+                         String.format("File %s was not of the expected type", target.getValue()));
+        }
+    }
+
     public void listFilesForArchive(String archiveFile, List<String> expectations) {
         long sessionId = System.currentTimeMillis();
         List<FileInfo> files = service.listFiles(sessionId, archiveFile);
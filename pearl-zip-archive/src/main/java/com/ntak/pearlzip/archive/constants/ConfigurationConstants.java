@@ -17,7 +17,10 @@ public class ConfigurationConstants {
     public static final String CNS_RES_BUNDLE = "configuration.ntak.pearl-zip.resource-bundle";
     public static final String CNS_CUSTOM_RES_BUNDLE = "configuration.ntak.pearl-zip.custom-resource-bundle";
     public static final String CNS_TMP_DIR_PREFIX = "configuration.ntak.tmp-dir-prefix";
+    public static final String CNS_STORE_ROOT = "configuration.ntak.pearl-zip.store.temp";
     public static final String CNS_COM_BUS_FACTORY = "configuration.ntak.com-bus-factory";
+    public static final String CNS_IN_MEMORY_ARCHIVE_THRESHOLD = "configuration.ntak.pearl-zip.in-memory-archive.threshold";
+    public static final String CNS_IN_MEMORY_ARCHIVE_BUDGET = "configuration.ntak.pearl-zip.in-memory-archive.budget";
 
     public static final String CNS_NTAK_PEARL_ZIP_JDBC_URL = "configuration.ntak.pearl-zip.jdbc.url";
     public static final String CNS_NTAK_PEARL_ZIP_JDBC_USER = "configuration.ntak.pearl-zip.jdbc.user";
@@ -64,6 +64,8 @@ public class LoggingConstants {
 
     // QUEUE KEYS
     public static final String PROGRESS = "PROGRESS";
+    // Progress which carries the running count of completed steps, rather than the delta
+    public static final String PROGRESS_COUNT = "PROGRESS_COUNT";
     public static final String COMPLETED = "COMPLETED";
     public static final String ERROR = "ERROR";
     public static ResourceBundle CUSTOM_BUNDLE;
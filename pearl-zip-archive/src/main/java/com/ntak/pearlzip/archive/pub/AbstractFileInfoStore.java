@@ -0,0 +1,170 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.archive.pub;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ *  Base of the compact stores of archive listings. Entries are held in an encoded form and {@link FileInfo} views
+ *  are materialised on each access. Names are split into an interned directory prefix and the remaining leaf name.
+ *  Users, groups, comments and additional information maps are interned in shared on-heap tables, as they are
+ *  repeated across many entries.
+ *  <br/><br/>
+ *  Changes made to a materialised view are not written back to the store. Entries are replaced with
+ *  {@link #set(int, Object)}. Timestamps are held to millisecond precision. Stores are not thread-safe.
+ *  @author Aashutos Kakshepati
+ */
+public abstract class AbstractFileInfoStore extends AbstractList<FileInfo> implements RandomAccess {
+
+    protected static final int NO_VALUE = -1;
+    protected static final long NO_TIME = Long.MIN_VALUE;
+    protected static final byte FLAG_FOLDER = 1;
+    protected static final byte FLAG_ENCRYPTED = 2;
+
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String,Integer> stringIds = new HashMap<>();
+    private final List<Map<String,Object>> infoMaps = new ArrayList<>();
+    private final Map<Map<String,Object>,Integer> infoMapIds = new HashMap<>();
+
+    /**
+     *   Retrieves the name of the entry at the position specified without materialising a view.
+     *
+     *   @param index The position of the entry in the store
+     *   @return String - The file name of the entry
+     */
+    public abstract String getFileName(int index);
+
+    public abstract int getLevel(int index);
+
+    public abstract boolean isFolder(int index);
+
+    /**
+     *   Retrieves the id of the additional information map of the entry at the position specified, without
+     *   materialising a view.
+     *
+     *   @param index The position of the entry in the store
+     *   @return int - The position of the map of the entry in {@link #getInfoMaps()}
+     */
+    public abstract int getInfoMapId(int index);
+
+    /**
+     *   Retrieves the table of distinct additional information maps interned by this store, by id. The maps are
+     *   immutable and the table may hold maps no longer referenced by any entry.
+     *
+     *   @return List&lt;Map&lt;String,Object&gt;&gt; - The interned maps of the store
+     */
+    public List<Map<String,Object>> getInfoMaps() {
+        return Collections.unmodifiableList(infoMaps);
+    }
+
+    /**
+     *   Creates a list of the entries at the positions specified. Elements are materialised from this store on
+     *   access. The list is of fixed size, but its elements can be set, so that it can be sorted in place.
+     *
+     *   @param positions The positions of the entries in the store
+     *   @return List&lt;FileInfo&gt; - The entries at the positions specified
+     */
+    public List<FileInfo> select(int[] positions) {
+        return new Selection(positions);
+    }
+
+    /**
+     *   Releases any spare capacity held by the store.
+     */
+    public void trimToSize() {
+    }
+
+    protected static int separatorOf(String fileName) {
+        return Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf('\\'));
+    }
+
+    protected static byte flagsOf(FileInfo file) {
+        return (byte) ((file.isFolder() ? FLAG_FOLDER : 0) | (file.isEncrypted() ? FLAG_ENCRYPTED : 0));
+    }
+
+    protected static Map<String,Object> infoMapOf(FileInfo file) {
+        return file.peekAdditionalInfoMap();
+    }
+
+    protected int intern(String value) {
+        if (value == null) {
+            return NO_VALUE;
+        }
+
+        return stringIds.computeIfAbsent(value, (k) -> {
+            strings.add(k);
+            return strings.size() - 1;
+        });
+    }
+
+    protected String string(int id) {
+        return id == NO_VALUE ? null : strings.get(id);
+    }
+
+    protected int intern(Map<String,Object> infoMap) {
+        final Integer id = infoMapIds.get(infoMap);
+        if (id != null) {
+            return id;
+        }
+
+        // The map is copied, so that later changes to the supplied map do not affect the interned key. The immutable
+        // copy is shared by the entries materialised from the store, rather than copied again by each of them.
+        final Map<String,Object> copy = Map.copyOf(infoMap);
+        infoMaps.add(copy);
+        infoMapIds.put(copy, infoMaps.size() - 1);
+        return infoMaps.size() - 1;
+    }
+
+    protected Map<String,Object> infoMap(int id) {
+        return infoMaps.get(id);
+    }
+
+    protected static long toMillis(LocalDateTime dateTime) {
+        return dateTime == null ? NO_TIME : dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    protected static LocalDateTime toDateTime(long millis) {
+        return millis == NO_TIME ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    /**
+     *  Fixed-size list of entries of the store, by position. Elements which are set are held by the list, so that
+     *  the list can be sorted without writing to the store.
+     */
+    private class Selection extends AbstractList<FileInfo> implements RandomAccess {
+        private final int[] positions;
+        private FileInfo[] replacements;
+
+        private Selection(int[] positions) {
+            this.positions = positions;
+        }
+
+        @Override
+        public FileInfo get(int index) {
+            Objects.checkIndex(index, positions.length);
+            if (replacements != null && replacements[index] != null) {
+                return replacements[index];
+            }
+            return AbstractFileInfoStore.this.get(positions[index]);
+        }
+
+        @Override
+        public FileInfo set(int index, FileInfo file) {
+            final FileInfo previous = get(index);
+            if (replacements == null) {
+                replacements = new FileInfo[positions.length];
+            }
+            replacements[index] = file;
+            return previous;
+        }
+
+        @Override
+        public int size() {
+            return positions.length;
+        }
+    }
+}
@@ -3,8 +3,19 @@
  */
 package com.ntak.pearlzip.archive.pub;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static com.ntak.pearlzip.archive.constants.ConfigurationConstants.CNS_STORE_ROOT;
+import static com.ntak.pearlzip.archive.constants.ConfigurationConstants.TMP_DIR_PREFIX;
+import static com.ntak.pearlzip.archive.constants.LoggingConstants.*;
+import static com.ntak.pearlzip.archive.util.LoggingUtil.resolveTextKey;
 
 /**
  *  Interface defining functionality associated with the reading of archives.
@@ -12,6 +23,12 @@ import java.util.List;
  */
 public interface ArchiveReadService extends ArchiveService {
     String OPEN_ARCHIVE_OPTIONS = "pearlzip.pane.open-archive-options";
+    /**
+     *  Functionality key of the {@link com.ntak.pearlzip.archive.pub.profile.component.ReadServiceComponent}, which
+     *  declares the service reads archives held in the {@link com.ntak.pearlzip.archive.util.InMemoryArchiveStore}.
+     */
+    String IN_MEMORY_ARCHIVES = "pearlzip.read.in-memory-archives";
+    int LISTING_BATCH_SIZE = 1024;
 
     /**
      *  Extracts metadata from the archive specified and wraps it in an ArchiveInfo object. The default
@@ -46,6 +63,24 @@ public interface ArchiveReadService extends ArchiveService {
      */
     List<FileInfo> listFiles(long sessionId, ArchiveInfo archiveInfo);
 
+    /**
+     *   List contents of archive incrementally. Entries are pushed to the consumer in batches (of up to
+     *   {@link #LISTING_BATCH_SIZE} entries) as the archive is parsed, so the first entries are available before the
+     *   whole archive has been read. Each batch is a separate list and the batches together form the complete listing.
+     *   If the archive cannot be read in full, the batches pushed so far only form a partial listing and false is
+     *   returned. The default implementation lists the whole archive and pushes it as a single batch. As the list
+     *   variant does not report failures, services which can fail part of the way through should override this method.
+     *
+     *   @param sessionId Unique identifier representing the session the ProgressMessage will display messages for
+     *   @param archiveInfo
+     *   @param batchConsumer Receives each batch of normalised files and folders from the archive, in order
+     *   @return boolean - returns true, if the whole archive was listed
+     */
+    default boolean listFiles(long sessionId, ArchiveInfo archiveInfo, Consumer<List<FileInfo>> batchConsumer) {
+        batchConsumer.accept(listFiles(sessionId, archiveInfo));
+        return true;
+    }
+
     /**
      *   Extracts the specified file by the FileInfo object supplied from the archive.
      *
@@ -69,6 +104,85 @@ public interface ArchiveReadService extends ArchiveService {
      */
     boolean extractFile(long sessionId, Path targetLocation, ArchiveInfo archiveInfo, FileInfo file);
 
+    /**
+     *   Extracts the specified file from the archive into the stream provided, which is not closed. The default
+     *   implementation extracts the file to a temporary file in the temp directory of the PearlZip store and copies it
+     *   into the stream, so implementations should override this method where entries can be decompressed straight
+     *   into the stream.
+     *
+     *   @param sessionId Unique identifier representing the session the ProgressMessage will display messages for
+     *   @param targetStream The stream to write the contents of the file to
+     *   @param archiveInfo
+     *   @param file The File metadata from the archive
+     *   @return boolean - returns true, if extraction was successful
+     */
+    default boolean extractFile(long sessionId, OutputStream targetStream, ArchiveInfo archiveInfo, FileInfo file) {
+        Path tempFile = null;
+        try {
+            final Path storeTemp = Paths.get(System.getProperty(CNS_STORE_ROOT,
+                                                                String.format("%s/.pz", System.getProperty("user.home"))))
+                                        .resolve("temp");
+            Files.createDirectories(storeTemp);
+            tempFile = Files.createTempFile(storeTemp, TMP_DIR_PREFIX, ".tmp");
+            if (!extractFile(sessionId, tempFile, archiveInfo, file)) {
+                return false;
+            }
+            Files.copy(tempFile, targetStream);
+            return true;
+        } catch(IOException e) {
+            // LOG: %s on extracting file(s). Message: %s
+            // TITLE: Issue extracting archive
+            // HEADER: The archive %s could not be extracted
+            // BODY: Exception %s was thrown on the attempt to extract from the archive. Further details can be found
+            // below.
+            ROOT_LOGGER.error(resolveTextKey(LOG_ARCHIVE_SERVICE_EXTRACT_EXCEPTION, e.getClass().getCanonicalName(),
+                                             e.getMessage()));
+            DEFAULT_BUS.post(new ErrorMessage(sessionId,
+                                              resolveTextKey(TITLE_ARCHIVE_SERVICE_EXTRACT_EXCEPTION),
+                                              resolveTextKey(HEADER_ARCHIVE_SERVICE_EXTRACT_EXCEPTION, archiveInfo.getArchivePath()),
+                                              resolveTextKey(BODY_ARCHIVE_SERVICE_EXTRACT_EXCEPTION, e.getClass().getCanonicalName()),
+                                              e,
+                                              archiveInfo));
+            return false;
+        } finally {
+            try {
+                if (tempFile != null) {
+                    Files.deleteIfExists(tempFile);
+                }
+            } catch(IOException e) {
+            }
+        }
+    }
+
+    /**
+     *   Extracts the specified files from the archive to their mapped target locations. Implementations should
+     *   extract all the requested entries in a single sequential pass over the archive. The default implementation
+     *   falls back to extracting each file individually.
+     *
+     *   @param sessionId Unique identifier representing the session the ProgressMessage will display messages for
+     *   @param archiveInfo
+     *   @param files The File metadata from the archive mapped to the location each file is to be extracted to
+     *   @return boolean - returns true, if extraction of all files was successful
+     */
+    default boolean extractFiles(long sessionId, ArchiveInfo archiveInfo, Map<FileInfo,Path> files) {
+        boolean success = true;
+        for (Map.Entry<FileInfo,Path> file : files.entrySet()) {
+            success &= extractFile(sessionId, file.getValue(), archiveInfo, file.getKey());
+        }
+
+        return success;
+    }
+
+    /**
+     *   Releases any resources, such as open archive handles, that the service is holding on to for the archive
+     *   specified. Called once the archive is no longer displayed. The default implementation holds no resources
+     *   between calls and so does nothing.
+     *
+     *   @param archivePath
+     */
+    default void releaseArchive(String archivePath) {
+    }
+
     /**
      *   Checks the integrity of the archive. It is assumed that the archive headers are unencrypted. Hence, archive
      *   path would suffice.
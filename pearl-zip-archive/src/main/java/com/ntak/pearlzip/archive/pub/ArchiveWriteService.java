@@ -71,4 +71,92 @@ public interface ArchiveWriteService extends ArchiveService {
      *   @return boolean - returns true if file is successfully deleted
      */
     boolean deleteFile(long sessionId, ArchiveInfo archiveInfo, FileInfo file);
+
+    /**
+     *   Renames the specified entry (and its children, if a folder) within the archive. The entry is moved to another
+     *   folder, if the new name resolves to a different parent.
+     *
+     *   @param sessionId Unique identifier representing the session the ProgressMessage will display messages for
+     *   @param archiveInfo
+     *   @param file FileInfo archive metadata representing the entry to be renamed
+     *   @param newName The full name of the entry within the archive after the rename
+     *   @return boolean - returns true if the entry was renamed successfully. The archive is left untouched, if an entry
+     *   of the new name already exists
+     */
+    default boolean renameFile(long sessionId, ArchiveInfo archiveInfo, FileInfo file, String newName) {
+        return applyChanges(sessionId, archiveInfo, new ChangeSet().rename(file, newName));
+    }
+
+    /**
+     *   Moves the specified entry (and its children, if a folder) into the target folder within the archive, retaining
+     *   its name.
+     *
+     *   @param sessionId Unique identifier representing the session the ProgressMessage will display messages for
+     *   @param archiveInfo
+     *   @param file FileInfo archive metadata representing the entry to be moved
+     *   @param targetFolder The folder within the archive to move the entry to. An empty string is the archive root
+     *   @return boolean - returns true if the entry was moved successfully. The archive is left untouched, if an entry
+     *   of the new name already exists
+     */
+    default boolean moveFile(long sessionId, ArchiveInfo archiveInfo, FileInfo file, String targetFolder) {
+        return renameFile(sessionId, archiveInfo, file, resolveFolderTarget(file, targetFolder));
+    }
+
+    /**
+     *   Duplicates the specified entry (and its children, if a folder) into the target folder within the archive,
+     *   retaining the original entry.
+     *
+     *   @param sessionId Unique identifier representing the session the ProgressMessage will display messages for
+     *   @param archiveInfo
+     *   @param file FileInfo archive metadata representing the entry to be duplicated
+     *   @param targetFolder The folder within the archive to copy the entry to. An empty string is the archive root
+     *   @return boolean - returns true if the entry was duplicated successfully. The archive is left untouched, if an entry
+     *   of the new name already exists
+     */
+    default boolean copyFile(long sessionId, ArchiveInfo archiveInfo, FileInfo file, String targetFolder) {
+        return applyChanges(sessionId, archiveInfo, new ChangeSet().copy(file, resolveFolderTarget(file, targetFolder)));
+    }
+
+    private static String resolveFolderTarget(FileInfo file, String targetFolder) {
+        final String fileName = file.getFileName().replaceAll("/$", "");
+        final String name = fileName.substring(fileName.lastIndexOf('/') + 1);
+        final String folder = targetFolder.replaceAll("/$", "");
+        return folder.isEmpty() ? name : String.format("%s/%s", folder, name);
+    }
+
+    /**
+     *   Applies a set of modifications (add, delete, rename, copy and replace) to the specified archive.
+     *   Implementations should read the existing archive and write the modified archive once, regardless of the
+     *   number of changes, and leave the archive untouched if any change could not be applied. The default
+     *   implementation falls back to the individual add and delete operations and does not support renames or copies.
+     *   A change set holding an unsupported change is rejected before any change is applied. Otherwise, changes are
+     *   applied in order until one fails, so the preceding changes remain applied.
+     *
+     *   @param sessionId Unique identifier representing the session the ProgressMessage will display messages for
+     *   @param archiveInfo
+     *   @param changeSet The modifications to apply to the archive
+     *   @return boolean - returns true if all changes were applied successfully
+     */
+    default boolean applyChanges(long sessionId, ArchiveInfo archiveInfo, ChangeSet changeSet) {
+        if (changeSet.getChanges()
+                     .stream()
+                     .anyMatch(c -> c.getType() == ChangeSet.Type.RENAME || c.getType() == ChangeSet.Type.COPY)) {
+            return false;
+        }
+
+        for (ChangeSet.Change change : changeSet.getChanges()) {
+            boolean success = switch(change.getType()) {
+                case ADD -> addFile(sessionId, archiveInfo, change.getFile());
+                case DELETE -> deleteFile(sessionId, archiveInfo, change.getFile());
+                case REPLACE -> deleteFile(sessionId, archiveInfo, change.getFile())
+                        && addFile(sessionId, archiveInfo, change.getFile());
+                case RENAME, COPY -> false;
+            };
+            if (!success) {
+                return false;
+            }
+        }
+
+        return true;
+    }
 }
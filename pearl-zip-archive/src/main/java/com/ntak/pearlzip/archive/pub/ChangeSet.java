@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.archive.pub;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ *  Ordered collection of modifications to be applied to an archive in a single rewrite. Supported operations are:
+ *  <ul>
+ *      <li>ADD - Adds a new entry from the file referenced by the FileInfo object's file path</li>
+ *      <li>DELETE - Removes an entry (and its children, if a folder) from the archive</li>
+ *      <li>RENAME - Moves an entry (and its children, if a folder) to a new name within the archive</li>
+ *      <li>COPY - Duplicates an entry (and its children, if a folder) under a new name, retaining the original</li>
+ *      <li>REPLACE - Overwrites the content of an existing entry with the file referenced by the FileInfo object's
+ *      file path</li>
+ *  </ul>
+ *  @author Aashutos Kakshepati
+ */
+public class ChangeSet {
+
+    public enum Type {
+        ADD, DELETE, RENAME, REPLACE, COPY
+    }
+
+    private final List<Change> changes = new ArrayList<>();
+
+    public ChangeSet add(FileInfo... files) {
+        for (FileInfo file : files) {
+            changes.add(new Change(Type.ADD, file, file.getFileName()));
+        }
+        return this;
+    }
+
+    public ChangeSet delete(FileInfo file) {
+        changes.add(new Change(Type.DELETE, file, null));
+        return this;
+    }
+
+    public ChangeSet rename(FileInfo file, String newName) {
+        changes.add(new Change(Type.RENAME, file, Objects.requireNonNull(newName)));
+        return this;
+    }
+
+    public ChangeSet copy(FileInfo file, String newName) {
+        changes.add(new Change(Type.COPY, file, Objects.requireNonNull(newName)));
+        return this;
+    }
+
+    public ChangeSet replace(FileInfo file) {
+        changes.add(new Change(Type.REPLACE, file, file.getFileName()));
+        return this;
+    }
+
+    public List<Change> getChanges() {
+        return Collections.unmodifiableList(changes);
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    /**
+     *  A single modification to an archive entry. The target is the name of the entry after the change has been
+     *  applied and is null for deletions.
+     */
+    public static class Change {
+        private final Type type;
+        private final FileInfo file;
+        private final String target;
+
+        public Change(Type type, FileInfo file, String target) {
+            this.type = type;
+            this.file = file;
+            this.target = target;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public FileInfo getFile() {
+            return file;
+        }
+
+        public String getTarget() {
+            return target;
+        }
+
+        /**
+         *   Determines whether an existing archive entry is affected by this change. Folder changes also apply to
+         *   every entry beneath the folder.
+         *
+         *   @param entryName The name of the existing entry in the archive
+         *   @return boolean - true, if the entry is subject to this change
+         */
+        public boolean matches(String entryName) {
+            final String name = stripTrailingSeparator(file.getFileName());
+            final String candidate = stripTrailingSeparator(entryName);
+            return candidate.equals(name) || (file.isFolder() && candidate.startsWith(name + "/"));
+        }
+
+        /**
+         *   Resolves the new name of an existing entry matched by a rename or copy.
+         *
+         *   @param entryName The name of the existing entry in the archive
+         *   @return String - The name of the entry after the rename or copy
+         */
+        public String resolveTarget(String entryName) {
+            return target + entryName.substring(stripTrailingSeparator(file.getFileName()).length());
+        }
+
+        private static String stripTrailingSeparator(String name) {
+            return name.endsWith("/") ? name.substring(0, name.length() - 1) : name;
+        }
+    }
+}
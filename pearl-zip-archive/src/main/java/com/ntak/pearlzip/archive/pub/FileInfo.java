@@ -4,6 +4,7 @@
 package com.ntak.pearlzip.archive.pub;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
@@ -28,7 +29,8 @@ public class FileInfo {
     private String comments;
     private final boolean isFolder;
     private final boolean isEncrypted;
-    private final Map<String,Object> additionalInfoMap;
+    private final Map<String,Object> suppliedInfoMap;
+    private volatile Map<String,Object> additionalInfoMap;
 
     public FileInfo(int index, int level, String fileName, long crcHash, long packedSize, long rawSize, LocalDateTime lastWriteTime, LocalDateTime lastAccessTime, LocalDateTime creationTime, String user, String group, int attributes, String comments, boolean isFolder, boolean isEncrypted, Map<String,Object> additionalInfoMap) {
         assert index >= 0 : "Indices should be a positive integer (including 0)";
@@ -50,7 +52,11 @@ public class FileInfo {
         this.comments = comments;
         this.isFolder = isFolder;
         this.isEncrypted = isEncrypted;
-        this.additionalInfoMap = new ConcurrentHashMap<>(additionalInfoMap);
+        // The supplied map is snapshotted, so that later changes by the caller do not affect the entry. Immutable maps
+        // (e.g. those interned by the listing stores) are shared rather than copied. A mutable map is only created on
+        // first access, as most entries only carry a shared icon reference.
+        this.suppliedInfoMap = Objects.isNull(additionalInfoMap) ? Collections.emptyMap() :
+                Map.copyOf(additionalInfoMap);
     }
 
     public int getIndex() {
@@ -118,7 +124,20 @@ public class FileInfo {
     }
 
     public Map<String,Object> getAdditionalInfoMap() {
-        return additionalInfoMap;
+        Map<String,Object> infoMap = additionalInfoMap;
+        if (infoMap == null) {
+            synchronized(this) {
+                if ((infoMap = additionalInfoMap) == null) {
+                    additionalInfoMap = infoMap = new ConcurrentHashMap<>(suppliedInfoMap);
+                }
+            }
+        }
+        return infoMap;
+    }
+
+    Map<String,Object> peekAdditionalInfoMap() {
+        final Map<String,Object> infoMap = additionalInfoMap;
+        return infoMap == null ? suppliedInfoMap : infoMap;
     }
 
     public void setComments(String comments) {
@@ -145,7 +164,7 @@ public class FileInfo {
                 ", comments='" + comments + '\'' +
                 ", isFolder=" + isFolder +
                 ", isEncrypted=" + isEncrypted +
-                ", additionalInfoMap=" + additionalInfoMap +
+                ", additionalInfoMap=" + getAdditionalInfoMap() +
                 '}';
     }
 
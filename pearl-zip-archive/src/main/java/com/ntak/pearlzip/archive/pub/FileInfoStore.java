@@ -0,0 +1,214 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.archive.pub;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ *  Compact, columnar on-heap store of the entries of an archive listing. Sizes, CRC hashes, levels and flags are
+ *  held in primitive arrays and timestamps as epoch milliseconds. {@link FileInfo} views are materialised on each
+ *  access and are not retained by the store, so a listing costs around a hundred bytes per entry rather than a graph
+ *  of objects.
+ *  @author Aashutos Kakshepati
+ */
+public class FileInfoStore extends AbstractFileInfoStore {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    // Approximate heap cost of the columns of an entry and of a leaf name, excluding its characters
+    private static final int ENTRY_BYTES = 4 * 9 + 8 * 6 + 1;
+    private static final int NAME_BYTES = 40;
+
+    private int size;
+    private long nameChars;
+    private int[] indices = new int[0];
+    private int[] levels = new int[0];
+    private int[] prefixes = new int[0];
+    private String[] names = new String[0];
+    private long[] crcHashes = new long[0];
+    private long[] packedSizes = new long[0];
+    private long[] rawSizes = new long[0];
+    private long[] lastWriteTimes = new long[0];
+    private long[] lastAccessTimes = new long[0];
+    private long[] creationTimes = new long[0];
+    private int[] users = new int[0];
+    private int[] groups = new int[0];
+    private int[] attributes = new int[0];
+    private int[] comments = new int[0];
+    private byte[] flags = new byte[0];
+    private int[] infoMapRefs = new int[0];
+
+    public FileInfoStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public FileInfoStore(int capacity) {
+        resize(Math.max(capacity, 1));
+    }
+
+    public FileInfoStore(Collection<? extends FileInfo> files) {
+        this(files.size());
+        addAll(files);
+    }
+
+    @Override
+    public FileInfo get(int index) {
+        Objects.checkIndex(index, size);
+        return new FileInfo(indices[index],
+                            levels[index],
+                            getFileName(index),
+                            crcHashes[index],
+                            packedSizes[index],
+                            rawSizes[index],
+                            toDateTime(lastWriteTimes[index]),
+                            toDateTime(lastAccessTimes[index]),
+                            toDateTime(creationTimes[index]),
+                            string(users[index]),
+                            string(groups[index]),
+                            attributes[index],
+                            string(comments[index]),
+                            (flags[index] & FLAG_FOLDER) != 0,
+                            (flags[index] & FLAG_ENCRYPTED) != 0,
+                            infoMap(infoMapRefs[index]));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public FileInfo set(int index, FileInfo file) {
+        final FileInfo previous = get(index);
+        nameChars -= names[index].length();
+        write(index, file);
+        return previous;
+    }
+
+    @Override
+    public void add(int index, FileInfo file) {
+        Objects.checkIndex(index, size + 1);
+        if (size == indices.length) {
+            resize(size + Math.max(size >> 1, 1));
+        }
+        shift(index, index + 1, size - index);
+        write(index, file);
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public FileInfo remove(int index) {
+        final FileInfo previous = get(index);
+        removeRange(index, index + 1);
+        return previous;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        for (int i = fromIndex; i < toIndex; i++) {
+            nameChars -= names[i].length();
+        }
+        shift(toIndex, fromIndex, size - toIndex);
+        Arrays.fill(names, size - (toIndex - fromIndex), size, null);
+        size -= toIndex - fromIndex;
+        modCount++;
+    }
+
+    @Override
+    public String getFileName(int index) {
+        Objects.checkIndex(index, size);
+        final String prefix = string(prefixes[index]);
+        return prefix.isEmpty() ? names[index] : prefix.concat(names[index]);
+    }
+
+    @Override
+    public int getLevel(int index) {
+        Objects.checkIndex(index, size);
+        return levels[index];
+    }
+
+    @Override
+    public boolean isFolder(int index) {
+        Objects.checkIndex(index, size);
+        return (flags[index] & FLAG_FOLDER) != 0;
+    }
+
+    @Override
+    public int getInfoMapId(int index) {
+        Objects.checkIndex(index, size);
+        return infoMapRefs[index];
+    }
+
+    /**
+     *   Estimates the heap used by the entries of this store, excluding the shared tables.
+     *
+     *   @return long - The approximate number of bytes used
+     */
+    public long getEstimatedSize() {
+        return (long) indices.length * ENTRY_BYTES + (long) size * NAME_BYTES + nameChars * 2;
+    }
+
+    @Override
+    public void trimToSize() {
+        if (size < indices.length) {
+            resize(Math.max(size, 1));
+        }
+    }
+
+    private void write(int index, FileInfo file) {
+        final String fileName = file.getFileName();
+        final int separator = separatorOf(fileName);
+
+        indices[index] = file.getIndex();
+        levels[index] = file.getLevel();
+        prefixes[index] = intern(fileName.substring(0, separator + 1));
+        names[index] = separator < 0 ? fileName : fileName.substring(separator + 1);
+        nameChars += names[index].length();
+        crcHashes[index] = file.getCrcHash();
+        packedSizes[index] = file.getPackedSize();
+        rawSizes[index] = file.getRawSize();
+        lastWriteTimes[index] = toMillis(file.getLastWriteTime());
+        lastAccessTimes[index] = toMillis(file.getLastAccessTime());
+        creationTimes[index] = toMillis(file.getCreationTime());
+        users[index] = intern(file.getUser());
+        groups[index] = intern(file.getGroup());
+        attributes[index] = file.getAttributes();
+        comments[index] = intern(file.getComments());
+        flags[index] = flagsOf(file);
+        infoMapRefs[index] = intern(infoMapOf(file));
+    }
+
+    private void shift(int from, int to, int length) {
+        if (length <= 0) {
+            return;
+        }
+
+        for (Object column : new Object[]{indices, levels, prefixes, names, crcHashes, packedSizes, rawSizes,
+                                          lastWriteTimes, lastAccessTimes, creationTimes, users, groups, attributes,
+                                          comments, flags, infoMapRefs}) {
+            System.arraycopy(column, from, column, to, length);
+        }
+    }
+
+    private void resize(int capacity) {
+        indices = Arrays.copyOf(indices, capacity);
+        levels = Arrays.copyOf(levels, capacity);
+        prefixes = Arrays.copyOf(prefixes, capacity);
+        names = Arrays.copyOf(names, capacity);
+        crcHashes = Arrays.copyOf(crcHashes, capacity);
+        packedSizes = Arrays.copyOf(packedSizes, capacity);
+        rawSizes = Arrays.copyOf(rawSizes, capacity);
+        lastWriteTimes = Arrays.copyOf(lastWriteTimes, capacity);
+        lastAccessTimes = Arrays.copyOf(lastAccessTimes, capacity);
+        creationTimes = Arrays.copyOf(creationTimes, capacity);
+        users = Arrays.copyOf(users, capacity);
+        groups = Arrays.copyOf(groups, capacity);
+        attributes = Arrays.copyOf(attributes, capacity);
+        comments = Arrays.copyOf(comments, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        infoMapRefs = Arrays.copyOf(infoMapRefs, capacity);
+    }
+}
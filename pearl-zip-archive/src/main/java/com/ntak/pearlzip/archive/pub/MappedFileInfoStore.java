@@ -0,0 +1,329 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.archive.pub;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ *  Store of the entries of an archive listing, which is held in memory-mapped temporary files rather than on the
+ *  heap. Each entry is encoded as a fixed-size record in an index file and its leaf name is appended to a data file
+ *  as UTF-8. The operating system pages the records in and out as required, so the heap used by a listing is
+ *  independent of the number of entries, aside from the interned directory prefixes and a small cache of decoded
+ *  names, which keeps browsing and sorting of a directory from decoding the same names repeatedly.
+ *  <br/><br/>
+ *  The temporary files are deleted when the store is closed (or, on platforms which allow it, as soon as they are
+ *  opened). Views already materialised remain valid.
+ *  @author Aashutos Kakshepati
+ */
+public class MappedFileInfoStore extends AbstractFileInfoStore implements Closeable {
+
+    private static final int RECORD_SIZE = 96;
+    private static final int INDEX = 0;
+    private static final int LEVEL = 4;
+    private static final int PREFIX = 8;
+    private static final int NAME_LENGTH = 12;
+    private static final int NAME_OFFSET = 16;
+    private static final int CRC = 24;
+    private static final int PACKED_SIZE = 32;
+    private static final int RAW_SIZE = 40;
+    private static final int LAST_WRITE_TIME = 48;
+    private static final int LAST_ACCESS_TIME = 56;
+    private static final int CREATION_TIME = 64;
+    private static final int USER = 72;
+    private static final int GROUP = 76;
+    private static final int ATTRIBUTES = 80;
+    private static final int COMMENTS = 84;
+    private static final int INFO_MAP = 88;
+    private static final int FLAGS = 92;
+
+    // Records never span regions of the index file
+    private static final int RECORDS_PER_REGION = 1 << 15;
+    private static final int DATA_REGION_SIZE = 1 << 22;
+    private static final int PAGE_SHIFT = 8;
+    private static final int CACHED_PAGES = 64;
+
+    private final Path indexPath;
+    private final Path dataPath;
+    private final Regions records;
+    private final Regions data;
+    private final Map<Integer,String[]> pageCache = new LinkedHashMap<>(CACHED_PAGES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer,String[]> eldest) {
+            return size() > CACHED_PAGES;
+        }
+    };
+
+    private int size;
+    private long dataLength;
+
+    /**
+     *   Creates an empty store, backed by new temporary files in the directory specified.
+     *
+     *   @param directory The directory in which the temporary files are created
+     *   @throws IOException if the temporary files could not be created
+     */
+    public MappedFileInfoStore(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        indexPath = Files.createTempFile(directory, "listing", ".idx");
+        dataPath = Files.createTempFile(directory, "listing", ".dat");
+        records = new Regions(indexPath, (long) RECORD_SIZE * RECORDS_PER_REGION);
+        data = new Regions(dataPath, DATA_REGION_SIZE);
+    }
+
+    public MappedFileInfoStore(Path directory, Collection<? extends FileInfo> files) throws IOException {
+        this(directory);
+        addAll(files);
+    }
+
+    @Override
+    public FileInfo get(int index) {
+        Objects.checkIndex(index, size);
+        final ByteBuffer record = records.region(offsetOf(index));
+        final int offset = (int) (offsetOf(index) % records.regionSize);
+        final byte flags = record.get(offset + FLAGS);
+        return new FileInfo(record.getInt(offset + INDEX),
+                            record.getInt(offset + LEVEL),
+                            getFileName(index),
+                            record.getLong(offset + CRC),
+                            record.getLong(offset + PACKED_SIZE),
+                            record.getLong(offset + RAW_SIZE),
+                            toDateTime(record.getLong(offset + LAST_WRITE_TIME)),
+                            toDateTime(record.getLong(offset + LAST_ACCESS_TIME)),
+                            toDateTime(record.getLong(offset + CREATION_TIME)),
+                            string(record.getInt(offset + USER)),
+                            string(record.getInt(offset + GROUP)),
+                            record.getInt(offset + ATTRIBUTES),
+                            string(record.getInt(offset + COMMENTS)),
+                            (flags & FLAG_FOLDER) != 0,
+                            (flags & FLAG_ENCRYPTED) != 0,
+                            infoMap(record.getInt(offset + INFO_MAP)));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public FileInfo set(int index, FileInfo file) {
+        final FileInfo previous = get(index);
+        // The previous name is left in the data file, as names are only ever appended
+        write(index, file);
+        pageCache.remove(index >> PAGE_SHIFT);
+        return previous;
+    }
+
+    @Override
+    public void add(int index, FileInfo file) {
+        Objects.checkIndex(index, size + 1);
+        if (index < size) {
+            records.move(offsetOf(index), offsetOf(index + 1), (long) (size - index) * RECORD_SIZE);
+            pageCache.clear();
+        } else {
+            pageCache.remove(index >> PAGE_SHIFT);
+        }
+        write(index, file);
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public FileInfo remove(int index) {
+        final FileInfo previous = get(index);
+        removeRange(index, index + 1);
+        return previous;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        records.move(offsetOf(toIndex), offsetOf(fromIndex), (long) (size - toIndex) * RECORD_SIZE);
+        size -= toIndex - fromIndex;
+        pageCache.clear();
+        modCount++;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        dataLength = 0;
+        pageCache.clear();
+        modCount++;
+    }
+
+    @Override
+    public String getFileName(int index) {
+        Objects.checkIndex(index, size);
+        final int page = index >> PAGE_SHIFT;
+        String[] names = pageCache.get(page);
+        if (names == null) {
+            names = new String[Math.min(1 << PAGE_SHIFT, size - (page << PAGE_SHIFT))];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = readFileName((page << PAGE_SHIFT) + i);
+            }
+            pageCache.put(page, names);
+        }
+        return names[index - (page << PAGE_SHIFT)];
+    }
+
+    @Override
+    public int getLevel(int index) {
+        Objects.checkIndex(index, size);
+        return records.region(offsetOf(index)).getInt((int) (offsetOf(index) % records.regionSize) + LEVEL);
+    }
+
+    @Override
+    public boolean isFolder(int index) {
+        Objects.checkIndex(index, size);
+        return (records.region(offsetOf(index)).get((int) (offsetOf(index) % records.regionSize) + FLAGS)
+                & FLAG_FOLDER) != 0;
+    }
+
+    @Override
+    public int getInfoMapId(int index) {
+        Objects.checkIndex(index, size);
+        return records.region(offsetOf(index)).getInt((int) (offsetOf(index) % records.regionSize) + INFO_MAP);
+    }
+
+    /**
+     *   Retrieves the temporary files backing this store.
+     *
+     *   @return List&lt;Path&gt; - The index and data files of the store
+     */
+    public List<Path> getPaths() {
+        return List.of(indexPath, dataPath);
+    }
+
+    /**
+     *   Closes the temporary files of this store, which are then deleted. Mapped regions stay readable until they
+     *   are reclaimed, but the store should not be modified after it has been closed.
+     */
+    @Override
+    public void close() throws IOException {
+        pageCache.clear();
+        try {
+            records.close();
+        } finally {
+            data.close();
+        }
+    }
+
+    private String readFileName(int index) {
+        final ByteBuffer record = records.region(offsetOf(index));
+        final int offset = (int) (offsetOf(index) % records.regionSize);
+        final byte[] name = new byte[record.getInt(offset + NAME_LENGTH)];
+        data.get(record.getLong(offset + NAME_OFFSET), name);
+
+        final String prefix = string(record.getInt(offset + PREFIX));
+        final String leaf = new String(name, StandardCharsets.UTF_8);
+        return prefix.isEmpty() ? leaf : prefix.concat(leaf);
+    }
+
+    private void write(int index, FileInfo file) {
+        final String fileName = file.getFileName();
+        final int separator = separatorOf(fileName);
+        final byte[] name = fileName.substring(separator + 1).getBytes(StandardCharsets.UTF_8);
+        data.put(dataLength, name);
+
+        final ByteBuffer record = records.region(offsetOf(index));
+        final int offset = (int) (offsetOf(index) % records.regionSize);
+        record.putInt(offset + INDEX, file.getIndex())
+              .putInt(offset + LEVEL, file.getLevel())
+              .putInt(offset + PREFIX, intern(fileName.substring(0, separator + 1)))
+              .putInt(offset + NAME_LENGTH, name.length)
+              .putLong(offset + NAME_OFFSET, dataLength)
+              .putLong(offset + CRC, file.getCrcHash())
+              .putLong(offset + PACKED_SIZE, file.getPackedSize())
+              .putLong(offset + RAW_SIZE, file.getRawSize())
+              .putLong(offset + LAST_WRITE_TIME, toMillis(file.getLastWriteTime()))
+              .putLong(offset + LAST_ACCESS_TIME, toMillis(file.getLastAccessTime()))
+              .putLong(offset + CREATION_TIME, toMillis(file.getCreationTime()))
+              .putInt(offset + USER, intern(file.getUser()))
+              .putInt(offset + GROUP, intern(file.getGroup()))
+              .putInt(offset + ATTRIBUTES, file.getAttributes())
+              .putInt(offset + COMMENTS, intern(file.getComments()))
+              .putInt(offset + INFO_MAP, intern(infoMapOf(file)))
+              .put(offset + FLAGS, flagsOf(file));
+        dataLength += name.length;
+    }
+
+    private static long offsetOf(int index) {
+        return (long) index * RECORD_SIZE;
+    }
+
+    /**
+     *  Temporary file mapped into memory in regions of a fixed size. Regions are mapped on first access, which
+     *  extends the file as required.
+     */
+    private static class Regions implements Closeable {
+        private final FileChannel channel;
+        private final long regionSize;
+        private final List<MappedByteBuffer> regions = new ArrayList<>();
+
+        private Regions(Path path, long regionSize) throws IOException {
+            this.channel = FileChannel.open(path, READ, WRITE, DELETE_ON_CLOSE);
+            this.regionSize = regionSize;
+        }
+
+        private MappedByteBuffer region(long position) {
+            final int region = (int) (position / regionSize);
+            try {
+                while (regions.size() <= region) {
+                    regions.add(channel.map(FileChannel.MapMode.READ_WRITE, regions.size() * regionSize,
+                                            regionSize));
+                }
+            } catch(IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return regions.get(region);
+        }
+
+        private void get(long position, byte[] bytes) {
+            int done = 0;
+            while (done < bytes.length) {
+                final int offset = (int) ((position + done) % regionSize);
+                final int length = (int) Math.min(bytes.length - done, regionSize - offset);
+                region(position + done).get(offset, bytes, done, length);
+                done += length;
+            }
+        }
+
+        private void put(long position, byte[] bytes) {
+            int done = 0;
+            while (done < bytes.length) {
+                final int offset = (int) ((position + done) % regionSize);
+                final int length = (int) Math.min(bytes.length - done, regionSize - offset);
+                region(position + done).put(offset, bytes, done, length);
+                done += length;
+            }
+        }
+
+        private void move(long from, long to, long length) {
+            final byte[] buffer = new byte[(int) Math.min(length, 1 << 16)];
+            // Chunks are copied from the end when moving forwards, so that the source is not overwritten
+            for (long done = 0; done < length; ) {
+                final byte[] bytes = length - done < buffer.length ? new byte[(int) (length - done)] : buffer;
+                final long start = to > from ? length - done - bytes.length : done;
+                get(from + start, bytes);
+                put(to + start, bytes);
+                done += bytes.length;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
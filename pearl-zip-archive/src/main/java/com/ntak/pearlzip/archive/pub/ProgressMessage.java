@@ -9,7 +9,8 @@ import java.util.Objects;
  *  Event Bus message java record representing progress of a specific zip archive function (uniquely defined by
  *  sessionId). The value is the delta to be added/subtracted from current accumulation of progress. Setting to a
  *  negative number will return an indeterminate state inline with JavaFX Progress Bar. Message will be displayed on
- *  the progress bar UI. Currently, type can be accepted as either PROGRESS or COMPLETE.
+ *  the progress bar UI. Currently, type can be accepted as either PROGRESS, PROGRESS_COUNT or COMPLETE. For
+ *  PROGRESS_COUNT, the value is instead the running count of completed steps, which sets the progress outright.
  *  @author Aashutos Kakshepati
  */
 public class ProgressMessage {
@@ -0,0 +1,109 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.archive.util;
+
+import com.ntak.pearlzip.archive.constants.ConfigurationConstants;
+import com.ntak.pearlzip.archive.pub.FileInfo;
+
+import java.util.*;
+
+import static com.ntak.pearlzip.archive.constants.ConfigurationConstants.CNS_NTAK_PEARL_ZIP_ICON_FOLDER;
+
+/**
+ *  Synthesises the folders of an archive listing, which are implied by the names of its entries but have no entry
+ *  of their own (e.g. file path only archives). Entry names are registered as they are read and the ancestors of
+ *  each name are recorded in a hash set. The walk up the ancestors of a name stops at the first ancestor already
+ *  recorded, as all of its own ancestors must have been recorded with it. Hence, the synthesis takes time
+ *  proportional to the total number of path components in the archive.
+ *  @author Aashutos Kakshepati
+ */
+public class DirectorySynthesiser {
+
+    private final char separator;
+    private final Set<String> names = new HashSet<>();
+    private final Set<String> ancestors = new LinkedHashSet<>();
+
+    /**
+     *   @param separator The separator of path components in the names of entries
+     */
+    public DirectorySynthesiser(char separator) {
+        this.separator = separator;
+    }
+
+    /**
+     *   Registers the name of an entry of the archive. Folder names should be supplied without a trailing separator.
+     *
+     *   @param name The name of the entry
+     *   @return boolean - true, if the name has not been registered before
+     */
+    public boolean add(String name) {
+        if (!names.add(name)) {
+            return false;
+        }
+
+        int end = name.lastIndexOf(separator);
+        while (end > 0 && ancestors.add(name.substring(0, end))) {
+            end = name.lastIndexOf(separator, end - 1);
+        }
+        return true;
+    }
+
+    /**
+     *   Retrieves the folders implied by the names registered, which have not been registered themselves, in the
+     *   order in which they were first implied.
+     *
+     *   @return List&lt;String&gt; - The names of the implicit folders
+     */
+    public List<String> getImplicitFolders() {
+        final List<String> folders = new ArrayList<>(ancestors.size());
+        for (String ancestor : ancestors) {
+            if (!names.contains(ancestor)) {
+                folders.add(ancestor);
+            }
+        }
+        return folders;
+    }
+
+    /**
+     *   Creates folder entries for the implicit folders of the archive. Indices are assigned consecutively in the
+     *   order the folders were first implied, so that the same archive is always synthesised identically.
+     *
+     *   @param firstIndex The index of the first folder synthesised
+     *   @return List&lt;FileInfo&gt; - The implicit folders of the archive
+     */
+    public List<FileInfo> synthesise(int firstIndex) {
+        final List<FileInfo> folders = new ArrayList<>();
+        final Map<String,Object> infoMap = Collections.singletonMap(ConfigurationConstants.KEY_ICON_REF,
+                                                                    System.getProperty(CNS_NTAK_PEARL_ZIP_ICON_FOLDER,
+                                                                                       ""));
+        int index = firstIndex;
+        for (String name : getImplicitFolders()) {
+            folders.add(new FileInfo(index++,
+                                     getLevel(name),
+                                     name,
+                                     0,
+                                     0,
+                                     0,
+                                     null,
+                                     null,
+                                     null,
+                                     null,
+                                     null,
+                                     0,
+                                     null,
+                                     true,
+                                     false,
+                                     infoMap));
+        }
+        return folders;
+    }
+
+    private int getLevel(String name) {
+        int level = 0;
+        for (int i = name.indexOf(separator); i >= 0; i = name.indexOf(separator, i + 1)) {
+            level++;
+        }
+        return level;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.archive.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.ntak.pearlzip.archive.constants.ConfigurationConstants.CNS_IN_MEMORY_ARCHIVE_BUDGET;
+import static com.ntak.pearlzip.archive.constants.ConfigurationConstants.CNS_IN_MEMORY_ARCHIVE_THRESHOLD;
+
+/**
+ *  Holds the contents of small archives on the heap, in place of a file at the path they are registered with (e.g.
+ *  nested archives, which would otherwise be extracted to temporary storage). Archive services, which declare the
+ *  {@link com.ntak.pearlzip.archive.pub.ArchiveReadService#IN_MEMORY_ARCHIVES} functionality, read a registered
+ *  archive from memory rather than from disk. An archive is spilled to its path, before it is modified.
+ *  <br/><br/>
+ *  Archives up to the size threshold (configuration.ntak.pearl-zip.in-memory-archive.threshold, default 16MB) are
+ *  held, whilst the total size of the archives held is within the budget
+ *  (configuration.ntak.pearl-zip.in-memory-archive.budget, default 128MB).
+ *  @author Aashutos Kakshepati
+ */
+public class InMemoryArchiveStore {
+
+    public static final long DEFAULT_THRESHOLD = 16 * 1024 * 1024;
+    public static final long DEFAULT_BUDGET = 128 * 1024 * 1024;
+
+    private static final Map<Path,byte[]> ARCHIVES = new ConcurrentHashMap<>();
+    private static long usage;
+
+    /**
+     *   Checks whether an archive of the size specified would be held in memory, given the archives already held.
+     *
+     *   @param size The size of the archive in bytes
+     *   @return boolean - true, if the archive is within the threshold and the remaining budget
+     */
+    public static synchronized boolean isEligible(long size) {
+        return size >= 0 && size <= getThreshold() && usage + size <= getBudget();
+    }
+
+    /**
+     *   Holds the contents of the archive in memory under the path specified, if eligible.
+     *
+     *   @param archive The path the archive is registered with
+     *   @param contents The contents of the archive
+     *   @return boolean - true, if the archive is held in memory
+     */
+    public static synchronized boolean put(Path archive, byte[] contents) {
+        final Path key = getKey(archive);
+        final byte[] previous = ARCHIVES.remove(key);
+        if (Objects.nonNull(previous)) {
+            usage -= previous.length;
+        }
+        if (!isEligible(contents.length)) {
+            return false;
+        }
+
+        ARCHIVES.put(key, contents);
+        usage += contents.length;
+        return true;
+    }
+
+    /**
+     *   Retrieves the contents of the archive, if held in memory. The array returned should not be modified.
+     *
+     *   @param archive The path the archive is registered with
+     *   @return Optional&lt;byte[]&gt; - The contents of the archive or empty, if not held in memory
+     */
+    public static Optional<byte[]> get(Path archive) {
+        return Optional.ofNullable(ARCHIVES.get(getKey(archive)));
+    }
+
+    public static boolean contains(Path archive) {
+        return ARCHIVES.containsKey(getKey(archive));
+    }
+
+    /**
+     *   Writes the contents of the archive to its path and releases it from memory, so that it can be modified in
+     *   place. Archives not held in memory are left as they are.
+     *
+     *   @param archive The path the archive is registered with
+     *   @return boolean - true, if the archive was spilled to disk
+     *   @throws IOException if the archive could not be written. The archive is retained in memory.
+     */
+    public static synchronized boolean spill(Path archive) throws IOException {
+        final Path key = getKey(archive);
+        final byte[] contents = ARCHIVES.get(key);
+        if (Objects.isNull(contents)) {
+            return false;
+        }
+
+        // Staged first, so a partially written archive never appears at the path
+        try(StagedArchive stagedArchive = StagedArchive.stage(key)) {
+            Files.write(stagedArchive.getPath(), contents);
+            stagedArchive.commit();
+        }
+
+        remove(key);
+        return true;
+    }
+
+    /**
+     *   Writes the archive to the target specified, whether it is held in memory or on disk.
+     *
+     *   @param archive The path the archive is registered with
+     *   @param target The location to write a copy of the archive to
+     *   @throws IOException if the archive could not be copied
+     */
+    public static void copy(Path archive, Path target) throws IOException {
+        final Optional<byte[]> contents = get(archive);
+        if (contents.isPresent()) {
+            Files.write(target, contents.get());
+        } else {
+            Files.copy(archive, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public static synchronized void remove(Path archive) {
+        final byte[] contents = ARCHIVES.remove(getKey(archive));
+        if (Objects.nonNull(contents)) {
+            usage -= contents.length;
+        }
+    }
+
+    public static synchronized long getUsage() {
+        return usage;
+    }
+
+    private static Path getKey(Path archive) {
+        return archive.toAbsolutePath().normalize();
+    }
+
+    private static long getThreshold() {
+        return Long.parseLong(System.getProperty(CNS_IN_MEMORY_ARCHIVE_THRESHOLD, String.valueOf(DEFAULT_THRESHOLD)));
+    }
+
+    private static long getBudget() {
+        return Long.parseLong(System.getProperty(CNS_IN_MEMORY_ARCHIVE_BUDGET, String.valueOf(DEFAULT_BUDGET)));
+    }
+}
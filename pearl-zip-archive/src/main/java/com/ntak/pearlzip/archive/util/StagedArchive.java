@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.archive.util;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ *  Commit protocol for rewriting an archive. The new archive is written to a staging file alongside the target
+ *  (&lt;archive&gt;.pzstage), so that it resides on the same file system. On commit, the staging file is flushed to
+ *  the storage device and renamed over the target in a single atomic step. The original archive remains in place as
+ *  the backup until the rename succeeds, so an interrupted or failed rewrite leaves it untouched and no further copy
+ *  of the archive is required.
+ *  <br/><br/>
+ *  Closing an uncommitted staged archive discards the staging file.
+ *  @author Aashutos Kakshepati
+ */
+public class StagedArchive implements AutoCloseable {
+
+    private final Path target;
+    private final Path stagingFile;
+    private boolean committed;
+
+    private StagedArchive(Path target) {
+        this.target = target;
+        this.stagingFile = getStagingPath(target);
+    }
+
+    /**
+     *   Prepares a staging file for the rewrite of the target archive. Any staging file left behind by an earlier,
+     *   interrupted rewrite is discarded.
+     *
+     *   @param target The archive to be rewritten or created
+     *   @return StagedArchive - The staged archive, the new content should be written to
+     *   @throws IOException if the staging file could not be prepared
+     */
+    public static StagedArchive stage(Path target) throws IOException {
+        final StagedArchive stagedArchive = new StagedArchive(target.toAbsolutePath());
+        Files.createDirectories(stagedArchive.target.getParent());
+        Files.deleteIfExists(stagedArchive.stagingFile);
+        return stagedArchive;
+    }
+
+    public static Path getStagingPath(Path target) {
+        return target.resolveSibling(String.format("%s.pzstage", target.getFileName()));
+    }
+
+    public Path getPath() {
+        return stagingFile;
+    }
+
+    /**
+     *   Flushes the staging file to the storage device and atomically renames it over the target archive. Where the
+     *   file system does not support atomic moves, the staging file replaces the target with a plain rename.
+     *
+     *   @throws IOException if the staged archive could not be committed. The target archive is left untouched.
+     */
+    public void commit() throws IOException {
+        try(FileChannel channel = FileChannel.open(stagingFile, WRITE)) {
+            channel.force(true);
+        }
+
+        try {
+            Files.move(stagingFile, target, ATOMIC_MOVE, REPLACE_EXISTING);
+        } catch(AtomicMoveNotSupportedException e) {
+            Files.move(stagingFile, target, REPLACE_EXISTING);
+        }
+        committed = true;
+
+        // Persists the rename itself. Not all platforms permit directories to be opened, so this is best effort.
+        try(FileChannel directory = FileChannel.open(target.getParent(), READ)) {
+            directory.force(true);
+        } catch(IOException e) {
+        }
+    }
+
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!committed) {
+            Files.deleteIfExists(stagingFile);
+        }
+    }
+}
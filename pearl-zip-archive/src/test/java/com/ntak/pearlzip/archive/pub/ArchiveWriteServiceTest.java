@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.archive.pub;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.ntak.pearlzip.archive.constants.ConfigurationConstants.CNS_COM_BUS_FACTORY;
+
+public class ArchiveWriteServiceTest {
+
+    private final List<String> operations = new ArrayList<>();
+    private ArchiveWriteService service;
+    private ArchiveInfo archiveInfo;
+
+    /*
+        Test cases:
+        + Default apply changes falls back to the individual add and delete operations in order
+        + Default apply changes rejects a change set holding a rename or copy before applying any change
+        + Default apply changes stops at the first change which fails
+     */
+
+    @BeforeAll
+    public static void setUpOnce() {
+        System.setProperty(CNS_COM_BUS_FACTORY, NoOpCommunicationBusFactory.class.getName());
+    }
+
+    @BeforeEach
+    public void setUp() {
+        operations.clear();
+        archiveInfo = new ArchiveInfo();
+        archiveInfo.setArchivePath("test.zip");
+        service = new ArchiveWriteService() {
+            @Override
+            public void createArchive(long sessionId, String archivePath, FileInfo... files) {
+            }
+
+            @Override
+            public void createArchive(long sessionId, ArchiveInfo archiveInfo, FileInfo... files) {
+            }
+
+            @Override
+            public boolean addFile(long sessionId, String archivePath, FileInfo... files) {
+                return false;
+            }
+
+            @Override
+            public boolean addFile(long sessionId, ArchiveInfo archiveInfo, FileInfo... files) {
+                operations.add("add " + files[0].getFileName());
+                return !files[0].getFileName().startsWith("fail");
+            }
+
+            @Override
+            public boolean deleteFile(long sessionId, String archivePath, FileInfo file) {
+                return false;
+            }
+
+            @Override
+            public boolean deleteFile(long sessionId, ArchiveInfo archiveInfo, FileInfo file) {
+                operations.add("delete " + file.getFileName());
+                return true;
+            }
+
+            @Override
+            public ArchiveServiceProfile getArchiveServiceProfile() {
+                return new ArchiveServiceProfile("test-provider");
+            }
+        };
+    }
+
+    @Test
+    @DisplayName("Test: Default apply changes falls back to the individual add and delete operations in order")
+    public void testApplyChanges_SupportedChanges_Success() {
+        Assertions.assertTrue(service.applyChanges(1, archiveInfo, new ChangeSet().add(generateFileInfo("a.txt"))
+                                                                                  .delete(generateFileInfo("b.txt"))
+                                                                                  .replace(generateFileInfo("c.txt"))),
+                              "Changes were not applied");
+        Assertions.assertEquals(List.of("add a.txt", "delete b.txt", "delete c.txt", "add c.txt"), operations,
+                                "Operations were not as expected");
+    }
+
+    @Test
+    @DisplayName("Test: Default apply changes rejects unsupported changes before applying any change")
+    public void testApplyChanges_UnsupportedChange_Untouched() {
+        Assertions.assertFalse(service.applyChanges(1, archiveInfo, new ChangeSet().add(generateFileInfo("a.txt"))
+                                                                                   .delete(generateFileInfo("b.txt"))
+                                                                                   .rename(generateFileInfo("c.txt"),
+                                                                                           "d.txt")),
+                               "Unsupported rename was unexpectedly applied");
+        Assertions.assertFalse(service.copyFile(1, archiveInfo, generateFileInfo("c.txt"), "folder"),
+                               "Unsupported copy was unexpectedly applied");
+        Assertions.assertTrue(operations.isEmpty(), "Changes were applied before the unsupported change");
+    }
+
+    @Test
+    @DisplayName("Test: Default apply changes stops at the first change which fails")
+    public void testApplyChanges_FailedChange_Stops() {
+        Assertions.assertFalse(service.applyChanges(1, archiveInfo, new ChangeSet().add(generateFileInfo("fail.txt"))
+                                                                                   .delete(generateFileInfo("b.txt"))),
+                               "Failed change was reported as applied");
+        Assertions.assertEquals(List.of("add fail.txt"), operations, "Changes after the failure were applied");
+    }
+
+    private static FileInfo generateFileInfo(String name) {
+        return new FileInfo(0, 0, name, 0, 0, 0, null, null, null, "", "", 0, "", false, false,
+                            Collections.emptyMap());
+    }
+
+    public static class NoOpCommunicationBusFactory implements CommunicationBusFactory {
+        @Override
+        public CommunicationBus initializeCommunicationBus() {
+            return new CommunicationBus() {
+                @Override
+                public void post(Object message) {
+                }
+
+                @Override
+                public void register(Object subscriber) {
+                }
+
+                @Override
+                public void unregister(Object subscriber) {
+                }
+
+                @Override
+                public Object implementation() {
+                    return null;
+                }
+            };
+        }
+    }
+}
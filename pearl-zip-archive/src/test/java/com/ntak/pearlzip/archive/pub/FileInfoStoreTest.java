@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.archive.pub;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class FileInfoStoreTest {
+
+    /*
+        Test cases:
+        + Entries materialised from the store match the entries added, including null fields
+        + Entries can be inserted, replaced and removed
+        + Selection of entries by position can be sorted without modifying the store
+        + Additional info map of a materialised entry can be modified without modifying the store
+        + Additional info map of an entry is unaffected by later changes to the map supplied
+        + Additional info maps are interned once and referenced by id from each entry
+     */
+
+    @Test
+    @DisplayName("Test: Entries materialised from the store match the entries added")
+    public void testGet_AddedEntries_MatchExpectations() {
+        final LocalDateTime timestamp = LocalDateTime.of(2022, 1, 2, 3, 4, 5, 6_000_000);
+        final FileInfo file = new FileInfo(7, 2, "folder/sub-folder/file.txt", 1234L, 10L, 20L, timestamp, null,
+                                           timestamp.minusDays(1), "user", null, 644, "A comment", false, true,
+                                           Map.of("key", "value"));
+        final FileInfo folder = new FileInfo(8, 0, "folder", 0L, 0L, 0L, null, null, null, null, null, 0, null, true,
+                                             false, Collections.emptyMap());
+
+        final FileInfoStore store = new FileInfoStore(List.of(file, folder));
+        Assertions.assertEquals(2, store.size(), "Size was not as expected");
+
+        final FileInfo stored = store.get(0);
+        Assertions.assertEquals(file.getIndex(), stored.getIndex(), "Index was not as expected");
+        Assertions.assertEquals(file.getLevel(), stored.getLevel(), "Level was not as expected");
+        Assertions.assertEquals(file.getFileName(), stored.getFileName(), "File name was not as expected");
+        Assertions.assertEquals(file.getCrcHash(), stored.getCrcHash(), "CRC hash was not as expected");
+        Assertions.assertEquals(file.getPackedSize(), stored.getPackedSize(), "Packed size was not as expected");
+        Assertions.assertEquals(file.getRawSize(), stored.getRawSize(), "Raw size was not as expected");
+        Assertions.assertEquals(timestamp, stored.getLastWriteTime(), "Last write time was not as expected");
+        Assertions.assertNull(stored.getLastAccessTime(), "Last access time was not as expected");
+        Assertions.assertEquals(file.getCreationTime(), stored.getCreationTime(), "Creation time was not as expected");
+        Assertions.assertEquals("user", stored.getUser(), "User was not as expected");
+        Assertions.assertNull(stored.getGroup(), "Group was not as expected");
+        Assertions.assertEquals(644, stored.getAttributes(), "Attributes were not as expected");
+        Assertions.assertEquals("A comment", stored.getComments(), "Comments were not as expected");
+        Assertions.assertFalse(stored.isFolder(), "Folder flag was not as expected");
+        Assertions.assertTrue(stored.isEncrypted(), "Encrypted flag was not as expected");
+        Assertions.assertEquals(Map.of("key", "value"), stored.getAdditionalInfoMap(),
+                                "Additional info was not as expected");
+
+        Assertions.assertEquals(folder, store.get(1), "Folder was not as expected");
+        Assertions.assertTrue(store.isFolder(1), "Folder flag was not as expected");
+        Assertions.assertEquals("folder", store.getFileName(1), "File name was not as expected");
+        Assertions.assertEquals(List.of(file, folder), store, "Store was not equal to the entries added");
+    }
+
+    @Test
+    @DisplayName("Test: Entries can be inserted, replaced and removed from the store")
+    public void testModify_Entries_MatchExpectations() {
+        final FileInfoStore store = new FileInfoStore(1);
+        for (int i = 0; i < 100; i++) {
+            store.add(entry(i, String.format("folder/file-%d", i)));
+        }
+
+        store.add(0, entry(100, "first"));
+        store.set(50, entry(101, "replaced"));
+        Assertions.assertEquals(entry(49, "folder/file-48"), store.remove(49), "Removed entry was not as expected");
+        Assertions.assertEquals(100, store.size(), "Size was not as expected");
+        Assertions.assertEquals("first", store.getFileName(0), "Inserted entry was not as expected");
+        Assertions.assertEquals("replaced", store.getFileName(49), "Replaced entry was not as expected");
+        Assertions.assertEquals("folder/file-99", store.getFileName(99), "Last entry was not as expected");
+
+        store.removeIf(f -> f.getFileName().startsWith("folder/"));
+        Assertions.assertEquals(List.of("first", "replaced"),
+                                store.stream().map(FileInfo::getFileName).collect(Collectors.toList()),
+                                "Entries were not removed as expected");
+
+        store.clear();
+        Assertions.assertTrue(store.isEmpty(), "Store was not cleared");
+    }
+
+    @Test
+    @DisplayName("Test: Selection of entries can be sorted without modifying the store")
+    public void testSelect_Sort_StoreUnchanged() {
+        final FileInfoStore store = new FileInfoStore(List.of(entry(0, "c"), entry(1, "a"), entry(2, "b")));
+        final List<FileInfo> selection = store.select(new int[]{0, 2});
+
+        selection.sort(Comparator.comparing(FileInfo::getFileName));
+        Assertions.assertEquals(List.of("b", "c"),
+                                selection.stream().map(FileInfo::getFileName).collect(Collectors.toList()),
+                                "Selection was not sorted as expected");
+        Assertions.assertEquals(List.of("c", "a", "b"),
+                                store.stream().map(FileInfo::getFileName).collect(Collectors.toList()),
+                                "Store was unexpectedly modified");
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> selection.add(entry(3, "d")),
+                                "Selection was unexpectedly resized");
+    }
+
+    @Test
+    @DisplayName("Test: Additional info of a materialised entry can be modified without modifying the store")
+    public void testGetAdditionalInfoMap_Modified_StoreUnchanged() {
+        final FileInfoStore store = new FileInfoStore(List.of(entry(0, "a"), entry(1, "b")));
+        store.get(0).getAdditionalInfoMap().put("key", "value");
+        Assertions.assertEquals(Map.of("icon", "file"), store.get(0).getAdditionalInfoMap(),
+                                "Store was unexpectedly modified");
+    }
+
+    @Test
+    @DisplayName("Test: Additional info of an entry is unaffected by later changes to the map supplied")
+    public void testGetAdditionalInfoMap_SuppliedMapModified_EntryUnchanged() {
+        final Map<String,Object> infoMap = new HashMap<>(Map.of("icon", "file"));
+        final FileInfo file = new FileInfo(0, 0, "a", 0L, 0L, 0L, null, null, null, null, null, 0, null, false, false,
+                                           infoMap);
+        final FileInfoStore store = new FileInfoStore(List.of(file));
+
+        infoMap.put("key", "value");
+        Assertions.assertEquals(Map.of("icon", "file"), file.getAdditionalInfoMap(), "Entry was unexpectedly modified");
+        Assertions.assertEquals(Map.of("icon", "file"), store.get(0).getAdditionalInfoMap(),
+                                "Store was unexpectedly modified");
+    }
+
+    @Test
+    @DisplayName("Test: Additional info maps are interned once and referenced by id from each entry")
+    public void testGetInfoMaps_SharedMaps_InternedOnce() {
+        final FileInfo folder = new FileInfo(2, 0, "folder", 0L, 0L, 0L, null, null, null, null, null, 0, null, true,
+                                             false, Map.of("icon", "folder"));
+        final FileInfoStore store = new FileInfoStore(List.of(entry(0, "a"), folder, entry(1, "b")));
+
+        Assertions.assertEquals(List.of(Map.of("icon", "file"), Map.of("icon", "folder")), store.getInfoMaps(),
+                                "Interned maps were not as expected");
+        Assertions.assertEquals(List.of(0, 1, 0),
+                                List.of(store.getInfoMapId(0), store.getInfoMapId(1), store.getInfoMapId(2)),
+                                "Map ids were not as expected");
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> store.getInfoMaps().clear(),
+                                "Interned maps were unexpectedly modifiable");
+    }
+
+    private static FileInfo entry(int index, String name) {
+        return new FileInfo(index, (int) name.chars().filter(c -> c == '/').count(), name, 0L, 0L, 0L, null, null,
+                            null, null, null, 0, null, false, false, Map.of("icon", "file"));
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.archive.pub;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class MappedFileInfoStoreTest {
+
+    private Path directory;
+    private MappedFileInfoStore store;
+
+    /*
+        Test cases:
+        + Entries materialised from the mapped store match the entries added, including null fields
+        + Entries spanning several regions and cached pages can be inserted, replaced and removed
+        + Selection of entries by position can be sorted without modifying the store
+        + Temporary files are deleted when the store is closed
+     */
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("pz");
+        store = new MappedFileInfoStore(directory);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        store.close();
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    @DisplayName("Test: Entries materialised from the mapped store match the entries added")
+    public void testGet_AddedEntries_MatchExpectations() {
+        final LocalDateTime timestamp = LocalDateTime.of(2022, 1, 2, 3, 4, 5, 6_000_000);
+        final FileInfo file = new FileInfo(7, 2, "folder/sub-folder/fïle.txt", 1234L, 10L, 20L, timestamp, null,
+                                           timestamp.minusDays(1), "user", null, 644, "A comment", false, true,
+                                           Map.of("key", "value"));
+        final FileInfo folder = new FileInfo(8, 0, "folder", 0L, 0L, 0L, null, null, null, null, null, 0, null, true,
+                                             false, Collections.emptyMap());
+
+        store.addAll(List.of(file, folder));
+        Assertions.assertEquals(2, store.size(), "Size was not as expected");
+
+        final FileInfo stored = store.get(0);
+        Assertions.assertEquals(file.getFileName(), stored.getFileName(), "File name was not as expected");
+        Assertions.assertEquals(file.getCrcHash(), stored.getCrcHash(), "CRC hash was not as expected");
+        Assertions.assertEquals(timestamp, stored.getLastWriteTime(), "Last write time was not as expected");
+        Assertions.assertNull(stored.getLastAccessTime(), "Last access time was not as expected");
+        Assertions.assertEquals("user", stored.getUser(), "User was not as expected");
+        Assertions.assertNull(stored.getGroup(), "Group was not as expected");
+        Assertions.assertEquals("A comment", stored.getComments(), "Comments were not as expected");
+        Assertions.assertTrue(stored.isEncrypted(), "Encrypted flag was not as expected");
+        Assertions.assertEquals(Map.of("key", "value"), stored.getAdditionalInfoMap(),
+                                "Additional info was not as expected");
+        Assertions.assertEquals(file, stored, "Entry was not as expected");
+
+        Assertions.assertTrue(store.isFolder(1), "Folder flag was not as expected");
+        Assertions.assertEquals(0, store.getLevel(1), "Level was not as expected");
+        Assertions.assertEquals(List.of(file, folder), store, "Store was not equal to the entries added");
+    }
+
+    @Test
+    @DisplayName("Test: Entries spanning several regions can be inserted, replaced and removed from the mapped store")
+    public void testModify_Entries_MatchExpectations() {
+        final int count = 70_000;
+        store.addAll(IntStream.range(0, count)
+                              .mapToObj(i -> entry(i, String.format("folder/file-%d", i)))
+                              .collect(Collectors.toList()));
+        Assertions.assertEquals("folder/file-69999", store.getFileName(count - 1), "Last entry was not as expected");
+
+        store.add(0, entry(count, "first"));
+        store.set(50, entry(count + 1, "replaced"));
+        Assertions.assertEquals(entry(49, "folder/file-48"), store.remove(49), "Removed entry was not as expected");
+        Assertions.assertEquals(count, store.size(), "Size was not as expected");
+        Assertions.assertEquals("first", store.getFileName(0), "Inserted entry was not as expected");
+        Assertions.assertEquals("replaced", store.getFileName(49), "Replaced entry was not as expected");
+        Assertions.assertEquals(entry(count - 1, "folder/file-69999"), store.get(count - 1),
+                                "Last entry was not as expected");
+
+        store.removeIf(f -> f.getFileName().startsWith("folder/"));
+        Assertions.assertEquals(List.of("first", "replaced"),
+                                store.stream().map(FileInfo::getFileName).collect(Collectors.toList()),
+                                "Entries were not removed as expected");
+    }
+
+    @Test
+    @DisplayName("Test: Selection of entries from the mapped store can be sorted without modifying the store")
+    public void testSelect_Sort_StoreUnchanged() {
+        store.addAll(List.of(entry(0, "c"), entry(1, "a"), entry(2, "b")));
+        final List<FileInfo> selection = store.select(new int[]{0, 2});
+
+        selection.sort(Comparator.comparing(FileInfo::getFileName));
+        Assertions.assertEquals(List.of("b", "c"),
+                                selection.stream().map(FileInfo::getFileName).collect(Collectors.toList()),
+                                "Selection was not sorted as expected");
+        Assertions.assertEquals(List.of("c", "a", "b"),
+                                store.stream().map(FileInfo::getFileName).collect(Collectors.toList()),
+                                "Store was unexpectedly modified");
+    }
+
+    @Test
+    @DisplayName("Test: Temporary files of the mapped store are deleted on close")
+    public void testClose_TemporaryFiles_Deleted() throws IOException {
+        store.add(entry(0, "a"));
+        store.close();
+        for (Path path : store.getPaths()) {
+            Assertions.assertFalse(Files.exists(path), String.format("File %s was not deleted", path));
+        }
+    }
+
+    private static FileInfo entry(int index, String name) {
+        return new FileInfo(index, (int) name.chars().filter(c -> c == '/').count(), name, 0L, 0L, 0L, null, null,
+                            null, null, null, 0, null, false, false, Map.of("icon", "file"));
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.archive.util;
+
+import com.ntak.pearlzip.archive.pub.FileInfo;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class DirectorySynthesiserTest {
+
+    /*
+        Test cases:
+        + All ancestors of file path only entries are synthesised once, in order of first appearance
+        + Explicit folders are not synthesised, even when registered after their children
+        + Duplicate names are reported and synthesised folders have consecutive indices and levels
+     */
+
+    @Test
+    @DisplayName("Test: All ancestors of file path only entries are synthesised once")
+    public void testSynthesise_FilePathOnly_MatchExpectations() {
+        final DirectorySynthesiser synthesiser = new DirectorySynthesiser('/');
+        synthesiser.add("a/b/c/file-1.txt");
+        synthesiser.add("a/b/file-2.txt");
+        synthesiser.add("d/file-3.txt");
+        synthesiser.add("root.txt");
+
+        Assertions.assertEquals(List.of("a/b/c", "a/b", "a", "d"), synthesiser.getImplicitFolders(),
+                                "Implicit folders were not as expected");
+    }
+
+    @Test
+    @DisplayName("Test: Explicit folders are not synthesised")
+    public void testSynthesise_ExplicitFolders_Excluded() {
+        final DirectorySynthesiser synthesiser = new DirectorySynthesiser('\\');
+        synthesiser.add("a\\b\\file.txt");
+        synthesiser.add("a\\b");
+        synthesiser.add("a");
+
+        Assertions.assertTrue(synthesiser.getImplicitFolders().isEmpty(), "Explicit folders were synthesised");
+    }
+
+    @Test
+    @DisplayName("Test: Synthesised folders have consecutive indices and the expected levels")
+    public void testSynthesise_Indices_MatchExpectations() {
+        final DirectorySynthesiser synthesiser = new DirectorySynthesiser('/');
+        Assertions.assertTrue(synthesiser.add("a/b/file.txt"), "New name was not reported");
+        Assertions.assertFalse(synthesiser.add("a/b/file.txt"), "Duplicate name was not reported");
+
+        final List<FileInfo> folders = synthesiser.synthesise(10);
+        Assertions.assertEquals(List.of(10, 11), folders.stream().map(FileInfo::getIndex).collect(Collectors.toList()),
+                                "Indices were not as expected");
+        Assertions.assertEquals(List.of(1, 0), folders.stream().map(FileInfo::getLevel).collect(Collectors.toList()),
+                                "Levels were not as expected");
+        Assertions.assertTrue(folders.stream().allMatch(FileInfo::isFolder), "Synthesised entries were not folders");
+    }
+}
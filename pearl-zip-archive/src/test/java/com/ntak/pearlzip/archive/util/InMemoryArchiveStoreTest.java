@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.archive.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.ntak.pearlzip.archive.constants.ConfigurationConstants.CNS_IN_MEMORY_ARCHIVE_BUDGET;
+import static com.ntak.pearlzip.archive.constants.ConfigurationConstants.CNS_IN_MEMORY_ARCHIVE_THRESHOLD;
+
+public class InMemoryArchiveStoreTest {
+
+    private Path tempDir;
+    private Path archive;
+
+    /*
+        Test cases:
+        + Archives within the threshold and budget are held, replacing any previous contents
+        + Archives over the threshold or the remaining budget are not held
+        + Spilling writes the archive to its path and releases it from memory
+        + Copying writes the archive held in memory or on disk to the target
+     */
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("pz");
+        archive = tempDir.resolve("nested").resolve("test.zip");
+        System.setProperty(CNS_IN_MEMORY_ARCHIVE_THRESHOLD, "8");
+        System.setProperty(CNS_IN_MEMORY_ARCHIVE_BUDGET, "12");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        InMemoryArchiveStore.remove(archive);
+        InMemoryArchiveStore.remove(tempDir.resolve("other.zip"));
+        System.clearProperty(CNS_IN_MEMORY_ARCHIVE_THRESHOLD);
+        System.clearProperty(CNS_IN_MEMORY_ARCHIVE_BUDGET);
+        try(var files = Files.walk(tempDir)) {
+            files.sorted((a, b) -> b.compareTo(a))
+                 .forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Archives within the threshold and budget are held in memory")
+    public void testPut_WithinLimits_Success() {
+        Assertions.assertTrue(InMemoryArchiveStore.put(archive, new byte[]{1, 2, 3, 4}), "Archive was not held");
+        Assertions.assertTrue(InMemoryArchiveStore.contains(archive.resolve("..").resolve("test.zip")),
+                              "Archive was not found by an equivalent path");
+        Assertions.assertEquals(4, InMemoryArchiveStore.getUsage(), "Usage was not as expected");
+
+        Assertions.assertTrue(InMemoryArchiveStore.put(archive, new byte[]{5, 6}), "Archive was not replaced");
+        Assertions.assertArrayEquals(new byte[]{5, 6}, InMemoryArchiveStore.get(archive).orElseThrow(),
+                                     "Contents were not as expected");
+        Assertions.assertEquals(2, InMemoryArchiveStore.getUsage(), "Usage was not as expected");
+        Assertions.assertFalse(Files.exists(archive), "Archive was unexpectedly written to disk");
+    }
+
+    @Test
+    @DisplayName("Test: Archives exceeding the threshold or remaining budget are not held in memory")
+    public void testPut_ExceedsLimits_Fail() {
+        Assertions.assertFalse(InMemoryArchiveStore.isEligible(9), "Archive over the threshold was eligible");
+        Assertions.assertFalse(InMemoryArchiveStore.isEligible(-1), "Archive of unknown size was eligible");
+        Assertions.assertFalse(InMemoryArchiveStore.put(archive, new byte[9]), "Archive over the threshold was held");
+
+        Assertions.assertTrue(InMemoryArchiveStore.put(archive, new byte[8]), "Archive was not held");
+        Assertions.assertFalse(InMemoryArchiveStore.put(tempDir.resolve("other.zip"), new byte[5]),
+                               "Archive over the remaining budget was held");
+        Assertions.assertEquals(8, InMemoryArchiveStore.getUsage(), "Usage was not as expected");
+
+        InMemoryArchiveStore.remove(archive);
+        Assertions.assertEquals(0, InMemoryArchiveStore.getUsage(), "Usage was not released");
+        Assertions.assertTrue(InMemoryArchiveStore.isEligible(8), "Released budget was not available");
+    }
+
+    @Test
+    @DisplayName("Test: Spilling an archive writes it to its path and releases it from memory")
+    public void testSpill_InMemory_Success() throws IOException {
+        Assertions.assertFalse(InMemoryArchiveStore.spill(archive), "Archive not held was unexpectedly spilled");
+
+        InMemoryArchiveStore.put(archive, new byte[]{1, 2, 3});
+        Assertions.assertTrue(InMemoryArchiveStore.spill(archive), "Archive was not spilled");
+
+        Assertions.assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(archive), "Contents were not as expected");
+        Assertions.assertFalse(InMemoryArchiveStore.contains(archive), "Archive was not released");
+        Assertions.assertEquals(0, InMemoryArchiveStore.getUsage(), "Usage was not released");
+        try(var files = Files.list(archive.getParent())) {
+            Assertions.assertEquals(1, files.count(), "Temporary file was not removed");
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Copying an archive writes it to the target, whether held in memory or on disk")
+    public void testCopy_MemoryAndDisk_Success() throws IOException {
+        final Path target = tempDir.resolve("copy.zip");
+        InMemoryArchiveStore.put(archive, new byte[]{1, 2, 3});
+        InMemoryArchiveStore.copy(archive, target);
+        Assertions.assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(target), "Contents were not as expected");
+
+        final Path diskArchive = tempDir.resolve("disk.zip");
+        Files.write(diskArchive, new byte[]{4, 5});
+        InMemoryArchiveStore.copy(diskArchive, target);
+        Assertions.assertArrayEquals(new byte[]{4, 5}, Files.readAllBytes(target), "Contents were not as expected");
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.archive.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class StagedArchiveTest {
+
+    private Path tempDir;
+    private Path archive;
+
+    /*
+        Test cases:
+        + Committing a staged archive replaces the target archive
+        + Committing a staged archive creates a new target archive
+        + Closing an uncommitted staged archive discards it and leaves the target untouched
+        + Staging discards a staging file left behind by an interrupted rewrite
+     */
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("pz");
+        archive = tempDir.resolve("test.zip");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try(var files = Files.walk(tempDir)) {
+            files.sorted((a, b) -> b.compareTo(a))
+                 .forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Committing a staged archive replaces the target archive")
+    public void testCommit_ExistingArchive_Success() throws IOException {
+        Files.writeString(archive, "Original");
+        try(StagedArchive stagedArchive = StagedArchive.stage(archive)) {
+            Assertions.assertEquals(archive.getParent(), stagedArchive.getPath().getParent(),
+                                    "Staging file was not alongside the archive");
+            Files.writeString(stagedArchive.getPath(), "Rewritten");
+            Assertions.assertEquals("Original", Files.readString(archive), "Archive was modified before commit");
+
+            stagedArchive.commit();
+            Assertions.assertTrue(stagedArchive.isCommitted(), "Staged archive was not committed");
+        }
+
+        Assertions.assertEquals("Rewritten", Files.readString(archive), "Archive was not replaced");
+        Assertions.assertFalse(Files.exists(StagedArchive.getStagingPath(archive)), "Staging file was not removed");
+    }
+
+    @Test
+    @DisplayName("Test: Committing a staged archive creates a new target archive")
+    public void testCommit_NewArchive_Success() throws IOException {
+        final Path newArchive = tempDir.resolve("new").resolve("test.tar");
+        try(StagedArchive stagedArchive = StagedArchive.stage(newArchive)) {
+            Files.writeString(stagedArchive.getPath(), "Created");
+            stagedArchive.commit();
+        }
+
+        Assertions.assertEquals("Created", Files.readString(newArchive), "Archive was not created");
+    }
+
+    @Test
+    @DisplayName("Test: Closing an uncommitted staged archive leaves the target archive untouched")
+    public void testClose_Uncommitted_ArchiveUntouched() throws IOException {
+        Files.writeString(archive, "Original");
+        try(StagedArchive stagedArchive = StagedArchive.stage(archive)) {
+            Files.writeString(stagedArchive.getPath(), "Partially rewritten");
+        }
+
+        Assertions.assertEquals("Original", Files.readString(archive), "Archive was modified");
+        Assertions.assertFalse(Files.exists(StagedArchive.getStagingPath(archive)), "Staging file was not discarded");
+    }
+
+    @Test
+    @DisplayName("Test: Staging discards a staging file left behind by an interrupted rewrite")
+    public void testStage_StaleStagingFile_Discarded() throws IOException {
+        Files.writeString(archive, "Original");
+        Files.writeString(StagedArchive.getStagingPath(archive), "Stale content from an interrupted rewrite");
+
+        try(StagedArchive stagedArchive = StagedArchive.stage(archive)) {
+            Assertions.assertFalse(Files.exists(stagedArchive.getPath()), "Stale staging file was not discarded");
+        }
+        Assertions.assertEquals("Original", Files.readString(archive), "Archive was modified");
+    }
+}
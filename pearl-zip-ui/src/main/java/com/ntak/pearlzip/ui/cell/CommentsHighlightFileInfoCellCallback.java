@@ -6,6 +6,7 @@ package com.ntak.pearlzip.ui.cell;
 import com.ntak.pearlzip.archive.pub.ArchiveReadService;
 import com.ntak.pearlzip.archive.pub.ArchiveWriteService;
 import com.ntak.pearlzip.archive.pub.FileInfo;
+import com.ntak.pearlzip.archive.util.InMemoryArchiveStore;
 import com.ntak.pearlzip.ui.constants.internal.InternalContextCache;
 import com.ntak.pearlzip.ui.model.FXArchiveInfo;
 import com.ntak.pearlzip.ui.model.ZipState;
@@ -72,6 +73,8 @@ public class CommentsHighlightFileInfoCellCallback extends AbstractHighlightFile
                                               info.getFileName()
                     );
                     try {
+                        // Archives held in memory are written to disk, before being modified
+                        InMemoryArchiveStore.spill(Paths.get(fxArchiveInfo.getArchivePath()));
                         Files.createDirectories(tempFile.getParent());
                         Files.createFile(tempFile);
 
@@ -55,6 +55,11 @@ public class ZipConstants {
     public static final String CNS_THEME_NAME = "configuration.ntak.pearl-zip.theme-name";
     public static final String CNS_NTAK_PEARL_ZIP_DB_CACHE_THRESHOLD_HOURS = "configuration.ntak.pearl-zip.db-cache.threshold.hours";
     public static final String CNS_DB_CONNECTION_TIMEOUT = "configuration.ntak.pearl-zip.db.connection.timeout";
+    public static final String CNS_LISTING_SPILL_ENTRIES = "configuration.ntak.pearl-zip.listing.spill-entries";
+    public static final String CNS_LISTING_SPILL_BYTES = "configuration.ntak.pearl-zip.listing.spill-bytes";
+    public static final String CNS_LISTING_CACHE_MAX_BYTES = "configuration.ntak.pearl-zip.listing-cache.max-bytes";
+    public static final String CNS_LISTING_CACHE_WARM_UP = "configuration.ntak.pearl-zip.listing-cache.warm-up";
+    public static final String CNS_LISTING_CACHE_WARM_UP_BUDGET = "configuration.ntak.pearl-zip.listing-cache.warm-up-budget";
 
     ///// PEARLZIP SRTING PROPERTY KEYS /////
     public static final String LOG_ARCHIVE_CAN_EXTRACT = "logging.ntak.pearl-zip.tar-can-extract";
@@ -66,6 +71,10 @@ public class ZipConstants {
     public static final String LOG_ISSUE_RUNNING_BACKGROUND_PROCESS = "logging.ntak.pearl-zip.issue-running-background-process";
     public static final String LOG_PROGRESS_MSG = "logging.ntak.pearl-zip.progress-msg";
     public static final String LOG_TEMP_DIRS_TO_DELETE = "logging.ntak.pearl-zip.temp-dirs-to-delete";
+    public static final String LOG_LISTING_SPILL_FAILED = "logging.ntak.pearl-zip.listing-spill-failed";
+    public static final String LOG_LISTING_CACHE_ISSUE = "logging.ntak.pearl-zip.listing-cache-issue";
+    public static final String LOG_LISTING_CACHE_WARM_UP = "logging.ntak.pearl-zip.listing-cache-warm-up";
+    public static final String LOG_IN_MEMORY_ARCHIVE_SPILL_ISSUE = "logging.ntak.pearl-zip.in-memory-archive-spill-issue";
 
     public static final String LOG_ISSUE_RETRIEVE_META = "logging.ntak.pearl-zip.dragboard.issue-retrieve-meta";
 
@@ -403,6 +412,7 @@ public class ZipConstants {
     public static final String LBL_SKIP_OS_TEMP_CLEAN = "label.ntak.pearl-zip.skip-os-temp-clean";
     public static final String LBL_CLEAR_UP_RECENTS = "label.ntak.pearl-zip.clear-up-recents";
     public static final String LBL_CLEAR_UP_DB_CACHE = "label.ntak.pearl-zip.clear-up-db-cache";
+    public static final String LBL_CLEAR_UP_LISTING_CACHE = "label.ntak.pearl-zip.clear-up-listing-cache";
 
     public static final String LOG_CREATE_DIRECTORY = "logging.ntak.pearl-zip.create-directory";
     public static final String LOG_DIR_EXTRACT_COMPLETE = "logging.ntak.pearl-zip.dir-extract-complete";
@@ -475,5 +485,6 @@ public class ZipConstants {
                                                                                  new StoreStartupStage(),
                                                                                  new EventBusStartupStage(),
                                                                                  new ThreadPoolStartupStage(),
-                                                                                 new LicenseStartupStage());
+                                                                                 new LicenseStartupStage(),
+                                                                                 new ListingCacheStartupStage());
 }
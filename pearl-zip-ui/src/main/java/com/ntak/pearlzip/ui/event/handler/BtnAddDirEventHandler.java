@@ -93,7 +93,7 @@ public class BtnAddDirEventHandler implements CheckEventHandler<ActionEvent> {
 
     @Override
     public void check(ActionEvent event) throws AlertException {
-        ArchiveUtil.checkArchiveExists(fxArchiveInfo);
+        ArchiveUtil.checkArchiveExists(fxArchiveInfo, true);
 
         if (Objects.isNull(fxArchiveInfo.getWriteService())) {
             // LOG: Warning: Add functionality not supported for archive %s
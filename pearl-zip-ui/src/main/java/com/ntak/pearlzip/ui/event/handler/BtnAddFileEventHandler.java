@@ -87,7 +87,7 @@ public class BtnAddFileEventHandler implements CheckEventHandler<ActionEvent> {
 
     @Override
     public void check(ActionEvent event) throws AlertException {
-        ArchiveUtil.checkArchiveExists(fxArchiveInfo);
+        ArchiveUtil.checkArchiveExists(fxArchiveInfo, true);
 
         if (ZipState.getWriteArchiveServiceForFile(fxArchiveInfo.getArchivePath()).isEmpty()) {
             // LOG: Warning: Add functionality not supported for archive %s
@@ -18,21 +18,16 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.core.LoggerContext;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Collections;
 import java.util.Objects;
 import java.util.Optional;
 
-import static com.ntak.pearlzip.archive.constants.ConfigurationConstants.KEY_FILE_PATH;
-import static com.ntak.pearlzip.archive.constants.ConfigurationConstants.TMP_DIR_PREFIX;
 import static com.ntak.pearlzip.archive.constants.LoggingConstants.COMPLETED;
 import static com.ntak.pearlzip.archive.util.LoggingUtil.resolveTextKey;
 import static com.ntak.pearlzip.ui.constants.ZipConstants.*;
 import static com.ntak.pearlzip.ui.util.JFXUtil.raiseAlert;
 import static com.ntak.pearlzip.ui.util.internal.JFXUtil.changeButtonPicText;
-import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 
 /**
  *  Event Handler for Copy Migration functionality.
@@ -74,12 +69,9 @@ public class BtnCopySelectedEventHandler implements CheckEventHandler<ActionEven
         // PASTE MODE START
         if (migrationInfo.getType()
                          .equals(FXMigrationInfo.MigrationType.COPY)) {
-            ArchiveReadService archiveReadService = fxArchiveInfo.getReadService();
             ArchiveWriteService archiveWriteService = fxArchiveInfo.getWriteService();
             int depth = fxArchiveInfo.getDepth()
                                      .get();
-            int prevCount = fxArchiveInfo.getFiles()
-                                         .size();
             String prefix = fxArchiveInfo.getPrefix();
             long sessionId = System.currentTimeMillis();
             try {
@@ -113,77 +105,31 @@ public class BtnCopySelectedEventHandler implements CheckEventHandler<ActionEven
 
                     JFXUtil.refreshFileView(fileContentsView, fxArchiveInfo, depth, prefix);
                 } else { // else execute copy routine
-                    // Extract to temp location
-                    // Add from temp location with new prefix
+                    // Duplicate entry into the current folder in a single rewrite of the archive
                     Path fileName = Paths.get(migrationInfo.getFile()
                                                            .getFileName())
                                          .getFileName();
-                    Path tempDir = Files.createTempDirectory(TMP_DIR_PREFIX);
-                    Path tempFile = Paths.get(tempDir.toString(), fileName.toString());
-                    Path tempArchive = com.ntak.pearlzip.ui.util.ArchiveUtil.createBackupArchive(fxArchiveInfo, tempDir);
-                    Files.copy(Paths.get(fxArchiveInfo.getArchivePath()), tempArchive, REPLACE_EXISTING);
-
-                    boolean success = archiveReadService.extractFile(sessionId, tempFile,
-                                                                     fxArchiveInfo.getArchiveInfo(),
-                                                                     migrationInfo.getFile());
-
-                    if (!success) {
-                        // LOG: Issue extracting file to %s for copy from archive %s
-                        LOGGER.error(resolveTextKey(LOG_ISSUE_EXTRACTING_FILE_FOR_COPY, tempFile.toString(),
-                                                    fxArchiveInfo.getArchivePath()));
-                        throw new IOException(resolveTextKey(LOG_ISSUE_EXTRACTING_FILE_FOR_COPY,
-                                                             tempFile.toString(),
-                                                             fxArchiveInfo.getArchivePath()));
-                    }
 
                     JFXUtil.executeBackgroundProcess(sessionId, (Stage) fileContentsView.getScene()
                                                                              .getWindow(),
                                                      () -> {
-                                                              FileInfo newFile =
-                                                                      new FileInfo(fxArchiveInfo.getFiles()
-                                                                                                .size(),
-                                                                                   fxArchiveInfo.getDepth()
-                                                                                                .get(),
-                                                                                   Paths.get(fxArchiveInfo.getPrefix(),
-                                                                                             fileName.toString())
-                                                                                        .toString(),
-                                                                                   -1,
-                                                                                   0,
-                                                                                   0,
-                                                                                   null,
-                                                                                   null,
-                                                                                   null,
-                                                                                   "",
-                                                                                   "",
-                                                                                   0,
-                                                                                   String.format(
-                                                                                           "File %s copied into archive by PearlZip",
-                                                                                           fileName),
-                                                                                   Files.isDirectory(tempFile),
-                                                                                   false,
-                                                                                   Collections.singletonMap(
-                                                                                           KEY_FILE_PATH,
-                                                                                           tempFile.toAbsolutePath()
-                                                                                                   .toString())
-                                                                      );
-
                                                               LOGGER.info(resolveTextKey(
                                                                       LOG_PASTE_FILE_DETAILS,
-                                                                      newFile.getFileName(),
+                                                                      Paths.get(fxArchiveInfo.getPrefix(),
+                                                                                fileName.toString())
+                                                                           .toString(),
                                                                       fxArchiveInfo.getDepth(),
                                                                       fxArchiveInfo.getPrefix()));
 
-                                                              archiveWriteService.addFile(sessionId,
-                                                                                          fxArchiveInfo.getArchiveInfo(),
-                                                                                          newFile);
+                                                              boolean success =
+                                                                      archiveWriteService.copyFile(sessionId,
+                                                                                                   fxArchiveInfo.getArchiveInfo(),
+                                                                                                   migrationInfo.getFile(),
+                                                                                                   fxArchiveInfo.getPrefix());
                                                               fxArchiveInfo.refresh();
-                                                              boolean successCopy = (prevCount + 1 == fxArchiveInfo.getFiles()
-                                                                                                                   .size());
-
-                                                              if (!successCopy) {
-                                                                  com.ntak.pearlzip.ui.util.ArchiveUtil.restoreBackupArchive(tempArchive,
-                                                                                                                             Paths.get(fxArchiveInfo.getArchivePath()));
 
+                                                              // The archive is left untouched by a failed copy
+                                                              if (!success) {
                                                                   // LOG: Issue adding file %s to archive %s
                                                                   LOGGER.error(resolveTextKey(
                                                                           LOG_ISSUE_ADDING_FILE_FOR_COPY,
@@ -195,9 +141,6 @@ public class BtnCopySelectedEventHandler implements CheckEventHandler<ActionEven
                                                                           fxArchiveInfo.getArchivePath()));
 
                                                               }
-
-                                                              Files.deleteIfExists(tempFile);
-                                                              com.ntak.pearlzip.ui.util.ArchiveUtil.removeBackupArchive(tempArchive);
                                                           },
                                                      (e) -> {
                                                          // LOG: Issue occurred on pasting migration item (root item: %s). Migration has been cancelled.
@@ -275,7 +218,7 @@ public class BtnCopySelectedEventHandler implements CheckEventHandler<ActionEven
 
     @Override
     public void check(ActionEvent event) throws AlertException {
-        ArchiveUtil.checkArchiveExists(fxArchiveInfo);
+        ArchiveUtil.checkArchiveExists(fxArchiveInfo, true);
 
         FileInfo selectedItem;
         // If item not selected (and not in paste mode)
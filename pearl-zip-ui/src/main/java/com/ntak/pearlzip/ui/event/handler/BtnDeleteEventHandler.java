@@ -22,13 +22,9 @@ import javafx.stage.Stage;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.core.LoggerContext;
 
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicReference;
 
-import static com.ntak.pearlzip.archive.constants.ConfigurationConstants.TMP_DIR_PREFIX;
 import static com.ntak.pearlzip.archive.constants.LoggingConstants.LBL_PROGRESS_LOADING;
 import static com.ntak.pearlzip.archive.constants.LoggingConstants.PROGRESS;
 import static com.ntak.pearlzip.archive.util.LoggingUtil.resolveTextKey;
@@ -63,17 +59,14 @@ public class BtnDeleteEventHandler implements CheckEventHandler<MouseEvent> {
             }
 
             long sessionId = System.currentTimeMillis();
-            AtomicReference<Path> tempArchive = new AtomicReference<>();
             JFXUtil.executeBackgroundProcess(sessionId, (Stage)fileContentsView.getScene().getWindow(),
                                              () -> {
                     try {
                         fxArchiveInfo.getMigrationInfo().initMigration(FXMigrationInfo.MigrationType.DELETE, fileToDelete);
-                        Path tempDir = Files.createTempDirectory(TMP_DIR_PREFIX);
-                        tempArchive.set(com.ntak.pearlzip.ui.util.ArchiveUtil.createBackupArchive(fxArchiveInfo, tempDir));
                         boolean success = writeService.deleteFile(sessionId, fxArchiveInfo.getArchiveInfo(),
                                                                   fileToDelete);
 
-                        // Await deletion confirmation
+                        // Await deletion confirmation. The archive is left untouched by a failed deletion.
                         if (!success) {
                             // TITLE: Error: Issue deleting file from archive
                             // HEADER: File could not be removed from the archive
@@ -89,11 +82,9 @@ public class BtnDeleteEventHandler implements CheckEventHandler<MouseEvent> {
                             ArchiveService.DEFAULT_BUS.post(new ProgressMessage(sessionId, PROGRESS,
                                                                                 resolveTextKey(LBL_PROGRESS_LOADING),
                                                                                 INDETERMINATE_PROGRESS, 1));
-                            com.ntak.pearlzip.ui.util.ArchiveUtil.restoreBackupArchive(tempArchive.get(), Paths.get(fxArchiveInfo.getArchivePath()));
                         }
                     } finally {
                         fxArchiveInfo.getMigrationInfo().clear();
-                        com.ntak.pearlzip.ui.util.ArchiveUtil.removeBackupArchive(tempArchive.get());
                     }
                },
                                              (s)->{
@@ -120,7 +111,7 @@ public class BtnDeleteEventHandler implements CheckEventHandler<MouseEvent> {
 
     @Override
     public void check(MouseEvent event) throws AlertException {
-        ArchiveUtil.checkArchiveExists(fxArchiveInfo);
+        ArchiveUtil.checkArchiveExists(fxArchiveInfo, true);
 
         if (ZipState.getWriteArchiveServiceForFile(fxArchiveInfo.getArchivePath())
                     .isEmpty()) {
@@ -3,7 +3,6 @@
  */
 package com.ntak.pearlzip.ui.event.handler;
 
-import com.ntak.pearlzip.archive.pub.ArchiveReadService;
 import com.ntak.pearlzip.archive.pub.ArchiveWriteService;
 import com.ntak.pearlzip.archive.pub.FileInfo;
 import com.ntak.pearlzip.ui.model.FXArchiveInfo;
@@ -20,20 +19,15 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.core.LoggerContext;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Collections;
 import java.util.Objects;
 import java.util.Optional;
 
-import static com.ntak.pearlzip.archive.constants.ConfigurationConstants.KEY_FILE_PATH;
-import static com.ntak.pearlzip.archive.constants.ConfigurationConstants.TMP_DIR_PREFIX;
 import static com.ntak.pearlzip.archive.util.LoggingUtil.resolveTextKey;
 import static com.ntak.pearlzip.ui.constants.ZipConstants.*;
 import static com.ntak.pearlzip.ui.util.JFXUtil.raiseAlert;
 import static com.ntak.pearlzip.ui.util.internal.JFXUtil.changeButtonPicText;
-import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 
 /**
  *  Event Handler for Move Migration functionality.
@@ -72,7 +66,6 @@ public class BtnMoveSelectedEventHandler implements CheckEventHandler<ActionEven
         // If Migration type is MOVE
         // DROP MODE START
         if (migrationInfo.getType().equals(FXMigrationInfo.MigrationType.MOVE)) {
-            ArchiveReadService archiveReadService = fxArchiveInfo.getReadService();
             ArchiveWriteService archiveWriteService = fxArchiveInfo.getWriteService();
             int depth = fxArchiveInfo.getDepth().get();
             String prefix = fxArchiveInfo.getPrefix();
@@ -101,72 +94,29 @@ public class BtnMoveSelectedEventHandler implements CheckEventHandler<ActionEven
 
                     JFXUtil.refreshFileView(fileContentsView, fxArchiveInfo, depth, prefix);
                 } else {
-                    // else execute copy routine
-                    // Extract to temp location
-                    // Add from temp location with new prefix
+                    // else execute move routine
+                    // Move entry to the current folder in a single rewrite of the archive
                     long sessionId = System.currentTimeMillis();
                     JFXUtil.executeBackgroundProcess(sessionId, (Stage) fileContentsView.getScene().getWindow(),
                                                           ()->{
                                                               Path fileName = Paths.get(migrationInfo.getFile().getFileName()).getFileName();
-                                                              Path tempDir = Files.createTempDirectory(TMP_DIR_PREFIX);
-                                                              Path tempFile = Paths.get(tempDir.toString(), fileName.toString());
-                                                              Path tempArchive = com.ntak.pearlzip.ui.util.ArchiveUtil.createBackupArchive(fxArchiveInfo, tempDir);
-                                                              Files.copy(Paths.get(fxArchiveInfo.getArchivePath()), tempArchive, REPLACE_EXISTING);
+                                                              String newFileName = Paths.get(fxArchiveInfo.getPrefix(), fileName.toString()).toString();
 
-                                                              boolean success =
-                                                                      archiveReadService.extractFile(sessionId,
-                                                                                                     tempFile, fxArchiveInfo.getArchiveInfo(),
-                                                                                                               migrationInfo.getFile());
-
-                                                              if (!success) {
-                                                                  // LOG: Issue extracting file to %s for copy from archive %s
-                                                                  LOGGER.error(resolveTextKey(LOG_ISSUE_EXTRACTING_FILE_FOR_COPY, tempFile.toString(),
-                                                                                              fxArchiveInfo.getArchivePath()));
-                                                                  throw new IOException(resolveTextKey(LOG_ISSUE_EXTRACTING_FILE_FOR_COPY, tempFile.toString(), fxArchiveInfo.getArchivePath()));
-                                                              }
-
-                                                              FileInfo newFile =
-                                                                      new FileInfo(fxArchiveInfo.getFiles().size(),
-                                                                                   fxArchiveInfo.getDepth().get(),
-                                                                                   Paths.get(fxArchiveInfo.getPrefix(), fileName.toString()).toString(),
-                                                                                   -1,
-                                                                                   0,
-                                                                                   0,
-                                                                                   null,
-                                                                                   null,
-                                                                                   null,
-                                                                                   "",
-                                                                                   "",
-                                                                                   0,
-                                                                                   String.format("File %s copied into archive by PearlZip",
-                                                                                                 fileName),
-                                                                                   Files.isDirectory(tempFile),
-                                                                                   false,
-                                                                                   Collections.singletonMap(KEY_FILE_PATH, tempFile.toAbsolutePath().toString())
-                                                                      );
-
-                                                              LOGGER.info(resolveTextKey(LOG_PASTE_FILE_DETAILS, newFile.getFileName(),
+                                                              LOGGER.info(resolveTextKey(LOG_PASTE_FILE_DETAILS, newFileName,
                                                                                          fxArchiveInfo.getDepth(), fxArchiveInfo.getPrefix()));
 
-                                                              success = archiveWriteService.addFile(sessionId,
-                                                                                                    fxArchiveInfo.getArchiveInfo(), newFile);
-                                                              success &= archiveWriteService.deleteFile(sessionId,
-                                                                                                        fxArchiveInfo.getArchiveInfo(), fxArchiveInfo.getMigrationInfo()
-                                                                                                                                                     .getFile());
+                                                              boolean success = archiveWriteService.moveFile(sessionId,
+                                                                                                             fxArchiveInfo.getArchiveInfo(),
+                                                                                                             migrationInfo.getFile(),
+                                                                                                             fxArchiveInfo.getPrefix());
 
                                                               if (!success) {
-                                                                  com.ntak.pearlzip.ui.util.ArchiveUtil.restoreBackupArchive(tempArchive,
-                                                                                                                             Paths.get(fxArchiveInfo.getArchivePath()));
-
                                                                   // LOG: Issue adding file %s to archive %s
                                                                   LOGGER.error(resolveTextKey(LOG_ISSUE_ADDING_FILE_FOR_COPY, fileName.toString(),
                                                                                               fxArchiveInfo.getArchivePath()));
                                                                   throw new IOException(resolveTextKey(LOG_ISSUE_ADDING_FILE_FOR_COPY, fileName.toString(),
                                                                                                        fxArchiveInfo.getArchivePath()));
                                                               }
-
-                                                              Files.deleteIfExists(tempFile);
-                                                              com.ntak.pearlzip.ui.util.ArchiveUtil.removeBackupArchive(tempArchive);
                                                           },
                                                           (e)->{
                                                               // LOG: Issue occurred on pasting migration item (root item: %s). Migration has been cancelled.
@@ -237,7 +187,7 @@ public class BtnMoveSelectedEventHandler implements CheckEventHandler<ActionEven
 
     @Override
     public void check(ActionEvent event) throws AlertException {
-        ArchiveUtil.checkArchiveExists(fxArchiveInfo);
+        ArchiveUtil.checkArchiveExists(fxArchiveInfo, true);
 
         FileInfo selectedItem;
         // If item not selected (and not in paste mode)
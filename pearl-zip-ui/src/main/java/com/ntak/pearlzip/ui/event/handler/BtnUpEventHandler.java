@@ -15,11 +15,9 @@ import javafx.scene.input.MouseEvent;
 
 import java.nio.file.Paths;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import static com.ntak.pearlzip.archive.util.LoggingUtil.resolveTextKey;
 import static com.ntak.pearlzip.ui.constants.ZipConstants.LOG_TOAST_CURRENT_DIRECTORY;
-import static com.ntak.pearlzip.ui.util.JFXUtil.isFileInArchiveLevel;
 
 /**
  *  Event Handler for Parent Archive Directory Navigation functionality.
@@ -45,11 +43,7 @@ public class BtnUpEventHandler implements EventHandler<MouseEvent> {
             btnUp.setVisible(false);
         }
         fxArchiveInfo.setPrefix(Optional.ofNullable(Paths.get(fxArchiveInfo.getPrefix()).getParent()).orElse(Paths.get("")).toString());
-        fileContentsView.setItems(FXCollections.observableArrayList(fxArchiveInfo.getFiles()
-                                                                            .stream()
-                                                                            .filter(isFileInArchiveLevel(fxArchiveInfo))
-                                                                            .collect(
-                                                                                    Collectors.toList())));
+        fileContentsView.setItems(FXCollections.observableList(fxArchiveInfo.getChildren()));
 
         // LOG: Current directory: /%s
         JFXUtil.toastMessage(toast, resolveTextKey(LOG_TOAST_CURRENT_DIRECTORY, fxArchiveInfo.getPrefix()));
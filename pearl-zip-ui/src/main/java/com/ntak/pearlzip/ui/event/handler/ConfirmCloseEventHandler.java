@@ -4,7 +4,9 @@
 package com.ntak.pearlzip.ui.event.handler;
 
 import com.ntak.pearlzip.archive.pub.ArchiveWriteService;
+import com.ntak.pearlzip.archive.pub.ChangeSet;
 import com.ntak.pearlzip.archive.pub.FileInfo;
+import com.ntak.pearlzip.archive.util.InMemoryArchiveStore;
 import com.ntak.pearlzip.ui.constants.internal.InternalContextCache;
 import com.ntak.pearlzip.ui.model.FXArchiveInfo;
 import com.ntak.pearlzip.ui.model.ZipState;
@@ -30,10 +32,8 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
 
 import static com.ntak.pearlzip.archive.constants.ConfigurationConstants.KEY_FILE_PATH;
-import static com.ntak.pearlzip.archive.constants.ConfigurationConstants.TMP_DIR_PREFIX;
 import static com.ntak.pearlzip.archive.util.LoggingUtil.resolveTextKey;
 import static com.ntak.pearlzip.ui.constants.ZipConstants.*;
 import static com.ntak.pearlzip.ui.util.JFXUtil.*;
@@ -110,86 +110,44 @@ public class ConfirmCloseEventHandler implements EventHandler<WindowEvent> {
                         if (response.get()
                                     .getButtonData() == ButtonBar.ButtonData.YES) {
                             long sessionId = System.currentTimeMillis();
-                            AtomicReference<Path> parentTempArchive = new AtomicReference<>();
-                            // Expects the archive to already exist in the parent archive otherwise something really
-                            // wrong...
-                            FileInfo existingFileInfo = fxArchiveInfo.getNestedFileInfoParent();
-                            final FileInfo nestedArchiveFileInfo = new FileInfo(
-                                    existingFileInfo.getIndex(),
-                                    existingFileInfo.getLevel(),
-                                    existingFileInfo.getFileName(),
-                                    0,
-                                    0,
-                                    0,
-                                    null,
-                                    null,
-                                    null,
-                                    null,
-                                    null,
-                                    0,
-                                    "updated via PearlZip",
-                                    false,
-                                    false,
-                                    Collections.singletonMap(
-                                            KEY_FILE_PATH,
-                                            archiveFilePath)
-                            );
+                            final FileInfo nestedArchiveFileInfo = genNestedArchiveFileInfo(fxArchiveInfo);
                             AtomicBoolean success = new AtomicBoolean(true);
                             final Path parentPath = Paths.get(parentFilePath);
                             executeBackgroundProcess(sessionId, stage,
                                                      () -> {
+                                                         // A parent archive held in memory is written to disk, before
+                                                         // it is modified
+                                                         InMemoryArchiveStore.spill(parentPath);
+
                                                          // Check if a compressor archive
                                                          if (ZipState.getRawSupportedCompressorWriteFormats()
                                                                      .contains(this.fxArchiveInfo.getParentArchiveInfo()
                                                                                                  .getArchiveFormat()
                                                                                                  .toLowerCase())) {
-                                                             // Back up archive...
-                                                             parentTempArchive.set(ArchiveUtil.createBackupArchive(
-                                                                     lookupArchiveInfo(this.fxArchiveInfo.getParentPath()).get(),
-                                                                     Files.createTempDirectory(
-                                                                             TMP_DIR_PREFIX)));
-
-                                                             // Create new single-file compressor archive...
-                                                             Files.deleteIfExists(parentPath);
-                                                             archiveWriteService.createArchive(sessionId,
-                                                                                               parentFXArchiveInfo.getArchiveInfo(),
-                                                                                               nestedArchiveFileInfo);
-
-                                                             // Check to ensure integrity of the newly created archive
-                                                             if (Files.exists(parentPath)) {
-                                                                 success.set(true);
-                                                             }
+                                                             // Recreate single-file compressor archive. It replaces
+                                                             // the existing archive only once it has been written in full.
+                                                             success.set(archiveWriteService.applyChanges(
+                                                                     sessionId,
+                                                                     parentFXArchiveInfo.getArchiveInfo(),
+                                                                     new ChangeSet().replace(nestedArchiveFileInfo)));
                                                          } else {
                                                              // Non-compressor archive
-                                                             parentTempArchive.set(ArchiveUtil.createBackupArchive(
-                                                                     lookupArchiveInfo(this.fxArchiveInfo.getParentPath()).get(),
-                                                                     Files.createTempDirectory(
-                                                                             TMP_DIR_PREFIX)));
-
-                                                             // Expect the archive to pre-exist in wrapper archive, so removing prior to re-add
-                                                             archiveWriteService.deleteFile(sessionId,
-                                                                                            this.fxArchiveInfo.getParentArchiveInfo(),
-                                                                                            existingFileInfo);
-                                                             success.set(archiveWriteService.addFile(
+                                                             // Expect the archive to pre-exist in wrapper archive, so replacing it in a single
+                                                             // rewrite. The parent archive is untouched, if the replacement fails.
+                                                             success.set(archiveWriteService.applyChanges(
                                                                      sessionId,
                                                                      this.fxArchiveInfo.getParentArchiveInfo(),
-                                                                     nestedArchiveFileInfo));
+                                                                     new ChangeSet().replace(nestedArchiveFileInfo))
+                                                                     && cascadeChanges(sessionId, parentFXArchiveInfo));
                                                          }
                                                      },
                                                      (s) -> {
                                                          try {
                                                              if (!success.get()) {
-                                                                 // Restore back up
-                                                                 if (Files.exists(parentTempArchive.get())) {
-                                                                     Files.move(parentTempArchive.get(),
-                                                                                parentPath,
-                                                                                StandardCopyOption.REPLACE_EXISTING);
-                                                                 }
-
                                                                  // LOG: Error integrating changes from %s to %s
                                                                  throw new IOException(resolveTextKey(
                                                                          LOG_ISSUE_INTEGRATING_CHANGES,
-                                                                         parentTempArchive.get(),
+                                                                         archiveFilePath,
                                                                          parentPath));
                                                              }
                                                          } catch(IOException e) {
@@ -200,14 +158,14 @@ public class ConfirmCloseEventHandler implements EventHandler<WindowEvent> {
 
                                                              LOGGER.error(resolveTextKey(
                                                                      LOG_ISSUE_INTEGRATING_CHANGES,
-                                                                     parentTempArchive.get(),
+                                                                     archiveFilePath,
                                                                      parentPath));
 
                                                              raiseAlert(Alert.AlertType.ERROR,
                                                                         resolveTextKey(TITLE_ISSUE_INTEGRATING_CHANGES),
                                                                         resolveTextKey(
                                                                                 HEADER_ISSUE_INTEGRATING_CHANGES,
-                                                                                parentTempArchive.get(),
+                                                                                archiveFilePath,
                                                                                 parentPath),
                                                                         resolveTextKey(BODY_ISSUE_INTEGRATING_CHANGES),
                                                                         e,
@@ -281,6 +239,14 @@ public class ConfirmCloseEventHandler implements EventHandler<WindowEvent> {
                     }
                 }
                 ArchiveUtil.removeBackupArchive(archivePath);
+            } else if (!isKeptOpen && InMemoryArchiveStore.contains(archivePath)
+                    && Objects.nonNull(fxArchiveInfo.getParentPath())) {
+                // Nested archives held in memory are unmodified, so there are no changes to reintegrate
+                lookupArchiveInfo(fxArchiveInfo.getParentPath()).ifPresent(p -> p.getController()
+                                                                                  .get()
+                                                                                  .getWrapper()
+                                                                                  .setDisable(false));
+                getMainStageByArchivePath(fxArchiveInfo.getParentPath()).ifPresent(Stage::toFront);
             }
         } catch(IOException e) {
             // Issue with IO Process when saving down archive %s
@@ -300,6 +266,14 @@ public class ConfirmCloseEventHandler implements EventHandler<WindowEvent> {
                     itemToRemove.ifPresent(m -> WINDOW_MENU.getItems()
                                                            .remove(m));
                 }
+
+                // Release any archive handles held open for this window
+                ZipState.getReadProviders()
+                        .forEach(s -> s.releaseArchive(fxArchiveInfo.getArchivePath()));
+                // Release any temporary storage held by the listing of the archive
+                fxArchiveInfo.close();
+                // Release the archive, if held in memory
+                InMemoryArchiveStore.remove(Paths.get(fxArchiveInfo.getArchivePath()));
             }
 
             // If there are no other PearlZip instances apart from this open (Last PearlZip instance open)
@@ -320,4 +294,64 @@ public class ConfirmCloseEventHandler implements EventHandler<WindowEvent> {
             }
         }
     }
+
+    /**
+     *   Writes the changes of a nested archive, which has just been updated, back through each of its open nested
+     *   ancestors in turn. The chain stops at the root archive or at the first parent, which can only be recreated
+     *   (compressor archives) or cannot be written to.
+     *
+     *   @param sessionId The session, progress messages are reported against
+     *   @param archiveInfo The nested archive, which has been updated
+     *   @return boolean - true, if every level in the chain was updated successfully
+     *   @throws IOException if a parent archive held in memory could not be written to disk
+     */
+    private static boolean cascadeChanges(long sessionId, FXArchiveInfo archiveInfo) throws IOException {
+        FXArchiveInfo level = archiveInfo;
+        while (Objects.nonNull(level) && Objects.nonNull(level.getParentPath())) {
+            final Optional<ArchiveWriteService> parentWriteService =
+                    ZipState.getWriteArchiveServiceForFile(level.getParentPath());
+            if (parentWriteService.isEmpty() || ZipState.getRawSupportedCompressorWriteFormats()
+                                                        .contains(level.getParentArchiveInfo()
+                                                                       .getArchiveFormat()
+                                                                       .toLowerCase())) {
+                break;
+            }
+
+            InMemoryArchiveStore.spill(Paths.get(level.getParentPath()));
+            if (!parentWriteService.get().applyChanges(sessionId,
+                                                       level.getParentArchiveInfo(),
+                                                       new ChangeSet().replace(genNestedArchiveFileInfo(level)))) {
+                return false;
+            }
+            level = lookupArchiveInfo(level.getParentPath()).orElse(null);
+        }
+
+        return true;
+    }
+
+    private static FileInfo genNestedArchiveFileInfo(FXArchiveInfo archiveInfo) {
+        // Expects the archive to already exist in the parent archive otherwise something really
+        // wrong...
+        FileInfo existingFileInfo = archiveInfo.getNestedFileInfoParent();
+        return new FileInfo(
+                existingFileInfo.getIndex(),
+                existingFileInfo.getLevel(),
+                existingFileInfo.getFileName(),
+                0,
+                0,
+                0,
+                null,
+                null,
+                null,
+                null,
+                null,
+                0,
+                "updated via PearlZip",
+                false,
+                false,
+                Collections.singletonMap(
+                        KEY_FILE_PATH,
+                        archiveInfo.getArchivePath())
+        );
+    }
 }
@@ -180,7 +180,7 @@ public class FileContentsDragDropRowEventHandler implements CheckEventHandler<Dr
 
     @Override
     public void check(DragEvent event) throws AlertException {
-        com.ntak.pearlzip.ui.util.ArchiveUtil.checkArchiveExists(fxArchiveInfo);
+        com.ntak.pearlzip.ui.util.ArchiveUtil.checkArchiveExists(fxArchiveInfo, true);
 
         if (Objects.isNull(fxArchiveInfo.getWriteService())) {
             // LOG: Warning: Add functionality not supported for archive %s
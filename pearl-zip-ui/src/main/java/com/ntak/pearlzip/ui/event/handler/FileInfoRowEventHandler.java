@@ -8,11 +8,13 @@ import com.ntak.pearlzip.archive.pub.ArchiveInfo;
 import com.ntak.pearlzip.archive.pub.ArchiveReadService;
 import com.ntak.pearlzip.archive.pub.ArchiveWriteService;
 import com.ntak.pearlzip.archive.pub.FileInfo;
+import com.ntak.pearlzip.archive.util.InMemoryArchiveStore;
 import com.ntak.pearlzip.ui.constants.internal.InternalContextCache;
 import com.ntak.pearlzip.ui.model.FXArchiveInfo;
 import com.ntak.pearlzip.ui.model.ZipState;
 import com.ntak.pearlzip.ui.pub.ContextMenuController;
 import com.ntak.pearlzip.ui.pub.ZipLauncher;
+import com.ntak.pearlzip.ui.util.ArchiveUtil;
 import com.ntak.pearlzip.ui.util.JFXUtil;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
@@ -27,11 +29,11 @@ import javafx.util.Duration;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.core.LoggerContext;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 import static com.ntak.pearlzip.archive.constants.LoggingConstants.LOG_BUNDLE;
 import static com.ntak.pearlzip.archive.util.LoggingUtil.resolveTextKey;
@@ -40,7 +42,6 @@ import static com.ntak.pearlzip.ui.constants.ZipConstants.*;
 import static com.ntak.pearlzip.ui.model.ZipState.CONTEXT_MENU_INSTANCES;
 import static com.ntak.pearlzip.ui.model.ZipState.ROW_TRIGGER;
 import static com.ntak.pearlzip.ui.util.ArchiveUtil.launchMainStage;
-import static com.ntak.pearlzip.ui.util.JFXUtil.isFileInArchiveLevel;
 import static com.ntak.pearlzip.ui.util.JFXUtil.raiseAlert;
 import static com.ntak.pearlzip.ui.util.internal.ArchiveUtil.checkPreOpenDialog;
 
@@ -116,25 +117,44 @@ public class FileInfoRowEventHandler implements  EventHandler<MouseEvent> {
                                                          // LOG: An archive which can be extracted...
                                                          LOGGER.debug(resolveTextKey(LOG_ARCHIVE_CAN_EXTRACT));
 
-                                                         // Prepare target temporary location for nested archive
-                                                         Files.createDirectories(nestedArchive.getParent());
-                                                         Files.deleteIfExists(nestedArchive);
-
-                                                         // Extract nested archive to the temp location
                                                          ArchiveReadService parentArchiveReadService =
                                                                  ZipState.getReadArchiveServiceForFile(fxArchiveInfo.getArchivePath())
                                                                          .get();
-                                                         parentArchiveReadService.extractFile(sessionId, nestedArchive,
-                                                                                    fxArchiveInfo.getArchiveInfo(),
-                                                                                    clickedRow
-                                                         );
+                                                         ArchiveReadService nestedArchiveReadService =
+                                                                 ZipState.getReadArchiveServiceForFile(nestedArchive.getFileName().toString()).get();
+
+                                                         // Small nested archives are held in memory, if the nested
+                                                         // archive service can read them from there
+                                                         boolean inMemory = false;
+                                                         if (ArchiveUtil.isInMemorySupported(nestedArchiveReadService)
+                                                                 && InMemoryArchiveStore.isEligible(clickedRow.getRawSize())) {
+                                                             ByteArrayOutputStream nestedContents =
+                                                                     new ByteArrayOutputStream((int) clickedRow.getRawSize());
+                                                             inMemory =
+                                                                     parentArchiveReadService.extractFile(sessionId,
+                                                                                                          nestedContents,
+                                                                                                          fxArchiveInfo.getArchiveInfo(),
+                                                                                                          clickedRow)
+                                                                     && InMemoryArchiveStore.put(nestedArchive,
+                                                                                                 nestedContents.toByteArray());
+                                                         }
+
+                                                         if (!inMemory) {
+                                                             // Prepare target temporary location for nested archive
+                                                             Files.createDirectories(nestedArchive.getParent());
+                                                             Files.deleteIfExists(nestedArchive);
+
+                                                             // Extract nested archive to the temp location
+                                                             parentArchiveReadService.extractFile(sessionId, nestedArchive,
+                                                                                                  fxArchiveInfo.getArchiveInfo(),
+                                                                                                  clickedRow
+                                                             );
+                                                         }
 
                                                          // Open nested archive.
                                                          ArchiveWriteService nestedArchiveWriteService =
                                                                  ZipState.getWriteArchiveServiceForFile(clickedRow.getFileName())
                                                                          .get();
-                                                         ArchiveReadService nestedArchiveReadService =
-                                                                 ZipState.getReadArchiveServiceForFile(nestedArchive.getFileName().toString()).get();
                                                          ArchiveInfo nestedArchiveInfo =
                                                                  nestedArchiveReadService.generateArchiveMetaData(nestedArchive.toAbsolutePath().toString());
 
@@ -205,11 +225,7 @@ public class FileInfoRowEventHandler implements  EventHandler<MouseEvent> {
                     fxArchiveInfo.getDepth()
                             .incrementAndGet();
                     fxArchiveInfo.setPrefix(clickedRow.getFileName());
-                    fileContentsView.setItems(FXCollections.observableArrayList(fxArchiveInfo.getFiles()
-                                                                                        .stream()
-                                                                                        .filter(isFileInArchiveLevel(fxArchiveInfo))
-                                                                                        .collect(
-                                                                                                Collectors.toList())));
+                    fileContentsView.setItems(FXCollections.observableList(fxArchiveInfo.getChildren()));
                     fileContentsView.refresh();
                     if (fxArchiveInfo.getDepth()
                                 .get() > 0) {
@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.ui.model;
+
+import com.ntak.pearlzip.archive.pub.FileInfo;
+import com.ntak.pearlzip.archive.pub.AbstractFileInfoStore;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ *  In-memory hierarchical index of the entries of an archive, keyed by the path of the parent directory. The index
+ *  is built once per listing, so that the immediate children of any folder can be retrieved in time proportional to
+ *  the number of children rather than the total number of entries in the archive. Children are held as positions
+ *  in the listing store, so no entries are materialised to build the index.
+ *  @author Aashutos Kakshepati
+*/
+public class DirectoryIndex {
+    public static final String ROOT = "";
+
+    private final AbstractFileInfoStore files;
+    private final Map<String,Positions> children = new HashMap<>();
+
+    public DirectoryIndex(AbstractFileInfoStore files) {
+        this.files = files;
+        for (int i = 0; i < files.size(); i++) {
+            final int position = i;
+            parentOf(files.getFileName(i), files.getLevel(i)).ifPresent(p -> children.computeIfAbsent(p,
+                                                                                                      k -> new Positions())
+                                                                                     .add(position));
+        }
+    }
+
+    /**
+     *   Retrieves the entries directly beneath the directory specified. The root of the archive is represented by
+     *   an empty string. Entries are materialised from the listing store on access, and the list returned can be
+     *   sorted in place.
+     *
+     *   @param parent The path of the parent directory within the archive
+     *   @return List&lt;FileInfo&gt; - The immediate children of the directory in listing order
+     */
+    public List<FileInfo> getChildren(String parent) {
+        final Positions positions = children.get(Objects.requireNonNullElse(parent, ROOT));
+        return files.select(Objects.isNull(positions) ? new int[0] : positions.toArray());
+    }
+
+    public boolean hasChildren(String parent) {
+        return children.containsKey(Objects.requireNonNullElse(parent, ROOT));
+    }
+
+    /**
+     *   Derives the parent directory key for an entry. Root level entries are keyed to {@link #ROOT}. Entries that
+     *   declare a nested level, but have no parent in their name, are not reachable by navigation and so are not
+     *   indexed.
+     */
+    static Optional<String> parentOf(String fileName, int level) {
+        if (level == 0) {
+            return Optional.of(ROOT);
+        }
+
+        final int idx = fileName.lastIndexOf(File.separator);
+        if (idx < 0) {
+            return Optional.empty();
+        }
+
+        return Optional.of(fileName.substring(0, idx));
+    }
+
+    private static class Positions {
+        private int[] positions = new int[4];
+        private int size;
+
+        private void add(int position) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size++] = position;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(positions, size);
+        }
+    }
+}
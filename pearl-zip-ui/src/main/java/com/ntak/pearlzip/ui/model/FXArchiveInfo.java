@@ -3,31 +3,39 @@
  */
 package com.ntak.pearlzip.ui.model;
 
-import com.ntak.pearlzip.archive.pub.ArchiveInfo;
-import com.ntak.pearlzip.archive.pub.ArchiveReadService;
-import com.ntak.pearlzip.archive.pub.ArchiveWriteService;
-import com.ntak.pearlzip.archive.pub.FileInfo;
+import com.ntak.pearlzip.archive.pub.*;
+import com.ntak.pearlzip.archive.util.InMemoryArchiveStore;
 import com.ntak.pearlzip.ui.pub.FrmMainController;
+import com.ntak.pearlzip.ui.util.ListingCache;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.LoggerContext;
 
+import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import static com.ntak.pearlzip.archive.constants.LoggingConstants.LOG_ARCHIVE_INFO_ASSERT_PATH;
 import static com.ntak.pearlzip.archive.constants.LoggingConstants.LOG_ARCHIVE_INFO_ASSERT_READ_SERVICE;
 import static com.ntak.pearlzip.archive.util.LoggingUtil.resolveTextKey;
+import static com.ntak.pearlzip.ui.constants.ZipConstants.*;
+import static com.ntak.pearlzip.ui.constants.internal.InternalContextCache.GLOBAL_CONFIGURATION_CACHE;
 
 /**
  *  Representation of the state of the Archive on an instance of the Pearl Zip UI as a specific point in time.
  *  @author Aashutos Kakshepati
 */
 public class FXArchiveInfo {
+    public static final String LISTING_DIR = "listing";
+    private static final Logger LOGGER = LoggerContext.getContext().getLogger(FXArchiveInfo.class);
+
     private final String parentPath;
     private final String archivePath;
     private final ArchiveReadService readService;
@@ -41,7 +49,12 @@ public class FXArchiveInfo {
     private final FileInfo nestedFileInfoParent;
 
     private String prefix = "";
+    private AbstractFileInfoStore store;
     private ObservableList<FileInfo> files;
+    private DirectoryIndex index;
+    private boolean listed;
+    private boolean listing;
+    private final ListChangeListener<FileInfo> indexInvalidator = (c) -> invalidateIndex();
 
     public FXArchiveInfo(String archivePath, ArchiveReadService readService, ArchiveWriteService writeService) {
         this(null, archivePath, readService, writeService, null);
@@ -62,7 +75,8 @@ public class FXArchiveInfo {
     public FXArchiveInfo(ArchiveInfo parentArchiveInfo, String archivePath, ArchiveReadService readService,
             ArchiveWriteService writeService, ArchiveInfo archiveInfo, FileInfo nestedFileInfoParent) {
         // LOG: Archive path should be valid
-        assert Files.exists(Paths.get(archivePath)) : resolveTextKey(LOG_ARCHIVE_INFO_ASSERT_PATH);
+        assert Files.exists(Paths.get(archivePath)) || InMemoryArchiveStore.contains(Paths.get(archivePath)) :
+                resolveTextKey(LOG_ARCHIVE_INFO_ASSERT_PATH);
         // LOG: Read service should not be null
         assert Objects.nonNull(readService) : resolveTextKey(LOG_ARCHIVE_INFO_ASSERT_READ_SERVICE);
 
@@ -74,8 +88,8 @@ public class FXArchiveInfo {
         this.writeService = writeService;
         this.archiveInfo = archiveInfo;
 
-        setFiles(FXCollections.observableArrayList(
-                new ArrayList<>(readService.listFiles(System.currentTimeMillis(), archivePath))));
+        // Contents are listed on first access or by loadFiles, so the archive is not parsed on construction
+        useStore(new FileInfoStore());
     }
 
     public AtomicInteger getDepth() {
@@ -91,11 +105,188 @@ public class FXArchiveInfo {
     }
 
     public synchronized ObservableList<FileInfo> getFiles() {
+        ensureListed();
+        return files;
+    }
+
+    /**
+     *   Replaces the entries of this archive. A listing store is used as is, other lists are copied into a store.
+     *   Listings above the configured entry count or heap budget are moved to a memory-mapped store under the
+     *   temporary storage location.
+     *
+     *   @param files The entries of the archive
+     */
+    public synchronized void setFiles(List<FileInfo> files) {
+        useStore(spillIfRequired(files instanceof AbstractFileInfoStore fileInfoStore ? fileInfoStore :
+                                         new FileInfoStore(files)));
+        listed = true;
+    }
+
+    private synchronized void useStore(AbstractFileInfoStore store) {
+        if (Objects.nonNull(this.files)) {
+            this.files.removeListener(indexInvalidator);
+        }
+        if (this.store != store) {
+            closeStore();
+        }
+        this.store = store;
+        this.files = FXCollections.observableList(store);
+        this.files.addListener(indexInvalidator);
+        invalidateIndex();
+    }
+
+    /**
+     *   Lists the contents of the archive on the calling thread, pushing each batch to the listener as soon as it has
+     *   been parsed and appended to the files of this archive. Hence, callers can display the first entries of a
+     *   large archive without waiting for the whole listing. If the archive has already been listed, the entries at
+     *   the current level are pushed as a single batch.
+     *
+     *   @param batchListener Receives each batch of entries once it has been added to the files of this archive
+     */
+    public void loadFiles(Consumer<List<FileInfo>> batchListener) {
+        synchronized(this) {
+            if (listed || listing) {
+                batchListener.accept(new ArrayList<>(getChildren()));
+                return;
+            }
+            listing = true;
+        }
+
+        final boolean complete;
+        boolean returned = false;
+        try {
+            complete = readService.listFiles(System.currentTimeMillis(), archiveInfo, (batch) -> {
+                synchronized(this) {
+                    // A refresh during the listing supersedes the remaining batches
+                    if (listed) {
+                        return;
+                    }
+                    files.addAll(batch);
+                    final AbstractFileInfoStore spilled = spillIfRequired(store);
+                    if (spilled != store) {
+                        useStore(spilled);
+                    }
+                }
+                batchListener.accept(batch);
+            });
+            returned = true;
+        } finally {
+            synchronized(this) {
+                listing = false;
+                if (returned || listed) {
+                    listed = true;
+                    store.trimToSize();
+                } else {
+                    // The entries of a listing which threw are discarded, so the archive is listed again on next access
+                    useStore(new FileInfoStore());
+                }
+            }
+        }
+
+        // A partial listing of an archive which could not be read in full is not cached
+        if (complete && isCacheable()) {
+            ListingCache.put(Paths.get(archivePath), store);
+        }
+    }
+
+    private boolean isCacheable() {
+        // Nested archives are extracted to unique temporary files, so their listings are not reused
+        return Objects.isNull(parentPath);
+    }
+
+    private AbstractFileInfoStore spillIfRequired(AbstractFileInfoStore store) {
+        final Optional<Path> storeTemp = GLOBAL_CONFIGURATION_CACHE.getAdditionalConfig(CK_STORE_TEMP);
+        if (!(store instanceof FileInfoStore heapStore) || storeTemp.isEmpty()
+                || (heapStore.size() <= Integer.parseInt(System.getProperty(CNS_LISTING_SPILL_ENTRIES, "250000"))
+                && heapStore.getEstimatedSize() <= Long.parseLong(System.getProperty(CNS_LISTING_SPILL_BYTES,
+                                                                                     "67108864")))) {
+            return store;
+        }
+
+        try {
+            return new MappedFileInfoStore(storeTemp.get().resolve(LISTING_DIR), heapStore);
+        } catch(IOException e) {
+            // LOG: Listing of %s could not be moved to temporary storage and is kept in memory. Message: %s
+            LOGGER.warn(resolveTextKey(LOG_LISTING_SPILL_FAILED, archivePath, e.getMessage()));
+            return store;
+        }
+    }
+
+    private synchronized void closeStore() {
+        if (store instanceof MappedFileInfoStore mappedStore) {
+            try {
+                mappedStore.close();
+            } catch(IOException e) {
+            }
+        }
+    }
+
+    /**
+     *   Releases the temporary storage held by the listing of this archive, if it has been moved out of memory.
+     *   Entries already retrieved remain readable.
+     */
+    public synchronized void close() {
+        closeStore();
+    }
+
+    /**
+     *   Retrieves the temporary files which hold the listing of this archive, if it has been moved out of memory.
+     *
+     *   @return List&lt;Path&gt; - The temporary files in use by the listing
+     */
+    public synchronized List<Path> getListingPaths() {
+        return store instanceof MappedFileInfoStore mappedStore ? mappedStore.getPaths() : Collections.emptyList();
+    }
+
+    private synchronized void ensureListed() {
+        // Entries of a listing in progress are returned as they stand
+        if (!listed && !listing) {
+            setFiles(listArchive());
+        }
+    }
+
+    private List<FileInfo> listArchive() {
+        final Optional<List<FileInfo>> cachedFiles = isCacheable() ? ListingCache.get(Paths.get(archivePath)) :
+                Optional.empty();
+        if (cachedFiles.isPresent()) {
+            return cachedFiles.get();
+        }
+
+        final FileInfoStore files = new FileInfoStore();
+        final boolean complete = readService.listFiles(System.currentTimeMillis(), archiveInfo, files::addAll);
+        files.trimToSize();
+        if (complete && isCacheable()) {
+            ListingCache.put(Paths.get(archivePath), files);
+        }
         return files;
     }
 
-    public synchronized void setFiles(ObservableList<FileInfo> files) {
-        this.files = files;
+    /**
+     *   Retrieves the entries directly beneath the directory specified from the in-memory directory index. The
+     *   index is built once per listing, so no archive I/O occurs.
+     *
+     *   @param parent The path of the parent directory within the archive. The root is represented by an empty string.
+     *   @return List&lt;FileInfo&gt; - The immediate children of the directory
+     */
+    public synchronized List<FileInfo> getChildren(String parent) {
+        ensureListed();
+        if (Objects.isNull(index)) {
+            index = new DirectoryIndex(store);
+        }
+        return index.getChildren(parent);
+    }
+
+    /**
+     *   Retrieves the entries at the current level of navigation as dictated by the depth and prefix of this archive.
+     *
+     *   @return List&lt;FileInfo&gt; - The immediate children of the current directory
+     */
+    public synchronized List<FileInfo> getChildren() {
+        return getChildren(depth.get() > 0 ? prefix : DirectoryIndex.ROOT);
+    }
+
+    private synchronized void invalidateIndex() {
+        index = null;
     }
 
     public String getArchivePath() {
@@ -119,8 +310,7 @@ public class FXArchiveInfo {
     }
 
     public synchronized void refresh() {
-        files.clear();
-        files.addAll(readService.listFiles(System.currentTimeMillis(), archiveInfo));
+        setFiles(listArchive());
         setPrefix("");
         depth.set(0);
     }
@@ -43,6 +43,15 @@ public class ZipState {
 
     public static Optional<ArchiveReadService> getReadArchiveServiceForFile(String filename) {
         try {
+            // Compound extensions (e.g. tar.gz) take precedence over the final extension
+            int compoundIndex = filename.lastIndexOf(".", filename.lastIndexOf(".")-1);
+            if (compoundIndex >= 0) {
+                String compoundExtension = filename.substring(compoundIndex+1).toLowerCase();
+                if (ARCHIVE_READ_MAP.containsKey(compoundExtension)) {
+                    return Optional.of(ARCHIVE_READ_MAP.get(compoundExtension));
+                }
+            }
+
             String extension = filename.substring(filename.lastIndexOf(".")+1).toLowerCase();
             return  Optional.ofNullable(ARCHIVE_READ_MAP.get(extension));
         } catch(Exception e) {
@@ -12,6 +12,7 @@ import com.ntak.pearlzip.ui.model.FXArchiveInfo;
 import com.ntak.pearlzip.ui.model.ZipState;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.control.*;
@@ -30,7 +31,7 @@ import java.time.LocalDateTime;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutorService;
 
 import static com.ntak.pearlzip.archive.constants.LoggingConstants.LOG_BUNDLE;
 import static com.ntak.pearlzip.archive.util.LoggingUtil.resolveTextKey;
@@ -143,10 +144,21 @@ public class FrmMainController {
             // TODO: Handle multiple rows
             fileContentsView.getSelectionModel()
                             .setSelectionMode(SelectionMode.SINGLE);
-            fileContentsView.setItems(FXCollections.observableArrayList(fxArchiveInfo.getFiles()
-                                                                                     .stream()
-                                                                                     .filter(f -> f.getLevel() == 0)
-                                                                                     .collect(Collectors.toList())));
+
+            // Rows are added in batches while the archive is listed in the background, so the window is displayed
+            // before parsing completes. Once the view has been navigated, it is populated from the directory index.
+            final ObservableList<FileInfo> rows = FXCollections.observableArrayList();
+            fileContentsView.setItems(rows);
+            final Runnable listing = () -> fxArchiveInfo.loadFiles((batch) -> runLater(() -> {
+                if (fileContentsView.getItems() == rows) {
+                    rows.addAll(batch.stream()
+                                     .filter(isFileInArchiveLevel(fxArchiveInfo))
+                                     .toList());
+                }
+            }));
+            InternalContextCache.INTERNAL_CONFIGURATION_CACHE
+                                .<ExecutorService>getAdditionalConfig(CK_PRIMARY_EXECUTOR_SERVICE)
+                                .ifPresentOrElse((e) -> e.submit(listing), listing);
             fileContentsView.setRowFactory(tv -> {
                 TableRow<FileInfo> row = new TableRow<>();
                 row.setOnMouseClicked(new FileInfoRowEventHandler(fileContentsView, btnUp, row, fxArchiveInfo, toast));
@@ -68,6 +68,14 @@ public class FrmProgressController {
             });
         }
 
+        if (message.type().equals(PROGRESS_COUNT) && message.sessionId() == sessionId) {
+            isStarted = true;
+            JFXUtil.runLater(() -> {
+                lblProgress.setText(message.message());
+                barProgress.setProgress(message.completed() / message.total());
+            });
+        }
+
         if (isStarted && message.type().equals(COMPLETED) && message.sessionId() == sessionId) {
             JFXUtil.runLater(() -> {
                 try {
@@ -3,6 +3,7 @@
  */
 package com.ntak.pearlzip.ui.pub;
 
+import com.ntak.pearlzip.archive.util.InMemoryArchiveStore;
 import com.ntak.pearlzip.archive.util.LoggingUtil;
 import com.ntak.pearlzip.ui.constants.internal.InternalContextCache;
 import com.ntak.pearlzip.ui.event.handler.BtnNewEventHandler;
@@ -27,7 +28,6 @@ import org.apache.logging.log4j.core.LoggerContext;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
@@ -38,7 +38,6 @@ import static com.ntak.pearlzip.ui.util.ArchiveUtil.genNewArchivePath;
 import static com.ntak.pearlzip.ui.util.JFXUtil.getActiveStage;
 import static com.ntak.pearlzip.ui.util.JFXUtil.raiseAlert;
 import static com.ntak.pearlzip.ui.util.internal.ArchiveUtil.addToRecentFile;
-import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 
 /**
  *  Controller for the System Menu.
@@ -111,7 +110,7 @@ public class SysMenuController {
             if (newArchive != null) {
                 try {
                     newArchive = genNewArchivePath(newArchive.getAbsolutePath(), "", fxArchiveInfo.getArchiveInfo().getArchiveFormat());
-                    Files.copy(Paths.get(fxArchiveInfo.getArchivePath()), newArchive.toPath(), REPLACE_EXISTING);
+                    InMemoryArchiveStore.copy(Paths.get(fxArchiveInfo.getArchivePath()), newArchive.toPath());
                     final String absolutePath = newArchive.getAbsolutePath();
                     FXArchiveInfo newArchiveInfo = new FXArchiveInfo(absolutePath,
                                                                      ZipState.getReadArchiveServiceForFile(absolutePath).get(),
@@ -0,0 +1,32 @@
+/*
+ * Copyright © 2023 92AK
+ */
+package com.ntak.pearlzip.ui.stages.startup;
+
+import com.ntak.pearlzip.ui.util.AbstractStartupStage;
+import com.ntak.pearlzip.ui.util.ListingCacheWarmer;
+
+import static com.ntak.pearlzip.ui.constants.ZipConstants.CNS_LISTING_CACHE_WARM_UP;
+import static com.ntak.pearlzip.ui.constants.ZipConstants.CNS_LISTING_CACHE_WARM_UP_BUDGET;
+
+/**
+ *  Optionally warms up the cached listings of recently opened archives on a low priority background thread.
+ *
+ *  @author Aashutos Kakshepati
+ */
+public class ListingCacheStartupStage extends AbstractStartupStage {
+    @Override
+    public void executeProcess() throws Exception {
+        if (!Boolean.parseBoolean(System.getProperty(CNS_LISTING_CACHE_WARM_UP, "true"))) {
+            return;
+        }
+
+        Thread warmUpThread = new Thread(new ListingCacheWarmer(System.currentTimeMillis(),
+                                                                Long.parseLong(System.getProperty(CNS_LISTING_CACHE_WARM_UP_BUDGET,
+                                                                                                  "536870912"))),
+                                         "pz-listing-warm-up");
+        warmUpThread.setDaemon(true);
+        warmUpThread.setPriority(Thread.MIN_PRIORITY);
+        warmUpThread.start();
+    }
+}
@@ -4,6 +4,8 @@
 package com.ntak.pearlzip.ui.util;
 
 import com.ntak.pearlzip.archive.pub.*;
+import com.ntak.pearlzip.archive.pub.profile.component.ReadServiceComponent;
+import com.ntak.pearlzip.archive.util.InMemoryArchiveStore;
 import com.ntak.pearlzip.ui.constants.internal.InternalContextCache;
 import com.ntak.pearlzip.ui.model.FXArchiveInfo;
 import com.ntak.pearlzip.ui.model.ZipState;
@@ -56,25 +58,14 @@ public class ArchiveUtil {
         ArchiveReadService archiveReadService = fxArchiveInfo.getReadService();
 
         if (Objects.nonNull(dir) && dir.exists()) {
-            Map<Integer,List<FileInfo>> mapFiles =
-                    fxArchiveInfo.getFiles().stream().collect(Collectors.groupingBy(FileInfo::getLevel));
-
-            for (int level : mapFiles.keySet().stream().sorted().collect(Collectors.toList())) {
-                List<FileInfo> files = mapFiles.getOrDefault(level, Collections.emptyList());
-                files.stream().filter(FileInfo::isFolder).forEach(f-> {
-                    try {
-                        Files.createDirectory(Paths.get(dir.getAbsolutePath(), f.getFileName()));
-                    } catch(IOException e) {
-                    }
-                });
+            // Extract all entries in a single pass of the archive
+            Map<FileInfo,Path> files = new LinkedHashMap<>();
+            fxArchiveInfo.getFiles()
+                         .stream()
+                         .sorted(Comparator.comparingInt(FileInfo::getLevel))
+                         .forEach(f -> files.put(f, Paths.get(dir.getAbsolutePath(), f.getFileName())));
 
-                files.stream().filter(f -> !f.isFolder()).forEach(f -> archiveReadService.extractFile(sessionId,
-                                                Paths.get(dir.getAbsolutePath(),
-                                                         Paths.get(f.getFileName()).toString()),
-                                                fxArchiveInfo.getArchiveInfo(),
-                                                f)
-                );
-            }
+            archiveReadService.extractFiles(sessionId, fxArchiveInfo.getArchiveInfo(), files);
         }
     }
 
@@ -150,9 +141,6 @@ public class ArchiveUtil {
         Path dirPath = dirToAdd.toPath();
         ArchiveWriteService archiveWriteService = fxArchiveInfo.getWriteService();
 
-        Path tempDir = Files.createTempDirectory(TMP_DIR_PREFIX);
-        Path tempArchive = createBackupArchive(fxArchiveInfo, tempDir);
-
         List<FileInfo> files = com.ntak.pearlzip.ui.util.internal.ArchiveUtil.handleDirectory(prefix, dirPath.getParent(), dirPath, depth + 1, index);
         files.add(new FileInfo((index + 1), depth,
                                depth > 0 ? String.format("%s/%s", prefix,
@@ -176,8 +164,7 @@ public class ArchiveUtil {
         boolean success = archiveWriteService.addFile(sessionId, fxArchiveInfo.getArchiveInfo(),
                                                       files.toArray(new FileInfo[0]));
         if (!success) {
-            restoreBackupArchive(tempArchive,
-                                 Paths.get(fxArchiveInfo.getArchivePath()));
+            // The archive is left untouched by a failed addition
             JFXUtil.runLater(fxArchiveInfo::refresh);
 
             // LOG: Issue adding directory %s
@@ -192,8 +179,6 @@ public class ArchiveUtil {
                        null
             );
         }
-
-        removeBackupArchive(tempArchive);
     }
 
     public static void addFile(long sessionId, FXArchiveInfo fxArchiveInfo, File rawFile, String fileName) throws IOException {
@@ -201,9 +186,6 @@ public class ArchiveUtil {
         int index = fxArchiveInfo.getFiles().size();
         String prefix = fxArchiveInfo.getPrefix();
 
-        Path tempDir = Files.createTempDirectory(TMP_DIR_PREFIX);
-        Path tempArchive = createBackupArchive(fxArchiveInfo, tempDir);
-
         ArchiveWriteService service = ZipState.getWriteArchiveServiceForFile(
                fxArchiveInfo.getArchivePath()).get();
         boolean success;
@@ -244,8 +226,7 @@ public class ArchiveUtil {
         }
 
         if (!success) {
-            restoreBackupArchive(tempArchive,
-                                 Paths.get(fxArchiveInfo.getArchivePath()));
+            // The archive is left untouched by a failed addition
             JFXUtil.runLater(fxArchiveInfo::refresh);
 
             // LOG: Issue adding file %s
@@ -267,9 +248,42 @@ public class ArchiveUtil {
         return launchMainStage(new Stage(), fxArchiveInfo);
     }
 
+    public static boolean isInMemorySupported(ArchiveReadService readService) {
+        return readService.getArchiveServiceProfile()
+                          .getComponent(ReadServiceComponent.class)
+                          .map(c -> Boolean.parseBoolean(c.getFunctionalitySpec(ArchiveReadService.IN_MEMORY_ARCHIVES)))
+                          .orElse(false);
+    }
+
     public static void checkArchiveExists(FXArchiveInfo archiveInfo) throws AlertException {
-        // File locked...
+        checkArchiveExists(archiveInfo, false);
+    }
+
+    /**
+     *   Checks the archive is accessible before processing it. Archives held in memory are present by definition,
+     *   unless they are about to be modified, in which case they are first written to disk.
+     *
+     *   @param archiveInfo The archive to check
+     *   @param isModified Whether the archive will be modified by the operation about to take place
+     *   @throws AlertException if the archive is locked or does not exist
+     */
+    public static void checkArchiveExists(FXArchiveInfo archiveInfo, boolean isModified) throws AlertException {
         final Path archivePath = Path.of(archiveInfo.getArchivePath());
+        if (InMemoryArchiveStore.contains(archivePath)) {
+            if (!isModified) {
+                return;
+            }
+
+            try {
+                InMemoryArchiveStore.spill(archivePath);
+            } catch(IOException e) {
+                // LOG: Issue writing in-memory archive %s to disk. Message: %s
+                LOGGER.error(resolveTextKey(LOG_IN_MEMORY_ARCHIVE_SPILL_ISSUE, archivePath.toAbsolutePath().toString(),
+                                            e.getMessage()));
+            }
+        }
+
+        // File locked...
         if (!Files.exists(archivePath) && !Files.notExists(archivePath)) {
             // LOG: Archive %s is locked and cannot be accessed.
             // TITLE: ERROR: Archive Locked
@@ -332,7 +346,15 @@ public class ArchiveUtil {
                                                                ZipState.getWriteArchiveServiceForFile(file.getName()).orElse(null)
             );
 
-            if (!readService.testArchive(System.currentTimeMillis(), file.getAbsolutePath())) {
+            // Opening an archive takes priority over warming up the listing cache
+            ListingCacheWarmer.stop();
+
+            // An archive with a cached listing is unchanged since it was last listed in full, so it is not tested again.
+            // Listings which failed part of the way through are never cached, so the archive is tested as usual.
+            final Optional<List<FileInfo>> cachedFiles = ListingCache.get(file.toPath());
+            if (cachedFiles.isPresent()) {
+                newFxArchiveInfo.setFiles(cachedFiles.get());
+            } else if (!readService.testArchive(System.currentTimeMillis(), file.getAbsolutePath())) {
                 throw new Exception(resolveTextKey(LOG_ARCHIVE_TEST_FAILED, file.getAbsolutePath()));
             }
 
@@ -523,22 +545,22 @@ public class ArchiveUtil {
                               }
                           }
                  );
-            // Create files
+            // Create files in a single pass of the archive
+            Map<FileInfo,Path> targets = new LinkedHashMap<>();
             files.get(Boolean.FALSE)
-                 .forEach(f -> fxArchiveInfo.getReadService()
-                                            .extractFile(sessionId,
-                                                         Paths.get(targetDir.toAbsolutePath()
-                                                                          .toString().replace("/" + selectedFile.getFileName() + "/",
-                                                                                          "/"),
-                                                                   Paths.get(selectedFile.getFileName()).getFileName().toString(),
-                                                                   Paths.get(selectedFile.getFileName())
-                                                                        .relativize(Paths.get(f.getFileName()))
-                                                                                         .toString()
-                                                         ),
-                                                         fxArchiveInfo.getArchiveInfo(),
-                                                         f
-                                            )
+                 .forEach(f -> targets.put(f,
+                                           Paths.get(targetDir.toAbsolutePath()
+                                                              .toString().replace("/" + selectedFile.getFileName() + "/",
+                                                                                  "/"),
+                                                     Paths.get(selectedFile.getFileName()).getFileName().toString(),
+                                                     Paths.get(selectedFile.getFileName())
+                                                          .relativize(Paths.get(f.getFileName()))
+                                                          .toString()
+                                           )
+                          )
                  );
+            fxArchiveInfo.getReadService()
+                         .extractFiles(sessionId, fxArchiveInfo.getArchiveInfo(), targets);
         } catch (Exception e) {
 
         } finally {
@@ -71,6 +71,16 @@ public class ClearCacheRunnable implements CaughtRunnable {
                  }
              });
 
+        // Remove listings moved out of memory, which are no longer held by an open window
+        List<Path> listingFiles =
+                getMainStageInstances().stream()
+                                       .flatMap(s -> ((FXArchiveInfo) s.getUserData()).getListingPaths().stream())
+                                       .collect(Collectors.toList());
+        Path LISTING_TEMP = STORE_TEMP.resolve(FXArchiveInfo.LISTING_DIR);
+        if (Files.exists(LISTING_TEMP)) {
+            ArchiveUtil.deleteDirectory(LISTING_TEMP, listingFiles::contains);
+        }
+
         // Cleaning up OS temporary data..
         long activeMigrationsCount =
                 getMainStageInstances().stream()
@@ -145,6 +155,14 @@ public class ClearCacheRunnable implements CaughtRunnable {
                                 .<Map<String,QueryResult>>getAdditionalConfig(CK_QUERY_RESULT_CACHE)
                                 .get()
                                 .clear();
+
+            // Clearing cached archive listings...
+            ArchiveService.DEFAULT_BUS.post(new ProgressMessage(sessionId,
+                                                                PROGRESS,
+                                                                resolveTextKey(LBL_CLEAR_UP_LISTING_CACHE),
+                                                                INDETERMINATE_PROGRESS,
+                                                                1));
+            ListingCache.clear();
         }
     }
 }
@@ -118,12 +118,7 @@ public class JFXUtil {
         fxArchiveInfo.getDepth()
                      .set(depth);
         fxArchiveInfo.setPrefix(prefix);
-        fileInfoTableView.setItems(FXCollections.observableArrayList(fxArchiveInfo.getFiles()
-                                                                                  .stream()
-                                                                                  .filter(isFileInArchiveLevel(
-                                                                                          fxArchiveInfo))
-                                                                                  .collect(
-                                                                                         Collectors.toList())));
+        fileInfoTableView.setItems(FXCollections.observableList(fxArchiveInfo.getChildren()));
         fileInfoTableView.refresh();
     }
 
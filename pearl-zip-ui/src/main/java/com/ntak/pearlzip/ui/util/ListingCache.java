@@ -0,0 +1,305 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.ui.util;
+
+import com.ntak.pearlzip.archive.pub.AbstractFileInfoStore;
+import com.ntak.pearlzip.archive.pub.FileInfo;
+import com.ntak.pearlzip.archive.pub.FileInfoStore;
+import com.ntak.pearlzip.ui.constants.internal.InternalContextCache;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.LoggerContext;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.ntak.pearlzip.archive.util.LoggingUtil.resolveTextKey;
+import static com.ntak.pearlzip.ui.constants.ZipConstants.*;
+
+/**
+ *  Persistent cache of archive listings, held in the listing-cache directory of the PearlZip store. Each listing is
+ *  stored in a compressed, compact form, along with a fingerprint of the archive (its size, last modified time and a
+ *  hash of its first and last 64 KB). A cached listing is only used while the fingerprint of the archive matches, so
+ *  an archive which has been modified is listed afresh. The cache is capped in size and the least recently used
+ *  listings (and any checkpoint indices persisted alongside them) are evicted first.
+ *  @author Aashutos Kakshepati
+ */
+public class ListingCache {
+
+    public static final String LISTING_CACHE_DIR = "listing-cache";
+    private static final Logger LOGGER = LoggerContext.getContext().getLogger(ListingCache.class);
+    private static final int VERSION = 2;
+    private static final int FINGERPRINT_BLOCK_SIZE = 64 * 1024;
+    private static final String EXTENSION = ".lst";
+    // Checkpoint indices of compressed tar archives, which archive services persist alongside the cached listings
+    private static final String INDEX_EXTENSION = ".idx";
+
+    /**
+     *   Retrieves the cached listing of the archive specified, if the archive is unchanged since it was cached.
+     *
+     *   @param archive The archive to be listed
+     *   @return Optional&lt;List&lt;FileInfo&gt;&gt; - The cached listing of the archive, if present and valid
+     */
+    public static Optional<List<FileInfo>> get(Path archive) {
+        final Optional<Path> cacheFile = getCacheFile(archive);
+        if (cacheFile.isEmpty() || !Files.exists(cacheFile.get())) {
+            return Optional.empty();
+        }
+
+        try(DataInputStream iStream =
+                    new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(cacheFile.get()))))) {
+            if (iStream.readInt() != VERSION || !archive.toAbsolutePath().toString().equals(iStream.readUTF())
+                    || !Arrays.equals(fingerprint(archive), readBytes(iStream))) {
+                return Optional.empty();
+            }
+
+            final List<Map<String,Object>> infoMaps = new ArrayList<>();
+            for (int i = iStream.readInt(); i > 0; i--) {
+                final Map<String,Object> infoMap = new HashMap<>();
+                for (int j = iStream.readInt(); j > 0; j--) {
+                    infoMap.put(readString(iStream), readString(iStream));
+                }
+                infoMaps.add(Map.copyOf(infoMap));
+            }
+
+            final int size = iStream.readInt();
+            final FileInfoStore files = new FileInfoStore(size);
+            for (int i = 0; i < size; i++) {
+                final byte flags = iStream.readByte();
+                files.add(new FileInfo(iStream.readInt(),
+                                       iStream.readInt(),
+                                       readString(iStream),
+                                       iStream.readLong(),
+                                       iStream.readLong(),
+                                       iStream.readLong(),
+                                       readDateTime(iStream),
+                                       readDateTime(iStream),
+                                       readDateTime(iStream),
+                                       readString(iStream),
+                                       readString(iStream),
+                                       iStream.readInt(),
+                                       readString(iStream),
+                                       (flags & 1) != 0,
+                                       (flags & 2) != 0,
+                                       infoMaps.get(iStream.readInt())));
+            }
+
+            // Mark as recently used
+            Files.setLastModifiedTime(cacheFile.get(), FileTime.from(Instant.now()));
+            return Optional.of(files);
+        } catch(IOException | RuntimeException e) {
+            // LOG: Issue accessing the cached listing of %s. Message: %s
+            LOGGER.warn(resolveTextKey(LOG_LISTING_CACHE_ISSUE, archive, e.getMessage()));
+            return Optional.empty();
+        }
+    }
+
+    /**
+     *   Persists the listing of the archive specified, evicting the least recently used listings if the cache would
+     *   otherwise exceed its size cap. Listings with additional information which cannot be cached are skipped.
+     *   Only complete listings are to be cached, as a cached listing is used in place of testing the archive.
+     *
+     *   @param archive The archive which was listed
+     *   @param files The complete listing of the archive
+     */
+    public static void put(Path archive, List<FileInfo> files) {
+        final Optional<Path> cacheFile = getCacheFile(archive);
+        if (cacheFile.isEmpty()) {
+            return;
+        }
+
+        // The interned info maps of the store are written once and referenced by id, so that no entry has its map
+        // materialised
+        final AbstractFileInfoStore store = files instanceof AbstractFileInfoStore fileInfoStore ? fileInfoStore :
+                new FileInfoStore(files);
+        final List<Map<String,Object>> infoMaps = store.getInfoMaps();
+        if (infoMaps.stream().flatMap(m -> m.values().stream()).anyMatch(v -> !(v instanceof String))) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(cacheFile.get().getParent());
+            final Path tempFile = Files.createTempFile(cacheFile.get().getParent(), "listing", ".tmp");
+            try(DataOutputStream oStream =
+                        new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tempFile))))) {
+                oStream.writeInt(VERSION);
+                oStream.writeUTF(archive.toAbsolutePath().toString());
+                writeBytes(oStream, fingerprint(archive));
+
+                oStream.writeInt(infoMaps.size());
+                for (Map<String,Object> infoMap : infoMaps) {
+                    oStream.writeInt(infoMap.size());
+                    for (Map.Entry<String,Object> entry : infoMap.entrySet()) {
+                        writeString(oStream, entry.getKey());
+                        writeString(oStream, (String) entry.getValue());
+                    }
+                }
+
+                oStream.writeInt(store.size());
+                for (int i = 0; i < store.size(); i++) {
+                    final FileInfo file = store.get(i);
+                    oStream.writeByte((file.isFolder() ? 1 : 0) | (file.isEncrypted() ? 2 : 0));
+                    oStream.writeInt(file.getIndex());
+                    oStream.writeInt(file.getLevel());
+                    writeString(oStream, file.getFileName());
+                    oStream.writeLong(file.getCrcHash());
+                    oStream.writeLong(file.getPackedSize());
+                    oStream.writeLong(file.getRawSize());
+                    writeDateTime(oStream, file.getLastWriteTime());
+                    writeDateTime(oStream, file.getLastAccessTime());
+                    writeDateTime(oStream, file.getCreationTime());
+                    writeString(oStream, file.getUser());
+                    writeString(oStream, file.getGroup());
+                    oStream.writeInt(file.getAttributes());
+                    writeString(oStream, file.getComments());
+                    oStream.writeInt(store.getInfoMapId(i));
+                }
+            } catch(IOException | RuntimeException e) {
+                Files.deleteIfExists(tempFile);
+                throw e;
+            }
+            Files.move(tempFile, cacheFile.get(), StandardCopyOption.REPLACE_EXISTING);
+
+            evict(cacheFile.get().getParent(),
+                  Long.parseLong(System.getProperty(CNS_LISTING_CACHE_MAX_BYTES, "268435456")));
+        } catch(IOException | RuntimeException e) {
+            // LOG: Issue accessing the cached listing of %s. Message: %s
+            LOGGER.warn(resolveTextKey(LOG_LISTING_CACHE_ISSUE, archive, e.getMessage()));
+        }
+    }
+
+    /**
+     *   Removes all cached listings.
+     */
+    public static void clear() {
+        getCacheDirectory().filter(Files::exists)
+                           .ifPresent(d -> ArchiveUtil.deleteDirectory(d, (p) -> false));
+    }
+
+    static void evict(Path cacheDirectory, long maxBytes) throws IOException {
+        final List<Path> cacheFiles;
+        try(Stream<Path> files = Files.list(cacheDirectory)) {
+            cacheFiles = files.filter(f -> f.getFileName().toString().endsWith(EXTENSION)
+                                        || f.getFileName().toString().endsWith(INDEX_EXTENSION))
+                              .sorted(Comparator.comparing(ListingCache::lastModified).reversed())
+                              .collect(Collectors.toList());
+        }
+
+        long total = 0;
+        for (Path cacheFile : cacheFiles) {
+            total += Files.size(cacheFile);
+            if (total > maxBytes) {
+                Files.deleteIfExists(cacheFile);
+            }
+        }
+    }
+
+    static byte[] fingerprint(Path archive) throws IOException {
+        try(FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ)) {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            final long size = channel.size();
+            final ByteBuffer buffer = ByteBuffer.allocate(FINGERPRINT_BLOCK_SIZE);
+            digest.update(ByteBuffer.allocate(16)
+                                    .putLong(size)
+                                    .putLong(Files.getLastModifiedTime(archive).toMillis())
+                                    .flip());
+            digestBlock(channel, 0, buffer, digest);
+            if (size > FINGERPRINT_BLOCK_SIZE) {
+                digestBlock(channel, Math.max(size - FINGERPRINT_BLOCK_SIZE, FINGERPRINT_BLOCK_SIZE), buffer, digest);
+            }
+            return digest.digest();
+        } catch(NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static void digestBlock(FileChannel channel, long position, ByteBuffer buffer, MessageDigest digest)
+            throws IOException {
+        buffer.clear();
+        int read;
+        while (buffer.hasRemaining() && (read = channel.read(buffer, position + buffer.position())) >= 0) {
+            if (read == 0) {
+                break;
+            }
+        }
+        digest.update(buffer.flip());
+    }
+
+    private static Optional<Path> getCacheDirectory() {
+        return InternalContextCache.GLOBAL_CONFIGURATION_CACHE.<Path>getAdditionalConfig(CK_STORE_ROOT)
+                                                              .map(r -> r.resolve(LISTING_CACHE_DIR));
+    }
+
+    private static Optional<Path> getCacheFile(Path archive) {
+        try {
+            final byte[] key = MessageDigest.getInstance("SHA-256")
+                                            .digest(archive.toAbsolutePath()
+                                                           .toString()
+                                                           .getBytes(StandardCharsets.UTF_8));
+            return getCacheDirectory().map(d -> d.resolve(HexFormat.of().formatHex(key) + EXTENSION));
+        } catch(NoSuchAlgorithmException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch(IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static void writeString(DataOutputStream oStream, String value) throws IOException {
+        if (value == null) {
+            oStream.writeInt(-1);
+            return;
+        }
+        writeBytes(oStream, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readString(DataInputStream iStream) throws IOException {
+        final byte[] bytes = readBytes(iStream);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeBytes(DataOutputStream oStream, byte[] bytes) throws IOException {
+        oStream.writeInt(bytes.length);
+        oStream.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream iStream) throws IOException {
+        final int length = iStream.readInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        iStream.readFully(bytes);
+        return bytes;
+    }
+
+    private static void writeDateTime(DataOutputStream oStream, LocalDateTime dateTime) throws IOException {
+        oStream.writeLong(dateTime == null ? Long.MIN_VALUE :
+                                  dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    private static LocalDateTime readDateTime(DataInputStream iStream) throws IOException {
+        final long millis = iStream.readLong();
+        return millis == Long.MIN_VALUE ? null :
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.ui.util;
+
+import com.ntak.pearlzip.archive.pub.ArchiveReadService;
+import com.ntak.pearlzip.archive.pub.ArchiveService;
+import com.ntak.pearlzip.archive.pub.FileInfoStore;
+import com.ntak.pearlzip.archive.pub.ProgressMessage;
+import com.ntak.pearlzip.ui.constants.internal.InternalContextCache;
+import com.ntak.pearlzip.ui.model.ZipState;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.greenrobot.eventbus.Subscribe;
+import org.greenrobot.eventbus.ThreadMode;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.ntak.pearlzip.archive.util.LoggingUtil.resolveTextKey;
+import static com.ntak.pearlzip.ui.constants.ZipConstants.*;
+
+/**
+ *  Implementation of CaughtRunnable, which lists recently opened archives into the {@link ListingCache}, so that
+ *  reopening them does not require the archive to be parsed. Archives with a valid cached listing are skipped. The
+ *  warm up stops as soon as any other operation reports progress or an archive is opened, and archives are only
+ *  listed while their total size is within the I/O budget.
+ *  @author Aashutos Kakshepati
+ */
+public class ListingCacheWarmer implements CaughtRunnable {
+
+    private static final Logger LOGGER = LoggerContext.getContext().getLogger(ListingCacheWarmer.class);
+    private static final AtomicBoolean STOPPED = new AtomicBoolean(false);
+
+    private final long sessionId;
+    private final long budget;
+
+    public ListingCacheWarmer(long sessionId, long budget) {
+        this.sessionId = sessionId;
+        this.budget = budget;
+    }
+
+    /**
+     *   Stops any warm up in progress after the archive currently being listed. No further warm up occurs in this
+     *   session.
+     */
+    public static void stop() {
+        STOPPED.set(true);
+    }
+
+    @Subscribe(threadMode=ThreadMode.BACKGROUND)
+    public void onProgressMessage(ProgressMessage message) {
+        if (message.sessionId() != sessionId) {
+            stop();
+        }
+    }
+
+    @Override
+    public void execute() throws Exception {
+        final Optional<Path> recentFile = InternalContextCache.GLOBAL_CONFIGURATION_CACHE.getAdditionalConfig(CK_RECENT_FILE);
+        if (recentFile.isEmpty() || !Files.exists(recentFile.get())) {
+            return;
+        }
+
+        final List<Path> archives;
+        try(Stream<String> lines = Files.lines(recentFile.get())) {
+            archives = lines.limit(15)
+                            .map(Paths::get)
+                            .filter(Files::isRegularFile)
+                            .collect(Collectors.toList());
+        }
+
+        ArchiveService.DEFAULT_BUS.register(this);
+        try {
+            long remaining = budget;
+            for (Path archive : archives) {
+                if (STOPPED.get()) {
+                    break;
+                }
+
+                final long size = Files.size(archive);
+                final Optional<ArchiveReadService> readService =
+                        ZipState.getReadArchiveServiceForFile(archive.getFileName().toString());
+                if (size > remaining || readService.isEmpty() || ListingCache.get(archive).isPresent()) {
+                    continue;
+                }
+
+                // LOG: Warming up cached listing of %s...
+                LOGGER.debug(resolveTextKey(LOG_LISTING_CACHE_WARM_UP, archive));
+                final FileInfoStore files = new FileInfoStore();
+                if (readService.get().listFiles(sessionId,
+                                                ArchiveService.generateDefaultArchiveInfo(archive.toAbsolutePath().toString()),
+                                                files::addAll)) {
+                    files.trimToSize();
+                    ListingCache.put(archive, files);
+                }
+                remaining -= size;
+            }
+        } finally {
+            ArchiveService.DEFAULT_BUS.unregister(this);
+        }
+    }
+}
@@ -3,21 +3,28 @@
  */
 package com.ntak.pearlzip.ui.model;
 
+import com.ntak.pearlzip.archive.pub.ArchiveInfo;
 import com.ntak.pearlzip.archive.pub.ArchiveReadService;
 import com.ntak.pearlzip.archive.pub.ArchiveWriteService;
 import com.ntak.pearlzip.archive.pub.FileInfo;
 import org.junit.jupiter.api.*;
 import org.mockito.Mockito;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 
 public class FXArchiveInfoTest {
@@ -26,18 +33,30 @@ public class FXArchiveInfoTest {
     private static ArchiveReadService readService;
     private static FXArchiveInfo fxArchiveInfo;
     private static Path archive;
+    private static Path indexArchive;
+    private static Path batchArchive;
+    private static Path failedArchive;
     /*
      * Test cases:
      * + Test refresh resets state of archive
+     * + Test directory index retrieves the immediate children of a folder
+     * + Test load files appends each batch to the listing and notifies the listener
+     * + Test load files discards a listing which threw, so the archive is listed again on next access
      */
 
     @BeforeAll
     public static void setUpOnce() throws IOException {
         archive = Files.createTempFile("pz", "");
+        indexArchive = Files.createTempFile("pz", "");
+        batchArchive = Files.createTempFile("pz", "");
+        failedArchive = Files.createTempFile("pz", "");
         writeService = Mockito.mock(ArchiveWriteService.class);
         readService = Mockito.mock(ArchiveReadService.class);
+        // Archives are listed through the batch variant, which pushes the stubbed listings below as a single batch
+        when(readService.listFiles(anyLong(), any(ArchiveInfo.class), any())).thenCallRealMethod();
 
-        when(readService.listFiles(anyLong(), eq(archive.toAbsolutePath().toString()))).thenReturn(List.of(
+        final ArchiveInfo archiveInfo = mockArchiveInfo(archive);
+        when(readService.listFiles(anyLong(), eq(archiveInfo))).thenReturn(List.of(
                 new FileInfo(0, 0, "folder", 0, 0, 0,
                              LocalDateTime.now(), LocalDateTime.now(), LocalDateTime.now(), "user", "group",
                              0, "", true, false, Collections.emptyMap()),
@@ -56,6 +75,9 @@ public class FXArchiveInfoTest {
     @AfterAll
     public static void tearDownOnce() throws IOException {
         Files.deleteIfExists(archive);
+        Files.deleteIfExists(indexArchive);
+        Files.deleteIfExists(batchArchive);
+        Files.deleteIfExists(failedArchive);
     }
 
     @Test
@@ -109,4 +131,118 @@ public class FXArchiveInfoTest {
                 "mock archive");
 
     }
+
+    @Test
+    @DisplayName("Test: Directory index retrieves the immediate children of the current folder")
+    public void testGetChildren_MatchExpectations() {
+        final String nestedFolder = String.format("folder%ssub-folder", File.separator);
+        final ArchiveInfo indexArchiveInfo = mockArchiveInfo(indexArchive);
+        when(readService.listFiles(anyLong(), eq(indexArchiveInfo))).thenReturn(List.of(
+                new FileInfo(0, 0, "folder", 0, 0, 0,
+                             LocalDateTime.now(), LocalDateTime.now(), LocalDateTime.now(), "user", "group",
+                             0, "", true, false, Collections.emptyMap()),
+                new FileInfo(1, 0, "file", 0, 0, 0,
+                             LocalDateTime.now(), LocalDateTime.now(), LocalDateTime.now(), "user", "group",
+                             0, "", false, false, Collections.emptyMap()),
+                new FileInfo(2, 1, nestedFolder, 0, 0, 0,
+                             LocalDateTime.now(), LocalDateTime.now(), LocalDateTime.now(), "user", "group",
+                             0, "", true, false, Collections.emptyMap()),
+                new FileInfo(3, 1, String.format("folder%sinner-file", File.separator), 0, 0, 0,
+                             LocalDateTime.now(), LocalDateTime.now(), LocalDateTime.now(), "user", "group",
+                             0, "", false, false, Collections.emptyMap()),
+                new FileInfo(4, 2, String.format("%s%sdeep-file", nestedFolder, File.separator), 0, 0, 0,
+                             LocalDateTime.now(), LocalDateTime.now(), LocalDateTime.now(), "user", "group",
+                             0, "", false, false, Collections.emptyMap())
+        ));
+        FXArchiveInfo indexedArchiveInfo = new FXArchiveInfo(indexArchive.toAbsolutePath().toString(), readService,
+                                                             writeService);
+
+        // Root level
+        Assertions.assertEquals(List.of("folder", "file"),
+                                indexedArchiveInfo.getChildren().stream().map(FileInfo::getFileName).collect(Collectors.toList()),
+                                "Root level entries were not as expected");
+
+        // Navigate into folder
+        indexedArchiveInfo.getDepth().incrementAndGet();
+        indexedArchiveInfo.setPrefix("folder");
+        Assertions.assertEquals(2, indexedArchiveInfo.getChildren().size(), "Folder entries were not as expected");
+
+        // Navigate into sub-folder
+        indexedArchiveInfo.getDepth().incrementAndGet();
+        indexedArchiveInfo.setPrefix(nestedFolder);
+        Assertions.assertEquals(1, indexedArchiveInfo.getChildren().size(), "Sub-folder entries were not as expected");
+        Assertions.assertTrue(indexedArchiveInfo.getChildren(String.format("%s%sdeep-file", nestedFolder, File.separator)).isEmpty(),
+                              "File unexpectedly had children");
+
+        // Index is invalidated on modification of listing
+        indexedArchiveInfo.getFiles().add(new FileInfo(5, 2, String.format("%s%sanother-file", nestedFolder,
+                                                                           File.separator), 0, 0, 0,
+                                                       LocalDateTime.now(), LocalDateTime.now(), LocalDateTime.now(),
+                                                       "user", "group", 0, "", false, false, Collections.emptyMap()));
+        Assertions.assertEquals(2, indexedArchiveInfo.getChildren().size(), "Index was not rebuilt on modification");
+    }
+
+    @Test
+    @DisplayName("Test: Load files appends each batch to the listing and notifies the listener")
+    public void testLoadFiles_Batches_MatchExpectations() {
+        final FileInfo folder = new FileInfo(0, 0, "folder", 0, 0, 0,
+                                             LocalDateTime.now(), LocalDateTime.now(), LocalDateTime.now(), "user",
+                                             "group", 0, "", true, false, Collections.emptyMap());
+        final FileInfo file = new FileInfo(1, 1, String.format("folder%sfile", File.separator), 0, 0, 0,
+                                           LocalDateTime.now(), LocalDateTime.now(), LocalDateTime.now(), "user",
+                                           "group", 0, "", false, false, Collections.emptyMap());
+        FXArchiveInfo batchArchiveInfo = new FXArchiveInfo(batchArchive.toAbsolutePath().toString(), readService,
+                                                           writeService);
+        doAnswer((invocation) -> {
+            Consumer<List<FileInfo>> consumer = invocation.getArgument(2);
+            consumer.accept(List.of(folder));
+            consumer.accept(List.of(file));
+            return true;
+        }).when(readService).listFiles(anyLong(), eq(batchArchiveInfo.getArchiveInfo()), any());
+
+        List<List<FileInfo>> batches = new ArrayList<>();
+        batchArchiveInfo.loadFiles(batches::add);
+        Assertions.assertEquals(List.of(List.of(folder), List.of(file)), batches, "Batches were not pushed as expected");
+        Assertions.assertEquals(List.of(folder, file), batchArchiveInfo.getFiles(), "Listing was not as expected");
+        Assertions.assertEquals(List.of(folder), batchArchiveInfo.getChildren(), "Root level entries were not as expected");
+
+        // Loading a listed archive pushes the current level as a single batch
+        batches.clear();
+        batchArchiveInfo.loadFiles(batches::add);
+        Assertions.assertEquals(1, batches.size(), "Listed archive was not pushed as a single batch");
+    }
+
+    @Test
+    @DisplayName("Test: Load files discards a listing which threw, so the archive is listed again on next access")
+    public void testLoadFiles_Exception_ListedAgain() {
+        final FileInfo file = new FileInfo(0, 0, "file", 0, 0, 0,
+                                           LocalDateTime.now(), LocalDateTime.now(), LocalDateTime.now(), "user",
+                                           "group", 0, "", false, false, Collections.emptyMap());
+        final FileInfo otherFile = new FileInfo(1, 0, "other-file", 0, 0, 0,
+                                                LocalDateTime.now(), LocalDateTime.now(), LocalDateTime.now(), "user",
+                                                "group", 0, "", false, false, Collections.emptyMap());
+        final ArchiveInfo failedArchiveInfo = mockArchiveInfo(failedArchive);
+        doAnswer((invocation) -> {
+            Consumer<List<FileInfo>> consumer = invocation.getArgument(2);
+            consumer.accept(List.of(file));
+            throw new IllegalStateException("Listing failed");
+        }).doAnswer((invocation) -> {
+            Consumer<List<FileInfo>> consumer = invocation.getArgument(2);
+            consumer.accept(List.of(otherFile));
+            return true;
+        }).when(readService).listFiles(anyLong(), eq(failedArchiveInfo), any());
+        FXArchiveInfo failedFxArchiveInfo = new FXArchiveInfo(failedArchive.toAbsolutePath().toString(), readService,
+                                                              writeService);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> failedFxArchiveInfo.loadFiles((batch) -> {}),
+                                "Listing exception was not propagated");
+        Assertions.assertEquals(List.of(otherFile), failedFxArchiveInfo.getFiles(), "Archive was not listed again");
+    }
+
+    private static ArchiveInfo mockArchiveInfo(Path path) {
+        final ArchiveInfo archiveInfo = new ArchiveInfo();
+        archiveInfo.setArchivePath(path.toAbsolutePath().toString());
+        when(readService.generateArchiveMetaData(path.toAbsolutePath().toString())).thenReturn(archiveInfo);
+        return archiveInfo;
+    }
 }
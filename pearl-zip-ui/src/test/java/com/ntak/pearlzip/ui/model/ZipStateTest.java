@@ -71,6 +71,7 @@ public class ZipStateTest {
         + Add license declarations
         + Add write archive service
         + Add read archive service
+        + Add read archive service by compound extension
         + Compressor archives listing
         + Priority archive service override
      */
@@ -128,6 +129,23 @@ public class ZipStateTest {
         Assertions.assertFalse(ZipState.getReadArchiveServiceForFile("negative-test.tgz").isPresent());
     }
 
+    @Test
+    @DisplayName("Test: Compound extension read archive service takes precedence over final extension")
+    public void testAddArchiveReadService_CompoundExtension_Success() {
+        final ArchiveServiceProfile compoundProfile = new ArchiveServiceProfile("test-compound-provider");
+        compoundProfile.addComponent(new ReadServiceComponent(Set.of("tar.xz"), Collections.emptyMap()));
+        final ArchiveReadService compoundReadService = Mockito.mock(ArchiveReadService.class);
+        when(compoundReadService.getArchiveServiceProfile()).thenReturn(compoundProfile);
+        ZipState.addArchiveProvider(compoundReadService);
+
+        Assertions.assertEquals(compoundReadService, ZipState.getReadArchiveServiceForFile("test.TAR.xz").orElse(null),
+                                "Compound extension service was not used");
+        Assertions.assertEquals(compoundReadService, ZipState.getReadArchiveServiceForFile(".tar.xz").orElse(null),
+                                "Compound extension service was not used");
+        Assertions.assertFalse(ZipState.getReadArchiveServiceForFile("negative-test.xz").isPresent());
+        Assertions.assertFalse(ZipState.getReadArchiveServiceForFile("negative-test.zip.xz").isPresent());
+    }
+
     @Test
     @DisplayName("Test: List default compressor archive file types successfully")
     public void testListCompressorArchive_Success() {
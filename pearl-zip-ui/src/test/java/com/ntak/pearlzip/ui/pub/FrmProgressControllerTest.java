@@ -18,6 +18,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.function.Consumer;
 
 import static com.ntak.pearlzip.archive.constants.LoggingConstants.PROGRESS;
+import static com.ntak.pearlzip.archive.constants.LoggingConstants.PROGRESS_COUNT;
 import static java.lang.Thread.MIN_PRIORITY;
 
 @Tag("Excluded")
@@ -33,6 +34,7 @@ public class FrmProgressControllerTest {
    /*
         Test cases:
         + Update progress interim
+        + Update progress running count
         + Update progress complete
     */
 
@@ -97,6 +99,25 @@ public class FrmProgressControllerTest {
        }
    }
 
+    @Test
+    @DisplayName("Test: Consume Progress Running Count Update will reflect in the progress bar fields appropriately")
+    public void testConsumeProgressUpdate_ProgressCount_MatchExpectations() throws InterruptedException {
+        final int total = 10;
+        for (int i = 1; i <= total; i++) {
+            controller.consumeUpdate(new ProgressMessage(1L,
+                                                         PROGRESS_COUNT,
+                                                         String.format("Test progress message: %d", i),
+                                                         i,
+                                                         total));
+            Thread.sleep(50);
+            Assertions.assertEquals(String.format("Test progress message: %d", i), lblProgress.getText(),
+                                    String.format("Progress message %d not processed successfully", i));
+            Assertions.assertEquals(String.format("%.2f", (double)i/ total),
+                                    String.format("%.2f", barProgress.getProgress()),
+                                    String.format("Progress for %d was not a successful match", i));
+        }
+    }
+
     @Test
     @DisplayName("Test: Consume Process Completed Update will reflect in the progress bar fields appropriately")
     public void testConsumeProgressUpdate_ProcessCompleted_MatchExpectations() throws InterruptedException {
@@ -3,6 +3,7 @@
  */
 package com.ntak.pearlzip.ui.util;
 
+import com.ntak.pearlzip.archive.pub.ArchiveInfo;
 import com.ntak.pearlzip.archive.pub.ArchiveReadService;
 import com.ntak.pearlzip.archive.pub.ArchiveWriteService;
 import com.ntak.pearlzip.archive.pub.FileInfo;
@@ -24,6 +25,7 @@ import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.stream.Collectors;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
@@ -63,6 +65,7 @@ public class JFXUtilTest {
 
             mockReadService = Mockito.mock(ArchiveReadService.class);
             mockWriteService = Mockito.mock(ArchiveWriteService.class);
+            when(mockReadService.listFiles(anyLong(), any(ArchiveInfo.class), any())).thenCallRealMethod();
 
             archiveInfo = new FXArchiveInfo(archive.toAbsolutePath().toString(), mockReadService, mockWriteService);
 
@@ -0,0 +1,139 @@
+/*
+ * Copyright © 2022 92AK
+ */
+package com.ntak.pearlzip.ui.util;
+
+import com.ntak.pearlzip.archive.pub.FileInfo;
+import com.ntak.pearlzip.ui.UITestSuite;
+import com.ntak.pearlzip.ui.constants.internal.InternalContextCache;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static com.ntak.pearlzip.archive.constants.ConfigurationConstants.CNS_RES_BUNDLE;
+import static com.ntak.pearlzip.ui.constants.ZipConstants.CK_STORE_ROOT;
+import static com.ntak.pearlzip.ui.constants.ZipConstants.CNS_STORE_ROOT;
+
+public class ListingCacheTest {
+
+    /*
+     *  Test cases:
+     *  + Cached listing of an unchanged archive matches the listing cached
+     *  + Cached listing is not used once the archive has been modified
+     *  + Least recently used listings are evicted beyond the size cap
+     *  + Clearing the cache removes all cached listings
+     */
+
+    private Path cacheDirectory;
+    private Path archive;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        System.setProperty(CNS_RES_BUNDLE, "pearlzip-ui");
+        final Path STORE_ROOT = Paths.get(System.getProperty(CNS_STORE_ROOT,
+                                                             String.format("%s/.pz",
+                                                                           System.getProperty("user.home"))));
+        InternalContextCache.GLOBAL_CONFIGURATION_CACHE.setAdditionalConfig(CK_STORE_ROOT, STORE_ROOT);
+        cacheDirectory = STORE_ROOT.resolve(ListingCache.LISTING_CACHE_DIR);
+        UITestSuite.clearDirectory(cacheDirectory);
+
+        archive = Files.createTempFile("pz", ".zip");
+        Files.write(archive, new byte[200_000]);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(archive);
+        UITestSuite.clearDirectory(cacheDirectory);
+    }
+
+    @Test
+    @DisplayName("Test: Cached listing of an unchanged archive matches the listing cached")
+    public void testGet_UnchangedArchive_MatchExpectations() {
+        final LocalDateTime timestamp = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        final List<FileInfo> files = List.of(
+                new FileInfo(0, 0, "folder", 0L, 0L, 0L, null, null, null, null, null, 0, null, true, false,
+                             Map.of("icon-ref", "folder")),
+                new FileInfo(1, 1, "folder/file.txt", 1234L, 10L, 20L, timestamp, null, timestamp, "user", null, 644,
+                             "A comment", false, true, Map.of("icon-ref", "file")));
+
+        ListingCache.put(archive, files);
+        final Optional<List<FileInfo>> cachedFiles = ListingCache.get(archive);
+        Assertions.assertTrue(cachedFiles.isPresent(), "Listing was not cached");
+        Assertions.assertEquals(files, cachedFiles.get(), "Cached listing was not as expected");
+        Assertions.assertEquals("A comment", cachedFiles.get().get(1).getComments(), "Comments were not as expected");
+        Assertions.assertEquals(timestamp, cachedFiles.get().get(1).getLastWriteTime(),
+                                "Last write time was not as expected");
+        Assertions.assertEquals(Map.of("icon-ref", "file"), cachedFiles.get().get(1).getAdditionalInfoMap(),
+                                "Additional info was not as expected");
+    }
+
+    @Test
+    @DisplayName("Test: Cached listing is not used once the archive has been modified")
+    public void testGet_ModifiedArchive_Empty() throws IOException {
+        ListingCache.put(archive, List.of(entry(0, "a")));
+        Assertions.assertTrue(ListingCache.get(archive).isPresent(), "Listing was not cached");
+
+        final FileTime lastModified = Files.getLastModifiedTime(archive);
+        final byte[] contents = Files.readAllBytes(archive);
+        contents[contents.length - 1] = 1;
+        Files.write(archive, contents);
+        Files.setLastModifiedTime(archive, lastModified);
+        Assertions.assertTrue(ListingCache.get(archive).isEmpty(), "Listing of modified archive was used");
+    }
+
+    @Test
+    @DisplayName("Test: Least recently used listings are evicted beyond the size cap")
+    public void testEvict_SizeCap_OldestRemoved() throws IOException {
+        final Path otherArchive = Files.createTempFile("pz", ".zip");
+        try {
+            ListingCache.put(archive, List.of(entry(0, "a")));
+            ListingCache.put(otherArchive, List.of(entry(0, "b")));
+            try(Stream<Path> cacheFiles = Files.list(cacheDirectory)) {
+                cacheFiles.forEach(f -> {
+                    try {
+                        Files.setLastModifiedTime(f, FileTime.fromMillis(0));
+                    } catch(IOException e) {
+                    }
+                });
+            }
+            Assertions.assertTrue(ListingCache.get(archive).isPresent(), "Listing was not cached");
+
+            long maxSize = 0;
+            try(Stream<Path> cacheFiles = Files.list(cacheDirectory)) {
+                for (Path cacheFile : cacheFiles.toList()) {
+                    maxSize = Math.max(maxSize, Files.size(cacheFile));
+                }
+            }
+            ListingCache.evict(cacheDirectory, maxSize);
+            Assertions.assertTrue(ListingCache.get(archive).isPresent(), "Recently used listing was evicted");
+            Assertions.assertTrue(ListingCache.get(otherArchive).isEmpty(), "Least recently used listing was kept");
+        } finally {
+            Files.deleteIfExists(otherArchive);
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Clearing the cache removes all cached listings")
+    public void testClear_CachedListings_Removed() {
+        ListingCache.put(archive, List.of(entry(0, "a")));
+        ListingCache.clear();
+        Assertions.assertTrue(ListingCache.get(archive).isEmpty(), "Listing was not cleared");
+        Assertions.assertFalse(Files.exists(cacheDirectory), "Cache directory was not removed");
+    }
+
+    private static FileInfo entry(int index, String name) {
+        return new FileInfo(index, 0, name, 0L, 0L, 0L, null, null, null, null, null, 0, null, false, false,
+                            Map.of("icon-ref", "file"));
+    }
+}